@@ -98,7 +98,7 @@ public interface RecordPath {
                 absolute = false;
             }
 
-            return RecordPathCompiler.compile(firstChild, rootPath, absolute);
+            return RecordPathCompiler.optimize(RecordPathCompiler.compile(firstChild, rootPath, absolute));
         } catch (final RecordPathException e) {
             throw e;
         } catch (final Exception e) {
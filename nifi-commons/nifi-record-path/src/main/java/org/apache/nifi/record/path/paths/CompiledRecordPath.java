@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.record.path.paths;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.nifi.record.path.ArrayIndexFieldValue;
+import org.apache.nifi.record.path.FieldValue;
+import org.apache.nifi.record.path.MapEntryFieldValue;
+import org.apache.nifi.record.path.RecordPathEvaluationContext;
+import org.apache.nifi.record.path.StandardFieldValue;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+
+/**
+ * <p>
+ * A RecordPath that consists solely of child field references, single array indices and single map keys, starting at the root
+ * of the Record, such as <code>/a/b/c</code>, <code>/a[0]</code> or <code>/a['key']</code>. A path of this shape can never select
+ * more than one field, so rather than chaining a Stream pipeline through each segment, it is evaluated by walking the Record directly.
+ * </p>
+ *
+ * <p>
+ * The RecordFields that each step resolves to are cached against the most recently seen RecordSchema (or parent field), so that
+ * consecutive Records sharing a schema do not need to look them up again. If a Record does not have the shape that the fast path
+ * expects, the Record is evaluated by the underlying segments instead, so the results are always the same as those of the
+ * uncompiled RecordPath.
+ * </p>
+ */
+public class CompiledRecordPath extends RecordPathSegment {
+    private static final FieldValue NO_MATCH = new StandardFieldValue(null, null, null);
+    private static final FieldValue FALLBACK = new StandardFieldValue(null, null, null);
+
+    private final RecordPathSegment delegate;
+    private final Step[] steps;
+    private volatile Binding<RecordSchema, RecordField> rootBinding;
+
+    CompiledRecordPath(final RecordPathSegment delegate, final List<Step> steps) {
+        super(delegate.getPath(), delegate.getParentPath(), true);
+        this.delegate = delegate;
+        this.steps = steps.toArray(new Step[0]);
+    }
+
+    @Override
+    public Stream<FieldValue> evaluate(final RecordPathEvaluationContext context) {
+        final Record record = context.getRecord();
+        FieldValue fieldValue = new StandardFieldValue(record, getRootField(record.getSchema()), null);
+
+        for (final Step step : steps) {
+            fieldValue = step.apply(fieldValue);
+
+            if (fieldValue == NO_MATCH) {
+                return Stream.empty();
+            }
+            if (fieldValue == FALLBACK) {
+                return delegate.evaluate(context);
+            }
+        }
+
+        return Stream.of(fieldValue);
+    }
+
+    private RecordField getRootField(final RecordSchema schema) {
+        final Binding<RecordSchema, RecordField> binding = rootBinding;
+        if (binding != null && binding.key == schema) {
+            return binding.value;
+        }
+
+        final RecordField rootField = new RecordField("root", RecordFieldType.RECORD.getRecordDataType(schema));
+        rootBinding = new Binding<>(schema, rootField);
+        return rootField;
+    }
+
+    static Step childStep(final String childName) {
+        return new ChildStep(childName);
+    }
+
+    static Step arrayIndexStep(final int index) {
+        return new ArrayIndexStep(index);
+    }
+
+    static Step mapKeyStep(final String mapKey) {
+        return new MapKeyStep(mapKey);
+    }
+
+
+    abstract static class Step {
+        /**
+         * Resolves this step against the given parent
+         *
+         * @param parent the FieldValue selected by the previous step
+         * @return the selected FieldValue, <code>NO_MATCH</code> if nothing is selected, or <code>FALLBACK</code> if the value does not have
+         *         the expected shape and the path must be evaluated by the underlying segments
+         */
+        abstract FieldValue apply(FieldValue parent);
+    }
+
+    private static class ChildStep extends Step {
+        private final String childName;
+        private final RecordField missingField;
+        private volatile Binding<RecordSchema, Optional<RecordField>> fieldBinding;
+
+        ChildStep(final String childName) {
+            this.childName = childName;
+            this.missingField = new RecordField(childName,
+                RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.STRING.getDataType(), RecordFieldType.RECORD.getDataType()));
+        }
+
+        @Override
+        FieldValue apply(final FieldValue parent) {
+            final Object parentValue = parent.getValue();
+            if (!(parentValue instanceof Record)) {
+                if (parentValue != null && parent.getField().getDataType().getFieldType() == RecordFieldType.RECORD) {
+                    return FALLBACK;
+                }
+
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            final Record record = (Record) parentValue;
+            final Object value = record.getValue(childName);
+            if (value == null) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            final Optional<RecordField> field = getField(record.getSchema());
+            if (!field.isPresent()) {
+                return new StandardFieldValue(null, missingField, parent);
+            }
+
+            return new StandardFieldValue(value, field.get(), parent);
+        }
+
+        private Optional<RecordField> getField(final RecordSchema schema) {
+            final Binding<RecordSchema, Optional<RecordField>> binding = fieldBinding;
+            if (binding != null && binding.key == schema) {
+                return binding.value;
+            }
+
+            final Optional<RecordField> field = schema.getField(childName);
+            fieldBinding = new Binding<>(schema, field);
+            return field;
+        }
+    }
+
+    private static class ArrayIndexStep extends Step {
+        private final int index;
+        private volatile Binding<RecordField, RecordField> elementBinding;
+
+        ArrayIndexStep(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        FieldValue apply(final FieldValue parent) {
+            final RecordField parentField = parent.getField();
+            if (parentField.getDataType().getFieldType() != RecordFieldType.ARRAY) {
+                return NO_MATCH;
+            }
+
+            final Object parentValue = parent.getValue();
+            if (parentValue == null) {
+                return NO_MATCH;
+            }
+            if (!(parentValue instanceof Object[])) {
+                return FALLBACK;
+            }
+
+            final Object[] values = (Object[]) parentValue;
+            final int arrayIndex = index < 0 ? values.length + index : index;
+            if (arrayIndex >= values.length) {
+                return NO_MATCH;
+            }
+            if (arrayIndex < 0) {
+                return FALLBACK;
+            }
+
+            return new ArrayIndexFieldValue(values[arrayIndex], getElementField(parentField), parent, arrayIndex);
+        }
+
+        private RecordField getElementField(final RecordField arrayField) {
+            final Binding<RecordField, RecordField> binding = elementBinding;
+            if (binding != null && binding.key == arrayField) {
+                return binding.value;
+            }
+
+            final RecordField elementField = new RecordField(arrayField.getFieldName(), ((ArrayDataType) arrayField.getDataType()).getElementType());
+            elementBinding = new Binding<>(arrayField, elementField);
+            return elementField;
+        }
+    }
+
+    private static class MapKeyStep extends Step {
+        private final String mapKey;
+        private volatile Binding<RecordField, RecordField> valueBinding;
+
+        MapKeyStep(final String mapKey) {
+            this.mapKey = mapKey;
+        }
+
+        @Override
+        FieldValue apply(final FieldValue parent) {
+            final RecordField parentField = parent.getField();
+            if (parentField.getDataType().getFieldType() != RecordFieldType.MAP) {
+                return NO_MATCH;
+            }
+
+            final Object parentValue = parent.getValue();
+            if (!(parentValue instanceof Map)) {
+                return FALLBACK;
+            }
+
+            final Object value = ((Map<?, ?>) parentValue).get(mapKey);
+            return new MapEntryFieldValue(value, getValueField(parentField), parent, mapKey);
+        }
+
+        private RecordField getValueField(final RecordField mapField) {
+            final Binding<RecordField, RecordField> binding = valueBinding;
+            if (binding != null && binding.key == mapField) {
+                return binding.value;
+            }
+
+            final RecordField valueField = new RecordField(mapField.getFieldName(), ((MapDataType) mapField.getDataType()).getValueType());
+            valueBinding = new Binding<>(mapField, valueField);
+            return valueField;
+        }
+    }
+
+    private static class Binding<K, V> {
+        private final K key;
+        private final V value;
+
+        Binding(final K key, final V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
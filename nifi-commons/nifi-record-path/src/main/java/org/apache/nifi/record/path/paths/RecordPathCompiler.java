@@ -43,6 +43,7 @@ import static org.apache.nifi.record.path.RecordPathParser.STRING_LITERAL;
 import static org.apache.nifi.record.path.RecordPathParser.WILDCARD;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.BiFunction;
 
@@ -102,6 +103,39 @@ public class RecordPathCompiler {
         return parent;
     }
 
+    /**
+     * Returns a {@link CompiledRecordPath} for the given path if the path consists solely of child field references, single
+     * array indices and single map keys, starting at the root of the Record. Otherwise, the given path is returned unchanged.
+     *
+     * @param path the path to optimize
+     * @return a path that selects the same fields as the given path
+     */
+    public static RecordPathSegment optimize(final RecordPathSegment path) {
+        final List<CompiledRecordPath.Step> steps = new ArrayList<>();
+
+        RecordPathSegment segment = path;
+        while (segment != null && !(segment instanceof RootPath)) {
+            if (segment instanceof ChildFieldPath) {
+                steps.add(CompiledRecordPath.childStep(((ChildFieldPath) segment).getChildName()));
+            } else if (segment instanceof ArrayIndexPath) {
+                steps.add(CompiledRecordPath.arrayIndexStep(((ArrayIndexPath) segment).getIndex()));
+            } else if (segment instanceof SingularMapKeyPath) {
+                steps.add(CompiledRecordPath.mapKeyStep(((SingularMapKeyPath) segment).getMapKey()));
+            } else {
+                return path;
+            }
+
+            segment = segment.getParentPath();
+        }
+
+        if (segment == null || steps.isEmpty()) {
+            return path;
+        }
+
+        Collections.reverse(steps);
+        return new CompiledRecordPath(path, steps);
+    }
+
     public static RecordPathSegment buildPath(final Tree tree, final RecordPathSegment parent, final boolean absolute) {
         switch (tree.getType()) {
             case ROOT_REFERENCE: {
@@ -37,6 +37,10 @@ public class SingularMapKeyPath extends RecordPathSegment {
         this.mapKey = mapKey;
     }
 
+    String getMapKey() {
+        return mapKey;
+    }
+
     @Override
     public Stream<FieldValue> evaluate(final RecordPathEvaluationContext context) {
         final Stream<FieldValue> parentResult = getParentPath().evaluate(context);
@@ -17,7 +17,15 @@
 
 package org.apache.nifi.record.path;
 
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.Tree;
 import org.apache.nifi.record.path.exception.RecordPathException;
+import org.apache.nifi.record.path.paths.CompiledRecordPath;
+import org.apache.nifi.record.path.paths.RecordPathCompiler;
+import org.apache.nifi.record.path.paths.RecordPathSegment;
+import org.apache.nifi.record.path.paths.RootPath;
 import org.apache.nifi.serialization.SimpleRecordSchema;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.MapRecord;
@@ -37,6 +45,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +55,7 @@ import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -1631,6 +1641,110 @@ public class TestRecordPath {
         assertEquals("MyStringfewfewfewfew", RecordPath.compile("padRight(/someString, 20, \"few\")").evaluate(record).getSelectedFields().findFirst().get().getValue());
     }
 
+    @Test
+    public void testCompiledPathSelectsSameFieldsAsSegments() {
+        final Map<String, Object> accountValues = new HashMap<>();
+        accountValues.put("id", 1);
+        accountValues.put("balance", 123.45D);
+        final Record accountRecord = new MapRecord(getAccountSchema(), accountValues);
+
+        final Map<String, Object> otherAccountValues = new HashMap<>();
+        otherAccountValues.put("id", 2);
+        otherAccountValues.put("balance", 67.89D);
+        final Record otherAccountRecord = new MapRecord(getAccountSchema(), otherAccountValues);
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("city", "New York");
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", 48);
+        values.put("name", "John Doe");
+        values.put("attributes", attributes);
+        values.put("mainAccount", accountRecord);
+        values.put("numbers", new Object[] {0, 1, 2});
+        values.put("accounts", new Object[] {accountRecord, otherAccountRecord});
+        final Record record = new MapRecord(new SimpleRecordSchema(getDefaultFields()), values);
+
+        final String[] paths = {"/id", "/name", "/mainAccount/balance", "/mainAccount/missing", "/missing", "/missing/deeper", "/id/child",
+            "/numbers[0]", "/numbers[-1]", "/numbers[3]", "/missing[0]", "/name[0]", "/attributes['city']", "/attributes['state']",
+            "/missing['city']", "/accounts[1]/balance", "/accounts[-2]/id"};
+
+        for (final String path : paths) {
+            final RecordPath compiled = RecordPath.compile(path);
+            assertTrue(path, compiled instanceof CompiledRecordPath);
+
+            final List<FieldValue> expected = compileSegments(path).evaluate(record).getSelectedFields().collect(Collectors.toList());
+            final List<FieldValue> actual = compiled.evaluate(record).getSelectedFields().collect(Collectors.toList());
+            assertEquals(path, expected, actual);
+        }
+
+        assertFalse(RecordPath.compile("/accounts[*]/id") instanceof CompiledRecordPath);
+        assertFalse(RecordPath.compile("/accounts[0..1]") instanceof CompiledRecordPath);
+        assertFalse(RecordPath.compile("//id") instanceof CompiledRecordPath);
+        assertFalse(RecordPath.compile("/mainAccount/id[. = 1]") instanceof CompiledRecordPath);
+    }
+
+    @Test
+    public void testCompiledPathWithChangingSchema() {
+        final RecordPath recordPath = RecordPath.compile("/mainAccount/balance");
+
+        final Map<String, Object> accountValues = new HashMap<>();
+        accountValues.put("id", 1);
+        accountValues.put("balance", 123.45D);
+        final Map<String, Object> values = new HashMap<>();
+        values.put("mainAccount", new MapRecord(getAccountSchema(), accountValues));
+        final Record record = new MapRecord(new SimpleRecordSchema(getDefaultFields()), values);
+
+        final List<RecordField> accountFields = new ArrayList<>();
+        accountFields.add(new RecordField("balance", RecordFieldType.STRING.getDataType()));
+        final RecordSchema otherAccountSchema = new SimpleRecordSchema(accountFields);
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("mainAccount", RecordFieldType.RECORD.getRecordDataType(otherAccountSchema)));
+        final Map<String, Object> otherValues = new HashMap<>();
+        otherValues.put("mainAccount", new MapRecord(otherAccountSchema, Collections.singletonMap("balance", "zero")));
+        final Record otherRecord = new MapRecord(new SimpleRecordSchema(fields), otherValues);
+
+        for (int i = 0; i < 2; i++) {
+            final FieldValue fieldValue = recordPath.evaluate(record).getSelectedFields().findFirst().get();
+            assertEquals(123.45D, fieldValue.getValue());
+            assertEquals(RecordFieldType.DOUBLE, fieldValue.getField().getDataType().getFieldType());
+
+            final FieldValue otherFieldValue = recordPath.evaluate(otherRecord).getSelectedFields().findFirst().get();
+            assertEquals("zero", otherFieldValue.getValue());
+            assertEquals(RecordFieldType.STRING, otherFieldValue.getField().getDataType().getFieldType());
+        }
+    }
+
+    @Test
+    public void testCompiledPathUpdateValue() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("city", "New York");
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", 48);
+        values.put("attributes", attributes);
+        values.put("numbers", new Object[] {0, 1, 2});
+        final Record record = new MapRecord(new SimpleRecordSchema(getDefaultFields()), values);
+
+        RecordPath.compile("/id").evaluate(record).getSelectedFields().forEach(field -> field.updateValue(99));
+        RecordPath.compile("/numbers[-1]").evaluate(record).getSelectedFields().forEach(field -> field.updateValue(5));
+        RecordPath.compile("/attributes['city']").evaluate(record).getSelectedFields().forEach(field -> field.updateValue("Boston"));
+
+        assertEquals(99, record.getValue("id"));
+        assertArrayEquals(new Object[] {0, 1, 5}, (Object[]) record.getValue("numbers"));
+        assertEquals("Boston", ((Map<?, ?>) record.getValue("attributes")).get("city"));
+    }
+
+    private RecordPathSegment compileSegments(final String path) {
+        final RecordPathParser parser = new RecordPathParser(new CommonTokenStream(new RecordPathLexer(new ANTLRStringStream(path))));
+        try {
+            final Tree tree = (Tree) parser.pathExpression().getTree();
+            return RecordPathCompiler.compile(tree.getChild(0), new RootPath(), true);
+        } catch (final RecognitionException e) {
+            throw new RecordPathException(e);
+        }
+    }
+
     private List<RecordField> getDefaultFields() {
         final List<RecordField> fields = new ArrayList<>();
         fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
@@ -20,11 +20,16 @@ package org.apache.nifi.serialization.record.type;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.RecordFieldType;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
 
 public class ChoiceDataType extends DataType {
     private final List<DataType> possibleSubTypes;
+    private volatile List<DataType> simpleSubTypes;
 
     public ChoiceDataType(final List<DataType> possibleSubTypes) {
         super(RecordFieldType.CHOICE, null);
@@ -35,6 +40,34 @@ public class ChoiceDataType extends DataType {
         return possibleSubTypes;
     }
 
+    /**
+     * Returns the possible Sub-Types of this Choice with any nested Choices expanded into their own Sub-Types,
+     * in breadth-first order. The result is computed once and then reused, as Choices are resolved for every value.
+     *
+     * @return the non-Choice Sub-Types that a value of this Choice may have
+     */
+    public List<DataType> getSimpleSubTypes() {
+        List<DataType> subTypes = simpleSubTypes;
+        if (subTypes == null) {
+            final Queue<DataType> queue = new LinkedList<>(possibleSubTypes);
+            subTypes = new ArrayList<>();
+
+            DataType subType;
+            while ((subType = queue.poll()) != null) {
+                if (subType instanceof ChoiceDataType) {
+                    queue.addAll(((ChoiceDataType) subType).getPossibleSubTypes());
+                } else {
+                    subTypes.add(subType);
+                }
+            }
+
+            subTypes = Collections.unmodifiableList(subTypes);
+            simpleSubTypes = subTypes;
+        }
+
+        return subTypes;
+    }
+
     @Override
     public RecordFieldType getFieldType() {
         return RecordFieldType.CHOICE;
@@ -54,12 +54,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.function.Function;
@@ -96,9 +94,13 @@ public class DataTypeUtils {
 
     private static final TimeZone gmt = TimeZone.getTimeZone("gmt");
 
-    private static final Supplier<DateFormat> DEFAULT_DATE_FORMAT = () -> getDateFormat(RecordFieldType.DATE.getDefaultFormat());
-    private static final Supplier<DateFormat> DEFAULT_TIME_FORMAT = () -> getDateFormat(RecordFieldType.TIME.getDefaultFormat());
-    private static final Supplier<DateFormat> DEFAULT_TIMESTAMP_FORMAT = () -> getDateFormat(RecordFieldType.TIMESTAMP.getDefaultFormat());
+    // SimpleDateFormat is expensive to create but not thread-safe, so formats that are used only within this class are cached per thread
+    private static final int MAX_CACHED_DATE_FORMATS = 32;
+    private static final ThreadLocal<Map<String, DateFormat>> CACHED_DATE_FORMATS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final Supplier<DateFormat> DEFAULT_DATE_FORMAT = () -> getCachedDateFormat(RecordFieldType.DATE.getDefaultFormat());
+    private static final Supplier<DateFormat> DEFAULT_TIME_FORMAT = () -> getCachedDateFormat(RecordFieldType.TIME.getDefaultFormat());
+    private static final Supplier<DateFormat> DEFAULT_TIMESTAMP_FORMAT = () -> getCachedDateFormat(RecordFieldType.TIMESTAMP.getDefaultFormat());
 
     public static Object convertType(final Object value, final DataType dataType, final String fieldName) {
         return convertType(value, dataType, fieldName, StandardCharsets.UTF_8);
@@ -231,17 +233,11 @@ public class DataTypeUtils {
     }
 
     public static DataType chooseDataType(final Object value, final ChoiceDataType choiceType) {
-        Queue<DataType> possibleSubTypes = new LinkedList<>(choiceType.getPossibleSubTypes());
         List<DataType> compatibleSimpleSubTypes = new ArrayList<>();
 
-        DataType subType;
-        while ((subType = possibleSubTypes.poll()) != null) {
-            if (subType instanceof ChoiceDataType) {
-                possibleSubTypes.addAll(((ChoiceDataType) subType).getPossibleSubTypes());
-            } else {
-                if (isCompatibleDataType(value, subType)) {
-                    compatibleSimpleSubTypes.add(subType);
-                }
+        for (final DataType subType : choiceType.getSimpleSubTypes()) {
+            if (isCompatibleDataType(value, subType)) {
+                compatibleSimpleSubTypes.add(subType);
             }
         }
 
@@ -896,16 +892,16 @@ public class DataTypeUtils {
         }
 
         if (value instanceof java.sql.Date) {
-            return getDateFormat(format).format((java.util.Date) value);
+            return getCachedDateFormat(format).format((java.util.Date) value);
         }
         if (value instanceof java.sql.Time) {
-            return getDateFormat(format).format((java.util.Date) value);
+            return getCachedDateFormat(format).format((java.util.Date) value);
         }
         if (value instanceof java.sql.Timestamp) {
-            return getDateFormat(format).format((java.util.Date) value);
+            return getCachedDateFormat(format).format((java.util.Date) value);
         }
         if (value instanceof java.util.Date) {
-            return getDateFormat(format).format((java.util.Date) value);
+            return getCachedDateFormat(format).format((java.util.Date) value);
         }
         if (value instanceof Blob) {
             Blob blob = (Blob) value;
@@ -1011,7 +1007,7 @@ public class DataTypeUtils {
             }
 
             try {
-                getDateFormat(format).parse((String) value);
+                getCachedDateFormat(format).parse((String) value);
                 return true;
             } catch (final ParseException e) {
                 return false;
@@ -1084,6 +1080,25 @@ public class DataTypeUtils {
         return df;
     }
 
+    private static DateFormat getCachedDateFormat(final String format) {
+        if (format == null) {
+            return null;
+        }
+
+        final Map<String, DateFormat> dateFormats = CACHED_DATE_FORMATS.get();
+        DateFormat dateFormat = dateFormats.get(format);
+        if (dateFormat == null) {
+            if (dateFormats.size() >= MAX_CACHED_DATE_FORMATS) {
+                dateFormats.clear();
+            }
+
+            dateFormat = getDateFormat(format);
+            dateFormats.put(format, dateFormat);
+        }
+
+        return dateFormat;
+    }
+
     public static DateFormat getDateFormat(final String format, final String timezoneID) {
         if (format == null || timezoneID == null) {
             return null;
@@ -425,6 +425,40 @@ public class TestDataTypeUtils {
         testChooseDataTypeAlsoReverseTypes(value, dataTypes, expected);
     }
 
+    @Test
+    public void testChoiceSimpleSubTypesAreExpandedBreadthFirst() {
+        final ChoiceDataType choiceDataType = (ChoiceDataType) RecordFieldType.CHOICE.getChoiceDataType(
+                RecordFieldType.CHOICE.getChoiceDataType(
+                        RecordFieldType.FLOAT.getDataType(),
+                        RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.BOOLEAN.getDataType())
+                ),
+                RecordFieldType.INT.getDataType(),
+                RecordFieldType.STRING.getDataType()
+        );
+
+        final List<DataType> expected = Arrays.asList(
+                RecordFieldType.INT.getDataType(),
+                RecordFieldType.STRING.getDataType(),
+                RecordFieldType.FLOAT.getDataType(),
+                RecordFieldType.BOOLEAN.getDataType()
+        );
+
+        assertEquals(expected, choiceDataType.getSimpleSubTypes());
+        assertTrue(choiceDataType.getSimpleSubTypes() == choiceDataType.getSimpleSubTypes());
+    }
+
+    @Test
+    public void testDateTypeCompatibilityWithDifferentFormats() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(DataTypeUtils.isDateTypeCompatible("2020-01-31", "yyyy-MM-dd"));
+            assertFalse(DataTypeUtils.isDateTypeCompatible("01/31/2020", "yyyy-MM-dd"));
+            assertTrue(DataTypeUtils.isDateTypeCompatible("01/31/2020", "MM/dd/yyyy"));
+
+            assertEquals("2020-01-31", DataTypeUtils.toString(java.sql.Date.valueOf("2020-01-31"), "yyyy-MM-dd"));
+            assertEquals("01/31/2020", DataTypeUtils.toString(java.sql.Date.valueOf("2020-01-31"), "MM/dd/yyyy"));
+        }
+    }
+
     private <E> void testChooseDataTypeAlsoReverseTypes(Object value, List<DataType> dataTypes, DataType expected) {
         testChooseDataType(dataTypes, value, expected);
         Collections.reverse(dataTypes);
@@ -29,6 +29,7 @@ import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -488,6 +489,23 @@ public class RocksDBMetronome implements Closeable {
         delete(columnFamilyHandle, key, getWriteOptions(forceSync));
     }
 
+    /**
+     * Apply all of the updates in the given batch to the database atomically, optionally syncing the wal
+     *
+     * @param writeBatch the updates to apply, which may span column families
+     * @param forceSync  if true, sync the wal
+     * @throws RocksDBException thrown if there is an error in the underlying library.
+     */
+    public void write(final WriteBatch writeBatch, final boolean forceSync) throws RocksDBException {
+        dbReadLock.lock();
+        try {
+            checkDbState();
+            rocksDB.write(getWriteOptions(forceSync), writeBatch);
+        } finally {
+            dbReadLock.unlock();
+        }
+    }
+
     private WriteOptions getWriteOptions(boolean forceSync) {
         return forceSync ? forceSyncWriteOptions : noSyncWriteOptions;
     }
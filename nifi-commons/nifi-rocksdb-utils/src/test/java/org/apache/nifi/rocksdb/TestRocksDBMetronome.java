@@ -23,6 +23,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
 
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -206,6 +207,36 @@ public class TestRocksDBMetronome {
         }
     }
 
+    @Test
+    public void testWriteBatch() throws Exception {
+
+        String secondFamilyName = "second family";
+        try (RocksDBMetronome db = new RocksDBMetronome.Builder()
+                .setStoragePath(temporaryFolder.newFolder().toPath())
+                .addColumnFamily(secondFamilyName)
+                .build()) {
+            db.initialize();
+            ColumnFamilyHandle secondFamily = db.getColumnFamilyHandle(secondFamilyName);
+
+            db.put(KEY, VALUE);
+
+            // a batch may span column families
+            try (WriteBatch writeBatch = new WriteBatch()) {
+                writeBatch.delete(KEY);
+                writeBatch.put(secondFamily, KEY_2, VALUE_2);
+
+                // nothing is applied until the batch is written
+                assertArrayEquals(VALUE, db.get(KEY));
+                assertNull(db.get(secondFamily, KEY_2));
+
+                db.write(writeBatch, true);
+            }
+
+            assertNull(db.get(KEY));
+            assertArrayEquals(VALUE_2, db.get(secondFamily, KEY_2));
+        }
+    }
+
     @Test
     public void testIterator() throws Exception {
 
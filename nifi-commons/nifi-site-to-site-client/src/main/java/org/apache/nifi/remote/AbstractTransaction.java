@@ -322,6 +322,28 @@ public abstract class AbstractTransaction implements Transaction {
         }
     }
 
+    /**
+     * @return the CRC32 checksum of the data that has been sent or received so far
+     */
+    protected final String getCalculatedChecksum() {
+        return String.valueOf(crc.getValue());
+    }
+
+    /**
+     * Marks this transaction as completed, for subclasses that complete a transaction without {@link #complete()}.
+     *
+     * @param backoff whether the destination is full, in which case the peer is penalized for the destination
+     * @return a TransactionCompletion that contains details about the transaction
+     */
+    protected final TransactionCompletion completed(final boolean backoff) {
+        if (backoff) {
+            peer.penalize(destinationId, penaltyMillis);
+        }
+
+        state = TransactionState.TRANSACTION_COMPLETED;
+        return new ClientTransactionCompletion(backoff, transfers, contentBytes, System.nanoTime() - creationNanoTime);
+    }
+
     @Override
     public final void cancel(final String explanation) throws IOException {
         if (state == TransactionState.TRANSACTION_CANCELED || state == TransactionState.TRANSACTION_COMPLETED || state == TransactionState.ERROR) {
@@ -18,6 +18,7 @@ package org.apache.nifi.remote;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.nifi.remote.protocol.DataPacket;
 
@@ -159,6 +160,55 @@ public interface Transaction {
      */
     TransactionCompletion complete() throws IOException;
 
+    /**
+     * <p>
+     * Confirms and completes the transaction, as {@link #confirm()} followed
+     * by {@link #complete()} would, without requiring the calling thread to
+     * wait for the remote instance to acknowledge the transaction, if the
+     * transport protocol allows it. This lets a client start its next
+     * transaction while this one is still awaiting acknowledgement. The
+     * number of transactions that may await acknowledgement from a peer at
+     * once is limited by
+     * {@link org.apache.nifi.remote.client.SiteToSiteClientConfig#getTransactionWindowSize()};
+     * once the limit is reached, this method blocks until an earlier
+     * transaction has been acknowledged.
+     * </p>
+     *
+     * <p>
+     * A client sending data must not consider the data delivered until the
+     * returned future completes successfully. A client receiving data should
+     * persist the data before calling this method, as the remote instance may
+     * discard the data once it receives the acknowledgement.
+     * </p>
+     *
+     * <p>
+     * If the transaction fails, the returned future completes exceptionally
+     * and the Transaction is closed via a call to {@link #error()}. The
+     * Transaction must not be used by the caller until the returned future
+     * has completed.
+     * </p>
+     *
+     * <p>
+     * By default, the transaction is confirmed and completed on the calling
+     * thread.
+     * </p>
+     *
+     * @return a future that completes with a TransactionCompletion that
+     * contains details about the Transaction
+     */
+    default CompletableFuture<TransactionCompletion> completeAsync() {
+        final CompletableFuture<TransactionCompletion> future = new CompletableFuture<>();
+        try {
+            if (getState() != TransactionState.TRANSACTION_CONFIRMED) {
+                confirm();
+            }
+            future.complete(complete());
+        } catch (final Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * <p>
      * Cancels this transaction, indicating to the sender that the data has not
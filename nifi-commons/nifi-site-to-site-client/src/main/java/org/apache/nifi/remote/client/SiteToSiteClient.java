@@ -175,6 +175,7 @@ public interface SiteToSiteClient extends Closeable {
         private InetAddress localAddress;
         private SiteToSiteTransportProtocol transportProtocol = SiteToSiteTransportProtocol.RAW;
         private HttpProxy httpProxy;
+        private int transactionWindowSize = 4;
 
         /**
          * Populates the builder with values from the provided config
@@ -206,6 +207,7 @@ public interface SiteToSiteClient extends Closeable {
             this.batchNanos = config.getPreferredBatchDuration(TimeUnit.NANOSECONDS);
             this.localAddress = config.getLocalAddress();
             this.httpProxy = config.getHttpProxy();
+            this.transactionWindowSize = config.getTransactionWindowSize();
 
             return this;
         }
@@ -614,6 +616,25 @@ public interface SiteToSiteClient extends Closeable {
             return this;
         }
 
+        /**
+         * Specifies how many transactions that have been completed with
+         * {@link org.apache.nifi.remote.Transaction#completeAsync()} can await
+         * acknowledgement from a peer at once, before completing another
+         * transaction blocks. A larger window lets transactions overlap
+         * more on links with high latency. Only applies to the HTTP transport
+         * protocol. The default value is 4.
+         *
+         * @param size the number of transactions
+         * @return the builder
+         */
+        public Builder transactionWindowSize(final int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("Transaction window size must be at least 1");
+            }
+            this.transactionWindowSize = size;
+            return this;
+        }
+
         /**
          * @return a {@link SiteToSiteClientConfig} for the configured values
          * but does not create a SiteToSiteClient
@@ -786,6 +807,7 @@ public interface SiteToSiteClient extends Closeable {
         private final long batchNanos;
         private final HttpProxy httpProxy;
         private final InetAddress localAddress;
+        private final int transactionWindowSize;
 
         // some serialization frameworks require a default constructor
         private StandardSiteToSiteClientConfig() {
@@ -812,6 +834,7 @@ public interface SiteToSiteClient extends Closeable {
             this.transportProtocol = null;
             this.httpProxy = null;
             this.localAddress = null;
+            this.transactionWindowSize = 4;
         }
 
         private StandardSiteToSiteClientConfig(final SiteToSiteClient.Builder builder) {
@@ -841,6 +864,7 @@ public interface SiteToSiteClient extends Closeable {
             this.transportProtocol = builder.getTransportProtocol();
             this.httpProxy = builder.getHttpProxy();
             this.localAddress = builder.localAddress;
+            this.transactionWindowSize = builder.transactionWindowSize;
         }
 
         @Override
@@ -1033,5 +1057,10 @@ public interface SiteToSiteClient extends Closeable {
         public InetAddress getLocalAddress() {
             return localAddress;
         }
+
+        @Override
+        public int getTransactionWindowSize() {
+            return transactionWindowSize;
+        }
     }
 }
@@ -200,4 +200,13 @@ public interface SiteToSiteClientConfig extends Serializable {
      *         {@code null} to bind to the {@code anyLocal} address.
      */
     InetAddress getLocalAddress();
+
+    /**
+     * When transactions are completed with {@link org.apache.nifi.remote.Transaction#completeAsync()},
+     * a client can start new transactions with a peer before earlier ones have been acknowledged by the peer.
+     * This is only supported by the HTTP transport protocol, if the remote instance supports it as well.
+     *
+     * @return the maximum number of transactions that can await acknowledgement from a peer at once
+     */
+    int getTransactionWindowSize();
 }
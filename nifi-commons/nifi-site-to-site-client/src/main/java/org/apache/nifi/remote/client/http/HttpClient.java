@@ -36,6 +36,8 @@ import org.apache.nifi.remote.io.http.HttpCommunicationsSession;
 import org.apache.nifi.remote.protocol.CommunicationsSession;
 import org.apache.nifi.remote.protocol.SiteToSiteTransportProtocol;
 import org.apache.nifi.remote.protocol.http.HttpClientTransaction;
+import org.apache.nifi.remote.protocol.http.HttpTransactionAcknowledger;
+import org.apache.nifi.remote.util.SiteToSiteHttpConnectionPool;
 import org.apache.nifi.remote.util.SiteToSiteRestApiClient;
 import org.apache.nifi.web.api.dto.remote.PeerDTO;
 import org.slf4j.Logger;
@@ -60,6 +62,8 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
 
     private final ScheduledExecutorService taskExecutor;
     private final PeerSelector peerSelector;
+    private final SiteToSiteHttpConnectionPool connectionPool;
+    private final HttpTransactionAcknowledger acknowledger;
     private final Set<HttpClientTransaction> activeTransactions = Collections.synchronizedSet(new HashSet<>());
 
     public HttpClient(final SiteToSiteClientConfig config) {
@@ -68,6 +72,12 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
         peerSelector = new PeerSelector(this, config.getPeerPersistence());
         peerSelector.setEventReporter(config.getEventReporter());
 
+        // Transactions share connections, so that each of them doesn't have to establish its own
+        connectionPool = new SiteToSiteHttpConnectionPool(config.getSslContext(), config.getHttpProxy(),
+            SiteToSiteHttpConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_PEER, config.getIdleConnectionExpiration(TimeUnit.MILLISECONDS));
+
+        acknowledger = new HttpTransactionAcknowledger(config.getTransactionWindowSize(), config.getTimeout(TimeUnit.MILLISECONDS), this::createApiClient);
+
         taskExecutor = Executors.newScheduledThreadPool(1, new ThreadFactory() {
             private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
 
@@ -103,7 +113,7 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
     @Override
     public Set<PeerStatus> fetchRemotePeerStatuses(PeerDescription peerDescription) throws IOException {
         // Each node should has the same URL structure and network reach-ability with the proxy configuration.
-        try (final SiteToSiteRestApiClient apiClient = new SiteToSiteRestApiClient(config.getSslContext(), config.getHttpProxy(), config.getEventReporter())) {
+        try (final SiteToSiteRestApiClient apiClient = new SiteToSiteRestApiClient(config.getSslContext(), config.getHttpProxy(), config.getEventReporter(), connectionPool)) {
             final String scheme = peerDescription.isSecure() ? "https" : "http";
             apiClient.setBaseUrl(scheme, peerDescription.getHostname(), peerDescription.getPort());
 
@@ -127,7 +137,6 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
 
     @Override
     public Transaction createTransaction(final TransferDirection direction) throws HandshakeException, PortNotRunningException, ProtocolException, UnknownPortException, IOException {
-        final int timeoutMillis = (int) config.getTimeout(TimeUnit.MILLISECONDS);
         Integer peersWithNoContent = 0;
 
         ArrayList<PeerStatus> peers = peerSelector.getPeerStatuses(direction);
@@ -156,19 +165,7 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
                 }
             }
 
-            final SiteToSiteRestApiClient apiClient = new SiteToSiteRestApiClient(config.getSslContext(), config.getHttpProxy(), config.getEventReporter());
-
-            apiClient.setBaseUrl(peer.getUrl());
-            apiClient.setConnectTimeoutMillis(timeoutMillis);
-            apiClient.setReadTimeoutMillis(timeoutMillis);
-            apiClient.setCacheExpirationMillis(config.getCacheExpiration(TimeUnit.MILLISECONDS));
-            apiClient.setLocalAddress(config.getLocalAddress());
-
-            apiClient.setCompress(config.isUseCompression());
-            apiClient.setRequestExpirationMillis(config.getIdleConnectionExpiration(TimeUnit.MILLISECONDS));
-            apiClient.setBatchCount(config.getPreferredBatchCount());
-            apiClient.setBatchSize(config.getPreferredBatchSize());
-            apiClient.setBatchDurationMillis(config.getPreferredBatchDuration(TimeUnit.MILLISECONDS));
+            final SiteToSiteRestApiClient apiClient = createApiClient(peer.getUrl());
 
             final String transactionUrl;
             try {
@@ -210,6 +207,10 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
                 }
             };
 
+            if (apiClient.getTransportProtocolVersion() >= TransportProtocolVersionNegotiator.TRANSACTION_ACKNOWLEDGEMENTS_VERSION) {
+                transaction.setAcknowledger(acknowledger);
+            }
+
             try {
                 transaction.initialize(apiClient, transactionUrl);
             } catch (final Exception e) {
@@ -229,6 +230,24 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
         throw new NoValidPeerException(error);
     }
 
+    private SiteToSiteRestApiClient createApiClient(final String peerUrl) {
+        final int timeoutMillis = (int) config.getTimeout(TimeUnit.MILLISECONDS);
+        final SiteToSiteRestApiClient apiClient = new SiteToSiteRestApiClient(config.getSslContext(), config.getHttpProxy(), config.getEventReporter(), connectionPool);
+
+        apiClient.setBaseUrl(peerUrl);
+        apiClient.setConnectTimeoutMillis(timeoutMillis);
+        apiClient.setReadTimeoutMillis(timeoutMillis);
+        apiClient.setCacheExpirationMillis(config.getCacheExpiration(TimeUnit.MILLISECONDS));
+        apiClient.setLocalAddress(config.getLocalAddress());
+
+        apiClient.setCompress(config.isUseCompression());
+        apiClient.setRequestExpirationMillis(config.getIdleConnectionExpiration(TimeUnit.MILLISECONDS));
+        apiClient.setBatchCount(config.getPreferredBatchCount());
+        apiClient.setBatchSize(config.getPreferredBatchSize());
+        apiClient.setBatchDurationMillis(config.getPreferredBatchDuration(TimeUnit.MILLISECONDS));
+        return apiClient;
+    }
+
     private String resolveNodeApiUrl(final PeerDescription description) {
         return (description.isSecure() ? "https" : "http") + "://" + description.getHostname() + ":" + description.getPort() + "/nifi-api";
     }
@@ -246,6 +265,9 @@ public class HttpClient extends AbstractSiteToSiteClient implements PeerStatusPr
         for (final HttpClientTransaction transaction : activeTransactions) {
             transaction.getCommunicant().getCommunicationsSession().interrupt();
         }
+
+        acknowledger.close();
+        connectionPool.close();
     }
 
     @Override
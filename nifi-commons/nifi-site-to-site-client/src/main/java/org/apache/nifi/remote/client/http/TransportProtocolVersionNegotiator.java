@@ -20,6 +20,12 @@ import org.apache.nifi.remote.StandardVersionNegotiator;
 
 public class TransportProtocolVersionNegotiator extends StandardVersionNegotiator {
 
+    /**
+     * The transport protocol version from which a client can acknowledge multiple transactions with a single request,
+     * so that it can start new transactions while earlier ones are still awaiting acknowledgement.
+     */
+    public static final int TRANSACTION_ACKNOWLEDGEMENTS_VERSION = 3;
+
     public TransportProtocolVersionNegotiator(final int... supportedVersions) {
         super(supportedVersions);
     }
@@ -33,6 +39,7 @@ public class TransportProtocolVersionNegotiator extends StandardVersionNegotiato
         switch (getVersion()) {
             case 1:
             case 2:
+            case 3:
                 return 5;
             default:
                 throw new RuntimeException("Transport protocol version " + getVersion()
@@ -21,22 +21,29 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.remote.AbstractTransaction;
 import org.apache.nifi.remote.Peer;
+import org.apache.nifi.remote.TransactionCompletion;
 import org.apache.nifi.remote.TransferDirection;
+import org.apache.nifi.remote.client.http.TransportProtocolVersionNegotiator;
 import org.apache.nifi.remote.codec.StandardFlowFileCodec;
+import org.apache.nifi.remote.exception.ProtocolException;
 import org.apache.nifi.remote.io.http.HttpCommunicationsSession;
 import org.apache.nifi.remote.protocol.Response;
 import org.apache.nifi.remote.protocol.ResponseCode;
 import org.apache.nifi.remote.util.SiteToSiteRestApiClient;
+import org.apache.nifi.web.api.dto.remote.TransactionAcknowledgementDTO;
 import org.apache.nifi.web.api.entity.TransactionResultEntity;
 
 public class HttpClientTransaction extends AbstractTransaction {
 
     private SiteToSiteRestApiClient apiClient;
     private String transactionUrl;
+    private HttpTransactionAcknowledger acknowledger;
 
     public HttpClientTransaction(final int protocolVersion, final Peer peer, TransferDirection direction,
                                  final boolean useCompression, final String portId, int penaltyMillis, EventReporter eventReporter) throws IOException {
@@ -53,6 +60,125 @@ public class HttpClientTransaction extends AbstractTransaction {
         }
     }
 
+    /**
+     * Lets {@link #completeAsync()} acknowledge this transaction through the given acknowledger. Must only be set if
+     * the peer supports {@link TransportProtocolVersionNegotiator#TRANSACTION_ACKNOWLEDGEMENTS_VERSION}.
+     *
+     * @param acknowledger the acknowledger to send the acknowledgement of this transaction with
+     */
+    public void setAcknowledger(final HttpTransactionAcknowledger acknowledger) {
+        this.acknowledger = acknowledger;
+    }
+
+    /**
+     * If an acknowledger has been set, confirms the data and completes this transaction without waiting for the peer on
+     * the calling thread, other than for a slot in the window of the peer. When sending data, the checksum calculated
+     * by the peer is awaited asynchronously, and the transaction is acknowledged once the checksums match. When
+     * receiving data, the checksum is sent along with the acknowledgement.
+     */
+    @Override
+    public CompletableFuture<TransactionCompletion> completeAsync() {
+        if (acknowledger == null || state != TransactionState.DATA_EXCHANGED) {
+            return super.completeAsync();
+        }
+
+        final String peerUrl = peer.getUrl();
+        final CompletableFuture<TransactionAcknowledgementDTO> acknowledgement;
+        try {
+            if (TransferDirection.RECEIVE.equals(direction) && dataAvailable) {
+                throw new IllegalStateException("Cannot complete transaction because the sender has already sent more data than client has consumed.");
+            }
+
+            acknowledger.awaitWindow(peerUrl);
+            try {
+                if (TransferDirection.RECEIVE.equals(direction)) {
+                    acknowledgement = acknowledge(ResponseCode.CONFIRM_TRANSACTION, getCalculatedChecksum());
+                } else {
+                    acknowledgement = apiClient.finishTransferFlowFilesAsync(peer.getCommunicationsSession()).thenCompose(this::acknowledgeSentData);
+                }
+            } catch (final Exception e) {
+                acknowledger.releaseWindow(peerUrl);
+                throw e;
+            }
+        } catch (final Exception e) {
+            error();
+            final CompletableFuture<TransactionCompletion> failure = new CompletableFuture<>();
+            failure.completeExceptionally(new IOException("Failed to complete transaction with " + peer + " due to " + e, e));
+            return failure;
+        }
+
+        return acknowledgement.handle((result, failure) -> {
+            acknowledger.releaseWindow(peerUrl);
+            final TransactionCompletion completion;
+            try {
+                if (failure != null) {
+                    final Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                    throw new IOException("Failed to complete transaction with " + peer + " due to " + cause, cause);
+                }
+
+                completion = completeAcknowledged(result);
+            } catch (final Exception e) {
+                error();
+                throw new CompletionException(e);
+            }
+
+            try {
+                close();
+            } catch (final IOException e) {
+                logger.warn("Failed to close transaction due to {}", e.getMessage());
+            }
+            return completion;
+        });
+    }
+
+    private CompletableFuture<TransactionAcknowledgementDTO> acknowledgeSentData(final String receivedChecksum) {
+        final String calculatedChecksum = getCalculatedChecksum();
+        if (calculatedChecksum.equals(receivedChecksum)) {
+            return acknowledge(ResponseCode.CONFIRM_TRANSACTION, null);
+        }
+
+        return acknowledge(ResponseCode.BAD_CHECKSUM, null).thenApply(result -> {
+            throw new CompletionException(new IOException(this + " Sent data to peer " + peer + " but calculated CRC32 Checksum as "
+                + calculatedChecksum + " while peer calculated CRC32 Checksum as " + receivedChecksum + "; canceling transaction"));
+        });
+    }
+
+    private CompletableFuture<TransactionAcknowledgementDTO> acknowledge(final ResponseCode responseCode, final String checksum) {
+        final TransactionAcknowledgementDTO acknowledgement = new TransactionAcknowledgementDTO();
+        acknowledgement.setTransactionId(transactionUrl.substring(transactionUrl.lastIndexOf('/') + 1));
+        acknowledgement.setResponseCode(responseCode.getCode());
+        acknowledgement.setChecksum(checksum);
+        logger.debug("{} Acknowledging transaction with {}", this, responseCode);
+        return acknowledger.acknowledge(peer.getUrl(), direction, destinationId, acknowledgement);
+    }
+
+    private TransactionCompletion completeAcknowledged(final TransactionAcknowledgementDTO result) throws IOException {
+        final ResponseCode responseCode = ResponseCode.fromCode(result.getResponseCode());
+        logger.debug("{} Received {} from {}", this, responseCode, peer);
+
+        if (TransferDirection.RECEIVE.equals(direction)) {
+            switch (responseCode) {
+                case CONFIRM_TRANSACTION:
+                    return completed(false);
+                case BAD_CHECKSUM:
+                    throw new IOException(this + " Received a BadChecksum response from peer " + peer);
+                default:
+                    throw new ProtocolException(this + " Received unexpected Response from peer " + peer + " : "
+                            + responseCode + " " + result.getMessage() + "; expected 'Confirm Transaction' Response Code");
+            }
+        }
+
+        switch (responseCode) {
+            case TRANSACTION_FINISHED:
+                return completed(false);
+            case TRANSACTION_FINISHED_BUT_DESTINATION_FULL:
+                return completed(true);
+            default:
+                throw new ProtocolException("After sending data to " + peer + ", expected TRANSACTION_FINISHED response but got "
+                        + responseCode + " " + result.getMessage());
+        }
+    }
+
     @Override
     protected Response readTransactionResponse() throws IOException {
         HttpCommunicationsSession commSession = (HttpCommunicationsSession) peer.getCommunicationsSession();
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.protocol.http;
+
+import org.apache.nifi.remote.TransferDirection;
+import org.apache.nifi.remote.exception.ProtocolException;
+import org.apache.nifi.remote.util.SiteToSiteRestApiClient;
+import org.apache.nifi.web.api.dto.remote.TransactionAcknowledgementDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Sends the acknowledgements of HTTP Site-to-Site transactions to their peers, so that a client does not have to wait
+ * for a round trip to the peer before it starts its next transaction.
+ * </p>
+ *
+ * <p>
+ * At most one acknowledgement request is in flight for each peer and port at a time. Acknowledgements that are made
+ * while a request is in flight are sent together with the next request, so the number of round trips stays the same
+ * regardless of how many transactions are completed. The number of transactions that can await acknowledgement from a
+ * peer is limited by a window, which callers reserve a slot of with {@link #awaitWindow(String)} before they start to
+ * complete a transaction.
+ * </p>
+ */
+public class HttpTransactionAcknowledger implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpTransactionAcknowledger.class);
+
+    private final int windowSize;
+    private final long timeoutMillis;
+    private final Function<String, SiteToSiteRestApiClient> apiClientFactory;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, Semaphore> windows = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PendingAcknowledgements> pendingAcknowledgements = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+
+    /**
+     * @param windowSize the number of transactions that can await acknowledgement from a peer at once
+     * @param timeoutMillis how long to wait for a slot in the window of a peer
+     * @param apiClientFactory creates a client to send acknowledgements to the peer with the given URL
+     */
+    public HttpTransactionAcknowledger(final int windowSize, final long timeoutMillis, final Function<String, SiteToSiteRestApiClient> apiClientFactory) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("windowSize must be at least 1.");
+        }
+
+        this.windowSize = windowSize;
+        this.timeoutMillis = timeoutMillis;
+        this.apiClientFactory = apiClientFactory;
+
+        executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = defaultFactory.newThread(r);
+                thread.setName("Http Site-to-Site Transaction Acknowledger");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Reserves a slot in the window of the given peer, waiting for an earlier transaction to be acknowledged if the
+     * window is full. The slot must be released with {@link #releaseWindow(String)}.
+     *
+     * @param peerUrl the URL of the peer
+     * @throws IOException if no slot became available within the timeout
+     */
+    public void awaitWindow(final String peerUrl) throws IOException {
+        final Semaphore window = windows.computeIfAbsent(peerUrl, url -> new Semaphore(windowSize));
+        try {
+            if (!window.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting for " + peerUrl + " to acknowledge any of the " + windowSize + " transactions awaiting acknowledgement");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + peerUrl + " to acknowledge transactions", e);
+        }
+    }
+
+    public void releaseWindow(final String peerUrl) {
+        windows.get(peerUrl).release();
+    }
+
+    /**
+     * Sends the given acknowledgement to the peer, along with those of other transactions of the same port if a
+     * request to the peer is already in flight. This method does not block.
+     *
+     * @param peerUrl the URL of the peer
+     * @param direction the direction of the transaction
+     * @param portId the port of the transaction
+     * @param acknowledgement the acknowledgement of the transaction
+     * @return a future that completes with the outcome of the transaction returned by the peer
+     */
+    public CompletableFuture<TransactionAcknowledgementDTO> acknowledge(final String peerUrl, final TransferDirection direction, final String portId,
+                                                                       final TransactionAcknowledgementDTO acknowledgement) {
+        final CompletableFuture<TransactionAcknowledgementDTO> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new IOException("Transaction acknowledger has been closed"));
+            return future;
+        }
+
+        final PendingAcknowledgements pending = pendingAcknowledgements.computeIfAbsent(peerUrl + "/" + direction + "/" + portId,
+            key -> new PendingAcknowledgements(peerUrl, direction, portId));
+
+        if (pending.add(acknowledgement, future)) {
+            try {
+                executor.execute(() -> send(pending));
+            } catch (final RejectedExecutionException e) {
+                pending.failAll(new IOException("Transaction acknowledger has been closed", e));
+            }
+        }
+
+        return future;
+    }
+
+    private void send(final PendingAcknowledgements pending) {
+        List<Acknowledgement> batch;
+        while (!(batch = pending.drain()).isEmpty()) {
+            final List<TransactionAcknowledgementDTO> acknowledgements = new ArrayList<>(batch.size());
+            batch.forEach(acknowledgement -> acknowledgements.add(acknowledgement.dto));
+
+            try (final SiteToSiteRestApiClient apiClient = apiClientFactory.apply(pending.peerUrl)) {
+                final List<TransactionAcknowledgementDTO> results = new ArrayList<>(apiClient.acknowledgeTransactions(pending.direction, pending.portId, acknowledgements));
+                logger.debug("{} acknowledged {} transactions of port {}", pending.peerUrl, results.size(), pending.portId);
+
+                // The outcomes are returned in the order of the acknowledgements
+                for (int i = 0; i < batch.size(); i++) {
+                    final Acknowledgement acknowledgement = batch.get(i);
+                    final String transactionId = acknowledgement.dto.getTransactionId();
+                    final TransactionAcknowledgementDTO result = i < results.size() ? results.get(i) : null;
+                    if (result != null && transactionId.equals(result.getTransactionId())) {
+                        acknowledgement.future.complete(result);
+                    } else {
+                        acknowledgement.future.completeExceptionally(new ProtocolException(pending.peerUrl + " did not return the outcome of transaction " + transactionId));
+                    }
+                }
+            } catch (final Exception e) {
+                logger.warn("Failed to send {} transaction acknowledgements to {}", batch.size(), pending.peerUrl, e);
+                batch.forEach(acknowledgement -> acknowledgement.future.completeExceptionally(e));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+
+        final IOException closedException = new IOException("Transaction acknowledger has been closed");
+        pendingAcknowledgements.values().forEach(pending -> pending.failAll(closedException));
+    }
+
+    private static class Acknowledgement {
+        private final TransactionAcknowledgementDTO dto;
+        private final CompletableFuture<TransactionAcknowledgementDTO> future;
+
+        private Acknowledgement(final TransactionAcknowledgementDTO dto, final CompletableFuture<TransactionAcknowledgementDTO> future) {
+            this.dto = dto;
+            this.future = future;
+        }
+    }
+
+    /**
+     * The acknowledgements of a port of a peer that have yet to be sent.
+     */
+    private static class PendingAcknowledgements {
+        private final String peerUrl;
+        private final TransferDirection direction;
+        private final String portId;
+        private List<Acknowledgement> queued = new ArrayList<>();
+        private boolean sending = false;
+
+        private PendingAcknowledgements(final String peerUrl, final TransferDirection direction, final String portId) {
+            this.peerUrl = peerUrl;
+            this.direction = direction;
+            this.portId = portId;
+        }
+
+        /**
+         * @return true if no request is in flight, in which case the caller has to start sending
+         */
+        private synchronized boolean add(final TransactionAcknowledgementDTO acknowledgement, final CompletableFuture<TransactionAcknowledgementDTO> future) {
+            queued.add(new Acknowledgement(acknowledgement, future));
+            if (sending) {
+                return false;
+            }
+
+            sending = true;
+            return true;
+        }
+
+        /**
+         * @return the acknowledgements to send next, or an empty list once there are none, in which case sending stops
+         */
+        private synchronized List<Acknowledgement> drain() {
+            final List<Acknowledgement> batch = queued;
+            queued = new ArrayList<>();
+            if (batch.isEmpty()) {
+                sending = false;
+            }
+            return batch;
+        }
+
+        private synchronized void failAll(final Exception e) {
+            queued.forEach(acknowledgement -> acknowledgement.future.completeExceptionally(e));
+            queued = new ArrayList<>();
+            sending = false;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote.util;
+
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.nifi.remote.protocol.http.HttpProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Holds the HTTP clients that are shared by the {@link SiteToSiteRestApiClient}s of a Site-to-Site client.
+ * </p>
+ *
+ * <p>
+ * A Site-to-Site transaction over HTTP takes several requests to the same peer (initiating the transaction, transferring
+ * the data, extending its TTL and committing it). Without a shared pool, every transaction opens new connections and
+ * pays for a TCP and a TLS handshake on each of them. Sharing the clients keeps those connections alive between
+ * transactions, and lets concurrent transactions to the same peer proceed over connections that are already established.
+ * </p>
+ *
+ * <p>
+ * Connection state tracking is disabled, as every connection of a pool is established with the same SSL context,
+ * and HttpClient would otherwise only reuse a connection that was authenticated with a client certificate for
+ * requests that carry the same user token in their context.
+ * </p>
+ *
+ * <p>
+ * Connections that have been idle for longer than the idle connection expiration are closed by both clients, so that the
+ * pools do not hold on to connections that the peer has given up on.
+ * </p>
+ */
+public class SiteToSiteHttpConnectionPool implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteToSiteHttpConnectionPool.class);
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_PEER = 100;
+
+    private final SSLContext sslContext;
+    private final HttpProxy proxy;
+    private final int maxConnectionsPerPeer;
+    private final long idleConnectionExpirationMillis;
+
+    private CloseableHttpClient httpClient;
+    private CloseableHttpAsyncClient httpAsyncClient;
+    private ScheduledExecutorService asyncConnectionEvictor;
+    private boolean closed = false;
+
+    /**
+     * @param sslContext the SSL context to establish connections with, or <code>null</code> for plain HTTP
+     * @param proxy the proxy to send the requests through, if any
+     * @param maxConnectionsPerPeer the maximum number of connections to a single peer, for each of the sync and async clients
+     * @param idleConnectionExpirationMillis how long a connection may stay idle in the pool before it is closed, or 0 to keep idle connections
+     */
+    public SiteToSiteHttpConnectionPool(final SSLContext sslContext, final HttpProxy proxy, final int maxConnectionsPerPeer,
+                                        final long idleConnectionExpirationMillis) {
+        if (maxConnectionsPerPeer < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerPeer must be positive.");
+        }
+        this.sslContext = sslContext;
+        this.proxy = proxy;
+        this.maxConnectionsPerPeer = maxConnectionsPerPeer;
+        this.idleConnectionExpirationMillis = idleConnectionExpirationMillis;
+    }
+
+    synchronized CloseableHttpClient getHttpClient() {
+        checkOpen();
+        if (httpClient == null) {
+            final HttpClientBuilder clientBuilder = SiteToSiteRestApiClient.createClientBuilder(sslContext, proxy)
+                .setMaxConnPerRoute(maxConnectionsPerPeer)
+                .setMaxConnTotal(Integer.MAX_VALUE)
+                .disableConnectionState();
+            if (idleConnectionExpirationMillis > 0) {
+                clientBuilder.evictIdleConnections(idleConnectionExpirationMillis, TimeUnit.MILLISECONDS);
+            }
+            httpClient = clientBuilder.build();
+        }
+        return httpClient;
+    }
+
+    synchronized CloseableHttpAsyncClient getHttpAsyncClient() throws IOException {
+        checkOpen();
+        if (httpAsyncClient == null) {
+            // HttpAsyncClientBuilder has no counterpart to evictIdleConnections, so the connection manager is created here in order to evict its connections
+            final PoolingNHttpClientConnectionManager connectionManager = createAsyncConnectionManager();
+            httpAsyncClient = SiteToSiteRestApiClient.createAsyncClientBuilder(sslContext, proxy)
+                .setConnectionManager(connectionManager)
+                .disableConnectionState()
+                .build();
+            httpAsyncClient.start();
+
+            if (idleConnectionExpirationMillis > 0) {
+                asyncConnectionEvictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    final Thread thread = Executors.defaultThreadFactory().newThread(r);
+                    thread.setName("Http Site-to-Site Idle Connection Evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                asyncConnectionEvictor.scheduleWithFixedDelay(() -> {
+                    connectionManager.closeExpiredConnections();
+                    connectionManager.closeIdleConnections(idleConnectionExpirationMillis, TimeUnit.MILLISECONDS);
+                }, idleConnectionExpirationMillis, idleConnectionExpirationMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return httpAsyncClient;
+    }
+
+    private PoolingNHttpClientConnectionManager createAsyncConnectionManager() throws IOException {
+        final SSLIOSessionStrategy sslStrategy = sslContext == null
+            ? SSLIOSessionStrategy.getDefaultStrategy()
+            : new SSLIOSessionStrategy(sslContext, SSLIOSessionStrategy.getDefaultHostnameVerifier());
+        final Registry<SchemeIOSessionStrategy> sessionStrategies = RegistryBuilder.<SchemeIOSessionStrategy>create()
+            .register("http", NoopIOSessionStrategy.INSTANCE)
+            .register("https", sslStrategy)
+            .build();
+
+        final PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(), sessionStrategies);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerPeer);
+        connectionManager.setMaxTotal(Integer.MAX_VALUE);
+        return connectionManager;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Site-to-Site HTTP connection pool has been closed.");
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (asyncConnectionEvictor != null) {
+            asyncConnectionEvictor.shutdownNow();
+        }
+        closeSilently(httpClient);
+        closeSilently(httpAsyncClient);
+    }
+
+    private void closeSilently(final Closeable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (final IOException e) {
+            logger.warn("Got an exception when closing {}: {}", closeable, e.getMessage());
+        }
+    }
+}
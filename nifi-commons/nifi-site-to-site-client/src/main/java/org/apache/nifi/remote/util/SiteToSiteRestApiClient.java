@@ -35,15 +35,19 @@ import org.apache.http.auth.AuthState;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIUtils;
 import org.apache.http.conn.ManagedHttpClientConnection;
 import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -80,8 +84,10 @@ import org.apache.nifi.security.util.CertificateUtils;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.web.api.dto.ControllerDTO;
 import org.apache.nifi.web.api.dto.remote.PeerDTO;
+import org.apache.nifi.web.api.dto.remote.TransactionAcknowledgementDTO;
 import org.apache.nifi.web.api.entity.ControllerEntity;
 import org.apache.nifi.web.api.entity.PeersEntity;
+import org.apache.nifi.web.api.entity.TransactionAcknowledgementsEntity;
 import org.apache.nifi.web.api.entity.TransactionResultEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -115,6 +121,8 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -155,14 +163,16 @@ public class SiteToSiteRestApiClient implements Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(SiteToSiteRestApiClient.class);
 
+    private static final String API_CLIENT_CONTEXT_ATTRIBUTE = SiteToSiteRestApiClient.class.getName();
+
     private String baseUrl;
     protected final SSLContext sslContext;
     protected final HttpProxy proxy;
     private final AtomicBoolean proxyAuthRequiresResend = new AtomicBoolean(false);
     private final EventReporter eventReporter;
+    private final SiteToSiteHttpConnectionPool connectionPool;
 
     private RequestConfig requestConfig;
-    private CredentialsProvider credentialsProvider;
     private CloseableHttpClient httpClient;
     private CloseableHttpAsyncClient httpAsyncClient;
 
@@ -173,9 +183,9 @@ public class SiteToSiteRestApiClient implements Closeable {
     private int batchCount = 0;
     private long batchSize = 0;
     private long batchDurationMillis = 0;
-    private TransportProtocolVersionNegotiator transportProtocolVersionNegotiator = new TransportProtocolVersionNegotiator(2,1);
+    private TransportProtocolVersionNegotiator transportProtocolVersionNegotiator = new TransportProtocolVersionNegotiator(3,2,1);
 
-    private String trustedPeerDn;
+    private volatile String trustedPeerDn;
     private final ScheduledExecutorService ttlExtendTaskExecutor;
     private ScheduledFuture<?> ttlExtendingFuture;
     private SiteToSiteRestApiClient extendingApiClient;
@@ -186,15 +196,31 @@ public class SiteToSiteRestApiClient implements Closeable {
     private static final Pattern HTTP_ABS_URL = Pattern.compile("^https?://.+$");
 
     private Future<HttpResponse> postResult;
+    private CompletableFuture<HttpResponse> postResponse;
+    private CloseableHttpResponse receivingResponse;
     private CountDownLatch transferDataLatch = new CountDownLatch(1);
 
     private static final ConcurrentMap<String, RemoteGroupContents> contentsMap = new ConcurrentHashMap<>();
     private volatile long lastPruneTimestamp = System.currentTimeMillis();
 
     public SiteToSiteRestApiClient(final SSLContext sslContext, final HttpProxy proxy, final EventReporter eventReporter) {
+        this(sslContext, proxy, eventReporter, null);
+    }
+
+    /**
+     * Creates a client that sends its requests through the HTTP clients of the given connection pool, so that
+     * connections (and TLS sessions) established by previous transactions to the same peer can be reused.
+     * Closing this client leaves the pool open. If the proxy requires authentication, this client still uses
+     * its own HTTP clients, as the proxy authentication check relies on the connections not being shared.
+     *
+     * @param connectionPool the pool to use, or <code>null</code> to create HTTP clients that are dedicated to this client
+     */
+    public SiteToSiteRestApiClient(final SSLContext sslContext, final HttpProxy proxy, final EventReporter eventReporter,
+                                   final SiteToSiteHttpConnectionPool connectionPool) {
         this.sslContext = sslContext;
         this.proxy = proxy;
         this.eventReporter = eventReporter;
+        this.connectionPool = connectionPool;
 
         ttlExtendTaskExecutor = Executors.newScheduledThreadPool(1, new ThreadFactory() {
             private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
@@ -212,24 +238,51 @@ public class SiteToSiteRestApiClient implements Closeable {
     @Override
     public void close() throws IOException {
         stopExtendingTtl();
+
+        // Closing the HTTP clients would abort any request that is still in progress, but pooled clients are shared
+        // with other transactions, so abort the requests of this client explicitly to release their connections.
+        if (postResult != null && !postResult.isDone()) {
+            postResult.cancel(true);
+        }
+        closeSilently(receivingResponse);
+
         closeSilently(httpClient);
         closeSilently(httpAsyncClient);
     }
 
+    private boolean isUsingConnectionPool() {
+        return connectionPool != null && !shouldCheckProxyAuth();
+    }
+
     private CloseableHttpClient getHttpClient() {
+        if (isUsingConnectionPool()) {
+            return connectionPool.getHttpClient();
+        }
         if (httpClient == null) {
             setupClient();
         }
         return httpClient;
     }
 
-    private CloseableHttpAsyncClient getHttpAsyncClient() {
+    private CloseableHttpAsyncClient getHttpAsyncClient() throws IOException {
+        if (isUsingConnectionPool()) {
+            return connectionPool.getHttpAsyncClient();
+        }
         if (httpAsyncClient == null) {
             setupAsyncClient();
         }
         return httpAsyncClient;
     }
 
+    /**
+     * @return a context for a single request, through which the response interceptor finds this client
+     */
+    private HttpClientContext createHttpContext() {
+        final HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(API_CLIENT_CONTEXT_ATTRIBUTE, this);
+        return context;
+    }
+
     private RequestConfig getRequestConfig() {
         if (requestConfig == null) {
             setupRequestConfig();
@@ -237,13 +290,6 @@ public class SiteToSiteRestApiClient implements Closeable {
         return requestConfig;
     }
 
-    private CredentialsProvider getCredentialsProvider() {
-        if (credentialsProvider == null) {
-            setupCredentialsProvider();
-        }
-        return credentialsProvider;
-    }
-
     private void setupRequestConfig() {
         final RequestConfig.Builder requestConfigBuilder = RequestConfig.custom()
             .setConnectionRequestTimeout(connectTimeoutMillis)
@@ -261,8 +307,8 @@ public class SiteToSiteRestApiClient implements Closeable {
         requestConfig = requestConfigBuilder.build();
     }
 
-    private void setupCredentialsProvider() {
-        credentialsProvider = new BasicCredentialsProvider();
+    private static CredentialsProvider createCredentialsProvider(final HttpProxy proxy) {
+        final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
         if (proxy != null) {
             if (!isEmpty(proxy.getUsername()) && !isEmpty(proxy.getPassword())) {
                 credentialsProvider.setCredentials(
@@ -271,9 +317,10 @@ public class SiteToSiteRestApiClient implements Closeable {
             }
 
         }
+        return credentialsProvider;
     }
 
-    private void setupClient() {
+    static HttpClientBuilder createClientBuilder(final SSLContext sslContext, final HttpProxy proxy) {
         final HttpClientBuilder clientBuilder = HttpClients.custom();
 
         if (sslContext != null) {
@@ -281,11 +328,10 @@ public class SiteToSiteRestApiClient implements Closeable {
             clientBuilder.addInterceptorFirst(new HttpsResponseInterceptor());
         }
 
-        httpClient = clientBuilder
-            .setDefaultCredentialsProvider(getCredentialsProvider()).build();
+        return clientBuilder.setDefaultCredentialsProvider(createCredentialsProvider(proxy));
     }
 
-    private void setupAsyncClient() {
+    static HttpAsyncClientBuilder createAsyncClientBuilder(final SSLContext sslContext, final HttpProxy proxy) {
         final HttpAsyncClientBuilder clientBuilder = HttpAsyncClients.custom();
 
         if (sslContext != null) {
@@ -293,11 +339,23 @@ public class SiteToSiteRestApiClient implements Closeable {
             clientBuilder.addInterceptorFirst(new HttpsResponseInterceptor());
         }
 
-        httpAsyncClient = clientBuilder.setDefaultCredentialsProvider(getCredentialsProvider()).build();
+        return clientBuilder.setDefaultCredentialsProvider(createCredentialsProvider(proxy));
+    }
+
+    private void setupClient() {
+        httpClient = createClientBuilder(sslContext, proxy).build();
+    }
+
+    private void setupAsyncClient() {
+        httpAsyncClient = createAsyncClientBuilder(sslContext, proxy).build();
         httpAsyncClient.start();
     }
 
-    private class HttpsResponseInterceptor implements HttpResponseInterceptor {
+    /**
+     * Captures the DN of the peer certificate into the client that sent the request,
+     * which is looked up from the request context as the HTTP clients may be shared.
+     */
+    private static class HttpsResponseInterceptor implements HttpResponseInterceptor {
         @Override
         public void process(final HttpResponse response, final HttpContext httpContext) throws HttpException, IOException {
             final HttpCoreContext coreContext = HttpCoreContext.adapt(httpContext);
@@ -322,13 +380,14 @@ public class SiteToSiteRestApiClient implements Closeable {
                     throw new SSLPeerUnverifiedException("No certificates found");
                 }
 
+                final SiteToSiteRestApiClient apiClient = (SiteToSiteRestApiClient) coreContext.getAttribute(API_CLIENT_CONTEXT_ATTRIBUTE);
                 try {
                     final X509Certificate cert = CertificateUtils.convertAbstractX509Certificate(certChain[0]);
-                    trustedPeerDn = cert.getSubjectDN().getName().trim();
+                    apiClient.trustedPeerDn = cert.getSubjectDN().getName().trim();
                 } catch (final CertificateException e) {
                     final String msg = "Could not extract subject DN from SSL session peer certificate";
                     logger.warn(msg);
-                    eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, msg);
+                    apiClient.eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, msg);
                     throw new SSLPeerUnverifiedException(msg);
                 }
             }
@@ -521,7 +580,7 @@ public class SiteToSiteRestApiClient implements Closeable {
      * @throws IOException thrown if the post request failed
      */
     private HttpResponse initiateTransactionForReceive(final HttpPost post) throws IOException {
-        return getHttpClient().execute(post);
+        return getHttpClient().execute(post, createHttpContext());
     }
 
     /**
@@ -574,7 +633,7 @@ public class SiteToSiteRestApiClient implements Closeable {
         if (shouldCheckProxyAuth()) {
             final CloseableHttpAsyncClient asyncClient = getHttpAsyncClient();
             final HttpGet get = createGetControllerRequest();
-            final Future<HttpResponse> getResult = asyncClient.execute(get, null);
+            final Future<HttpResponse> getResult = asyncClient.execute(get, createHttpContext(), null);
             try {
                 final HttpResponse getResponse = getResult.get(readTimeoutMillis, TimeUnit.MILLISECONDS);
                 logger.debug("Proxy auth check has done. getResponse={}", getResponse.getStatusLine());
@@ -637,7 +696,7 @@ public class SiteToSiteRestApiClient implements Closeable {
             }
         };
 
-        final Future<HttpResponse> responseFuture = getHttpAsyncClient().execute(asyncRequestProducer, new BasicAsyncResponseConsumer(), null);
+        final Future<HttpResponse> responseFuture = getHttpAsyncClient().execute(asyncRequestProducer, new BasicAsyncResponseConsumer(), createHttpContext(), null);
         final HttpResponse response;
         try {
             response = responseFuture.get(readTimeoutMillis, TimeUnit.MILLISECONDS);
@@ -701,7 +760,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(get);
 
-        final CloseableHttpResponse response = getHttpClient().execute(get);
+        final CloseableHttpResponse response = getHttpClient().execute(get, createHttpContext());
         final int responseCode = response.getStatusLine().getStatusCode();
         logger.debug("responseCode={}", responseCode);
 
@@ -737,6 +796,7 @@ public class SiteToSiteRestApiClient implements Closeable {
                     ((HttpInput) peer.getCommunicationsSession().getInput()).setInputStream(streamCapture);
 
                     startExtendingTtl(transactionUrl, httpIn, response);
+                    receivingResponse = response;
                     keepItOpen = true;
                     return true;
 
@@ -907,7 +967,25 @@ public class SiteToSiteRestApiClient implements Closeable {
             }
         };
 
-        postResult = getHttpAsyncClient().execute(asyncRequestProducer, new BasicAsyncResponseConsumer(), null);
+        // postResult aborts the request if this client is closed, while postResponse lets the response be awaited without blocking
+        final CompletableFuture<HttpResponse> response = new CompletableFuture<>();
+        postResponse = response;
+        postResult = getHttpAsyncClient().execute(asyncRequestProducer, new BasicAsyncResponseConsumer(), createHttpContext(), new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(final HttpResponse result) {
+                response.complete(result);
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                response.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                response.cancel(false);
+            }
+        });
 
         try {
             // Need to wait the post request actually started so that we can write to its output stream.
@@ -926,9 +1004,45 @@ public class SiteToSiteRestApiClient implements Closeable {
     }
 
     public void finishTransferFlowFiles(final CommunicationsSession commSession) throws IOException {
+        closeTransferFlowFiles(commSession);
+
+        final HttpResponse response;
+        try {
+            response = postResult.get(readTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final ExecutionException e) {
+            logger.debug("Something has happened at sending data thread. {}", e.getMessage());
+            throw toIOException(e);
+        } catch (TimeoutException | InterruptedException e) {
+            throw new IOException(e);
+        }
 
+        readTransferChecksum(commSession, response);
+    }
+
+    /**
+     * Finishes sending flow files like {@link #finishTransferFlowFiles(CommunicationsSession)}, but without waiting for
+     * the checksum calculated by the server. The returned future completes on the thread that receives the response,
+     * so dependent stages must not block.
+     *
+     * @param commSession the communications session of the transaction
+     * @return a future that completes with the checksum calculated by the server
+     * @throws IOException thrown if the remaining data could not be sent
+     */
+    public CompletableFuture<String> finishTransferFlowFilesAsync(final CommunicationsSession commSession) throws IOException {
+        closeTransferFlowFiles(commSession);
+
+        return postResponse.thenApply(response -> {
+            try {
+                return readTransferChecksum(commSession, response);
+            } catch (final IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private void closeTransferFlowFiles(final CommunicationsSession commSession) throws IOException {
         if (postResult == null) {
-            new IllegalStateException("Data transfer has not started yet.");
+            throw new IllegalStateException("Data transfer has not started yet.");
         }
 
         // No more data can be sent.
@@ -946,17 +1060,9 @@ public class SiteToSiteRestApiClient implements Closeable {
         }
 
         stopExtendingTtl();
+    }
 
-        final HttpResponse response;
-        try {
-            response = postResult.get(readTimeoutMillis, TimeUnit.MILLISECONDS);
-        } catch (final ExecutionException e) {
-            logger.debug("Something has happened at sending data thread. {}", e.getMessage());
-            throw toIOException(e);
-        } catch (TimeoutException | InterruptedException e) {
-            throw new IOException(e);
-        }
-
+    private String readTransferChecksum(final CommunicationsSession commSession, final HttpResponse response) throws IOException {
         final int responseCode = response.getStatusLine().getStatusCode();
         switch (responseCode) {
             case RESPONSE_CODE_ACCEPTED:
@@ -964,7 +1070,7 @@ public class SiteToSiteRestApiClient implements Closeable {
                 ((HttpInput) commSession.getInput()).setInputStream(new ByteArrayInputStream(receivedChecksum.getBytes()));
                 ((HttpCommunicationsSession) commSession).setChecksum(receivedChecksum);
                 logger.debug("receivedChecksum={}", receivedChecksum);
-                break;
+                return receivedChecksum;
 
             default:
                 try (InputStream content = response.getEntity().getContent()) {
@@ -981,7 +1087,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         logger.debug("Starting extending TTL thread...");
 
-        extendingApiClient = new SiteToSiteRestApiClient(sslContext, proxy, EventReporter.NO_OP);
+        extendingApiClient = new SiteToSiteRestApiClient(sslContext, proxy, EventReporter.NO_OP, connectionPool);
         extendingApiClient.transportProtocolVersionNegotiator = this.transportProtocolVersionNegotiator;
         extendingApiClient.connectTimeoutMillis = this.connectTimeoutMillis;
         extendingApiClient.readTimeoutMillis = this.readTimeoutMillis;
@@ -1029,7 +1135,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(put);
 
-        try (final CloseableHttpResponse response = getHttpClient().execute(put)) {
+        try (final CloseableHttpResponse response = getHttpClient().execute(put, createHttpContext())) {
             final int responseCode = response.getStatusLine().getStatusCode();
             logger.debug("extendTransaction responseCode={}", responseCode);
 
@@ -1196,7 +1302,7 @@ public class SiteToSiteRestApiClient implements Closeable {
             Arrays.stream(get.getAllHeaders()).forEach(h -> logger.debug("REQ| {}", h));
         }
 
-        try (final CloseableHttpResponse response = httpClient.execute(get)) {
+        try (final CloseableHttpResponse response = httpClient.execute(get, createHttpContext())) {
             if (logger.isTraceEnabled()) {
                 Arrays.stream(response.getAllHeaders()).forEach(h -> logger.debug("RES| {}", h));
             }
@@ -1448,6 +1554,10 @@ public class SiteToSiteRestApiClient implements Closeable {
         return transportProtocolVersionNegotiator.getTransactionProtocolVersion();
     }
 
+    public int getTransportProtocolVersion() {
+        return transportProtocolVersionNegotiator.getVersion();
+    }
+
     public String getTrustedPeerDn() {
         return this.trustedPeerDn;
     }
@@ -1469,7 +1579,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(delete);
 
-        try (CloseableHttpResponse response = getHttpClient().execute(delete)) {
+        try (CloseableHttpResponse response = getHttpClient().execute(delete, createHttpContext())) {
             final int responseCode = response.getStatusLine().getStatusCode();
             logger.debug("commitReceivingFlowFiles responseCode={}", responseCode);
 
@@ -1499,7 +1609,7 @@ public class SiteToSiteRestApiClient implements Closeable {
 
         setHandshakeProperties(delete);
 
-        try (CloseableHttpResponse response = getHttpClient().execute(delete)) {
+        try (CloseableHttpResponse response = getHttpClient().execute(delete, createHttpContext())) {
             final int responseCode = response.getStatusLine().getStatusCode();
             logger.debug("commitTransferFlowFiles responseCode={}", responseCode);
 
@@ -1519,6 +1629,50 @@ public class SiteToSiteRestApiClient implements Closeable {
 
     }
 
+    /**
+     * Commits or cancels multiple transactions of a port with a single request. Requires transport protocol version
+     * {@link TransportProtocolVersionNegotiator#TRANSACTION_ACKNOWLEDGEMENTS_VERSION}.
+     *
+     * @param direction the direction of the transactions
+     * @param portId the port of the transactions
+     * @param acknowledgements the transaction id and response code, and for receiving transactions the checksum, of each transaction
+     * @return the outcome of each transaction, identified by its transaction id
+     * @throws IOException thrown if the request failed as a whole
+     */
+    public Collection<TransactionAcknowledgementDTO> acknowledgeTransactions(final TransferDirection direction, final String portId,
+                                                                             final Collection<TransactionAcknowledgementDTO> acknowledgements) throws IOException {
+        final String portType = TransferDirection.RECEIVE.equals(direction) ? "output-ports" : "input-ports";
+        logger.debug("Sending acknowledgeTransactions request for {} transactions, portType={}, portId={}", acknowledgements.size(), portType, portId);
+
+        final TransactionAcknowledgementsEntity requestEntity = new TransactionAcknowledgementsEntity();
+        requestEntity.setAcknowledgements(acknowledgements);
+
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        final HttpPost post = createPost("/data-transfer/" + portType + "/" + portId + "/transactions/acknowledgements");
+        post.setHeader("Accept", "application/json");
+        post.setHeader(HttpHeaders.PROTOCOL_VERSION, String.valueOf(transportProtocolVersionNegotiator.getVersion()));
+        post.setEntity(new StringEntity(mapper.writeValueAsString(requestEntity), ContentType.APPLICATION_JSON));
+
+        setHandshakeProperties(post);
+
+        try (final CloseableHttpResponse response = getHttpClient().execute(post, createHttpContext())) {
+            final int responseCode = response.getStatusLine().getStatusCode();
+            logger.debug("acknowledgeTransactions responseCode={}", responseCode);
+
+            try (final InputStream content = response.getEntity().getContent()) {
+                switch (responseCode) {
+                    case RESPONSE_CODE_OK:
+                        final Collection<TransactionAcknowledgementDTO> results = mapper.readValue(content, TransactionAcknowledgementsEntity.class).getAcknowledgements();
+                        return results == null ? Collections.emptyList() : results;
+                    default:
+                        throw handleErrResponse(responseCode, content);
+                }
+            }
+        }
+    }
+
     private static class RemoteGroupContents {
         private final ControllerDTO contents;
         private final long timestamp;
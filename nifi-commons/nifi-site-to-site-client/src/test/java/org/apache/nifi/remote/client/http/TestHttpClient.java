@@ -22,6 +22,8 @@ import static org.apache.nifi.remote.protocol.http.HttpHeaders.LOCATION_URI_INTE
 import static org.apache.nifi.remote.protocol.http.HttpHeaders.LOCATION_URI_INTENT_VALUE;
 import static org.apache.nifi.remote.protocol.http.HttpHeaders.PROTOCOL_VERSION;
 import static org.apache.nifi.remote.protocol.http.HttpHeaders.SERVER_SIDE_TRANSACTION_TTL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -37,11 +39,15 @@ import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletException;
@@ -52,6 +58,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.nifi.controller.ScheduledState;
 import org.apache.nifi.remote.Peer;
 import org.apache.nifi.remote.Transaction;
+import org.apache.nifi.remote.TransactionCompletion;
 import org.apache.nifi.remote.TransferDirection;
 import org.apache.nifi.remote.client.KeystoreType;
 import org.apache.nifi.remote.client.SiteToSiteClient;
@@ -70,8 +77,10 @@ import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.web.api.dto.ControllerDTO;
 import org.apache.nifi.web.api.dto.PortDTO;
 import org.apache.nifi.web.api.dto.remote.PeerDTO;
+import org.apache.nifi.web.api.dto.remote.TransactionAcknowledgementDTO;
 import org.apache.nifi.web.api.entity.ControllerEntity;
 import org.apache.nifi.web.api.entity.PeersEntity;
+import org.apache.nifi.web.api.entity.TransactionAcknowledgementsEntity;
 import org.apache.nifi.web.api.entity.TransactionResultEntity;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Handler;
@@ -115,6 +124,9 @@ public class TestHttpClient {
     private static Set<PeerDTO> peers;
     private static Set<PeerDTO> peersSecure;
     private static String serverChecksum;
+    private static final Set<Integer> transactionClientPorts = Collections.synchronizedSet(new HashSet<>());
+    private static final List<List<TransactionAcknowledgementDTO>> acknowledgementRequests = Collections.synchronizedList(new ArrayList<>());
+    private static volatile CountDownLatch acknowledgementsReleased;
 
     public static class SiteInfoServlet extends HttpServlet {
 
@@ -184,6 +196,7 @@ public class TestHttpClient {
         protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
             final int reqProtocolVersion = getReqProtocolVersion(req);
+            transactionClientPorts.add(req.getRemotePort());
 
             TransactionResultEntity entity = new TransactionResultEntity();
             entity.setResponseCode(ResponseCode.PROPERTIES_OK.getCode());
@@ -287,6 +300,45 @@ public class TestHttpClient {
 
     }
 
+    public static class TransactionAcknowledgementsServlet extends HttpServlet {
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+
+            final int reqProtocolVersion = getReqProtocolVersion(req);
+            final TransactionAcknowledgementsEntity reqEntity = new ObjectMapper().readValue(req.getInputStream(), TransactionAcknowledgementsEntity.class);
+            acknowledgementRequests.add(new ArrayList<>(reqEntity.getAcknowledgements()));
+
+            // Hold the first request so that the acknowledgements of the following transactions pile up
+            final CountDownLatch released = acknowledgementsReleased;
+            if (released != null) {
+                try {
+                    released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            final ResponseCode confirmed = req.getRequestURI().contains("/input-ports/") ? ResponseCode.TRANSACTION_FINISHED : ResponseCode.CONFIRM_TRANSACTION;
+            final List<TransactionAcknowledgementDTO> results = new ArrayList<>();
+            for (final TransactionAcknowledgementDTO acknowledgement : reqEntity.getAcknowledgements()) {
+                final TransactionAcknowledgementDTO result = new TransactionAcknowledgementDTO();
+                result.setTransactionId(acknowledgement.getTransactionId());
+                result.setResponseCode(ResponseCode.CONFIRM_TRANSACTION.getCode() == acknowledgement.getResponseCode()
+                        ? confirmed.getCode() : ResponseCode.CANCEL_TRANSACTION.getCode());
+                results.add(result);
+            }
+
+            final TransactionAcknowledgementsEntity entity = new TransactionAcknowledgementsEntity();
+            entity.setAcknowledgements(results);
+
+            setCommonResponseHeaders(resp, reqProtocolVersion);
+
+            respondWithJson(resp, entity, HttpServletResponse.SC_OK);
+        }
+
+    }
+
     public static class FlowFilesServlet extends HttpServlet {
 
         @Override
@@ -492,6 +544,7 @@ public class TestHttpClient {
         servletHandler.addServletWithMapping(PortTransactionsServlet.class, "/data-transfer/input-ports/input-running-id/transactions");
         servletHandler.addServletWithMapping(InputPortTransactionServlet.class, "/data-transfer/input-ports/input-running-id/transactions/transaction-id");
         servletHandler.addServletWithMapping(FlowFilesServlet.class, "/data-transfer/input-ports/input-running-id/transactions/transaction-id/flow-files");
+        servletHandler.addServletWithMapping(TransactionAcknowledgementsServlet.class, "/data-transfer/input-ports/input-running-id/transactions/acknowledgements");
 
         servletHandler.addServletWithMapping(PortTransactionsServlet.class, "/data-transfer/input-ports/input-timeout-id/transactions");
         servletHandler.addServletWithMapping(InputPortTransactionServlet.class, "/data-transfer/input-ports/input-timeout-id/transactions/transaction-id");
@@ -504,6 +557,7 @@ public class TestHttpClient {
         servletHandler.addServletWithMapping(PortTransactionsServlet.class, "/data-transfer/output-ports/output-running-id/transactions");
         servletHandler.addServletWithMapping(OutputPortTransactionServlet.class, "/data-transfer/output-ports/output-running-id/transactions/transaction-id");
         servletHandler.addServletWithMapping(FlowFilesServlet.class, "/data-transfer/output-ports/output-running-id/transactions/transaction-id/flow-files");
+        servletHandler.addServletWithMapping(TransactionAcknowledgementsServlet.class, "/data-transfer/output-ports/output-running-id/transactions/acknowledgements");
 
         servletHandler.addServletWithMapping(PortTransactionsServlet.class, "/data-transfer/output-ports/output-timeout-id/transactions");
         servletHandler.addServletWithMapping(OutputPortTransactionServlet.class, "/data-transfer/output-ports/output-timeout-id/transactions/transaction-id");
@@ -839,6 +893,43 @@ public class TestHttpClient {
 
     }
 
+    @Test
+    public void testSendPipelined() throws Exception {
+
+        try (
+                final SiteToSiteClient client = getDefaultBuilder()
+                    .portName("input-running")
+                    .transactionWindowSize(2)
+                    .build()
+        ) {
+            serverChecksum = "1071206772";
+            acknowledgementRequests.clear();
+
+            final List<CompletableFuture<TransactionCompletion>> completions = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                final Transaction transaction = client.createTransaction(TransferDirection.SEND);
+                assertNotNull(transaction);
+
+                for (int j = 0; j < 20; j++) {
+                    transaction.send(new DataPacketBuilder()
+                            .contents("Example contents from client.")
+                            .attr("Client attr 1", "Client attr 1 value")
+                            .attr("Client attr 2", "Client attr 2 value")
+                            .build());
+                }
+                completions.add(transaction.completeAsync());
+            }
+
+            for (final CompletableFuture<TransactionCompletion> completion : completions) {
+                final TransactionCompletion result = completion.get(10, TimeUnit.SECONDS);
+                assertEquals(20, result.getDataPacketsTransferred());
+                assertFalse(result.isBackoff());
+            }
+            assertEquals(3, acknowledgementRequests.stream().mapToInt(List::size).sum());
+        }
+
+    }
+
     @Test
     public void testSendSuccessMultipleUrls() throws Exception {
 
@@ -1296,6 +1387,75 @@ public class TestHttpClient {
         }
     }
 
+    @Test
+    public void testReceivePipelined() throws Exception {
+
+        try (
+            SiteToSiteClient client = getDefaultBuilder()
+                .portName("output-running")
+                .transactionWindowSize(3)
+                .build()
+        ) {
+            acknowledgementRequests.clear();
+            acknowledgementsReleased = new CountDownLatch(1);
+            try {
+                final List<CompletableFuture<TransactionCompletion>> completions = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    final Transaction transaction = client.createTransaction(TransferDirection.RECEIVE);
+                    assertNotNull(transaction);
+
+                    DataPacket packet;
+                    while ((packet = transaction.receive()) != null) {
+                        consumeDataPacket(packet);
+                    }
+                    completions.add(transaction.completeAsync());
+                }
+
+                // The following transactions have been exchanged while the first one is still being acknowledged
+                assertFalse(completions.get(0).isDone());
+                acknowledgementsReleased.countDown();
+
+                for (final CompletableFuture<TransactionCompletion> completion : completions) {
+                    assertEquals(3, completion.get(10, TimeUnit.SECONDS).getDataPacketsTransferred());
+                }
+            } finally {
+                acknowledgementsReleased.countDown();
+                acknowledgementsReleased = null;
+            }
+
+            assertEquals(3, acknowledgementRequests.stream().mapToInt(List::size).sum());
+            assertTrue("Acknowledgements should have been sent in batches", acknowledgementRequests.size() < 3);
+        }
+    }
+
+    @Test
+    public void testTransactionsReuseConnections() throws Exception {
+
+        try (
+            SiteToSiteClient client = getDefaultBuilder()
+                .portName("output-running")
+                .build()
+        ) {
+            transactionClientPorts.clear();
+            for (int i = 0; i < 3; i++) {
+                testReceive(client);
+            }
+            assertEquals("Transactions should have been initiated over the same connection", 1, transactionClientPorts.size());
+        }
+
+        try (
+            SiteToSiteClient client = getDefaultBuilder()
+                .portName("input-running")
+                .build()
+        ) {
+            transactionClientPorts.clear();
+            for (int i = 0; i < 3; i++) {
+                testSend(client);
+            }
+            assertEquals("Transactions should have been initiated over the same connection", 1, transactionClientPorts.size());
+        }
+    }
+
     @Test
     public void testReceiveSuccessWithProxy() throws Exception {
 
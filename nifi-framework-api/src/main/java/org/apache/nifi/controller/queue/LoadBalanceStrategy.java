@@ -38,5 +38,18 @@ public enum LoadBalanceStrategy {
     /**
      * All FlowFiles will be sent to the same node. Which node they are sent to is not defined.
      */
-    SINGLE_NODE;
+    SINGLE_NODE,
+
+    /**
+     * Determine which node to send a given FlowFile to based on the value of a user-specified FlowFile Attribute, as {@link #PARTITION_BY_ATTRIBUTE} does,
+     * but choose the node by rendezvous hashing on the identifiers of the nodes, so that a node joining or leaving the cluster only moves the FlowFiles
+     * that belong on that node. All nodes in the cluster must support this strategy in order to agree on the node of each value.
+     */
+    RENDEZVOUS_PARTITION_BY_ATTRIBUTE,
+
+    /**
+     * FlowFiles will be distributed to nodes in the cluster in a Round-Robin fashion, as {@link #ROUND_ROBIN} does, but a node whose queue is much deeper
+     * than the queue of the least loaded node will be skipped until the other nodes catch up.
+     */
+    WEIGHTED_ROUND_ROBIN;
 }
@@ -100,6 +100,7 @@ public class ListenBeats extends AbstractListenEventBatchingProcessor<BeatsEvent
     protected List<PropertyDescriptor> getAdditionalProperties() {
         return Arrays.asList(
             MAX_CONNECTIONS,
+            SELECTOR_THREADS,
             SSL_CONTEXT_SERVICE,
             CLIENT_AUTH
         );
@@ -145,6 +146,7 @@ public class ListenBeats extends AbstractListenEventBatchingProcessor<BeatsEvent
         final ChannelHandlerFactory<BeatsEvent, AsyncChannelDispatcher> handlerFactory = new BeatsSocketChannelHandlerFactory<>();
 
         final int maxConnections = context.getProperty(MAX_CONNECTIONS).asInteger();
+        final int selectorThreads = context.getProperty(SELECTOR_THREADS).asInteger();
         final int bufferSize = context.getProperty(RECV_BUFFER_SIZE).asDataSize(DataUnit.B).intValue();
         final Charset charSet = Charset.forName(context.getProperty(CHARSET).getValue());
 
@@ -164,7 +166,7 @@ public class ListenBeats extends AbstractListenEventBatchingProcessor<BeatsEvent
 
         // if we decide to support SSL then get the context and pass it in here
         return new SocketChannelDispatcher<>(eventFactory, handlerFactory, bufferPool, events,
-            getLogger(), maxConnections, sslContext, clientAuth, charSet);
+            getLogger(), maxConnections, sslContext, clientAuth, charSet, selectorThreads);
     }
 
 
@@ -16,17 +16,28 @@
  */
 package org.apache.nifi.couchbase;
 
+import com.couchbase.client.core.CouchbaseException;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.document.Document;
 import org.apache.nifi.annotation.lifecycle.OnEnabled;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.AbstractControllerService;
 import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.controller.ControllerServiceInitializationContext;
+import org.apache.nifi.lookup.LookupFailureException;
 import org.apache.nifi.reporting.InitializationException;
+import rx.Observable;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -66,6 +77,50 @@ public class AbstractCouchbaseLookupService extends AbstractControllerService {
         return REQUIRED_KEYS;
     }
 
+    /**
+     * Groups lookup coordinates by the document id they refer to, skipping coordinates without a key.
+     * @param coordinates the coordinates to group
+     * @return the coordinates for each document id
+     */
+    protected Map<String, List<Map<String, Object>>> groupByDocumentId(final Collection<Map<String, Object>> coordinates) {
+        final Map<String, List<Map<String, Object>>> coordinatesByDocId = new LinkedHashMap<>();
+        for (final Map<String, Object> lookupCoordinates : coordinates) {
+            Optional.ofNullable(lookupCoordinates.get(KEY)).map(Object::toString)
+                    .ifPresent(docId -> coordinatesByDocId.computeIfAbsent(docId, k -> new ArrayList<>()).add(lookupCoordinates));
+        }
+        return coordinatesByDocId;
+    }
+
+    /**
+     * Fetches the documents with the given ids concurrently through the asynchronous bucket API,
+     * rather than paying a round trip per document. Each fetch is bound by the key/value timeout of the bucket's environment,
+     * as the blocking API is.
+     * @param docIds the ids of the documents to fetch
+     * @param documentClass the type of document to fetch
+     * @param <D> the type of document to fetch
+     * @return the fetched documents by id, without an entry for ids that do not exist
+     * @throws LookupFailureException if any of the documents could not be fetched
+     */
+    protected <D extends Document<?>> Map<String, D> getAll(final Collection<String> docIds, final Class<D> documentClass) throws LookupFailureException {
+        final Bucket bucket = couchbaseClusterService.openBucket(bucketName);
+        final long kvTimeout = bucket.environment().kvTimeout();
+        try {
+            return Observable.from(docIds)
+                    .flatMap(docId -> bucket.async().get(docId, documentClass).timeout(kvTimeout, TimeUnit.MILLISECONDS))
+                    .toMap(Document::id)
+                    .toBlocking()
+                    .single();
+        } catch (CouchbaseException e) {
+            throw new LookupFailureException("Failed to lookup from Couchbase using these keys: " + docIds, e);
+        } catch (RuntimeException e) {
+            // the blocking observable rethrows the TimeoutException raised by timeout() wrapped in a RuntimeException
+            if (e.getCause() instanceof TimeoutException) {
+                throw new LookupFailureException("Timed out looking up from Couchbase using these keys: " + docIds, e.getCause());
+            }
+            throw e;
+        }
+    }
+
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         return properties;
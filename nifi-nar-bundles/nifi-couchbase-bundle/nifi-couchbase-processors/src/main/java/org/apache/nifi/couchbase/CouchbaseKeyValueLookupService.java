@@ -18,6 +18,7 @@ package org.apache.nifi.couchbase;
 
 import com.couchbase.client.core.CouchbaseException;
 import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.document.LegacyDocument;
 import com.couchbase.client.java.error.DocumentDoesNotExistException;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
@@ -29,6 +30,8 @@ import org.apache.nifi.lookup.StringLookupService;
 import org.apache.nifi.reporting.InitializationException;
 import org.apache.nifi.util.StringUtils;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -80,4 +83,21 @@ public class CouchbaseKeyValueLookupService extends AbstractCouchbaseLookupServi
 
     }
 
+    @Override
+    public Map<Map<String, Object>, String> lookupAll(final Collection<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+        if (!StringUtils.isBlank(subDocPath)) {
+            return StringLookupService.super.lookupAll(coordinates, context);
+        }
+
+        final Map<String, List<Map<String, Object>>> coordinatesByDocId = groupByDocumentId(coordinates);
+        final Map<String, LegacyDocument> documents = getAll(coordinatesByDocId.keySet(), LegacyDocument.class);
+
+        final Map<Map<String, Object>, String> results = new HashMap<>();
+        documents.forEach((docId, doc) -> {
+            final String value = CouchbaseUtils.getStringContent(doc.content());
+            coordinatesByDocId.get(docId).forEach(lookupCoordinates -> results.put(lookupCoordinates, value));
+        });
+        return results;
+    }
+
 }
@@ -32,11 +32,15 @@ import org.apache.nifi.reporting.InitializationException;
 import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.util.Tuple;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -102,6 +106,55 @@ public class CouchbaseRecordLookupService extends AbstractCouchbaseLookupService
             throw new LookupFailureException("Failed to lookup from Couchbase using this coordinates: " + coordinates);
         }
 
+        return readRecord(coordinates, inputStream);
+    }
+
+    @Override
+    public Map<Map<String, Object>, Record> lookupAll(final Collection<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+        final Map<String, List<Map<String, Object>>> coordinatesByDocId = groupByDocumentId(coordinates);
+
+        final Map<String, InputStream> inputStreams = new HashMap<>();
+        switch (documentType) {
+
+            case Binary:
+                getAll(coordinatesByDocId.keySet(), BinaryDocument.class)
+                        .forEach((docId, doc) -> inputStreams.put(docId, new ByteBufInputStream(doc.content())));
+                break;
+
+            case Json:
+                getAll(coordinatesByDocId.keySet(), RawJsonDocument.class)
+                        .forEach((docId, doc) -> inputStreams.put(docId, new ByteArrayInputStream(doc.content().getBytes(StandardCharsets.UTF_8))));
+                break;
+
+            default:
+                return new HashMap<>();
+        }
+
+        // each coordinate may resolve the reader's schema differently, so every coordinate reads the content on its own
+        final Map<Map<String, Object>, Record> results = new HashMap<>();
+        for (final Map.Entry<String, InputStream> entry : inputStreams.entrySet()) {
+            final List<Map<String, Object>> docCoordinates = coordinatesByDocId.get(entry.getKey());
+            final byte[] content = docCoordinates.size() == 1 ? null : toByteArray(entry.getValue());
+            for (final Map<String, Object> lookupCoordinates : docCoordinates) {
+                final InputStream in = content == null ? entry.getValue() : new ByteArrayInputStream(content);
+                final Optional<Record> record = readRecord(lookupCoordinates, Optional.of(in));
+                record.ifPresent(r -> results.put(lookupCoordinates, r));
+            }
+        }
+        return results;
+    }
+
+    private static byte[] toByteArray(final InputStream in) throws LookupFailureException {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            StreamUtils.copy(in, out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new LookupFailureException("Failed to read document content from Couchbase", e);
+        }
+    }
+
+    private Optional<Record> readRecord(final Map<String, Object> coordinates, final Optional<InputStream> inputStream) throws LookupFailureException {
         final Optional<Tuple<Exception, RecordReader>> errOrReader = inputStream.map(in -> {
             try {
                 // Pass coordinates to initiate RecordReader, so that the reader can resolve schema dynamically.
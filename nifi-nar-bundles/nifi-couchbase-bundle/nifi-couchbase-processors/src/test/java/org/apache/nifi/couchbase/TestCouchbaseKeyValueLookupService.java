@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.couchbase;
+
+import com.couchbase.client.java.AsyncBucket;
+import com.couchbase.client.java.Bucket;
+import com.couchbase.client.java.document.LegacyDocument;
+import com.couchbase.client.java.env.CouchbaseEnvironment;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.lookup.LookupFailureException;
+import org.apache.nifi.util.MockConfigurationContext;
+import org.apache.nifi.util.MockControllerServiceInitializationContext;
+import org.junit.Test;
+import rx.Observable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.apache.nifi.couchbase.CouchbaseConfigurationProperties.BUCKET_NAME;
+import static org.apache.nifi.couchbase.CouchbaseConfigurationProperties.COUCHBASE_CLUSTER_SERVICE;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestCouchbaseKeyValueLookupService {
+
+    @Test
+    public void testLookupAll() throws Exception {
+        final AsyncBucket asyncBucket = mock(AsyncBucket.class);
+        when(asyncBucket.get(eq("a"), eq(LegacyDocument.class))).thenReturn(Observable.just(LegacyDocument.create("a", "value-a")));
+        when(asyncBucket.get(eq("b"), eq(LegacyDocument.class))).thenReturn(Observable.just(LegacyDocument.create("b", "value-b")));
+        when(asyncBucket.get(eq("c"), eq(LegacyDocument.class))).thenReturn(Observable.empty());
+        final CouchbaseKeyValueLookupService service = createService(asyncBucket, 2500L);
+
+        final Map<String, Object> a1 = Collections.singletonMap("key", "a");
+        final Map<String, Object> a2 = new HashMap<>(a1);
+        a2.put("other", "x");
+        final Map<String, Object> b = Collections.singletonMap("key", "b");
+        final Map<String, Object> c = Collections.singletonMap("key", "c");
+        final Map<Map<String, Object>, String> results = service.lookupAll(Arrays.asList(a1, a2, b, c), Collections.emptyMap());
+
+        assertEquals(3, results.size());
+        assertEquals("value-a", results.get(a1));
+        assertEquals("value-a", results.get(a2));
+        assertEquals("value-b", results.get(b));
+    }
+
+    @Test(expected = LookupFailureException.class)
+    public void testLookupAllTimesOut() throws Exception {
+        final AsyncBucket asyncBucket = mock(AsyncBucket.class);
+        when(asyncBucket.get(eq("a"), eq(LegacyDocument.class))).thenReturn(Observable.just(LegacyDocument.create("a", "value-a")));
+        when(asyncBucket.get(eq("b"), eq(LegacyDocument.class))).thenReturn(Observable.never());
+        final CouchbaseKeyValueLookupService service = createService(asyncBucket, 50L);
+
+        service.lookupAll(Arrays.asList(Collections.singletonMap("key", "a"), Collections.singletonMap("key", "b")), Collections.emptyMap());
+    }
+
+    private CouchbaseKeyValueLookupService createService(final AsyncBucket asyncBucket, final long kvTimeout) throws Exception {
+        final CouchbaseKeyValueLookupService service = new CouchbaseKeyValueLookupService();
+        final CouchbaseClusterControllerService couchbaseService = mock(CouchbaseClusterControllerService.class);
+        final Bucket bucket = mock(Bucket.class);
+        final CouchbaseEnvironment environment = mock(CouchbaseEnvironment.class);
+
+        final MockControllerServiceInitializationContext serviceInitializationContext
+                = new MockControllerServiceInitializationContext(couchbaseService, "couchbaseService");
+        final Map<PropertyDescriptor, String> properties = new HashMap<>();
+        properties.put(COUCHBASE_CLUSTER_SERVICE, "couchbaseService");
+        properties.put(BUCKET_NAME, "bucketA");
+
+        when(couchbaseService.openBucket(eq("bucketA"))).thenReturn(bucket);
+        when(bucket.async()).thenReturn(asyncBucket);
+        when(bucket.environment()).thenReturn(environment);
+        when(environment.kvTimeout()).thenReturn(kvTimeout);
+
+        service.initialize(serviceInitializationContext);
+        service.onEnabled(new MockConfigurationContext(properties, serviceInitializationContext));
+        return service;
+    }
+
+}
@@ -39,8 +39,10 @@ import org.apache.nifi.serialization.record.RecordSchema;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -176,6 +178,39 @@ public class ElasticSearchLookupService extends JsonInferenceSchemaRegistryServi
         }
     }
 
+    @Override
+    public Map<Map<String, Object>, Record> lookupAll(Collection<Map<String, Object>> coordinates, Map<String, String> context) throws LookupFailureException {
+        Map<String, List<Map<String, Object>>> byId = new LinkedHashMap<>();
+        List<Map<String, Object>> byQuery = new ArrayList<>();
+        for (Map<String, Object> coordinate : coordinates) {
+            validateCoordinates(coordinate);
+            if (coordinate.containsKey("_id")) {
+                byId.computeIfAbsent((String) coordinate.get("_id"), id -> new ArrayList<>()).add(coordinate);
+            } else {
+                byQuery.add(coordinate);
+            }
+        }
+
+        Map<Map<String, Object>, Record> results = new HashMap<>();
+        if (byId.size() > 1) {
+            try {
+                Map<String, Record> records = getByIds(byId.keySet(), context);
+                records.forEach((id, record) -> byId.get(id).forEach(coordinate -> results.put(coordinate, record)));
+            } catch (Exception ex) {
+                getLogger().error("Error during lookup.", ex);
+                throw new LookupFailureException(ex);
+            }
+        } else {
+            byId.values().forEach(byQuery::addAll);
+        }
+
+        for (Map<String, Object> coordinate : byQuery) {
+            lookup(coordinate, context).ifPresent(record -> results.put(coordinate, record));
+        }
+
+        return results;
+    }
+
     private void validateCoordinates(Map coordinates) throws LookupFailureException {
         List<String> reasons = new ArrayList<>();
 
@@ -226,6 +261,38 @@ public class ElasticSearchLookupService extends JsonInferenceSchemaRegistryServi
         return record;
     }
 
+    private Map<String, Record> getByIds(final Set<String> ids, Map<String, String> context) throws IOException, SchemaNotFoundException {
+        Map<String, Object> query = new HashMap<String, Object>(){{
+            put("size", ids.size());
+            put("query", new HashMap<String, Object>() {{
+                put("ids", new HashMap<String, Object>(){{
+                    put("values", ids);
+                }});
+            }});
+        }};
+
+        String json = mapper.writeValueAsString(query);
+
+        SearchResponse response = clientService.search(json, index, type);
+
+        Map<String, Record> records = new HashMap<>();
+        for (Map<String, Object> hit : response.getHits()) {
+            final Map<String, Object> source = (Map)hit.get("_source");
+
+            RecordSchema toUse = getSchema(context, source, null);
+
+            Record record = new MapRecord(toUse, source);
+
+            if (mappings.size() > 0) {
+                record = applyMappings(record, source);
+            }
+
+            records.put((String) hit.get("_id"), record);
+        }
+
+        return records;
+    }
+
     Map<String, Object> getNested(String key, Object value) {
         String path = key.substring(0, key.lastIndexOf("."));
 
@@ -66,4 +66,16 @@ class ElasticSearchLookupServiceTest {
         Assert.assertEquals("john.smith@test.com", record.getAsString("email"))
         Assert.assertEquals("Software Engineer", record.getAsString("position"))
     }
+
+    @Test
+    void lookupAllByIdTest() throws Exception {
+        def found = ["_id": "12345"]
+        def missing = ["_id": "67890"]
+
+        Map<Map<String, Object>, MapRecord> results = lookupService.lookupAll([found, missing], [:])
+
+        Assert.assertEquals(1, results.size())
+        Assert.assertEquals("john.smith", results.get(found).getAsString("username"))
+        Assert.assertFalse(results.containsKey(missing))
+    }
 }
@@ -70,6 +70,7 @@ class TestElasticSearchClientService extends AbstractControllerService implement
     @Override
     SearchResponse search(String query, String index, String type) {
         List hits = [[
+            "_id": "12345",
             "_source": data
         ]]
         return new SearchResponse(hits, null, 1, 100, false)
@@ -51,6 +51,7 @@ public class Bin {
     private final List<FlowFile> binContents = new ArrayList<>();
     private final Set<String> binIndexSet = new HashSet<>();
     private long size;
+    private int entryCount = 0;
     private int successiveFailedOfferings = 0;
 
     /**
@@ -89,8 +90,8 @@ public class Bin {
      * @return true if considered full; false otherwise
      */
     public boolean isFull() {
-        return (((size >= minimumSizeBytes) && binContents.size() >= minimumEntries) && (successiveFailedOfferings > 5))
-                || (size >= maximumSizeBytes) || (binContents.size() >= maximumEntries);
+        return (((size >= minimumSizeBytes) && entryCount >= minimumEntries) && (successiveFailedOfferings > 5))
+                || (size >= maximumSizeBytes) || (entryCount >= maximumEntries);
     }
 
     /**
@@ -99,7 +100,7 @@ public class Bin {
      * @return true if full enough
      */
     public boolean isFullEnough() {
-        return isFull() || (size >= minimumSizeBytes && (binContents.size() >= minimumEntries));
+        return isFull() || (size >= minimumSizeBytes && (entryCount >= minimumEntries));
     }
 
     /**
@@ -132,7 +133,23 @@ public class Bin {
      * @return true if added; false otherwise
      */
     public boolean offer(final FlowFile flowFile, final ProcessSession session) {
-        if (((size + flowFile.getSize()) > maximumSizeBytes) || (binContents.size() >= maximumEntries)) {
+        if (!reserve(flowFile)) {
+            return false;
+        }
+
+        add(flowFile, session);
+        return true;
+    }
+
+    /**
+     * If this bin has enough room for the size of the given flow file then room is made for it, but the flow file is not added to
+     * the contents of the bin until {@link #add(FlowFile, ProcessSession)} is called, which the caller must then do.
+     *
+     * @param flowFile flowfile to make room for
+     * @return true if room was made; false otherwise
+     */
+    public boolean reserve(final FlowFile flowFile) {
+        if (((size + flowFile.getSize()) > maximumSizeBytes) || (entryCount >= maximumEntries)) {
             successiveFailedOfferings++;
             return false;
         }
@@ -157,11 +174,20 @@ public class Bin {
         }
 
         size += flowFile.getSize();
+        entryCount++;
+        successiveFailedOfferings = 0;
+        return true;
+    }
 
+    /**
+     * Adds a flow file for which room has been made by {@link #reserve(FlowFile)} to the contents of this bin
+     *
+     * @param flowFile flowfile to add
+     * @param session the ProcessSession to which the FlowFile belongs
+     */
+    public void add(final FlowFile flowFile, final ProcessSession session) {
         session.migrate(getSession(), Collections.singleton(flowFile));
         binContents.add(flowFile);
-        successiveFailedOfferings = 0;
-        return true;
     }
 
     private static final Pattern intPattern = Pattern.compile("\\d+");
@@ -20,6 +20,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,6 +32,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.processor.ProcessSession;
@@ -48,11 +52,18 @@ public class BinManager {
 
     private final AtomicInteger maxBinAgeSeconds = new AtomicInteger(Integer.MAX_VALUE);
     private final Map<String, List<Bin>> groupBinMap = new HashMap<>();
+    // every bin, mapped to its group, in the order in which the bins were created and will therefore expire
+    private final Map<Bin, String> binGroupsByAge = new LinkedHashMap<>();
+    // bins that have been offered a FlowFile since they were last checked for readiness
+    private final Set<Bin> offeredBins = new LinkedHashSet<>();
+    // bins that FlowFiles have been reserved in but not yet added to, with the number of such FlowFiles; these bins are not handed out
+    private final Map<Bin, Integer> pendingAdditions = new HashMap<>();
     private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
     private final Lock rLock = rwLock.readLock();
     private final Lock wLock = rwLock.writeLock();
 
     private int binCount = 0;   // guarded by read/write lock
+    private volatile BiConsumer<Bin, FlowFile> binnedFlowFileListener = null;
 
     public BinManager() {
     }
@@ -66,6 +77,9 @@ public class BinManager {
                 }
             }
             groupBinMap.clear();
+            binGroupsByAge.clear();
+            offeredBins.clear();
+            pendingAdditions.clear();
             binCount = 0;
         } finally {
             wLock.unlock();
@@ -109,6 +123,19 @@ public class BinManager {
         maxBinAgeSeconds.set(seconds);
     }
 
+    /**
+     * Sets a listener that is notified each time a FlowFile has been added to a bin, allowing the content of the bin to be merged
+     * incrementally rather than all at once when the bin is complete. While a listener is set, the FlowFiles are only assigned to
+     * their bins while holding the lock of this manager; they are added to the bins, and the listener is called, afterwards, so that
+     * binning FlowFiles of other bins does not have to wait for the listener. The listener is called while synchronized on the bin,
+     * and before the bin can be removed from this manager, so it may use the bin's session.
+     *
+     * @param listener the listener to notify, or <code>null</code> to stop notifying
+     */
+    public void setBinnedFlowFileListener(final BiConsumer<Bin, FlowFile> listener) {
+        this.binnedFlowFileListener = listener;
+    }
+
     /**
      * Adds the given flowFile to the first available bin in which it fits for the given group or creates a new bin in the specified group if necessary.
      * <p/>
@@ -125,35 +152,32 @@ public class BinManager {
         if (flowFile.getSize() > currentMaxSizeBytes) { //won't fit into any new bins (and probably none existing)
             return false;
         }
+        final BiConsumer<Bin, FlowFile> listener = binnedFlowFileListener;
+        final Map<Bin, List<FlowFile>> deferredAdditions = new LinkedHashMap<>();
+        boolean accepted = false;
         wLock.lock();
         try {
             final List<Bin> currentBins = groupBinMap.get(groupIdentifier);
-            if (currentBins == null) { // this is a new group we need to register
-                final List<Bin> bins = new ArrayList<>();
-                final Bin bin = new Bin(sessionFactory.createSession(), minSizeBytes.get(), currentMaxSizeBytes, minEntries.get(),
-                    maxEntries.get(), fileCountAttribute.get());
-                bins.add(bin);
-                groupBinMap.put(groupIdentifier, bins);
-                binCount++;
-                return bin.offer(flowFile, session);
-            } else {
+            if (currentBins != null) {
                 for (final Bin bin : currentBins) {
-                    final boolean accepted = bin.offer(flowFile, session);
+                    accepted = offer(bin, flowFile, session, listener, deferredAdditions);
                     if (accepted) {
-                        return true;
+                        break;
                     }
                 }
+            }
 
-                //if we've reached this point then we couldn't fit it into any existing bins - gotta make a new one
-                final Bin bin = new Bin(sessionFactory.createSession(), minSizeBytes.get(), currentMaxSizeBytes, minEntries.get(),
-                    maxEntries.get(), fileCountAttribute.get());
-                currentBins.add(bin);
-                binCount++;
-                return bin.offer(flowFile, session);
+            if (!accepted) {
+                // if we've reached this point then this is a new group, or we couldn't fit it into any existing bins - gotta make a new one
+                final Bin bin = createBin(groupIdentifier, currentMaxSizeBytes, sessionFactory);
+                accepted = offer(bin, flowFile, session, listener, deferredAdditions);
             }
         } finally {
             wLock.unlock();
         }
+
+        addDeferred(deferredAdditions, session, listener);
+        return accepted;
     }
 
     /**
@@ -170,6 +194,8 @@ public class BinManager {
     public Set<FlowFile> offer(final String groupIdentifier, final Collection<FlowFile> flowFiles, final ProcessSession session, final ProcessSessionFactory sessionFactory) {
         final long currentMaxSizeBytes = maxSizeBytes.get();
         final Set<FlowFile> unbinned = new HashSet<>();
+        final BiConsumer<Bin, FlowFile> listener = binnedFlowFileListener;
+        final Map<Bin, List<FlowFile>> deferredAdditions = new LinkedHashMap<>();
 
         wLock.lock();
         try {
@@ -179,21 +205,20 @@ public class BinManager {
                     continue;
                 }
 
-                final List<Bin> currentBins = groupBinMap.computeIfAbsent(groupIdentifier, k -> new ArrayList<>());
-                for (final Bin bin : currentBins) {
-                    final boolean accepted = bin.offer(flowFile, session);
-                    if (accepted) {
-                        continue flowFileLoop;
+                final List<Bin> currentBins = groupBinMap.get(groupIdentifier);
+                if (currentBins != null) {
+                    for (final Bin bin : currentBins) {
+                        final boolean accepted = offer(bin, flowFile, session, listener, deferredAdditions);
+                        if (accepted) {
+                            continue flowFileLoop;
+                        }
                     }
                 }
 
                 // if we've reached this point then the groupIdentifier was a brand new one,
                 // or we couldn't fit it into any existing bins - gotta make a new one
-                final Bin bin = new Bin(sessionFactory.createSession(), minSizeBytes.get(), currentMaxSizeBytes, minEntries.get(),
-                    maxEntries.get(), fileCountAttribute.get());
-                currentBins.add(bin);
-                binCount++;
-                final boolean added = bin.offer(flowFile, session);
+                final Bin bin = createBin(groupIdentifier, currentMaxSizeBytes, sessionFactory);
+                final boolean added = offer(bin, flowFile, session, listener, deferredAdditions);
                 if (!added) {
                     unbinned.add(flowFile);
                 }
@@ -203,9 +228,76 @@ public class BinManager {
             wLock.unlock();
         }
 
+        addDeferred(deferredAdditions, session, listener);
         return unbinned;
     }
 
+    private Bin createBin(final String groupIdentifier, final long currentMaxSizeBytes, final ProcessSessionFactory sessionFactory) {
+        final Bin bin = new Bin(sessionFactory.createSession(), minSizeBytes.get(), currentMaxSizeBytes, minEntries.get(),
+            maxEntries.get(), fileCountAttribute.get());
+        groupBinMap.computeIfAbsent(groupIdentifier, k -> new ArrayList<>()).add(bin);
+        binGroupsByAge.put(bin, groupIdentifier);
+        binCount++;
+        return bin;
+    }
+
+    private void removeBin(final Bin bin) {
+        final String groupIdentifier = binGroupsByAge.remove(bin);
+        final List<Bin> bins = groupBinMap.get(groupIdentifier);
+        bins.remove(bin);
+        if (bins.isEmpty()) {
+            groupBinMap.remove(groupIdentifier);
+        }
+        offeredBins.remove(bin);
+        binCount--;
+    }
+
+    private boolean offer(final Bin bin, final FlowFile flowFile, final ProcessSession session, final BiConsumer<Bin, FlowFile> listener,
+                          final Map<Bin, List<FlowFile>> deferredAdditions) {
+        final boolean accepted = bin.reserve(flowFile);
+        // even a refused FlowFile counts towards the bin being full
+        offeredBins.add(bin);
+        if (accepted) {
+            if (listener == null) {
+                bin.add(flowFile, session);
+            } else {
+                deferredAdditions.computeIfAbsent(bin, key -> new ArrayList<>()).add(flowFile);
+                pendingAdditions.merge(bin, 1, Integer::sum);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Adds the FlowFiles that have been reserved in their bins to those bins, and notifies the listener of them,
+     * without holding the lock of this manager
+     */
+    private void addDeferred(final Map<Bin, List<FlowFile>> deferredAdditions, final ProcessSession session, final BiConsumer<Bin, FlowFile> listener) {
+        for (final Map.Entry<Bin, List<FlowFile>> entry : deferredAdditions.entrySet()) {
+            final Bin bin = entry.getKey();
+            final int flowFileCount = entry.getValue().size();
+            try {
+                synchronized (bin) {
+                    for (final FlowFile flowFile : entry.getValue()) {
+                        bin.add(flowFile, session);
+                        listener.accept(bin, flowFile);
+                    }
+                }
+            } finally {
+                wLock.lock();
+                try {
+                    pendingAdditions.computeIfPresent(bin, (key, count) -> count > flowFileCount ? count - flowFileCount : null);
+                } finally {
+                    wLock.unlock();
+                }
+            }
+        }
+    }
+
+    private boolean isPending(final Bin bin) {
+        return pendingAdditions.containsKey(bin);
+    }
+
     /**
      * Finds all bins that are considered full and removes them from the manager.
      * <p/>
@@ -214,61 +306,58 @@ public class BinManager {
      * @return bins that are considered full
      */
     public Collection<Bin> removeReadyBins(boolean relaxFullnessConstraint) {
-        final Map<String, List<Bin>> newGroupMap = new HashMap<>();
-        final List<Bin> readyBins = new ArrayList<>();
+        final Set<Bin> readyBins = new LinkedHashSet<>();
 
         wLock.lock();
         try {
-            for (final Map.Entry<String, List<Bin>> group : groupBinMap.entrySet()) {
-                final List<Bin> remainingBins = new ArrayList<>();
-                for (final Bin bin : group.getValue()) {
-                    if (relaxFullnessConstraint && (bin.isFullEnough() || bin.isOlderThan(maxBinAgeSeconds.get(), TimeUnit.SECONDS))) { //relaxed check
-                        readyBins.add(bin);
-                    } else if (!relaxFullnessConstraint && bin.isFull()) { //strict check
+            // only bins that have been offered a FlowFile can have become full, and as bins are kept in order of age,
+            // the old ones are at the front; so there is no need to check every bin
+            if (relaxFullnessConstraint) {
+                final int maxBinAge = maxBinAgeSeconds.get();
+                for (final Bin bin : binGroupsByAge.keySet()) {
+                    if (!bin.isOlderThan(maxBinAge, TimeUnit.SECONDS)) {
+                        break;
+                    }
+                    if (!isPending(bin)) {
                         readyBins.add(bin);
-                    } else { //it isn't time yet...
-                        remainingBins.add(bin);
                     }
                 }
-                if (!remainingBins.isEmpty()) {
-                    newGroupMap.put(group.getKey(), remainingBins);
+            }
+
+            final Iterator<Bin> offeredItr = offeredBins.iterator();
+            while (offeredItr.hasNext()) {
+                final Bin bin = offeredItr.next();
+                if (isPending(bin)) {
+                    // it can't be handed out until its FlowFiles have been added, so check it again next time
+                    continue;
+                } else if (relaxFullnessConstraint && bin.isFullEnough()) { //relaxed check
+                    readyBins.add(bin);
+                } else if (!relaxFullnessConstraint && bin.isFull()) { //strict check
+                    readyBins.add(bin);
+                } else if (!relaxFullnessConstraint) {
+                    // it isn't full, but may be full enough for a relaxed check, so keep it until then
+                    continue;
                 }
+                offeredItr.remove();
             }
-            groupBinMap.clear();
-            groupBinMap.putAll(newGroupMap);
-            binCount -= readyBins.size();
+
+            readyBins.forEach(this::removeBin);
         } finally {
             wLock.unlock();
         }
-        return readyBins;
+        return new ArrayList<>(readyBins);
     }
 
     public Bin removeOldestBin() {
         wLock.lock();
         try {
-            Bin oldestBin = null;
-            String oldestBinGroup = null;
-
-            for (final Map.Entry<String, List<Bin>> group : groupBinMap.entrySet()) {
-                for (final Bin bin : group.getValue()) {
-                    if (oldestBin == null || bin.isOlderThan(oldestBin)) {
-                        oldestBin = bin;
-                        oldestBinGroup = group.getKey();
-                    }
+            for (final Bin bin : binGroupsByAge.keySet()) {
+                if (!isPending(bin)) {
+                    removeBin(bin);
+                    return bin;
                 }
             }
-
-            if (oldestBin == null) {
-                return null;
-            }
-
-            binCount--;
-            final List<Bin> bins = groupBinMap.get(oldestBinGroup);
-            bins.remove(oldestBin);
-            if (bins.isEmpty()) {
-                groupBinMap.remove(oldestBinGroup);
-            }
-            return oldestBin;
+            return null;
         } finally {
             wLock.unlock();
         }
@@ -280,16 +369,10 @@ public class BinManager {
     public boolean containsOldBins() {
         rLock.lock();
         try {
-            for (final List<Bin> bins : groupBinMap.values()) {
-                for (final Bin bin : bins) {
-                    if (bin.isOlderThan(maxBinAgeSeconds.get(), TimeUnit.SECONDS)) {
-                        return true;
-                    }
-                }
-            }
+            final Iterator<Bin> binItr = binGroupsByAge.keySet().iterator();
+            return binItr.hasNext() && binItr.next().isOlderThan(maxBinAgeSeconds.get(), TimeUnit.SECONDS);
         } finally {
             rLock.unlock();
         }
-        return false;
     }
 }
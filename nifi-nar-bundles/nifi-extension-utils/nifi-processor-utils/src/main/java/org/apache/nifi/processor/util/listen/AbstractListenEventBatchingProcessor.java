@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -171,6 +172,9 @@ public abstract class AbstractListenEventBatchingProcessor<E extends Event> exte
      * Batches together up to the batchSize events. Events are grouped together based on a batch key which
      * by default is the sender of the event, but can be override by sub-classes.
      *
+     * The available events are drained from the queue together, and the events of each batch are then written
+     * to the batch's FlowFile in a single write, separated by the demarcator.
+     *
      * This method will return when batchSize has been reached, or when no more events are available on the queue.
      *
      * @param session the current session
@@ -184,12 +188,7 @@ public abstract class AbstractListenEventBatchingProcessor<E extends Event> exte
                                                         final byte[] messageDemarcatorBytes) {
 
         final Map<String,FlowFileEventBatch> batches = new HashMap<>();
-        for (int i=0; i < totalBatchSize; i++) {
-            final E event = getMessage(true, true, session);
-            if (event == null) {
-                break;
-            }
-
+        for (final E event : getMessages(totalBatchSize, true, true, session)) {
             final String batchKey = getBatchKey(event);
             FlowFileEventBatch batch = batches.get(batchKey);
 
@@ -201,30 +200,37 @@ public abstract class AbstractListenEventBatchingProcessor<E extends Event> exte
 
             // add the current event to the batch
             batch.getEvents().add(event);
+        }
 
-            // append the event's data to the FlowFile, write the demarcator first if not on the first event
-            final boolean writeDemarcator = (i > 0);
+        final Iterator<Map.Entry<String,FlowFileEventBatch>> batchIterator = batches.entrySet().iterator();
+        while (batchIterator.hasNext()) {
+            final FlowFileEventBatch batch = batchIterator.next().getValue();
+            final List<E> events = batch.getEvents();
+
+            // write the event's data to the FlowFile, with the demarcator between each event
             try {
-                final byte[] rawMessage = event.getData();
-                FlowFile appendedFlowFile = session.append(batch.getFlowFile(), new OutputStreamCallback() {
+                FlowFile writtenFlowFile = session.write(batch.getFlowFile(), new OutputStreamCallback() {
                     @Override
                     public void process(final OutputStream out) throws IOException {
-                        if (writeDemarcator) {
-                            out.write(messageDemarcatorBytes);
-                        }
+                        for (int i = 0; i < events.size(); i++) {
+                            if (i > 0) {
+                                out.write(messageDemarcatorBytes);
+                            }
 
-                        out.write(rawMessage);
+                            out.write(events.get(i).getData());
+                        }
                     }
                 });
 
                 // update the FlowFile reference in the batch object
-                batch.setFlowFile(appendedFlowFile);
+                batch.setFlowFile(writtenFlowFile);
 
             } catch (final Exception e) {
-                getLogger().error("Failed to write contents of the message to FlowFile due to {}; will re-queue message and try again",
-                        new Object[] {e.getMessage()}, e);
-                errorEvents.offer(event);
-                break;
+                getLogger().error("Failed to write contents of {} messages to FlowFile due to {}; will re-queue messages and try again",
+                        new Object[] {events.size(), e.getMessage()}, e);
+                session.remove(batch.getFlowFile());
+                errorEvents.addAll(events);
+                batchIterator.remove();
             }
         }
 
@@ -31,6 +31,7 @@ import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.processor.util.listen.dispatcher.ChannelDispatcher;
+import org.apache.nifi.processor.util.listen.event.BoundedEventQueue;
 import org.apache.nifi.processor.util.listen.event.Event;
 
 import java.io.IOException;
@@ -110,6 +111,17 @@ public abstract class AbstractListenEventProcessor<E extends Event> extends Abst
             .defaultValue("2")
             .required(true)
             .build();
+    public static final PropertyDescriptor SELECTOR_THREADS = new PropertyDescriptor.Builder()
+            .name("selector-threads")
+            .displayName("Selector Threads")
+            .description("The number of threads that select TCP connections for reading. With a single thread, each read is handed off to "
+                    + "a pool of threads. With more than one thread, each connection is assigned to one of the selector threads, which reads "
+                    + "from it directly, so that a large number of concurrent connections can be handled. A value up to the number of "
+                    + "available cores is recommended.")
+            .addValidator(StandardValidators.createLongValidator(1, 1024, true))
+            .defaultValue("1")
+            .required(true)
+            .build();
 
 
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
@@ -119,6 +131,11 @@ public abstract class AbstractListenEventProcessor<E extends Event> extends Abst
 
     public static final int POLL_TIMEOUT_MS = 20;
 
+    /**
+     * The most direct memory that a single buffer pool allocates, see {@link #createBufferPool(int, int)}.
+     */
+    public static final long MAX_DIRECT_BUFFER_POOL_BYTES = 16L * 1024 * 1024;
+
     protected Set<Relationship> relationships;
     protected List<PropertyDescriptor> descriptors;
 
@@ -178,7 +195,7 @@ public abstract class AbstractListenEventProcessor<E extends Event> extends Abst
     public void onScheduled(final ProcessContext context) throws IOException {
         charset = Charset.forName(context.getProperty(CHARSET).getValue());
         port = context.getProperty(PORT).evaluateAttributeExpressions().asInteger();
-        events = new LinkedBlockingQueue<>(context.getProperty(MAX_MESSAGE_QUEUE_SIZE).asInteger());
+        events = new BoundedEventQueue<>(context.getProperty(MAX_MESSAGE_QUEUE_SIZE).asInteger());
 
         final String nicIPAddressStr = context.getProperty(NETWORK_INTF_NAME).evaluateAttributeExpressions().getValue();
         final int maxChannelBufferSize = context.getProperty(MAX_SOCKET_BUFFER_SIZE).asDataSize(DataUnit.B).intValue();
@@ -229,16 +246,22 @@ public abstract class AbstractListenEventProcessor<E extends Event> extends Abst
     }
 
     /**
-     * Creates a pool of ByteBuffers with the given size.
+     * Creates a pool of ByteBuffers with the given size. The buffers are direct so that reading from a channel
+     * does not first copy the data into a temporary direct buffer, and since they are pooled for the lifetime of
+     * the dispatcher the higher cost of allocating them is only paid once. Direct memory is only released once the
+     * buffers are garbage collected, so once the pool holds {@link #MAX_DIRECT_BUFFER_POOL_BYTES} of direct buffers,
+     * the remaining buffers are allocated on the heap.
      *
      * @param poolSize the number of buffers to initialize the pool with
      * @param bufferSize the size of each buffer
      * @return a blocking queue with size equal to poolSize and each buffer equal to bufferSize
      */
-    protected BlockingQueue<ByteBuffer> createBufferPool(final int poolSize, final int bufferSize) {
+    public static BlockingQueue<ByteBuffer> createBufferPool(final int poolSize, final int bufferSize) {
         final LinkedBlockingQueue<ByteBuffer> bufferPool = new LinkedBlockingQueue<>(poolSize);
+        long directBytes = 0L;
         for (int i = 0; i < poolSize; i++) {
-            bufferPool.offer(ByteBuffer.allocate(bufferSize));
+            directBytes += bufferSize;
+            bufferPool.offer(directBytes <= MAX_DIRECT_BUFFER_POOL_BYTES ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize));
         }
         return bufferPool;
     }
@@ -282,9 +305,84 @@ public abstract class AbstractListenEventProcessor<E extends Event> extends Abst
             session.adjustCounter("Messages Received", 1L, false);
         }
 
+        reportQueueMetrics(session);
         return event;
     }
 
+    /**
+     * Drains up to maxMessages events into a list, so that a batch of events can be taken from the queues
+     * without acquiring the queue's lock once per event.
+     *
+     * If pollErrorQueue is true, events from the error queue are taken first.
+     *
+     * If longPoll is true and no events are immediately available, the regular queue will be polled with a
+     * short timeout for the first event, otherwise this method returns immediately.
+     *
+     * @param maxMessages the maximum number of events to return
+     * @param longPoll whether or not to poll the main queue with a small timeout
+     * @param pollErrorQueue whether or not to take events from the error queue first
+     *
+     * @return the events that were taken from the queues, which may be empty but is never null
+     */
+    protected List<E> getMessages(final int maxMessages, final boolean longPoll, final boolean pollErrorQueue, final ProcessSession session) {
+        final List<E> messages = new ArrayList<>(Math.min(maxMessages, 1024));
+        if (pollErrorQueue) {
+            errorEvents.drainTo(messages, maxMessages);
+        }
+
+        final int errorMessages = messages.size();
+        if (errorMessages < maxMessages) {
+            if (errorMessages == 0 && longPoll) {
+                try {
+                    final E event = events.poll(getLongPollTimeout(), TimeUnit.MILLISECONDS);
+                    if (event != null) {
+                        messages.add(event);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return messages;
+                }
+            }
+
+            if (messages.size() < maxMessages) {
+                events.drainTo(messages, maxMessages - messages.size());
+            }
+        }
+
+        final int received = messages.size() - errorMessages;
+        if (received > 0) {
+            session.adjustCounter("Messages Received", received, false);
+        }
+
+        reportQueueMetrics(session);
+        return messages;
+    }
+
+    /**
+     * Reports, as counters, how often the dispatcher found the message queue full and how many messages
+     * it had to drop since the last time this was called.
+     *
+     * @param session the session to adjust the counters on
+     */
+    protected void reportQueueMetrics(final ProcessSession session) {
+        if (!(events instanceof BoundedEventQueue)) {
+            return;
+        }
+
+        final BoundedEventQueue<E> boundedEvents = (BoundedEventQueue<E>) events;
+        final long queueFull = boundedEvents.getAndResetQueueFullCount();
+        if (queueFull > 0) {
+            session.adjustCounter("Message Queue Full", queueFull, true);
+        }
+
+        final long dropped = boundedEvents.getAndResetDroppedCount();
+        if (dropped > 0) {
+            session.adjustCounter("Messages Dropped", dropped, true);
+            getLogger().warn("Dropped {} messages because the internal queue was at maximum capacity; consider increasing <{}>",
+                    new Object[] {dropped, MAX_MESSAGE_QUEUE_SIZE.getDisplayName()});
+        }
+    }
+
     protected long getLongPollTimeout() {
         return POLL_TIMEOUT_MS;
     }
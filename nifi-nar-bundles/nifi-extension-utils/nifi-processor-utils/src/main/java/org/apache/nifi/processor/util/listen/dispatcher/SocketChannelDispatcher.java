@@ -32,13 +32,19 @@ import java.net.InetSocketAddress;
 import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -48,6 +54,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 /**
  * Accepts Socket connections on the given port and creates a handler for each connection to
  * be executed by a thread pool.
+ *
+ * When more than one selector thread is requested, accepted connections are assigned by the hash of their
+ * remote address to one of that many reactors, each with its own Selector and thread. A reactor reads from
+ * its connections on its own thread rather than handing each read to the thread pool, so the number of
+ * connections and the rate of messages that can be handled scale with the number of selector threads.
+ * Reads from TLS connections are still handed to the thread pool, as the SSL handlers may block.
  */
 public class SocketChannelDispatcher<E extends Event<SocketChannel>> implements AsyncChannelDispatcher {
 
@@ -60,11 +72,13 @@ public class SocketChannelDispatcher<E extends Event<SocketChannel>> implements
     private final SSLContext sslContext;
     private final SslContextFactory.ClientAuth clientAuth;
     private final Charset charset;
+    private final int selectorThreads;
 
     private ExecutorService executor;
     private volatile boolean stopped = false;
     private Selector selector;
-    private final BlockingQueue<SelectionKey> keyQueue;
+    private Reactor acceptReactor;
+    private List<Reactor> readReactors;
     private final AtomicInteger currentConnections = new AtomicInteger(0);
 
     public SocketChannelDispatcher(final EventFactory<E> eventFactory,
@@ -87,21 +101,37 @@ public class SocketChannelDispatcher<E extends Event<SocketChannel>> implements
                                    final SSLContext sslContext,
                                    final SslContextFactory.ClientAuth clientAuth,
                                    final Charset charset) {
+        this(eventFactory, handlerFactory, bufferPool, events, logger, maxConnections, sslContext, clientAuth, charset, 1);
+    }
+
+    public SocketChannelDispatcher(final EventFactory<E> eventFactory,
+                                   final ChannelHandlerFactory<E, AsyncChannelDispatcher> handlerFactory,
+                                   final BlockingQueue<ByteBuffer> bufferPool,
+                                   final BlockingQueue<E> events,
+                                   final ComponentLog logger,
+                                   final int maxConnections,
+                                   final SSLContext sslContext,
+                                   final SslContextFactory.ClientAuth clientAuth,
+                                   final Charset charset,
+                                   final int selectorThreads) {
         this.eventFactory = eventFactory;
         this.handlerFactory = handlerFactory;
         this.bufferPool = bufferPool;
         this.events = events;
         this.logger = logger;
         this.maxConnections = maxConnections;
-        this.keyQueue = new LinkedBlockingQueue<>(maxConnections);
         this.sslContext = sslContext;
         this.clientAuth = clientAuth;
         this.charset = charset;
+        this.selectorThreads = selectorThreads;
 
         if (bufferPool == null || bufferPool.size() == 0 || bufferPool.size() != maxConnections) {
             throw new IllegalArgumentException(
                     "A pool of available ByteBuffers equal to the maximum number of connections is required");
         }
+        if (selectorThreads < 1) {
+            throw new IllegalArgumentException("At least one selector thread is required");
+        }
     }
 
     @Override
@@ -125,96 +155,107 @@ public class SocketChannelDispatcher<E extends Event<SocketChannel>> implements
 
         selector = Selector.open();
         serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        if (selectorThreads == 1) {
+            // the thread that accepts connections also selects them for reading, and hands each read to the thread pool
+            acceptReactor = new Reactor(selector, false);
+            readReactors = Collections.singletonList(acceptReactor);
+        } else {
+            acceptReactor = new Reactor(selector, false);
+            readReactors = new ArrayList<>(selectorThreads);
+            for (int i = 0; i < selectorThreads; i++) {
+                final Reactor reactor = new Reactor(Selector.open(), true);
+                readReactors.add(reactor);
+
+                final Thread reactorThread = new Thread(reactor);
+                reactorThread.setName("SocketChannelDispatcher Reactor " + (i + 1) + " [port " + serverSocketChannel.socket().getLocalPort() + "]");
+                reactorThread.setDaemon(true);
+                reactorThread.start();
+            }
+        }
     }
 
     @Override
     public void run() {
-        while (!stopped) {
-            try {
-                int selected = selector.select();
-                // if stopped the selector could already be closed which would result in a ClosedSelectorException
-                if (selected > 0 && !stopped){
-                    Iterator<SelectionKey> selectorKeys = selector.selectedKeys().iterator();
-                    // if stopped we don't want to modify the keys because close() may still be in progress
-                    while (selectorKeys.hasNext() && !stopped) {
-                        SelectionKey key = selectorKeys.next();
-                        selectorKeys.remove();
-                        if (!key.isValid()){
-                            continue;
-                        }
-                        if (key.isAcceptable()) {
-                            // Handle new connections coming in
-                            final ServerSocketChannel channel = (ServerSocketChannel) key.channel();
-                            final SocketChannel socketChannel = channel.accept();
-                            socketChannel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
-                            // Check for available connections
-                            if (currentConnections.incrementAndGet() > maxConnections){
-                                currentConnections.decrementAndGet();
-                                logger.warn("Rejecting connection from {} because max connections has been met",
-                                        new Object[]{ socketChannel.getRemoteAddress().toString() });
-                                IOUtils.closeQuietly(socketChannel);
-                                continue;
-                            }
-                            logger.debug("Accepted incoming connection from {}",
-                                    new Object[]{socketChannel.getRemoteAddress().toString()});
-                            // Set socket to non-blocking, and register with selector
-                            socketChannel.configureBlocking(false);
-                            SelectionKey readKey = socketChannel.register(selector, SelectionKey.OP_READ);
-
-                            // Prepare the byte buffer for the reads, clear it out
-                            ByteBuffer buffer = bufferPool.poll();
-                            buffer.clear();
-                            buffer.mark();
-
-                            // If we have an SSLContext then create an SSLEngine for the channel
-                            SSLSocketChannel sslSocketChannel = null;
-                            if (sslContext != null) {
-                                final SSLEngine sslEngine = sslContext.createSSLEngine();
-                                sslEngine.setUseClientMode(false);
-
-                                switch (clientAuth) {
-                                    case REQUIRED:
-                                        sslEngine.setNeedClientAuth(true);
-                                        break;
-                                    case WANT:
-                                        sslEngine.setWantClientAuth(true);
-                                        break;
-                                    case NONE:
-                                        sslEngine.setNeedClientAuth(false);
-                                        sslEngine.setWantClientAuth(false);
-                                        break;
-                                }
-
-                                sslSocketChannel = new SSLSocketChannel(sslEngine, socketChannel);
-                            }
+        acceptReactor.run();
+    }
 
-                            // Attach the buffer and SSLSocketChannel to the key
-                            SocketChannelAttachment attachment = new SocketChannelAttachment(buffer, sslSocketChannel);
-                            readKey.attach(attachment);
-                        } else if (key.isReadable()) {
-                            // Clear out the operations the select is interested in until done reading
-                            key.interestOps(0);
-                            // Create a handler based on the protocol and whether an SSLEngine was provided or not
-                            final Runnable handler;
-                            if (sslContext != null) {
-                                handler = handlerFactory.createSSLHandler(key, this, charset, eventFactory, events, logger);
-                            } else {
-                                handler = handlerFactory.createHandler(key, this, charset, eventFactory, events, logger);
-                            }
+    private void accept(final SelectionKey key, final Reactor currentReactor) throws IOException {
+        // Handle new connections coming in
+        final ServerSocketChannel channel = (ServerSocketChannel) key.channel();
+        final SocketChannel socketChannel = channel.accept();
+        if (socketChannel == null) {
+            return;
+        }
 
-                            // run the handler
-                            executor.execute(handler);
-                        }
-                    }
-                }
-                // Add back all idle sockets to the select
-                SelectionKey key;
-                while((key = keyQueue.poll()) != null){
-                    key.interestOps(SelectionKey.OP_READ);
-                }
-            } catch (IOException e) {
-                logger.error("Error accepting connection from SocketChannel", e);
+        socketChannel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+        // Check for available connections
+        if (currentConnections.incrementAndGet() > maxConnections){
+            currentConnections.decrementAndGet();
+            logger.warn("Rejecting connection from {} because max connections has been met",
+                    new Object[]{ socketChannel.getRemoteAddress().toString() });
+            IOUtils.closeQuietly(socketChannel);
+            return;
+        }
+        logger.debug("Accepted incoming connection from {}",
+                new Object[]{socketChannel.getRemoteAddress().toString()});
+        // Set socket to non-blocking, it will be registered with the selector of the reactor it is assigned to
+        socketChannel.configureBlocking(false);
+
+        // Prepare the byte buffer for the reads, clear it out
+        ByteBuffer buffer = bufferPool.poll();
+        buffer.clear();
+        buffer.mark();
+
+        // If we have an SSLContext then create an SSLEngine for the channel
+        SSLSocketChannel sslSocketChannel = null;
+        if (sslContext != null) {
+            final SSLEngine sslEngine = sslContext.createSSLEngine();
+            sslEngine.setUseClientMode(false);
+
+            switch (clientAuth) {
+                case REQUIRED:
+                    sslEngine.setNeedClientAuth(true);
+                    break;
+                case WANT:
+                    sslEngine.setWantClientAuth(true);
+                    break;
+                case NONE:
+                    sslEngine.setNeedClientAuth(false);
+                    sslEngine.setWantClientAuth(false);
+                    break;
             }
+
+            sslSocketChannel = new SSLSocketChannel(sslEngine, socketChannel);
+        }
+
+        // The buffer and SSLSocketChannel will be attached to the key
+        final SocketChannelAttachment attachment = new SocketChannelAttachment(buffer, sslSocketChannel);
+
+        final Reactor reactor = readReactors.get(Math.floorMod(socketChannel.getRemoteAddress().hashCode(), readReactors.size()));
+        if (reactor == currentReactor) {
+            reactor.register(socketChannel, attachment);
+        } else {
+            reactor.addPendingRegistration(socketChannel, attachment);
+        }
+    }
+
+    private void read(final SelectionKey key, final boolean readInline) {
+        // Clear out the operations the select is interested in until done reading
+        key.interestOps(0);
+        // Create a handler based on the protocol and whether an SSLEngine was provided or not
+        final Runnable handler;
+        if (sslContext != null) {
+            handler = handlerFactory.createSSLHandler(key, this, charset, eventFactory, events, logger);
+        } else {
+            handler = handlerFactory.createHandler(key, this, charset, eventFactory, events, logger);
+        }
+
+        // run the handler, the SSL handlers are always run on the thread pool because they may block
+        if (readInline && sslContext == null) {
+            handler.run();
+        } else {
+            executor.execute(handler);
         }
     }
 
@@ -238,6 +279,11 @@ public class SocketChannelDispatcher<E extends Event<SocketChannel>> implements
         if (selector != null) {
             selector.wakeup();
         }
+        if (readReactors != null) {
+            for (final Reactor reactor : readReactors) {
+                reactor.selector.wakeup();
+            }
+        }
 
         if (executor != null) {
             executor.shutdown();
@@ -254,20 +300,27 @@ public class SocketChannelDispatcher<E extends Event<SocketChannel>> implements
             }
         }
 
-        if (selector != null) {
-            synchronized (selector.keys()) {
-                for (SelectionKey key : selector.keys()) {
-                    IOUtils.closeQuietly(key.channel());
+        if (readReactors != null) {
+            for (final Reactor reactor : readReactors) {
+                if (reactor != acceptReactor) {
+                    reactor.close();
                 }
             }
         }
-        IOUtils.closeQuietly(selector);
+        if (acceptReactor != null) {
+            acceptReactor.close();
+        } else {
+            IOUtils.closeQuietly(selector);
+        }
     }
 
     @Override
     public void completeConnection(SelectionKey key) {
+        releaseConnection((SocketChannelAttachment) key.attachment());
+    }
+
+    private void releaseConnection(final SocketChannelAttachment attachment) {
         // connection is done. Return the buffer to the pool
-        SocketChannelAttachment attachment = (SocketChannelAttachment) key.attachment();
         try {
             bufferPool.put(attachment.getByteBuffer());
         } catch (InterruptedException e) {
@@ -278,8 +331,116 @@ public class SocketChannelDispatcher<E extends Event<SocketChannel>> implements
 
     @Override
     public void addBackForSelection(SelectionKey key) {
-        keyQueue.offer(key);
-        selector.wakeup();
+        for (final Reactor reactor : readReactors) {
+            if (reactor.selector == key.selector()) {
+                reactor.keyQueue.offer(key);
+                reactor.selector.wakeup();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A Selector and the loop that selects from it. Each connection is registered with exactly one reactor for its lifetime.
+     */
+    private class Reactor implements Runnable {
+
+        private final Selector selector;
+        private final boolean readInline;
+        private final BlockingQueue<SelectionKey> keyQueue = new LinkedBlockingQueue<>();
+        private final Queue<PendingRegistration> pendingRegistrations = new ConcurrentLinkedQueue<>();
+
+        private Reactor(final Selector selector, final boolean readInline) {
+            this.selector = selector;
+            this.readInline = readInline;
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                try {
+                    int selected = selector.select();
+                    // if stopped the selector could already be closed which would result in a ClosedSelectorException
+                    if (selected > 0 && !stopped){
+                        Iterator<SelectionKey> selectorKeys = selector.selectedKeys().iterator();
+                        // if stopped we don't want to modify the keys because close() may still be in progress
+                        while (selectorKeys.hasNext() && !stopped) {
+                            SelectionKey key = selectorKeys.next();
+                            selectorKeys.remove();
+                            if (!key.isValid()){
+                                continue;
+                            }
+                            if (key.isAcceptable()) {
+                                accept(key, this);
+                            } else if (key.isReadable()) {
+                                read(key, readInline);
+                            }
+                        }
+                    }
+
+                    // Register the connections that were assigned to this reactor by the accepting thread
+                    PendingRegistration registration;
+                    while ((registration = pendingRegistrations.poll()) != null) {
+                        try {
+                            register(registration.socketChannel, registration.attachment);
+                        } catch (IOException e) {
+                            logger.warn("Failed to register connection for reading", e);
+                            IOUtils.closeQuietly(registration.socketChannel);
+                            releaseConnection(registration.attachment);
+                        }
+                    }
+
+                    // Add back all idle sockets to the select
+                    SelectionKey key;
+                    while((key = keyQueue.poll()) != null){
+                        if (key.isValid()) {
+                            key.interestOps(SelectionKey.OP_READ);
+                        }
+                    }
+                } catch (ClosedSelectorException e) {
+                    if (!stopped) {
+                        logger.error("Selector closed unexpectedly", e);
+                    }
+                    return;
+                } catch (IOException e) {
+                    logger.error("Error accepting connection from SocketChannel", e);
+                }
+            }
+        }
+
+        private void register(final SocketChannel socketChannel, final SocketChannelAttachment attachment) throws IOException {
+            final SelectionKey readKey = socketChannel.register(selector, SelectionKey.OP_READ);
+            readKey.attach(attachment);
+        }
+
+        private void addPendingRegistration(final SocketChannel socketChannel, final SocketChannelAttachment attachment) {
+            pendingRegistrations.offer(new PendingRegistration(socketChannel, attachment));
+            selector.wakeup();
+        }
+
+        private void close() {
+            synchronized (selector.keys()) {
+                for (SelectionKey key : selector.keys()) {
+                    IOUtils.closeQuietly(key.channel());
+                }
+            }
+
+            PendingRegistration registration;
+            while ((registration = pendingRegistrations.poll()) != null) {
+                IOUtils.closeQuietly(registration.socketChannel);
+            }
+            IOUtils.closeQuietly(selector);
+        }
+    }
+
+    private static class PendingRegistration {
+        private final SocketChannel socketChannel;
+        private final SocketChannelAttachment attachment;
+
+        private PendingRegistration(final SocketChannel socketChannel, final SocketChannelAttachment attachment) {
+            this.socketChannel = socketChannel;
+            this.attachment = attachment;
+        }
     }
 
 }
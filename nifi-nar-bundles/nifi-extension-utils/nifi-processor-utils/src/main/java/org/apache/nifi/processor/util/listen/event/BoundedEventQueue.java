@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.listen.event;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of events that keeps track of how often producers found it full, and how many events
+ * could not be queued at all, so that listeners can report those as metrics instead of only logging them.
+ *
+ * @param <E> the type of event
+ */
+public class BoundedEventQueue<E extends Event> extends LinkedBlockingQueue<E> {
+
+    private final AtomicLong queueFullCount = new AtomicLong(0L);
+    private final AtomicLong droppedCount = new AtomicLong(0L);
+
+    public BoundedEventQueue(final int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public boolean offer(final E event) {
+        if (remainingCapacity() == 0) {
+            queueFullCount.incrementAndGet();
+        }
+
+        final boolean queued = super.offer(event);
+        if (!queued) {
+            droppedCount.incrementAndGet();
+        }
+        return queued;
+    }
+
+    @Override
+    public boolean offer(final E event, final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (remainingCapacity() == 0) {
+            queueFullCount.incrementAndGet();
+        }
+
+        final boolean queued = super.offer(event, timeout, unit);
+        if (!queued) {
+            droppedCount.incrementAndGet();
+        }
+        return queued;
+    }
+
+    /**
+     * @return the number of times an event was offered while the queue was full, since the last call to this method
+     */
+    public long getAndResetQueueFullCount() {
+        return queueFullCount.get() == 0L ? 0L : queueFullCount.getAndSet(0L);
+    }
+
+    /**
+     * @return the number of events that could not be queued because the queue remained full, since the last call to this method
+     */
+    public long getAndResetDroppedCount() {
+        return droppedCount.get() == 0L ? 0L : droppedCount.getAndSet(0L);
+    }
+
+}
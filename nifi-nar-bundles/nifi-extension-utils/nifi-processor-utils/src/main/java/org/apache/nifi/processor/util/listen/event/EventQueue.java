@@ -59,7 +59,12 @@ public class EventQueue<E extends Event> {
     public void offer(final E event) throws InterruptedException {
         boolean queued = events.offer(event, offerWaitMs, TimeUnit.MILLISECONDS);
         if (!queued) {
-            logger.error("Internal queue at maximum capacity, could not queue event");
+            // a BoundedEventQueue counts the dropped events so they can be reported in aggregate rather than once per event
+            if (events instanceof BoundedEventQueue) {
+                logger.debug("Internal queue at maximum capacity, could not queue event");
+            } else {
+                logger.error("Internal queue at maximum capacity, could not queue event");
+            }
         }
     }
 
@@ -25,7 +25,6 @@ import org.apache.nifi.processor.util.listen.event.EventFactory;
 import org.apache.nifi.processor.util.listen.event.EventFactoryUtil;
 import org.apache.nifi.processor.util.listen.response.socket.SocketChannelResponder;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
@@ -43,8 +42,6 @@ import java.util.concurrent.BlockingQueue;
  */
 public class StandardSocketChannelHandler<E extends Event<SocketChannel>> extends SocketChannelHandler<E> {
 
-    private final ByteArrayOutputStream currBytes = new ByteArrayOutputStream(4096);
-
     public StandardSocketChannelHandler(final SelectionKey key,
                                         final AsyncChannelDispatcher dispatcher,
                                         final Charset charset,
@@ -121,33 +118,37 @@ public class StandardSocketChannelHandler<E extends Event<SocketChannel>> extend
      * @throws InterruptedException if interrupted when queuing events
      */
     protected void processBuffer(final SocketChannel socketChannel, final ByteBuffer socketBuffer) throws InterruptedException, IOException {
-        // get total bytes in buffer
-        final int total = socketBuffer.remaining();
         final InetAddress sender = socketChannel.socket().getInetAddress();
+        final byte delimiter = getDelimiter();
+        final int limit = socketBuffer.limit();
+
+        // go through the buffer looking for the end of each message, and copy each complete message
+        // out of the buffer with a single bulk get
+        int messageStart = socketBuffer.position();
+        for (int i = messageStart; i < limit; i++) {
+            if (socketBuffer.get(i) != delimiter) {
+                continue;
+            }
 
-        // go through the buffer looking for the end of each message
-        currBytes.reset();
-        for (int i = 0; i < total; i++) {
-            // NOTE: For higher throughput, the looking for \n and copying into the byte stream could be improved
-            // Pull data out of buffer and cram into byte array
-            byte currByte = socketBuffer.get();
-
-            // check if at end of a message
-            if (currByte == getDelimiter()) {
-                if (currBytes.size() > 0) {
-                    final SocketChannelResponder response = new SocketChannelResponder(socketChannel);
-                    final Map<String, String> metadata = EventFactoryUtil.createMapWithSender(sender.toString());
-                    final E event = eventFactory.create(currBytes.toByteArray(), metadata, response);
-                    events.offer(event);
-                    currBytes.reset();
-
-                    // Mark this as the start of the next message
-                    socketBuffer.mark();
-                }
-            } else {
-                currBytes.write(currByte);
+            final int messageLength = i - messageStart;
+            if (messageLength > 0) {
+                final byte[] message = new byte[messageLength];
+                socketBuffer.position(messageStart);
+                socketBuffer.get(message);
+
+                final SocketChannelResponder response = new SocketChannelResponder(socketChannel);
+                final Map<String, String> metadata = EventFactoryUtil.createMapWithSender(sender.toString());
+                final E event = eventFactory.create(message, metadata, response);
+                events.offer(event);
             }
+
+            // Mark this as the start of the next message
+            messageStart = i + 1;
+            socketBuffer.position(messageStart);
+            socketBuffer.mark();
         }
+
+        socketBuffer.position(limit);
     }
 
     @Override
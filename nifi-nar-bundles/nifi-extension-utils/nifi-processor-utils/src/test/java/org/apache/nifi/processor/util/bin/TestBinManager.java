@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.bin;
+
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessSessionFactory;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.util.MockProcessSession;
+import org.apache.nifi.util.SharedSessionState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestBinManager {
+
+    private BinManager binManager;
+    private ProcessSession session;
+    private ProcessSessionFactory sessionFactory;
+
+    @Before
+    public void setup() {
+        final Processor processor = new AbstractProcessor() {
+            @Override
+            public void onTrigger(final ProcessContext context, final ProcessSession session) {
+            }
+        };
+        final SharedSessionState sharedState = new SharedSessionState(processor, new AtomicLong());
+        sessionFactory = () -> new MockProcessSession(sharedState, processor);
+        session = sessionFactory.createSession();
+
+        binManager = new BinManager();
+        binManager.setMinimumEntries(10);
+        binManager.setMaximumEntries(10);
+    }
+
+    @Test
+    public void testOldestBinRemovedFirst() {
+        binManager.setMaximumEntries(1);
+
+        final FlowFile first = offer("a");
+        final FlowFile second = offer("b");
+        // the first bin of group "a" is full, so this goes to a new, younger bin of that group
+        final FlowFile third = offer("a");
+        assertEquals(3, binManager.getBinCount());
+
+        assertEquals(Collections.singletonList(first), binManager.removeOldestBin().getContents());
+        assertEquals(Collections.singletonList(second), binManager.removeOldestBin().getContents());
+        assertEquals(Collections.singletonList(third), binManager.removeOldestBin().getContents());
+        assertNull(binManager.removeOldestBin());
+    }
+
+    @Test
+    public void testOnlyExpiredBinsRemoved() throws InterruptedException {
+        binManager.setMaxBinAge(1);
+
+        final FlowFile old = offer("old");
+        Thread.sleep(1500L);
+        final FlowFile young = offer("young");
+        // offering to the old bin again must not make it any younger
+        final FlowFile oldAgain = offer("old");
+
+        assertTrue(binManager.containsOldBins());
+        assertTrue(binManager.removeReadyBins(false).isEmpty());
+
+        final Collection<Bin> readyBins = binManager.removeReadyBins(true);
+        assertEquals(1, readyBins.size());
+        assertEquals(2, readyBins.iterator().next().getContents().size());
+        assertTrue(readyBins.iterator().next().getContents().contains(old));
+        assertTrue(readyBins.iterator().next().getContents().contains(oldAgain));
+
+        assertEquals(1, binManager.getBinCount());
+        assertFalse(binManager.containsOldBins());
+        assertEquals(Collections.singletonList(young), binManager.removeOldestBin().getContents());
+    }
+
+    private FlowFile offer(final String groupIdentifier) {
+        final FlowFile flowFile = session.create();
+        assertTrue(binManager.offer(groupIdentifier, flowFile, session, sessionFactory));
+        return flowFile;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.util.listen;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestAbstractListenEventProcessor {
+
+    @Test
+    public void testBufferPoolIsDirect() {
+        final BlockingQueue<ByteBuffer> bufferPool = AbstractListenEventProcessor.createBufferPool(4, 1024);
+
+        assertEquals(4, bufferPool.size());
+        for (final ByteBuffer buffer : bufferPool) {
+            assertEquals(1024, buffer.capacity());
+            assertTrue(buffer.isDirect());
+        }
+    }
+
+    @Test
+    public void testBufferPoolFallsBackToHeapBeyondDirectMemoryLimit() {
+        final int bufferSize = 1024 * 1024;
+        final int directBuffers = (int) (AbstractListenEventProcessor.MAX_DIRECT_BUFFER_POOL_BYTES / bufferSize);
+        final BlockingQueue<ByteBuffer> bufferPool = AbstractListenEventProcessor.createBufferPool(directBuffers + 2, bufferSize);
+
+        assertEquals(directBuffers + 2, bufferPool.size());
+        assertEquals(directBuffers, bufferPool.stream().filter(ByteBuffer::isDirect).count());
+    }
+}
@@ -240,7 +240,7 @@ public class ConnectionDTO extends ComponentDTO {
     }
 
     @ApiModelProperty(value = "How to load balance the data in this Connection across the nodes in the cluster.",
-        allowableValues = "DO_NOT_LOAD_BALANCE, PARTITION_BY_ATTRIBUTE, ROUND_ROBIN, SINGLE_NODE")
+        allowableValues = "DO_NOT_LOAD_BALANCE, PARTITION_BY_ATTRIBUTE, ROUND_ROBIN, SINGLE_NODE, RENDEZVOUS_PARTITION_BY_ATTRIBUTE, WEIGHTED_ROUND_ROBIN")
     public String getLoadBalanceStrategy() {
         return loadBalanceStrategy;
     }
@@ -249,7 +249,7 @@ public class ConnectionDTO extends ComponentDTO {
         this.loadBalanceStrategy = loadBalanceStrategy;
     }
 
-    @ApiModelProperty(value = "The FlowFile Attribute to use for determining which node a FlowFile will go to if the Load Balancing Strategy is set to PARTITION_BY_ATTRIBUTE")
+    @ApiModelProperty(value = "The FlowFile Attribute to use for determining which node a FlowFile will go to if the Load Balancing Strategy is set to PARTITION_BY_ATTRIBUTE or RENDEZVOUS_PARTITION_BY_ATTRIBUTE")
     public String getLoadBalancePartitionAttribute() {
         return loadBalancePartitionAttribute;
     }
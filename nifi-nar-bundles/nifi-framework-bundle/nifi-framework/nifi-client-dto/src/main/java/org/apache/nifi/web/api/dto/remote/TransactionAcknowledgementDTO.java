@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.web.api.dto.remote;
+
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.xml.bind.annotation.XmlType;
+
+/**
+ * Acknowledgement of a Site-to-Site transaction sent by a client, along with the outcome of processing it.
+ */
+@XmlType(name = "transactionAcknowledgement")
+public class TransactionAcknowledgementDTO {
+
+    private String transactionId;
+    private Integer responseCode;
+    private String checksum;
+    private Integer flowFileSent;
+    private String message;
+
+    @ApiModelProperty(
+            value = "The id of the transaction."
+    )
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    @ApiModelProperty(
+            value = "The response code. A client sends CONFIRM_TRANSACTION(12), CANCEL_TRANSACTION(15) or, for input ports, BAD_CHECKSUM(19). "
+                    + "The server returns the outcome of the transaction."
+    )
+    public Integer getResponseCode() {
+        return responseCode;
+    }
+
+    public void setResponseCode(Integer responseCode) {
+        this.responseCode = responseCode;
+    }
+
+    @ApiModelProperty(
+            value = "For output ports, a checksum calculated at client side using CRC32 to check flow file content integrity. "
+                    + "It must match with the value calculated at server side."
+    )
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    @ApiModelProperty(
+            value = "The number of flow files that were committed by the transaction.",
+            readOnly = true
+    )
+    public Integer getFlowFileSent() {
+        return flowFileSent;
+    }
+
+    public void setFlowFileSent(Integer flowFileSent) {
+        this.flowFileSent = flowFileSent;
+    }
+
+    @ApiModelProperty(
+            value = "A message explaining the outcome of the transaction.",
+            readOnly = true
+    )
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
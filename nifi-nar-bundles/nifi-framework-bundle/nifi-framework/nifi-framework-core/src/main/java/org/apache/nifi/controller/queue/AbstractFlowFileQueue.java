@@ -433,7 +433,8 @@ public abstract class AbstractFlowFileQueue implements FlowFileQueue {
     public void setLoadBalanceStrategy(final LoadBalanceStrategy strategy, final String partitioningAttribute) {
         loadBalanceWriteLock.lock();
         try {
-            if (strategy == LoadBalanceStrategy.PARTITION_BY_ATTRIBUTE && !FlowFile.KeyValidator.isValid(partitioningAttribute)) {
+            final boolean partitionByAttribute = strategy == LoadBalanceStrategy.PARTITION_BY_ATTRIBUTE || strategy == LoadBalanceStrategy.RENDEZVOUS_PARTITION_BY_ATTRIBUTE;
+            if (partitionByAttribute && !FlowFile.KeyValidator.isValid(partitioningAttribute)) {
                 throw new IllegalArgumentException("Cannot set Load Balance Strategy to " + strategy + " without providing a valid Partitioning Attribute");
             }
 
@@ -17,16 +17,30 @@
 
 package org.apache.nifi.controller.queue.clustered;
 
+import java.util.concurrent.TimeUnit;
+
 public class SimpleLimitThreshold implements TransactionThreshold {
     private final int countLimit;
     private final long byteLimit;
+    private final long expirationNanos;
 
     private int count = 0;
     private long bytes = 0L;
 
     public SimpleLimitThreshold(final int count, final long bytes) {
+        this(count, bytes, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a threshold that is met once the given number of FlowFiles or bytes have been added, or once the given amount
+     * of time has elapsed since the threshold was created, whichever comes first.
+     */
+    public SimpleLimitThreshold(final int count, final long bytes, final long duration, final TimeUnit timeUnit) {
         this.countLimit = count;
         this.byteLimit = bytes;
+
+        final long durationNanos = timeUnit.toNanos(duration);
+        this.expirationNanos = durationNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + durationNanos;
     }
 
     @Override
@@ -37,6 +51,6 @@ public class SimpleLimitThreshold implements TransactionThreshold {
 
     @Override
     public boolean isThresholdMet() {
-        return count >= countLimit || bytes >= byteLimit;
+        return count >= countLimit || bytes >= byteLimit || (expirationNanos != Long.MAX_VALUE && System.nanoTime() - expirationNanos >= 0);
     }
 }
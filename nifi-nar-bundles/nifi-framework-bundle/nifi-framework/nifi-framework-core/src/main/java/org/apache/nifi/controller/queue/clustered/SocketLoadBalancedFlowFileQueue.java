@@ -46,9 +46,11 @@ import org.apache.nifi.controller.queue.clustered.partition.NonLocalPartitionPar
 import org.apache.nifi.controller.queue.clustered.partition.QueuePartition;
 import org.apache.nifi.controller.queue.clustered.partition.RebalancingPartition;
 import org.apache.nifi.controller.queue.clustered.partition.RemoteQueuePartition;
+import org.apache.nifi.controller.queue.clustered.partition.RendezvousHashPartitioner;
 import org.apache.nifi.controller.queue.clustered.partition.RoundRobinPartitioner;
 import org.apache.nifi.controller.queue.clustered.partition.StandardRebalancingPartition;
 import org.apache.nifi.controller.queue.clustered.partition.SwappablePriorityQueueLocalPartition;
+import org.apache.nifi.controller.queue.clustered.partition.WeightedRoundRobinPartitioner;
 import org.apache.nifi.controller.repository.ContentRepository;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
@@ -220,6 +222,12 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
             case SINGLE_NODE:
                 partitioner = new FirstNodePartitioner();
                 break;
+            case RENDEZVOUS_PARTITION_BY_ATTRIBUTE:
+                partitioner = new RendezvousHashPartitioner(partitioningAttribute, clusterCoordinator::getLocalNodeIdentifier);
+                break;
+            case WEIGHTED_ROUND_ROBIN:
+                partitioner = new WeightedRoundRobinPartitioner();
+                break;
             default:
                 throw new IllegalArgumentException();
         }
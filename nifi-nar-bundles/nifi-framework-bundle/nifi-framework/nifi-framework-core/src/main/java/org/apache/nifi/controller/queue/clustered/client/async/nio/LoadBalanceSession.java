@@ -17,6 +17,7 @@
 
 package org.apache.nifi.controller.queue.clustered.client.async.nio;
 
+import com.github.luben.zstd.ZstdOutputStream;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
 import org.apache.nifi.controller.queue.clustered.FlowFileContentAccess;
 import org.apache.nifi.controller.queue.clustered.TransactionThreshold;
@@ -65,6 +66,7 @@ import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalancePro
 public class LoadBalanceSession {
     private static final Logger logger = LoggerFactory.getLogger(LoadBalanceSession.class);
     static final int MAX_DATA_FRAME_SIZE = 65535;
+    static final int MAX_UNCOMPRESSED_BYTES_PER_COMPRESSED_FRAME = 1024 * 1024;
     private static final long PENALTY_MILLIS = TimeUnit.SECONDS.toMillis(2L);
 
     private final RegisteredPartition partition;
@@ -77,8 +79,8 @@ public class LoadBalanceSession {
     private final String connectionId;
     private final TransactionThreshold transactionThreshold;
 
-    final VersionNegotiator negotiator = new StandardVersionNegotiator(1);
-    private int protocolVersion = 1;
+    final VersionNegotiator negotiator = new StandardVersionNegotiator(2, 1);
+    private int protocolVersion = 2;
 
     private final Checksum checksum = new CRC32();
 
@@ -92,6 +94,9 @@ public class LoadBalanceSession {
     private boolean complete = false;
     private long readTimeout;
     private long penaltyExpiration = -1L;
+    private boolean compressTransaction = false;
+    private ByteArrayOutputStream compressedFrameBuffer;
+    private OutputStream compressedOut;
 
     public LoadBalanceSession(final RegisteredPartition partition, final FlowFileContentAccess contentAccess, final LoadBalanceFlowFileCodec flowFileCodec, final PeerChannel peerChannel,
                               final int timeoutMillis, final TransactionThreshold transactionThreshold) {
@@ -166,6 +171,7 @@ public class LoadBalanceSession {
             return bytesWritten > 0;
         } catch (final Exception e) {
             complete = true;
+            closeCompressedStream();
             throw e;
         }
     }
@@ -246,10 +252,13 @@ public class LoadBalanceSession {
             case CHECK_SPACE:
                 return checkSpace();
             case GET_NEXT_FLOWFILE:
-                return getNextFlowFile();
             case SEND_FLOWFILE_DEFINITION:
             case SEND_FLOWFILE_CONTENTS:
-                return getFlowFileContent();
+                if (compressTransaction) {
+                    return getCompressedFrame();
+                }
+
+                return phase == TransactionPhase.GET_NEXT_FLOWFILE ? getNextFlowFile() : getFlowFileContent();
             case SEND_CHECKSUM:
                 return getChecksum();
             case SEND_TRANSACTION_COMPLETE:
@@ -315,7 +324,7 @@ public class LoadBalanceSession {
             logger.trace("Sending Data Frame that is {} bytes long to Peer {}", bytesRead, peerDescription);
             final ByteBuffer buffer;
 
-            if (partition.getCompression() == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
+            if (!compressTransaction && partition.getCompression() == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
                 final byte[] compressed = compressDataFrame(byteBuffer, bytesRead);
                 final int compressedMaxLen = compressed.length;
 
@@ -354,6 +363,74 @@ public class LoadBalanceSession {
         }
     }
 
+    /**
+     * As of version 2 of the protocol, when both attributes and content are to be compressed, the frames that describe the
+     * FlowFiles of the transaction (from the first MORE_FLOWFILES indicator through the NO_MORE_FLOWFILES indicator) are not
+     * compressed individually. Instead, they are written to a single Zstandard stream so that the compression spans FlowFile
+     * boundaries, which is far more effective for many small FlowFiles. The compressed stream is sent as a series of
+     * length-prefixed chunks, followed by a chunk length of 0. The checksum is still calculated over the uncompressed frames.
+     */
+    private ByteBuffer getCompressedFrame() throws IOException {
+        if (compressedOut == null) {
+            compressedFrameBuffer = new ByteArrayOutputStream(MAX_DATA_FRAME_SIZE);
+            compressedOut = new ZstdOutputStream(compressedFrameBuffer, 1);
+        }
+
+        long uncompressedBytes = 0L;
+        while (compressedFrameBuffer.size() < MAX_DATA_FRAME_SIZE && uncompressedBytes < MAX_UNCOMPRESSED_BYTES_PER_COMPRESSED_FRAME) {
+            final ByteBuffer frame = phase == TransactionPhase.GET_NEXT_FLOWFILE ? getNextFlowFile() : getFlowFileContent();
+            final int frameLength = frame.remaining();
+            compressedOut.write(frame.array(), frame.arrayOffset() + frame.position(), frameLength);
+            uncompressedBytes += frameLength;
+
+            if (phase == TransactionPhase.SEND_CHECKSUM) {
+                // The NO_MORE_FLOWFILES indicator has been written, so finish the stream and terminate the chunks.
+                compressedOut.close();
+                compressedOut = null;
+
+                logger.debug("Sending final compressed frame of {} bytes to Peer {}", compressedFrameBuffer.size(), peerDescription);
+                return drainCompressedFrame(true);
+            }
+        }
+
+        compressedOut.flush();
+        logger.trace("Sending compressed frame of {} bytes, representing {} uncompressed bytes, to Peer {}", compressedFrameBuffer.size(), uncompressedBytes, peerDescription);
+        return drainCompressedFrame(false);
+    }
+
+    private ByteBuffer drainCompressedFrame(final boolean lastFrame) {
+        final int compressedLength = compressedFrameBuffer.size();
+        final ByteBuffer buffer = ByteBuffer.allocate((compressedLength > 0 ? 4 + compressedLength : 0) + (lastFrame ? 4 : 0));
+        if (compressedLength > 0) {
+            buffer.putInt(compressedLength);
+            buffer.put(compressedFrameBuffer.toByteArray());
+        }
+        if (lastFrame) {
+            buffer.putInt(0);
+            compressedFrameBuffer = null;
+        } else {
+            compressedFrameBuffer.reset();
+        }
+
+        buffer.rewind();
+        return buffer;
+    }
+
+    private void closeCompressedStream() {
+        if (compressedOut == null) {
+            return;
+        }
+
+        try {
+            compressedOut.close();
+        } catch (final IOException e) {
+            logger.debug("Failed to close compressed stream for Peer {}", peerDescription, e);
+        }
+
+        compressedOut = null;
+        compressedFrameBuffer = null;
+    }
+
     private ByteBuffer getNextFlowFile() throws IOException {
         if (transactionThreshold.isThresholdMet()) {
             currentFlowFile = null;
@@ -376,7 +453,7 @@ public class LoadBalanceSession {
         flowFilesSent.add(currentFlowFile);
 
         final LoadBalanceCompression compression = partition.getCompression();
-        final boolean compressAttributes = compression != LoadBalanceCompression.DO_NOT_COMPRESS;
+        final boolean compressAttributes = !compressTransaction && compression != LoadBalanceCompression.DO_NOT_COMPRESS;
         logger.debug("Compression to use for sending to Peer {} is {}", peerDescription, compression);
 
         final byte[] flowFileEncoded;
@@ -526,6 +603,7 @@ public class LoadBalanceSession {
         final byte[] frameBytes = buffer.array();
         checksum.update(frameBytes, 0, frameBytes.length);
 
+        compressTransaction = protocolVersion >= 2 && partition.getCompression() == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT;
         phase = TransactionPhase.CHECK_SPACE;
         return buffer;
     }
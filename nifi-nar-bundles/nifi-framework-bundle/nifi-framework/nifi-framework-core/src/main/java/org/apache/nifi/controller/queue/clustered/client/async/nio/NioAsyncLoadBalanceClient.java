@@ -378,7 +378,9 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
     }
 
     private TransactionThreshold newTransactionThreshold() {
-         return new SimpleLimitThreshold(1000, 10_000_000L);
+        // Allow many small FlowFiles per transaction so that they are compressed together, but complete the transaction after a
+        // second even if more FlowFiles are available, so that the FlowFiles already sent are not kept waiting on the peer.
+        return new SimpleLimitThreshold(10_000, 10_000_000L, 1L, TimeUnit.SECONDS);
     }
 
     private synchronized boolean isConnectionEstablished() {
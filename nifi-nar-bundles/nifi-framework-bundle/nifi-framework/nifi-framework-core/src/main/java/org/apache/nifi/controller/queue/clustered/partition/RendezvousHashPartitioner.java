@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered.partition;
+
+import com.google.common.hash.Hashing;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Partitions FlowFiles by the value of an attribute using rendezvous (highest random weight) hashing: each FlowFile goes to the node
+ * whose identifier, combined with the hash of the attribute value, produces the highest score. Because the score for a given node does
+ * not depend on which other nodes are in the cluster, a node joining or leaving the cluster only moves the FlowFiles that belong on that
+ * node, rather than moving most FlowFiles, as {@link CorrelationAttributePartitioner} does when the index of the partitions shifts.
+ */
+public class RendezvousHashPartitioner implements FlowFilePartitioner {
+    private static final Logger logger = LoggerFactory.getLogger(RendezvousHashPartitioner.class);
+
+    private final String partitioningAttribute;
+    private final Supplier<NodeIdentifier> localNodeIdentifierSupplier;
+
+    public RendezvousHashPartitioner(final String partitioningAttribute, final Supplier<NodeIdentifier> localNodeIdentifierSupplier) {
+        this.partitioningAttribute = partitioningAttribute;
+        this.localNodeIdentifierSupplier = localNodeIdentifierSupplier;
+    }
+
+    @Override
+    public QueuePartition getPartition(final FlowFileRecord flowFile, final QueuePartition[] partitions,  final QueuePartition localPartition) {
+        final int hash = hash(flowFile);
+
+        int index = -1;
+        long highestScore = Long.MIN_VALUE;
+        for (int i = 0; i < partitions.length; i++) {
+            final NodeIdentifier nodeId = getNodeIdentifier(partitions[i], localPartition);
+            if (nodeId == null) {
+                // Until every node is known, there is no stable identity to hash against, so fall back to choosing by index.
+                index = getIndex(hash, partitions.length);
+                break;
+            }
+
+            final long score = mix(hash ^ mix(nodeId.getId().hashCode()));
+            if (index < 0 || score > highestScore) {
+                index = i;
+                highestScore = score;
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            final List<String> partitionDescriptions = new ArrayList<>(partitions.length);
+            for (final QueuePartition partition : partitions) {
+                partitionDescriptions.add(partition.getSwapPartitionName());
+            }
+
+            logger.debug("Assigning Partition {} to {} based on {}", index, flowFile.getAttribute(CoreAttributes.UUID.key()), partitionDescriptions);
+        }
+
+        return partitions[index];
+    }
+
+    private NodeIdentifier getNodeIdentifier(final QueuePartition partition, final QueuePartition localPartition) {
+        if (partition == localPartition) {
+            return localNodeIdentifierSupplier.get();
+        }
+
+        final Optional<NodeIdentifier> nodeIdentifier = partition.getNodeIdentifier();
+        return nodeIdentifier.orElse(null);
+    }
+
+    private int getIndex(final int hash, final int partitionCount) {
+        // The consistentHash method appears to always return a bucket of '1' if there are 2 possible buckets,
+        // so in this case we will just use modulo division to avoid this. I suspect this is a bug with the Guava
+        // implementation, but it's not clear at this point.
+        if (partitionCount < 3) {
+            return Math.floorMod(hash, partitionCount);
+        } else {
+            return Hashing.consistentHash(hash, partitionCount);
+        }
+    }
+
+    /**
+     * The 64-bit finalization step of MurmurHash3, which spreads the bits of the input so that similar inputs produce unrelated scores.
+     */
+    private static long mix(final long value) {
+        long mixed = value;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+
+    protected int hash(final FlowFileRecord flowFile) {
+        final String partitionAttributeValue = flowFile.getAttribute(partitioningAttribute);
+        return (partitionAttributeValue == null) ? 0 : partitionAttributeValue.hashCode();
+    }
+
+    @Override
+    public boolean isRebalanceOnClusterResize() {
+        return true;
+    }
+
+    @Override
+    public boolean isRebalanceOnFailure() {
+        return false;
+    }
+}
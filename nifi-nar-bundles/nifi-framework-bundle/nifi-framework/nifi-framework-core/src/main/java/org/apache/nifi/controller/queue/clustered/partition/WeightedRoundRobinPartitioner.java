@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered.partition;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distributes FlowFiles across partitions in round-robin order, but passes over any partition whose queue is much deeper than the
+ * shallowest one, so that a node that is slow to accept or process data does not keep accumulating its full share. A partition is
+ * passed over if it holds more than twice as many FlowFiles as the shallowest partition, plus an allowance of
+ * {@value #MIN_QUEUE_DEPTH_ALLOWANCE} FlowFiles so that small differences do not disturb the round-robin order. While the queues
+ * are similarly deep, this behaves exactly as {@link RoundRobinPartitioner}.
+ */
+public class WeightedRoundRobinPartitioner implements FlowFilePartitioner {
+    static final int MIN_QUEUE_DEPTH_ALLOWANCE = 1000;
+
+    private final AtomicLong counter = new AtomicLong(0L);
+
+    @Override
+    public QueuePartition getPartition(final FlowFileRecord flowFile, final QueuePartition[] partitions,  final QueuePartition localPartition) {
+        final int startIndex = (int) (counter.getAndIncrement() % partitions.length);
+        if (partitions.length == 1) {
+            return partitions[0];
+        }
+
+        final int[] queueDepths = new int[partitions.length];
+        int minQueueDepth = Integer.MAX_VALUE;
+        for (int i = 0; i < partitions.length; i++) {
+            queueDepths[i] = partitions[i].size().getObjectCount();
+            minQueueDepth = Math.min(minQueueDepth, queueDepths[i]);
+        }
+
+        final long maxQueueDepth = 2L * minQueueDepth + MIN_QUEUE_DEPTH_ALLOWANCE;
+        for (int i = 0; i < partitions.length; i++) {
+            final int index = (startIndex + i) % partitions.length;
+            if (queueDepths[index] <= maxQueueDepth) {
+                return partitions[index];
+            }
+        }
+
+        // Not reachable, as the shallowest partition is always within the allowance.
+        return partitions[startIndex];
+    }
+
+    @Override
+    public boolean isRebalanceOnClusterResize() {
+        return false;
+    }
+
+    @Override
+    public boolean isRebalanceOnFailure() {
+        return true;
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.nifi.controller.queue.clustered.server;
 
+import com.github.luben.zstd.ZstdInputStream;
 import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.queue.FlowFileQueue;
@@ -46,6 +47,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLSocket;
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
@@ -135,7 +137,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
 
 
     protected int negotiateProtocolVersion(final InputStream in, final OutputStream out, final String peerDescription) throws IOException {
-        final VersionNegotiator negotiator = new StandardVersionNegotiator(1);
+        final VersionNegotiator negotiator = new StandardVersionNegotiator(2, 1);
 
         for (int i=0;; i++) {
             final int requestedVersion;
@@ -236,6 +238,13 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         final LoadBalanceCompression compression = connection.getFlowFileQueue().getLoadBalanceCompression();
         logger.debug("Receiving FlowFiles from Peer {} for Connection {}; Compression = {}", peerDescription, connectionId, compression);
 
+        // As of version 2, when content is compressed, all of the FlowFiles in the transaction are sent in a single compressed stream,
+        // rather than compressing each FlowFile individually. The checksum is calculated over the decompressed data.
+        final boolean compressedTransaction = protocolVersion >= 2 && compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT;
+        final InputStream decompressedIn = compressedTransaction ? new ZstdInputStream(new CompressedChunkInputStream(in, peerDescription)) : null;
+        final DataInputStream flowFileIn = compressedTransaction ? new DataInputStream(new CheckedInputStream(new BufferedInputStream(decompressedIn), checksum)) : dataIn;
+        final LoadBalanceCompression flowFileCompression = compressedTransaction ? LoadBalanceCompression.DO_NOT_COMPRESS : compression;
+
         ContentClaim contentClaim = null;
         final List<RemoteFlowFileRecord> flowFilesReceived = new ArrayList<>();
         OutputStream contentClaimOut = null;
@@ -243,13 +252,13 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
 
         try {
             try {
-                while (isMoreFlowFiles(dataIn, protocolVersion)) {
+                while (isMoreFlowFiles(flowFileIn, protocolVersion)) {
                     if (contentClaim == null) {
                         contentClaim = contentRepository.create(false);
                         contentClaimOut = contentRepository.write(contentClaim);
                     }
 
-                    final RemoteFlowFileRecord flowFile = receiveFlowFile(dataIn, contentClaimOut, contentClaim, claimOffset, protocolVersion, peerDescription, compression);
+                    final RemoteFlowFileRecord flowFile = receiveFlowFile(flowFileIn, contentClaimOut, contentClaim, claimOffset, protocolVersion, peerDescription, flowFileCompression);
 
                     // The FlowFile's Content Claim will either be null or equal to the provided Content Claim.
                     // Incrementing the FlowFile's content claim will increment the count for the provided Content Claim, if it was
@@ -260,10 +269,17 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
 
                     claimOffset += flowFile.getFlowFile().getSize();
                 }
+
+                if (compressedTransaction && flowFileIn.read() >= 0) {
+                    throw new IOException("Peer " + peerDescription + " sent more data in the compressed stream after indicating that there are no more FlowFiles");
+                }
             } finally {
                 if (contentClaimOut != null) {
                     contentClaimOut.close();
                 }
+                if (decompressedIn != null) {
+                    decompressedIn.close();
+                }
             }
 
             // When the Content Claim is created initially, it has a Claimaint Count of 1. We then increment the Claimant Count for each FlowFile that we add to the Content Claim,
@@ -542,6 +558,76 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         return new ContentClaimTriple(contentClaim, claimOffset, claimLength);
     }
 
+    /**
+     * Reads the chunks of a compressed transaction, each of which is preceded by its length, until a chunk length of 0 is received.
+     * Closing the stream does not close the underlying stream, as the transaction continues after the compressed data.
+     */
+    private static class CompressedChunkInputStream extends InputStream {
+        private final DataInputStream in;
+        private final String peerDescription;
+        private int chunkBytesRemaining = 0;
+        private boolean finished = false;
+
+        public CompressedChunkInputStream(final InputStream in, final String peerDescription) {
+            this.in = new DataInputStream(in);
+            this.peerDescription = peerDescription;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+
+            final int value = in.read();
+            if (value < 0) {
+                throw new EOFException("Encountered End-of-File when reading compressed data from Peer " + peerDescription);
+            }
+
+            chunkBytesRemaining--;
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+
+            final int bytesRead = in.read(b, off, Math.min(len, chunkBytesRemaining));
+            if (bytesRead < 0) {
+                throw new EOFException("Encountered End-of-File when reading compressed data from Peer " + peerDescription);
+            }
+
+            chunkBytesRemaining -= bytesRead;
+            return bytesRead;
+        }
+
+        private boolean nextChunk() throws IOException {
+            while (chunkBytesRemaining == 0) {
+                if (finished) {
+                    return false;
+                }
+
+                chunkBytesRemaining = in.readInt();
+                if (chunkBytesRemaining < 0) {
+                    throw new IOException("Received invalid compressed chunk length of " + chunkBytesRemaining + " from Peer " + peerDescription);
+                }
+
+                finished = chunkBytesRemaining == 0;
+            }
+
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     private static class ContentClaimTriple {
         private final ContentClaim contentClaim;
         private final long claimOffset;
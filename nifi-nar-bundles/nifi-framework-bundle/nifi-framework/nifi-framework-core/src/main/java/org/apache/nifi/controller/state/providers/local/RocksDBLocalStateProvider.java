@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.state.providers.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.state.Scope;
+import org.apache.nifi.components.state.StateMap;
+import org.apache.nifi.components.state.StateProviderInitializationContext;
+import org.apache.nifi.controller.state.StandardStateMap;
+import org.apache.nifi.controller.state.providers.AbstractStateProvider;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.rocksdb.RocksDBMetronome;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides state management for local (standalone) state, backed by RocksDB.
+ * <p>
+ * Unlike the {@link WriteAheadLocalStateProvider}, state is not held in memory: each entry of a component's state is
+ * stored under its own key, beneath a prefix that is unique to the component, and the version of each component's
+ * state is stored separately. An update only writes the entries that changed, together with the new version, as a
+ * single atomic batch, so the cost of an update depends on how much of the state changed rather than on how large
+ * the state is, and there is no checkpoint of all components' state.
+ * </p>
+ */
+public class RocksDBLocalStateProvider extends AbstractStateProvider {
+    private static final Logger logger = LoggerFactory.getLogger(RocksDBLocalStateProvider.class);
+
+    private static final String VERSIONS_FAMILY = "state.versions";
+    private static final String ENTRIES_FAMILY = "state.entries";
+
+    private static final byte NULL_MARKER = 0;
+    private static final byte VALUE_MARKER = 1;
+
+    // updates to the same component must not interleave, but there is no need to keep a lock for every component
+    private static final int LOCK_STRIPES = 64;
+
+    static final PropertyDescriptor PATH = new PropertyDescriptor.Builder()
+        .name("Directory")
+        .description("The directory where the Provider should store its data")
+        .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+        .defaultValue("./state")
+        .required(true)
+        .build();
+
+    static final PropertyDescriptor ALWAYS_SYNC = new PropertyDescriptor.Builder()
+        .name("Always Sync")
+        .description("If set to true, every change to the state will be synchronized to the disk before it is acknowledged. This is expensive and can significantly reduce NiFi " +
+                "performance. If false, changes are synchronized to the disk every few milliseconds, so there could be the potential for data loss if either there is a sudden " +
+                "power loss or the operating system crashes. The default value is false.")
+        .allowableValues("true", "false")
+        .defaultValue("false")
+        .required(true)
+        .build();
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private volatile boolean alwaysSync;
+    private RocksDBMetronome db;
+    private ColumnFamilyHandle versions;
+    private ColumnFamilyHandle entries;
+    private AtomicLong versionGenerator;
+
+    public RocksDBLocalStateProvider() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public synchronized void init(final StateProviderInitializationContext context) throws IOException {
+        alwaysSync = context.getProperty(ALWAYS_SYNC).asBoolean();
+
+        final File basePath = new File(context.getProperty(PATH).getValue());
+
+        if (!basePath.exists() && !basePath.mkdirs()) {
+            throw new RuntimeException("Cannot Initialize Local State Provider because the 'Directory' property is set to \"" + basePath + "\", but that directory could not be created");
+        }
+
+        if (!basePath.isDirectory()) {
+            throw new RuntimeException("Cannot Initialize Local State Provider because the 'Directory' property is set to \"" + basePath + "\", but that is a file, rather than a directory");
+        }
+
+        if (!basePath.canWrite()) {
+            throw new RuntimeException("Cannot Initialize Local State Provider because the 'Directory' property is set to \"" + basePath + "\", but that directory cannot be written to");
+        }
+
+        if (!basePath.canRead()) {
+            throw new RuntimeException("Cannot Initialize Local State Provider because the 'Directory' property is set to \"" + basePath + "\", but that directory cannot be read");
+        }
+
+        db = new RocksDBMetronome.Builder()
+            .setStoragePath(basePath.toPath())
+            .addColumnFamily(VERSIONS_FAMILY)
+            .addColumnFamily(ENTRIES_FAMILY)
+            // component state is small and infrequently written compared to a FlowFile repository
+            .setWriteBufferSize(16L * 1024 * 1024)
+            .setParallelThreads(2)
+            .build();
+        db.initialize();
+        versions = db.getColumnFamilyHandle(VERSIONS_FAMILY);
+        entries = db.getColumnFamilyHandle(ENTRIES_FAMILY);
+
+        // versions are unique across all components, so continue from the greatest version that is stored
+        long maxRecordVersion = -1L;
+        int componentCount = 0;
+        try (final RocksIterator itr = db.getIterator(versions)) {
+            for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                maxRecordVersion = Math.max(maxRecordVersion, RocksDBMetronome.readLong(itr.value()));
+                componentCount++;
+            }
+        }
+        versionGenerator = new AtomicLong(maxRecordVersion);
+
+        logger.info("Recovered state of {} components from {}", componentCount, basePath);
+    }
+
+    @Override
+    public List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        final List<PropertyDescriptor> properties = new ArrayList<>();
+        properties.add(PATH);
+        properties.add(ALWAYS_SYNC);
+        return properties;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (db == null) {
+            return;
+        }
+
+        try {
+            db.close();
+        } catch (final IOException ioe) {
+            logger.warn("Failed to shut down {} successfully due to {}", this, ioe.toString());
+            logger.warn("", ioe);
+        }
+    }
+
+    @Override
+    public StateMap getState(final String componentId) throws IOException {
+        synchronized (getLock(componentId)) {
+            try {
+                final byte[] version = db.get(versions, getBytes(componentId));
+                if (version == null) {
+                    return new StandardStateMap(Collections.<String, String> emptyMap(), -1L);
+                }
+
+                final Map<String, String> state = new HashMap<>();
+                final byte[] prefix = getPrefix(componentId);
+                try (final RocksIterator itr = db.getIterator(entries)) {
+                    for (itr.seek(prefix); itr.isValid() && startsWith(itr.key(), prefix); itr.next()) {
+                        state.put(decode(itr.key(), prefix.length), decode(itr.value(), 0));
+                    }
+                }
+
+                return new StandardStateMap(state, RocksDBMetronome.readLong(version));
+            } catch (final RocksDBException e) {
+                throw new IOException("Failed to retrieve state for component " + componentId, e);
+            }
+        }
+    }
+
+    @Override
+    public void setState(final Map<String, String> state, final String componentId) throws IOException {
+        synchronized (getLock(componentId)) {
+            updateState(state, componentId);
+        }
+    }
+
+    @Override
+    public boolean replace(final StateMap oldValue, final Map<String, String> newValue, final String componentId) throws IOException {
+        synchronized (getLock(componentId)) {
+            try {
+                final byte[] version = db.get(versions, getBytes(componentId));
+                if (version == null) {
+                    // state has never been set so return false
+                    return false;
+                }
+
+                if (RocksDBMetronome.readLong(version) != oldValue.getVersion()) {
+                    return false;
+                }
+            } catch (final RocksDBException e) {
+                throw new IOException("Failed to retrieve state for component " + componentId, e);
+            }
+
+            updateState(newValue, componentId);
+            return true;
+        }
+    }
+
+    @Override
+    public void clear(final String componentId) throws IOException {
+        synchronized (getLock(componentId)) {
+            updateState(Collections.<String, String> emptyMap(), componentId);
+        }
+    }
+
+    @Override
+    public void onComponentRemoved(final String componentId) throws IOException {
+        synchronized (getLock(componentId)) {
+            try (final WriteBatch writeBatch = new WriteBatch()) {
+                final byte[] prefix = getPrefix(componentId);
+                try (final RocksIterator itr = db.getIterator(entries)) {
+                    for (itr.seek(prefix); itr.isValid() && startsWith(itr.key(), prefix); itr.next()) {
+                        writeBatch.delete(entries, itr.key());
+                    }
+                }
+                writeBatch.delete(versions, getBytes(componentId));
+
+                db.write(writeBatch, alwaysSync);
+            } catch (final RocksDBException e) {
+                throw new IOException("Failed to remove state for component " + componentId, e);
+            }
+        }
+    }
+
+    @Override
+    public Scope[] getSupportedScopes() {
+        return new Scope[]{Scope.LOCAL};
+    }
+
+    // must only be called while holding the lock for the component
+    private void updateState(final Map<String, String> state, final String componentId) throws IOException {
+        final byte[] prefix = getPrefix(componentId);
+
+        final Map<ByteBuffer, byte[]> pendingEntries = new HashMap<>(state.size());
+        for (final Map.Entry<String, String> entry : state.entrySet()) {
+            pendingEntries.put(ByteBuffer.wrap(getKey(prefix, entry.getKey())), encode(entry.getValue()));
+        }
+
+        try (final WriteBatch writeBatch = new WriteBatch()) {
+            // only the entries that were removed or changed need to be written
+            try (final RocksIterator itr = db.getIterator(entries)) {
+                for (itr.seek(prefix); itr.isValid() && startsWith(itr.key(), prefix); itr.next()) {
+                    final byte[] key = itr.key();
+                    final byte[] value = pendingEntries.get(ByteBuffer.wrap(key));
+                    if (value == null) {
+                        writeBatch.delete(entries, key);
+                    } else if (Arrays.equals(value, itr.value())) {
+                        pendingEntries.remove(ByteBuffer.wrap(key));
+                    }
+                }
+            }
+
+            for (final Map.Entry<ByteBuffer, byte[]> entry : pendingEntries.entrySet()) {
+                writeBatch.put(entries, entry.getKey().array(), entry.getValue());
+            }
+            writeBatch.put(versions, getBytes(componentId), RocksDBMetronome.getBytes(versionGenerator.incrementAndGet()));
+
+            db.write(writeBatch, alwaysSync);
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to update state for component " + componentId, e);
+        }
+    }
+
+    private Object getLock(final String componentId) {
+        return locks[(componentId.hashCode() & Integer.MAX_VALUE) % locks.length];
+    }
+
+    private static byte[] getBytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The prefix of the keys of a component's entries is the length of the component's identifier followed by the
+     * identifier, so that no component's prefix can be the start of another component's prefix.
+     */
+    private static byte[] getPrefix(final String componentId) {
+        final byte[] componentIdBytes = getBytes(componentId);
+        return ByteBuffer.allocate(4 + componentIdBytes.length)
+            .putInt(componentIdBytes.length)
+            .put(componentIdBytes)
+            .array();
+    }
+
+    private static byte[] getKey(final byte[] prefix, final String stateKey) {
+        final byte[] encodedKey = encode(stateKey);
+        return ByteBuffer.allocate(prefix.length + encodedKey.length)
+            .put(prefix)
+            .put(encodedKey)
+            .array();
+    }
+
+    private static boolean startsWith(final byte[] bytes, final byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // state keys and values may be null, so each is preceded by a marker indicating whether it is present
+    private static byte[] encode(final String value) {
+        if (value == null) {
+            return new byte[] {NULL_MARKER};
+        }
+
+        final byte[] valueBytes = getBytes(value);
+        final byte[] encoded = new byte[valueBytes.length + 1];
+        encoded[0] = VALUE_MARKER;
+        System.arraycopy(valueBytes, 0, encoded, 1, valueBytes.length);
+        return encoded;
+    }
+
+    private static String decode(final byte[] bytes, final int offset) {
+        if (bytes[offset] == NULL_MARKER) {
+            return null;
+        }
+        return new String(bytes, offset + 1, bytes.length - offset - 1, StandardCharsets.UTF_8);
+    }
+}
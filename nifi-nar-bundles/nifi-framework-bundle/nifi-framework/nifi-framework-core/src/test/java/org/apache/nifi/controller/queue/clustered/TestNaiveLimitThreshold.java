@@ -22,6 +22,8 @@ import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
 public class TestNaiveLimitThreshold {
 
     @Test
@@ -57,4 +59,13 @@ public class TestNaiveLimitThreshold {
         assertTrue(threshold.isThresholdMet());
     }
 
+    @Test
+    public void testTime() throws InterruptedException {
+        final SimpleLimitThreshold threshold = new SimpleLimitThreshold(10, 100L, 50L, TimeUnit.MILLISECONDS);
+        threshold.adjust(1, 1L);
+        assertFalse(threshold.isThresholdMet());
+
+        Thread.sleep(100L);
+        assertTrue(threshold.isThresholdMet());
+    }
 }
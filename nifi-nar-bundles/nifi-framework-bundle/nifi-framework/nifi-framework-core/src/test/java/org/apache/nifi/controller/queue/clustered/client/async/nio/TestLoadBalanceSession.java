@@ -17,6 +17,7 @@
 
 package org.apache.nifi.controller.queue.clustered.client.async.nio;
 
+import com.github.luben.zstd.ZstdInputStream;
 import org.apache.nifi.controller.MockFlowFileRecord;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
 import org.apache.nifi.controller.queue.clustered.FlowFileContentAccess;
@@ -32,6 +33,7 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -69,6 +71,7 @@ public class TestLoadBalanceSession {
     private ByteArrayOutputStream received;
     private ServerSocket serverSocket;
     private int port;
+    private Thread serverThread;
 
     @Before
     public void setup() throws IOException {
@@ -77,7 +80,7 @@ public class TestLoadBalanceSession {
         serverSocket = new ServerSocket(0);
         port = serverSocket.getLocalPort();
 
-        final Thread thread = new Thread(new Runnable() {
+        serverThread = new Thread(new Runnable() {
             @Override
             public void run() {
                 try (final Socket socket = serverSocket.accept()) {
@@ -98,8 +101,8 @@ public class TestLoadBalanceSession {
                 }
             }
         });
-        thread.setDaemon(true);
-        thread.start();
+        serverThread.setDaemon(true);
+        serverThread.start();
     }
 
     @After
@@ -141,7 +144,7 @@ public class TestLoadBalanceSession {
 
         final Checksum expectedChecksum = new CRC32();
         final ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
-        expectedOut.write(1); // Protocol Version
+        expectedOut.write(2); // Protocol Version
 
         final DataOutputStream expectedDos = new DataOutputStream(new CheckedOutputStream(expectedOut, expectedChecksum));
         expectedDos.writeUTF("unit-test-connection");
@@ -227,7 +230,7 @@ public class TestLoadBalanceSession {
 
         final Checksum expectedChecksum = new CRC32();
         final ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
-        expectedOut.write(1); // Protocol Version
+        expectedOut.write(2); // Protocol Version
 
         final DataOutputStream expectedDos = new DataOutputStream(new CheckedOutputStream(expectedOut, expectedChecksum));
 
@@ -270,4 +273,95 @@ public class TestLoadBalanceSession {
 
         assertEquals(Arrays.asList(flowFile1), transaction.getFlowFilesSent());
     }
+
+    @Test(timeout = 10000)
+    public void testCompressedTransaction() throws InterruptedException, IOException {
+        final Queue<FlowFileRecord> flowFiles = new LinkedList<>();
+        final FlowFileRecord flowFile1 = new MockFlowFileRecord(5);
+        final FlowFileRecord flowFile2 = new MockFlowFileRecord(8);
+        flowFiles.offer(flowFile1);
+        flowFiles.offer(flowFile2);
+
+        final Map<FlowFileRecord, InputStream> contentMap = new HashMap<>();
+        contentMap.put(flowFile1, new ByteArrayInputStream("hello".getBytes()));
+        contentMap.put(flowFile2, new ByteArrayInputStream("good-bye".getBytes()));
+
+        final FlowFileContentAccess contentAccess = contentMap::get;
+
+        final RegisteredPartition partition = new RegisteredPartition("unit-test-connection", () -> false,
+            flowFiles::poll, NOP_FAILURE_CALLBACK, (ff, nodeId) -> {}, () -> LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT, () -> true);
+
+        final SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress("localhost", port));
+
+        socketChannel.configureBlocking(false);
+        final PeerChannel peerChannel = new PeerChannel(socketChannel, null, "unit-test");
+        final LoadBalanceSession transaction = new LoadBalanceSession(partition, contentAccess, new StandardLoadBalanceFlowFileCodec(), peerChannel, 30000,
+            new SimpleLimitThreshold(100, 10_000_000));
+
+        Thread.sleep(100L);
+
+        while (transaction.communicate()) {
+        }
+
+        assertTrue(transaction.isComplete());
+        socketChannel.close();
+        serverThread.join();
+
+        // The FlowFiles are framed just as they are without compression, but the frames are sent in a single compressed stream
+        final Checksum expectedChecksum = new CRC32();
+        final ByteArrayOutputStream expectedFlowFiles = new ByteArrayOutputStream();
+        final DataOutputStream expectedDos = new DataOutputStream(new CheckedOutputStream(expectedFlowFiles, expectedChecksum));
+        expectedDos.writeUTF("unit-test-connection");
+        expectedDos.write(LoadBalanceProtocolConstants.CHECK_SPACE);
+        expectedFlowFiles.reset();
+
+        for (final FlowFileRecord flowFile : Arrays.asList(flowFile1, flowFile2)) {
+            final String uuid = flowFile.getAttribute("uuid");
+            final byte[] content = flowFile == flowFile1 ? "hello".getBytes() : "good-bye".getBytes();
+
+            expectedDos.write(LoadBalanceProtocolConstants.MORE_FLOWFILES);
+            expectedDos.writeInt(68); // metadata length
+            expectedDos.writeInt(1); // 1 attribute
+            expectedDos.writeInt(4); // length of attribute
+            expectedDos.write("uuid".getBytes());
+            expectedDos.writeInt(uuid.length());
+            expectedDos.write(uuid.getBytes());
+            expectedDos.writeLong(flowFile.getLineageStartDate()); // lineage start date
+            expectedDos.writeLong(flowFile.getEntryDate()); // entry date
+            expectedDos.write(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
+            expectedDos.writeInt(content.length);
+            expectedDos.write(content);
+            expectedDos.write(LoadBalanceProtocolConstants.NO_DATA_FRAME);
+        }
+        expectedDos.write(LoadBalanceProtocolConstants.NO_MORE_FLOWFILES);
+
+        final DataInputStream sentIn = new DataInputStream(new ByteArrayInputStream(received.toByteArray()));
+        assertEquals(2, sentIn.read()); // Protocol Version
+        assertEquals("unit-test-connection", sentIn.readUTF());
+        assertEquals(LoadBalanceProtocolConstants.CHECK_SPACE, sentIn.read());
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        int chunkLength;
+        while ((chunkLength = sentIn.readInt()) > 0) {
+            final byte[] chunk = new byte[chunkLength];
+            sentIn.readFully(chunk);
+            compressed.write(chunk);
+        }
+
+        final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (final InputStream zstdIn = new ZstdInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            final byte[] buffer = new byte[4096];
+            int len;
+            while ((len = zstdIn.read(buffer)) > 0) {
+                decompressed.write(buffer, 0, len);
+            }
+        }
+        assertArrayEquals(expectedFlowFiles.toByteArray(), decompressed.toByteArray());
+
+        assertEquals(expectedChecksum.getValue(), sentIn.readLong());
+        assertEquals(LoadBalanceProtocolConstants.COMPLETE_TRANSACTION, sentIn.read());
+        assertEquals(-1, sentIn.read());
+
+        assertEquals(Arrays.asList(flowFile1, flowFile2), transaction.getFlowFilesSent());
+    }
 }
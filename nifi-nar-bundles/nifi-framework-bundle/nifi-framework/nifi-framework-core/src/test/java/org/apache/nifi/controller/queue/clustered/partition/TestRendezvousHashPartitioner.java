@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered.partition;
+
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.controller.MockFlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestRendezvousHashPartitioner {
+
+    private int nodePort = 8000;
+
+    @Test
+    public void testSameValueGoesToSamePartition() {
+        final NodeIdentifier localNodeId = createNodeIdentifier();
+        final QueuePartition localPartition = createPartition(null);
+        final QueuePartition[] partitions = new QueuePartition[] {localPartition, createPartition(createNodeIdentifier()), createPartition(createNodeIdentifier())};
+
+        final RendezvousHashPartitioner partitioner = new RendezvousHashPartitioner("group", () -> localNodeId);
+        for (int i = 0; i < 100; i++) {
+            final QueuePartition partition = partitioner.getPartition(createFlowFile("value-" + i), partitions, localPartition);
+            assertSame(partition, partitioner.getPartition(createFlowFile("value-" + i), partitions, localPartition));
+        }
+    }
+
+    @Test
+    public void testNodeLeavingOnlyMovesItsOwnFlowFiles() {
+        final NodeIdentifier localNodeId = createNodeIdentifier();
+        final QueuePartition localPartition = createPartition(null);
+
+        final List<QueuePartition> partitionList = new ArrayList<>();
+        partitionList.add(localPartition);
+        for (int i = 0; i < 4; i++) {
+            partitionList.add(createPartition(createNodeIdentifier()));
+        }
+        final QueuePartition[] partitions = partitionList.toArray(new QueuePartition[0]);
+
+        // Remove a node from the middle, which shifts the index of every node after it
+        final QueuePartition removedPartition = partitions[2];
+        final List<QueuePartition> remaining = new ArrayList<>(Arrays.asList(partitions));
+        remaining.remove(removedPartition);
+        final QueuePartition[] remainingPartitions = remaining.toArray(new QueuePartition[0]);
+
+        final RendezvousHashPartitioner partitioner = new RendezvousHashPartitioner("group", () -> localNodeId);
+        final int[] counts = new int[partitions.length];
+        int moved = 0;
+        for (int i = 0; i < 5000; i++) {
+            final FlowFileRecord flowFile = createFlowFile("value-" + i);
+            final QueuePartition before = partitioner.getPartition(flowFile, partitions, localPartition);
+            final QueuePartition after = partitioner.getPartition(flowFile, remainingPartitions, localPartition);
+            counts[partitionList.indexOf(before)]++;
+
+            if (before != removedPartition) {
+                assertSame(before, after);
+            } else {
+                moved++;
+            }
+        }
+
+        // Each node should get roughly a fifth of the values, and only the values of the removed node should move
+        for (final int count : counts) {
+            assertTrue("Uneven distribution: " + Arrays.toString(counts), count > 700 && count < 1300);
+        }
+        assertEquals(counts[2], moved);
+    }
+
+    @Test
+    public void testPartitionDoesNotDependOnPartitionOrder() {
+        final NodeIdentifier localNodeId = createNodeIdentifier();
+        final QueuePartition localPartition = createPartition(null);
+        final QueuePartition remote1 = createPartition(createNodeIdentifier());
+        final QueuePartition remote2 = createPartition(createNodeIdentifier());
+
+        final QueuePartition[] partitions = new QueuePartition[] {localPartition, remote1, remote2};
+        final QueuePartition[] reordered = new QueuePartition[] {remote2, localPartition, remote1};
+
+        final RendezvousHashPartitioner partitioner = new RendezvousHashPartitioner("group", () -> localNodeId);
+        for (int i = 0; i < 100; i++) {
+            final FlowFileRecord flowFile = createFlowFile("value-" + i);
+            assertSame(partitioner.getPartition(flowFile, partitions, localPartition), partitioner.getPartition(flowFile, reordered, localPartition));
+        }
+    }
+
+    private FlowFileRecord createFlowFile(final String groupValue) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("group", groupValue);
+        return new MockFlowFileRecord(attributes, 0L);
+    }
+
+    private QueuePartition createPartition(final NodeIdentifier nodeId) {
+        final QueuePartition partition = mock(QueuePartition.class);
+        when(partition.getNodeIdentifier()).thenReturn(Optional.ofNullable(nodeId));
+        when(partition.getSwapPartitionName()).thenReturn(nodeId == null ? "local" : nodeId.getId());
+        return partition;
+    }
+
+    private NodeIdentifier createNodeIdentifier() {
+        return new NodeIdentifier(UUID.randomUUID().toString(), "localhost", nodePort++, "localhost", nodePort++,
+            "localhost", nodePort++, "localhost", nodePort++, nodePort++, true, Collections.emptySet());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered.partition;
+
+import org.apache.nifi.controller.MockFlowFileRecord;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.junit.Test;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestWeightedRoundRobinPartitioner {
+
+    @Test
+    public void testRoundRobinWhenQueuesAreSimilar() {
+        final QueuePartition[] partitions = new QueuePartition[] {createPartition(10), createPartition(500), createPartition(0)};
+        final WeightedRoundRobinPartitioner partitioner = new WeightedRoundRobinPartitioner();
+
+        for (int i = 0; i < 9; i++) {
+            assertSame(partitions[i % 3], partitioner.getPartition(new MockFlowFileRecord(), partitions, partitions[0]));
+        }
+    }
+
+    @Test
+    public void testDeepQueueIsSkipped() {
+        final QueuePartition[] partitions = new QueuePartition[] {createPartition(100), createPartition(50_000), createPartition(200)};
+        final WeightedRoundRobinPartitioner partitioner = new WeightedRoundRobinPartitioner();
+
+        assertSame(partitions[0], partitioner.getPartition(new MockFlowFileRecord(), partitions, partitions[0]));
+        assertSame(partitions[2], partitioner.getPartition(new MockFlowFileRecord(), partitions, partitions[0]));
+        assertSame(partitions[2], partitioner.getPartition(new MockFlowFileRecord(), partitions, partitions[0]));
+        assertSame(partitions[0], partitioner.getPartition(new MockFlowFileRecord(), partitions, partitions[0]));
+    }
+
+    private QueuePartition createPartition(final int queueDepth) {
+        final QueuePartition partition = mock(QueuePartition.class);
+        when(partition.size()).thenReturn(new QueueSize(queueDepth, queueDepth * 1024L));
+        return partition;
+    }
+}
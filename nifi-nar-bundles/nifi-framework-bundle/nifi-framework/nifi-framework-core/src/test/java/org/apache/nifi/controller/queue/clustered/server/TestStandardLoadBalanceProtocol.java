@@ -17,6 +17,7 @@
 
 package org.apache.nifi.controller.queue.clustered.server;
 
+import com.github.luben.zstd.ZstdOutputStream;
 import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.flow.FlowManager;
@@ -289,6 +290,67 @@ public class TestStandardLoadBalanceProtocol {
     }
 
 
+    @Test
+    public void testCompressedTransaction() throws IOException {
+        when(flowFileQueue.getLoadBalanceCompression()).thenReturn(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT);
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final PipedInputStream serverInput = new PipedInputStream();
+        final PipedOutputStream serverContentSource = new PipedOutputStream();
+        serverInput.connect(serverContentSource);
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        // Write connection ID
+        final Checksum checksum = new CRC32();
+        final OutputStream checkedOutput = new CheckedOutputStream(serverContentSource, checksum);
+        final DataOutputStream dos = new DataOutputStream(checkedOutput);
+        dos.writeUTF("unit-test-connection-id");
+        dos.write(CHECK_SPACE);
+
+        // With version 2 of the protocol, the FlowFiles are written uncompressed to a single compressed stream. The checksum covers the uncompressed data.
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (final DataOutputStream flowFileOut = new DataOutputStream(new CheckedOutputStream(new ZstdOutputStream(compressed, 1), checksum))) {
+            for (int i = 0; i < 10; i++) {
+                flowFileOut.write(MORE_FLOWFILES);
+                writeAttributes(Collections.singletonMap("uuid", "unit-test-id-" + i), flowFileOut);
+                writeContent(("hello-" + i).getBytes(), flowFileOut);
+            }
+            flowFileOut.write(NO_MORE_FLOWFILES);
+        }
+
+        // Send the compressed stream in two chunks, followed by a chunk length of 0
+        final byte[] compressedBytes = compressed.toByteArray();
+        final int firstChunkLength = compressedBytes.length / 2;
+        final DataOutputStream rawOut = new DataOutputStream(serverContentSource);
+        rawOut.writeInt(firstChunkLength);
+        rawOut.write(compressedBytes, 0, firstChunkLength);
+        rawOut.writeInt(compressedBytes.length - firstChunkLength);
+        rawOut.write(compressedBytes, firstChunkLength, compressedBytes.length - firstChunkLength);
+        rawOut.writeInt(0);
+
+        rawOut.writeLong(checksum.getValue());
+        rawOut.write(COMPLETE_TRANSACTION);
+
+        protocol.receiveFlowFiles(serverInput, serverOutput, "Unit Test", 2);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(3, serverResponse.length);
+        assertEquals(SPACE_AVAILABLE, serverResponse[0]);
+        assertEquals(CONFIRM_CHECKSUM, serverResponse[1]);
+        assertEquals(CONFIRM_COMPLETE_TRANSACTION, serverResponse[2]);
+
+        assertEquals(1, claimContents.size());
+        final byte[] bytes = claimContents.values().iterator().next();
+        final String expectedContent = "hello-0hello-1hello-2hello-3hello-4hello-5hello-6hello-7hello-8hello-9";
+        assertArrayEquals(expectedContent.getBytes(), bytes);
+
+        assertEquals(10, flowFileRepoUpdateRecords.size());
+        assertEquals(10, provRepoUpdateRecords.size());
+        assertEquals(10, flowFileQueueReceiveRecords.size());
+    }
+
+
     @Test
     public void testMultipleFlowFilesWithoutCheckingSpace() throws IOException {
         final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
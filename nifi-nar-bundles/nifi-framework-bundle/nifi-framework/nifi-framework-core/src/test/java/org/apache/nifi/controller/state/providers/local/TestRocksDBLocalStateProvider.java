@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.state.providers.local;
+
+import org.apache.nifi.parameter.ParameterLookup;
+import org.apache.nifi.attribute.expression.language.StandardPropertyValue;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.PropertyValue;
+import org.apache.nifi.components.state.StateMap;
+import org.apache.nifi.components.state.StateProvider;
+import org.apache.nifi.components.state.StateProviderInitializationContext;
+import org.apache.nifi.controller.state.providers.AbstractTestStateProvider;
+import org.apache.nifi.logging.ComponentLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestRocksDBLocalStateProvider extends AbstractTestStateProvider {
+    private StateProvider provider;
+    private String path;
+
+    @Before
+    public void setup() throws IOException {
+        path = "target/rocksdb-local-state-provider/" + UUID.randomUUID().toString();
+        provider = createProvider();
+    }
+
+    private StateProvider createProvider() throws IOException {
+        final StateProvider provider = new RocksDBLocalStateProvider();
+        final Map<PropertyDescriptor, PropertyValue> properties = new HashMap<>();
+        properties.put(RocksDBLocalStateProvider.PATH, new StandardPropertyValue(path, null, ParameterLookup.EMPTY));
+        properties.put(RocksDBLocalStateProvider.ALWAYS_SYNC, new StandardPropertyValue("false", null, ParameterLookup.EMPTY));
+
+        provider.initialize(new StateProviderInitializationContext() {
+            @Override
+            public String getIdentifier() {
+                return "Unit Test Provider Initialization Context";
+            }
+
+            @Override
+            public Map<PropertyDescriptor, PropertyValue> getProperties() {
+                return Collections.unmodifiableMap(properties);
+            }
+
+            @Override
+            public Map<String,String> getAllProperties() {
+                final Map<String,String> propValueMap = new LinkedHashMap<>();
+                for (final Map.Entry<PropertyDescriptor, PropertyValue> entry : getProperties().entrySet()) {
+                    propValueMap.put(entry.getKey().getName(), entry.getValue().getValue());
+                }
+                return propValueMap;
+            }
+
+            @Override
+            public PropertyValue getProperty(final PropertyDescriptor property) {
+                final PropertyValue prop = properties.get(property);
+                if (prop == null) {
+                    return new StandardPropertyValue(null, null, ParameterLookup.EMPTY);
+                }
+                return prop;
+            }
+
+            @Override
+            public SSLContext getSSLContext() {
+                return null;
+            }
+
+            @Override
+            public ComponentLog getLogger() {
+                return null;
+            }
+        });
+        return provider;
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        provider.onComponentRemoved(componentId);
+        provider.shutdown();
+    }
+
+    @Test
+    public void testUpdateOnlyChangesGivenEntries() throws IOException {
+        final Map<String, String> state = new HashMap<>();
+        state.put("unchanged", "value");
+        state.put("changed", "value");
+        state.put("removed", "value");
+        state.put("null value", null);
+        provider.setState(state, componentId);
+        provider.setState(Collections.singletonMap("other", "value"), "other-component");
+
+        final Map<String, String> newState = new HashMap<>();
+        newState.put("unchanged", "value");
+        newState.put("changed", "new value");
+        newState.put("added", "value");
+        newState.put("null value", null);
+        assertTrue(provider.replace(provider.getState(componentId), newState, componentId));
+
+        final StateMap stateMap = provider.getState(componentId);
+        assertEquals(newState, stateMap.toMap());
+        assertEquals(2L, stateMap.getVersion());
+        assertEquals(Collections.singletonMap("other", "value"), provider.getState("other-component").toMap());
+
+        provider.onComponentRemoved("other-component");
+    }
+
+    @Test
+    public void testStateSurvivesRestart() throws IOException {
+        provider.setState(Collections.singletonMap("key", "value"), componentId);
+        provider.setState(Collections.singletonMap("key", "value"), "removed-component");
+        provider.onComponentRemoved("removed-component");
+        provider.shutdown();
+
+        provider = createProvider();
+        final StateMap stateMap = provider.getState(componentId);
+        assertEquals("value", stateMap.get("key"));
+        assertEquals(0L, stateMap.getVersion());
+        assertEquals(-1L, provider.getState("removed-component").getVersion());
+
+        // versions continue from the greatest version that was stored
+        provider.setState(Collections.singletonMap("key", "new value"), componentId);
+        assertEquals(1L, provider.getState(componentId).getVersion());
+    }
+
+    @Override
+    protected StateProvider getProvider() {
+        return provider;
+    }
+}
@@ -51,6 +51,8 @@ import org.apache.nifi.remote.protocol.http.HttpFlowFileServerProtocol;
 import org.apache.nifi.remote.protocol.http.StandardHttpFlowFileServerProtocol;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.web.NiFiServiceFacade;
+import org.apache.nifi.web.api.dto.remote.TransactionAcknowledgementDTO;
+import org.apache.nifi.web.api.entity.TransactionAcknowledgementsEntity;
 import org.apache.nifi.web.api.entity.TransactionResultEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,10 +76,12 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -115,7 +119,7 @@ public class DataTransferResource extends ApplicationResource {
 
     private NiFiServiceFacade serviceFacade;
     private final ResponseCreator responseCreator = new ResponseCreator();
-    private final VersionNegotiator transportProtocolVersionNegotiator = new TransportProtocolVersionNegotiator(1);
+    private final VersionNegotiator transportProtocolVersionNegotiator = new TransportProtocolVersionNegotiator(TransportProtocolVersionNegotiator.TRANSACTION_ACKNOWLEDGEMENTS_VERSION, 1);
     private final HttpRemoteSiteListener transactionManager;
     private final NiFiProperties nifiProperties;
 
@@ -610,6 +614,159 @@ public class DataTransferResource extends ApplicationResource {
         return noCache(setCommonHeaders(Response.ok(entity), transportProtocolVersion, transactionManager)).build();
     }
 
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("{portType}/{portId}/transactions/acknowledgements")
+    @ApiOperation(
+            value = "Commit or cancel the specified transactions",
+            notes = "Lets a client acknowledge multiple transactions with a single request. The outcome of each transaction is returned in the order of the "
+                    + "acknowledgements. Requires transport protocol version " + TransportProtocolVersionNegotiator.TRANSACTION_ACKNOWLEDGEMENTS_VERSION + ".",
+            response = TransactionAcknowledgementsEntity.class,
+            authorizations = {
+                    @Authorization(value = "Write - /data-transfer/{component-type}/{uuid}")
+            }
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(code = 400, message = "NiFi was unable to complete the request because it was invalid. The request should not be retried without modification."),
+                    @ApiResponse(code = 401, message = "Client could not be authenticated."),
+                    @ApiResponse(code = 403, message = "Client is not authorized to make this request."),
+                    @ApiResponse(code = 404, message = "The specified resource could not be found."),
+                    @ApiResponse(code = 409, message = "The request was valid but NiFi was not in the appropriate state to process it. Retrying the same request later may be successful."),
+                    @ApiResponse(code = 503, message = "NiFi instance is not ready for serving request, or temporarily overloaded. Retrying the same request later may be successful"),
+            }
+    )
+    public Response acknowledgePortTransactions(
+            @ApiParam(
+                    value = "The port type.",
+                    required = true,
+                    allowableValues = "input-ports, output-ports"
+            )
+            @PathParam("portType") String portType,
+            @ApiParam(
+                    value = "The port id.",
+                    required = true
+            )
+            @PathParam("portId") String portId,
+            @Context HttpServletRequest req,
+            @Context ServletContext context,
+            @ApiParam(
+                    value = "The transaction id and response code, and for output ports the checksum, of each transaction.",
+                    required = true
+            ) TransactionAcknowledgementsEntity requestEntity) {
+
+        if (!PORT_TYPE_INPUT.equals(portType) && !PORT_TYPE_OUTPUT.equals(portType)) {
+            return responseCreator.wrongPortTypeResponse(portType, portId);
+        }
+
+        // authorize access
+        serviceFacade.authorizeAccess(lookup -> {
+            authorizeDataTransfer(lookup, PORT_TYPE_INPUT.equals(portType) ? ResourceType.InputPort : ResourceType.OutputPort, portId);
+        });
+
+        final ValidateRequestResult validationResult = validateResult(req, portId);
+        if (validationResult.errResponse != null) {
+            return validationResult.errResponse;
+        }
+
+        final int transportProtocolVersion = validationResult.transportProtocolVersion;
+        if (transportProtocolVersion < TransportProtocolVersionNegotiator.TRANSACTION_ACKNOWLEDGEMENTS_VERSION) {
+            return responseCreator.badRequestResponse(new BadRequestException("Acknowledging multiple transactions requires transport protocol version "
+                    + TransportProtocolVersionNegotiator.TRANSACTION_ACKNOWLEDGEMENTS_VERSION));
+        }
+
+        if (requestEntity == null || requestEntity.getAcknowledgements() == null) {
+            return responseCreator.badRequestResponse(new BadRequestException("Transaction acknowledgements must be specified."));
+        }
+
+        logger.debug("acknowledgePortTransactions request: portType={}, portId={}, transactions={}", portType, portId, requestEntity.getAcknowledgements().size());
+
+        final List<TransactionAcknowledgementDTO> results = new ArrayList<>(requestEntity.getAcknowledgements().size());
+        for (final TransactionAcknowledgementDTO acknowledgement : requestEntity.getAcknowledgements()) {
+            results.add(acknowledgeTransaction(req, portType, portId, transportProtocolVersion, acknowledgement));
+        }
+
+        final TransactionAcknowledgementsEntity entity = new TransactionAcknowledgementsEntity();
+        entity.setAcknowledgements(results);
+        return noCache(setCommonHeaders(Response.ok(entity), transportProtocolVersion, transactionManager)).build();
+    }
+
+    /**
+     * Commits or cancels a single transaction the same way as {@link #commitInputPortTransaction} or
+     * {@link #commitOutputPortTransaction} do, reporting failures as the outcome of the transaction.
+     */
+    private TransactionAcknowledgementDTO acknowledgeTransaction(final HttpServletRequest req, final String portType, final String portId,
+                                                                 final int transportProtocolVersion, final TransactionAcknowledgementDTO acknowledgement) {
+        final String transactionId = acknowledgement.getTransactionId();
+        final Integer responseCode = acknowledgement.getResponseCode();
+
+        final TransactionAcknowledgementDTO result = new TransactionAcknowledgementDTO();
+        result.setTransactionId(transactionId);
+        result.setResponseCode(ResponseCode.ABORT.getCode());
+
+        if (isEmpty(transactionId) || !transactionManager.isTransactionActive(transactionId)) {
+            result.setMessage("Transaction was not found.");
+            return result;
+        }
+
+        final boolean inputPort = PORT_TYPE_INPUT.equals(portType);
+        if (responseCode == null) {
+            result.setMessage("responseCode is required.");
+            return result;
+        } else if (ResponseCode.CONFIRM_TRANSACTION.getCode() != responseCode
+                && ResponseCode.CANCEL_TRANSACTION.getCode() != responseCode
+                && !(inputPort && ResponseCode.BAD_CHECKSUM.getCode() == responseCode)) {
+            result.setMessage("responseCode " + responseCode + " is invalid. ");
+            return result;
+        }
+
+        if (ResponseCode.CANCEL_TRANSACTION.getCode() == responseCode) {
+            transactionManager.cancelTransaction(transactionId);
+            result.setMessage("Transaction has been canceled.");
+            result.setResponseCode(ResponseCode.CANCEL_TRANSACTION.getCode());
+            return result;
+        }
+
+        final Peer peer = constructPeer(req, new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), portId, transactionId);
+        final HttpServerCommunicationsSession commsSession = (HttpServerCommunicationsSession) peer.getCommunicationsSession();
+        try {
+            final HttpFlowFileServerProtocol serverProtocol = initiateServerProtocol(req, peer, transportProtocolVersion);
+
+            if (inputPort) {
+                commsSession.setResponseCode(ResponseCode.fromCode(responseCode));
+                try {
+                    result.setFlowFileSent(serverProtocol.commitReceiveTransaction(peer));
+                    result.setResponseCode(commsSession.getResponseCode().getCode());
+                } catch (IOException e) {
+                    if (ResponseCode.BAD_CHECKSUM.getCode() == responseCode && e.getMessage().contains("Received a BadChecksum response")) {
+                        // The transaction has been canceled as requested, see commitInputPortTransaction.
+                        result.setResponseCode(ResponseCode.CANCEL_TRANSACTION.getCode());
+                    } else {
+                        throw e;
+                    }
+                }
+            } else {
+                result.setFlowFileSent(serverProtocol.commitTransferTransaction(peer, acknowledgement.getChecksum()));
+                result.setResponseCode(ResponseCode.CONFIRM_TRANSACTION.getCode());
+            }
+        } catch (HandshakeException e) {
+            logger.debug("Handshake failed while acknowledging transaction {} of port {}, {}", transactionId, portId, e.getMessage());
+            if (e.getResponseCode() != null) {
+                result.setResponseCode(e.getResponseCode().getCode());
+            }
+            result.setMessage(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Failed to acknowledge transaction {} of port {}", transactionId, portId, e);
+            if (!inputPort && ResponseCode.BAD_CHECKSUM.equals(commsSession.getResponseCode())) {
+                result.setResponseCode(ResponseCode.BAD_CHECKSUM.getCode());
+            }
+            result.setMessage(e.getMessage());
+        }
+
+        return result;
+    }
+
     private Response cancelTransaction(String transactionId, TransactionResultEntity entity) {
         transactionManager.cancelTransaction(transactionId);
         entity.setMessage("Transaction has been canceled.");
@@ -29,6 +29,8 @@ import org.apache.nifi.remote.protocol.http.HttpFlowFileServerProtocol;
 import org.apache.nifi.remote.protocol.http.HttpHeaders;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.web.NiFiServiceFacade;
+import org.apache.nifi.web.api.dto.remote.TransactionAcknowledgementDTO;
+import org.apache.nifi.web.api.entity.TransactionAcknowledgementsEntity;
 import org.apache.nifi.web.api.entity.TransactionResultEntity;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -45,11 +47,15 @@ import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.apache.nifi.web.api.ApplicationResource.PROXY_HOST_HTTP_HEADER;
 import static org.apache.nifi.web.api.ApplicationResource.PROXY_PORT_HTTP_HEADER;
 import static org.apache.nifi.web.api.ApplicationResource.PROXY_SCHEME_HTTP_HEADER;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -393,6 +399,98 @@ public class TestDataTransferResource {
         assertEquals(ResponseCode.BAD_CHECKSUM.getCode(), resultEntity.getResponseCode());
     }
 
+    private TransactionAcknowledgementDTO createAcknowledgement(final String transactionId, final ResponseCode responseCode, final String checksum) {
+        final TransactionAcknowledgementDTO acknowledgement = new TransactionAcknowledgementDTO();
+        acknowledgement.setTransactionId(transactionId);
+        acknowledgement.setResponseCode(responseCode.getCode());
+        acknowledgement.setChecksum(checksum);
+        return acknowledgement;
+    }
+
+    @Test
+    public void testAcknowledgeOutputPortTransactions() throws Exception {
+        final HttpServletRequest req = createCommonHttpServletRequest();
+        doReturn("3").when(req).getHeader(eq(HttpHeaders.PROTOCOL_VERSION));
+
+        final DataTransferResource resource = getDataTransferResource();
+        final HttpFlowFileServerProtocol serverProtocol = resource.getHttpFlowFileServerProtocol(null);
+
+        doThrow(new HandshakeException(ResponseCode.BAD_CHECKSUM, "Bad checksum.")).when(serverProtocol).commitTransferTransaction(any(), eq("bad-checksum"));
+
+        final ServletContext context = null;
+
+        final HttpRemoteSiteListener transactionManager = HttpRemoteSiteListener.getInstance(NiFiProperties.createBasicNiFiProperties(null, null));
+        final String confirmedId = transactionManager.createTransaction();
+        final String badChecksumId = transactionManager.createTransaction();
+        final String canceledId = transactionManager.createTransaction();
+
+        final TransactionAcknowledgementsEntity requestEntity = new TransactionAcknowledgementsEntity();
+        requestEntity.setAcknowledgements(Arrays.asList(
+                createAcknowledgement(confirmedId, ResponseCode.CONFIRM_TRANSACTION, "client-checksum"),
+                createAcknowledgement(badChecksumId, ResponseCode.CONFIRM_TRANSACTION, "bad-checksum"),
+                createAcknowledgement(canceledId, ResponseCode.CANCEL_TRANSACTION, null),
+                createAcknowledgement("unknown-id", ResponseCode.CONFIRM_TRANSACTION, "client-checksum")));
+
+        final Response response = resource.acknowledgePortTransactions("output-ports", "port-id", req, context, requestEntity);
+
+        transactionManager.cancelTransaction(confirmedId);
+        transactionManager.cancelTransaction(badChecksumId);
+
+        final TransactionAcknowledgementsEntity resultEntity = (TransactionAcknowledgementsEntity) response.getEntity();
+        final List<TransactionAcknowledgementDTO> results = new ArrayList<>(resultEntity.getAcknowledgements());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(4, results.size());
+        assertEquals(confirmedId, results.get(0).getTransactionId());
+        assertEquals(ResponseCode.CONFIRM_TRANSACTION.getCode(), (int) results.get(0).getResponseCode());
+        assertEquals(ResponseCode.BAD_CHECKSUM.getCode(), (int) results.get(1).getResponseCode());
+        assertEquals(ResponseCode.CANCEL_TRANSACTION.getCode(), (int) results.get(2).getResponseCode());
+        assertFalse(transactionManager.isTransactionActive(canceledId));
+        assertEquals(ResponseCode.ABORT.getCode(), (int) results.get(3).getResponseCode());
+    }
+
+    @Test
+    public void testAcknowledgeInputPortTransactions() throws Exception {
+        final HttpServletRequest req = createCommonHttpServletRequest();
+        doReturn("3").when(req).getHeader(eq(HttpHeaders.PROTOCOL_VERSION));
+
+        final DataTransferResource resource = getDataTransferResource();
+
+        final ServletContext context = null;
+
+        final HttpRemoteSiteListener transactionManager = HttpRemoteSiteListener.getInstance(NiFiProperties.createBasicNiFiProperties(null, null));
+        final String transactionId = transactionManager.createTransaction();
+
+        final TransactionAcknowledgementsEntity requestEntity = new TransactionAcknowledgementsEntity();
+        requestEntity.setAcknowledgements(Arrays.asList(createAcknowledgement(transactionId, ResponseCode.CONFIRM_TRANSACTION, null)));
+
+        final Response response = resource.acknowledgePortTransactions("input-ports", "port-id", req, context, requestEntity);
+
+        transactionManager.cancelTransaction(transactionId);
+
+        final TransactionAcknowledgementsEntity resultEntity = (TransactionAcknowledgementsEntity) response.getEntity();
+
+        assertEquals(200, response.getStatus());
+        assertEquals(1, resultEntity.getAcknowledgements().size());
+        assertEquals(ResponseCode.CONFIRM_TRANSACTION.getCode(), (int) resultEntity.getAcknowledgements().iterator().next().getResponseCode());
+    }
+
+    @Test
+    public void testAcknowledgePortTransactionsRequiresProtocolVersion() throws Exception {
+        final HttpServletRequest req = createCommonHttpServletRequest();
+
+        final DataTransferResource resource = getDataTransferResource();
+
+        final ServletContext context = null;
+
+        final TransactionAcknowledgementsEntity requestEntity = new TransactionAcknowledgementsEntity();
+        requestEntity.setAcknowledgements(new ArrayList<>());
+
+        final Response response = resource.acknowledgePortTransactions("output-ports", "port-id", req, context, requestEntity);
+
+        assertEquals(400, response.getStatus());
+    }
+
     private DataTransferResource getDataTransferResource() {
         final NiFiServiceFacade serviceFacade = mock(NiFiServiceFacade.class);
 
@@ -81,6 +81,15 @@
         d3.select('path.connector').remove();
     };
 
+    /**
+     * Determines whether the specified load balance strategy partitions by a FlowFile attribute.
+     *
+     * @argument {string} loadBalanceStrategy       The load balance strategy
+     */
+    var isPartitionByAttribute = function (loadBalanceStrategy) {
+        return 'PARTITION_BY_ATTRIBUTE' === loadBalanceStrategy || 'RENDEZVOUS_PARTITION_BY_ATTRIBUTE' === loadBalanceStrategy;
+    };
+
     /**
      * Activates dialog's button model refresh on a connection relationships change.
      */
@@ -972,7 +981,7 @@
         var prioritizers = $('#prioritizer-selected').sortable('toArray');
         var loadBalanceStrategy = $('#load-balance-strategy-combo').combo('getSelectedOption').value;
         var shouldLoadBalance = 'DO_NOT_LOAD_BALANCE' !== loadBalanceStrategy;
-        var loadBalancePartitionAttribute = shouldLoadBalance && 'PARTITION_BY_ATTRIBUTE' === loadBalanceStrategy ? $('#load-balance-partition-attribute').val() : '';
+        var loadBalancePartitionAttribute = shouldLoadBalance && isPartitionByAttribute(loadBalanceStrategy) ? $('#load-balance-partition-attribute').val() : '';
         var loadBalanceCompression = shouldLoadBalance ? $('#load-balance-compression-combo').combo('getSelectedOption').value : 'DO_NOT_COMPRESS';
 
         if (validateSettings()) {
@@ -1077,7 +1086,7 @@
         var prioritizers = $('#prioritizer-selected').sortable('toArray');
         var loadBalanceStrategy = $('#load-balance-strategy-combo').combo('getSelectedOption').value;
         var shouldLoadBalance = 'DO_NOT_LOAD_BALANCE' !== loadBalanceStrategy;
-        var loadBalancePartitionAttribute = shouldLoadBalance && 'PARTITION_BY_ATTRIBUTE' === loadBalanceStrategy ? $('#load-balance-partition-attribute').val() : '';
+        var loadBalancePartitionAttribute = shouldLoadBalance && isPartitionByAttribute(loadBalanceStrategy) ? $('#load-balance-partition-attribute').val() : '';
         var loadBalanceCompression = shouldLoadBalance ? $('#load-balance-compression-combo').combo('getSelectedOption').value : 'DO_NOT_COMPRESS';
 
         if (validateSettings()) {
@@ -1174,9 +1183,10 @@
         if (nfCommon.isBlank($('#back-pressure-data-size-threshold').val())) {
             errors.push('Back pressure data size threshold must be specified');
         }
-        if ($('#load-balance-strategy-combo').combo('getSelectedOption').value === 'PARTITION_BY_ATTRIBUTE'
+        var selectedLoadBalanceStrategy = $('#load-balance-strategy-combo').combo('getSelectedOption');
+        if (isPartitionByAttribute(selectedLoadBalanceStrategy.value)
             && nfCommon.isBlank($('#load-balance-partition-attribute').val())) {
-            errors.push('Cannot set Load Balance Strategy to "Partition by attribute" without providing a partitioning "Attribute Name"');
+            errors.push('Cannot set Load Balance Strategy to "' + selectedLoadBalanceStrategy.text + '" without providing a partitioning "Attribute Name"');
         }
 
         if (errors.length > 0) {
@@ -1311,7 +1321,7 @@
                 options: nfCommon.loadBalanceStrategyOptions,
                 select: function (selectedOption) {
                     // Show the appropriate configurations
-                    if (selectedOption.value === 'PARTITION_BY_ATTRIBUTE') {
+                    if (isPartitionByAttribute(selectedOption.value)) {
                         $('#load-balance-partition-attribute-setting-separator').show();
                         $('#load-balance-partition-attribute-setting').show();
                     } else {
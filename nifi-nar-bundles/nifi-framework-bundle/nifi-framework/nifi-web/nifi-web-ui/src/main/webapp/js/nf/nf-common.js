@@ -1239,6 +1239,16 @@
                 text: 'Single node',
                 value: 'SINGLE_NODE',
                 description: 'All FlowFiles will be sent to the same node. Which node they are sent to is not defined.'
+            }, {
+                text: 'Partition by attribute (rendezvous hashing)',
+                value: 'RENDEZVOUS_PARTITION_BY_ATTRIBUTE',
+                description: 'Determine which node to send a given FlowFile to based on the value of a user-specified FlowFile Attribute, choosing the node by rendezvous hashing.'
+                                + ' A node joining or leaving the cluster only moves the FlowFiles that belong on that node. All nodes in the cluster must support this strategy.'
+            }, {
+                text: 'Weighted round robin',
+                value: 'WEIGHTED_ROUND_ROBIN',
+                description: 'FlowFiles will be distributed to nodes in the cluster in a Round-Robin fashion, but a node whose queue is much deeper than the queue of the least loaded node'
+                                + ' will be skipped until the other nodes catch up.'
         }],
 
         loadBalanceCompressionOptions: [{
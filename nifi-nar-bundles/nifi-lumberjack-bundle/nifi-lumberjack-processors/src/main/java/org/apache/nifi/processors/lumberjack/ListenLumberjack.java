@@ -58,6 +58,7 @@ import org.apache.nifi.processors.lumberjack.frame.LumberjackEncoder;
 import org.apache.nifi.processors.lumberjack.handler.LumberjackSocketChannelHandlerFactory;
 import org.apache.nifi.processors.lumberjack.response.LumberjackChannelResponse;
 import org.apache.nifi.processors.lumberjack.response.LumberjackResponse;
+import org.apache.nifi.security.util.SslContextFactory;
 import org.apache.nifi.ssl.RestrictedSSLContextService;
 import org.apache.nifi.ssl.SSLContextService;
 
@@ -97,6 +98,7 @@ public class ListenLumberjack extends AbstractListenEventBatchingProcessor<Lumbe
     protected List<PropertyDescriptor> getAdditionalProperties() {
         return Arrays.asList(
             MAX_CONNECTIONS,
+            SELECTOR_THREADS,
             SSL_CONTEXT_SERVICE
         );
     }
@@ -133,6 +135,7 @@ public class ListenLumberjack extends AbstractListenEventBatchingProcessor<Lumbe
         final ChannelHandlerFactory<LumberjackEvent, AsyncChannelDispatcher> handlerFactory = new LumberjackSocketChannelHandlerFactory<>();
 
         final int maxConnections = context.getProperty(MAX_CONNECTIONS).asInteger();
+        final int selectorThreads = context.getProperty(SELECTOR_THREADS).asInteger();
         final int bufferSize = context.getProperty(RECV_BUFFER_SIZE).asDataSize(DataUnit.B).intValue();
         final Charset charSet = Charset.forName(context.getProperty(CHARSET).getValue());
 
@@ -148,7 +151,7 @@ public class ListenLumberjack extends AbstractListenEventBatchingProcessor<Lumbe
 
         // if we decide to support SSL then get the context and pass it in here
         return new SocketChannelDispatcher<>(eventFactory, handlerFactory, bufferPool, events,
-            getLogger(), maxConnections, sslContext, charSet);
+            getLogger(), maxConnections, sslContext, SslContextFactory.ClientAuth.REQUIRED, charSet, selectorThreads);
     }
 
 
@@ -40,8 +40,10 @@ import org.apache.nifi.util.StringUtils;
 import org.bson.Document;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -122,13 +124,7 @@ public class MongoDBLookupService extends JsonInferenceSchemaRegistryService imp
 
     @Override
     public Optional<Object> lookup(Map<String, Object> coordinates, Map<String, String> context) throws LookupFailureException {
-        Map<String, Object> clean = coordinates.entrySet().stream()
-            .filter(e -> !schemaNameProperty.equals(String.format("${%s}", e.getKey())))
-            .collect(Collectors.toMap(
-                e -> e.getKey(),
-                e -> e.getValue()
-            ));
-        Document query = new Document(clean);
+        Document query = new Document(clean(coordinates));
 
         if (coordinates.size() == 0) {
             throw new LookupFailureException("No keys were configured. Mongo query would return random documents.");
@@ -139,12 +135,8 @@ public class MongoDBLookupService extends JsonInferenceSchemaRegistryService imp
 
             if(result == null) {
                 return Optional.empty();
-            } else if (!StringUtils.isEmpty(lookupValueField)) {
-                return Optional.ofNullable(result.get(lookupValueField));
             } else {
-                RecordSchema schema = loadSchema(context, result);
-
-                return Optional.ofNullable(new MapRecord(schema, result));
+                return toLookupValue(result, context);
             }
         } catch (Exception ex) {
             getLogger().error("Error during lookup {}", new Object[]{ query.toJson() }, ex);
@@ -152,6 +144,104 @@ public class MongoDBLookupService extends JsonInferenceSchemaRegistryService imp
         }
     }
 
+    /*
+     * Coordinates that consist of the same single key are looked up with one $in query, and any value for which no
+     * document is returned is a miss. Everything else is looked up one at a time.
+     */
+    @Override
+    public Map<Map<String, Object>, Object> lookupAll(Collection<Map<String, Object>> coordinates, Map<String, String> context) throws LookupFailureException {
+        Map<Map<String, Object>, Object> results = new HashMap<>();
+        Map<String, Map<Object, List<Map<String, Object>>>> singleKeyCoordinates = new HashMap<>();
+        List<Map<String, Object>> remaining = new ArrayList<>();
+        for (Map<String, Object> coordinate : coordinates) {
+            Map<String, Object> clean = clean(coordinate);
+            if (clean.size() == 1) {
+                Map.Entry<String, Object> entry = clean.entrySet().iterator().next();
+                singleKeyCoordinates.computeIfAbsent(entry.getKey(), key -> new LinkedHashMap<>())
+                    .computeIfAbsent(normalize(entry.getValue()), value -> new ArrayList<>())
+                    .add(coordinate);
+            } else {
+                remaining.add(coordinate);
+            }
+        }
+
+        for (Map.Entry<String, Map<Object, List<Map<String, Object>>>> entry : singleKeyCoordinates.entrySet()) {
+            String key = entry.getKey();
+            Map<Object, List<Map<String, Object>>> byValue = entry.getValue();
+            if (byValue.size() < 2 || !isProjected(key)) {
+                byValue.values().forEach(remaining::addAll);
+                continue;
+            }
+
+            List<Object> values = byValue.values().stream()
+                .map(matching -> clean(matching.get(0)).get(key))
+                .collect(Collectors.toList());
+            Document query = new Document(key, new Document("$in", values));
+            try {
+                for (Document result : find(query, projection)) {
+                    List<Map<String, Object>> matched = byValue.remove(normalize(result.get(key)));
+                    if (matched != null) {
+                        Optional<Object> value = toLookupValue(result, context);
+                        value.ifPresent(v -> matched.forEach(coordinate -> results.put(coordinate, v)));
+                    }
+                }
+            } catch (Exception ex) {
+                getLogger().error("Error during lookup {}", new Object[]{ query.toJson() }, ex);
+                throw new LookupFailureException(ex);
+            }
+        }
+
+        for (Map<String, Object> coordinate : remaining) {
+            lookup(coordinate, context).ifPresent(value -> results.put(coordinate, value));
+        }
+
+        return results;
+    }
+
+    private Map<String, Object> clean(Map<String, Object> coordinates) {
+        return coordinates.entrySet().stream()
+            .filter(e -> !schemaNameProperty.equals(String.format("${%s}", e.getKey())))
+            .collect(Collectors.toMap(
+                e -> e.getKey(),
+                e -> e.getValue()
+            ));
+    }
+
+    /*
+     * MongoDB matches numbers by value regardless of their type, e.g. an int coordinate matches a long or double field,
+     * so numbers are widened to the same type before the values of returned documents are matched to the coordinates.
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float || value instanceof Double) {
+            double doubleValue = ((Number) value).doubleValue();
+            long longValue = (long) doubleValue;
+            return longValue == doubleValue ? (Object) longValue : (Object) doubleValue;
+        }
+        return value;
+    }
+
+    private boolean isProjected(String key) {
+        if (projection == null || "_id".equals(key)) {
+            return true;
+        }
+
+        Object included = projection.get(key);
+        return Boolean.TRUE.equals(included) || (included instanceof Number && ((Number) included).intValue() != 0);
+    }
+
+    private Optional<Object> toLookupValue(Document result, Map<String, String> context) {
+        if (!StringUtils.isEmpty(lookupValueField)) {
+            return Optional.ofNullable(result.get(lookupValueField));
+        } else {
+            RecordSchema schema = loadSchema(context, result);
+
+            return Optional.ofNullable(new MapRecord(schema, result));
+        }
+    }
+
     private RecordSchema loadSchema(Map<String, String> context, Document doc) {
         try {
             return getSchema(context, doc, null);
@@ -228,4 +318,14 @@ public class MongoDBLookupService extends JsonInferenceSchemaRegistryService imp
 
         return retVal;
     }
+
+    private List<Document> find(Document query, Document projection) {
+        MongoCollection col = controllerService.getDatabase(databaseName).getCollection(collection);
+        List<Document> retVal = new ArrayList<>();
+        try (MongoCursor<Document> it = (projection != null ? col.find(query).projection(projection) : col.find(query)).iterator()) {
+            it.forEachRemaining(retVal::add);
+        }
+
+        return retVal;
+    }
 }
@@ -38,6 +38,7 @@ import org.junit.Test;
 import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -119,6 +120,44 @@ public class MongoDBLookupServiceIT {
         Assert.assertTrue(!result.isPresent());
     }
 
+    @Test
+    public void testLookupAll() throws Exception {
+        runner.disableControllerService(service);
+        runner.setProperty(service, MongoDBLookupService.LOOKUP_VALUE_FIELD, "message");
+        runner.enableControllerService(service);
+        col.insertOne(controllerService.convertJson("{ \"uuid\": \"a\", \"message\": \"Hello\" }"));
+        col.insertOne(controllerService.convertJson("{ \"uuid\": \"b\", \"message\": \"World\" }"));
+
+        Map<String, Object> first = Collections.singletonMap("uuid", "a");
+        Map<String, Object> second = Collections.singletonMap("uuid", "b");
+        Map<String, Object> missing = Collections.singletonMap("uuid", "c");
+        Map<Map<String, Object>, Object> results = service.lookupAll(Arrays.asList(first, second, missing), new HashMap<>());
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals("Hello", results.get(first));
+        Assert.assertEquals("World", results.get(second));
+        Assert.assertFalse(results.containsKey(missing));
+    }
+
+    @Test
+    public void testLookupAllMatchesNumbersOfAnotherType() throws Exception {
+        runner.disableControllerService(service);
+        runner.setProperty(service, MongoDBLookupService.LOOKUP_VALUE_FIELD, "message");
+        runner.enableControllerService(service);
+        col.insertOne(new Document("id", 1L).append("message", "Hello"));
+        col.insertOne(new Document("id", 2.0d).append("message", "World"));
+
+        Map<String, Object> first = Collections.singletonMap("id", 1);
+        Map<String, Object> second = Collections.singletonMap("id", 2);
+        Map<String, Object> missing = Collections.singletonMap("id", 3);
+        Map<Map<String, Object>, Object> results = service.lookupAll(Arrays.asList(first, second, missing), new HashMap<>());
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals("Hello", results.get(first));
+        Assert.assertEquals("World", results.get(second));
+        Assert.assertFalse(results.containsKey(missing));
+    }
+
     @Test
     public void testWithSchemaRegistry() throws Exception {
         runner.assertValid();
@@ -17,6 +17,8 @@
 
 package org.apache.nifi.processors.standard;
 
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
@@ -40,12 +42,17 @@ import org.apache.nifi.serialization.record.RecordSchema;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractRecordProcessor extends AbstractProcessor {
@@ -86,6 +93,10 @@ public abstract class AbstractRecordProcessor extends AbstractProcessor {
             + "the unchanged FlowFile will be routed to this relationship")
         .build();
 
+    private static final int PROCESSING_BATCH_SIZE = 1000;
+
+    private volatile ForkJoinPool processingPool;
+
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<>();
@@ -102,6 +113,34 @@ public abstract class AbstractRecordProcessor extends AbstractProcessor {
         return relationships;
     }
 
+    @OnScheduled
+    public void createProcessingPool(final ProcessContext context) {
+        final int processingThreads = getRecordProcessingThreads(context);
+        if (processingThreads > 1) {
+            processingPool = new ForkJoinPool(processingThreads);
+        }
+    }
+
+    /**
+     * Returns the number of threads that the Records of a single FlowFile are processed on. Subclasses whose {@link #process(Record, FlowFile, ProcessContext, long)}
+     * can safely be called concurrently may override this in order to make the number configurable.
+     *
+     * @param context the context that the processor is being scheduled with
+     * @return the number of threads, or 1 to process every Record on the thread that processes the FlowFile
+     */
+    protected int getRecordProcessingThreads(final ProcessContext context) {
+        return 1;
+    }
+
+    @OnStopped
+    public void shutdownProcessingPool() {
+        final ForkJoinPool pool = processingPool;
+        if (pool != null) {
+            pool.shutdownNow();
+            processingPool = null;
+        }
+    }
+
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
         FlowFile flowFile = session.get();
@@ -152,11 +191,16 @@ public abstract class AbstractRecordProcessor extends AbstractProcessor {
 
                             writer.write(firstRecord);
 
-                            Record record;
-                            long count = 1L;
-                            while ((record = reader.nextRecord()) != null) {
-                                final Record processed = AbstractRecordProcessor.this.process(record, original, context, ++count);
-                                writer.write(processed);
+                            final ForkJoinPool pool = processingPool;
+                            if (pool == null) {
+                                Record record;
+                                long count = 1L;
+                                while ((record = reader.nextRecord()) != null) {
+                                    final Record processed = AbstractRecordProcessor.this.process(record, original, context, ++count);
+                                    writer.write(processed);
+                                }
+                            } else {
+                                processConcurrently(pool, reader, writer, original, context);
                             }
 
                             final WriteResult writeResult = writer.finishRecordSet();
@@ -190,5 +234,82 @@ public abstract class AbstractRecordProcessor extends AbstractProcessor {
         getLogger().info("Successfully converted {} records for {}", new Object[] {count, flowFile});
     }
 
+    /**
+     * Reads the remaining Records from the given reader in batches and processes each batch on the given pool. Batches are
+     * written in the order in which they were read, and the number of batches that may be outstanding at any time is bounded,
+     * so that the reader does not get arbitrarily far ahead of the writer.
+     */
+    private void processConcurrently(final ForkJoinPool pool, final RecordReader reader, final RecordSetWriter writer, final FlowFile flowFile,
+                                     final ProcessContext context) throws IOException, MalformedRecordException {
+        final int maxOutstandingBatches = pool.getParallelism() * 2;
+        final Deque<Future<List<Record>>> outstandingBatches = new ArrayDeque<>(maxOutstandingBatches);
+
+        try {
+            // The first Record has already been processed as Record 1
+            long count = 2L;
+            List<Record> batch = new ArrayList<>(PROCESSING_BATCH_SIZE);
+
+            Record record;
+            while ((record = reader.nextRecord()) != null) {
+                batch.add(record);
+                if (batch.size() < PROCESSING_BATCH_SIZE) {
+                    continue;
+                }
+
+                outstandingBatches.add(submitBatch(pool, batch, flowFile, context, count));
+                count += batch.size();
+                batch = new ArrayList<>(PROCESSING_BATCH_SIZE);
+
+                if (outstandingBatches.size() >= maxOutstandingBatches) {
+                    writeBatch(outstandingBatches.poll(), writer);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                outstandingBatches.add(submitBatch(pool, batch, flowFile, context, count));
+            }
+
+            while (!outstandingBatches.isEmpty()) {
+                writeBatch(outstandingBatches.poll(), writer);
+            }
+        } finally {
+            for (final Future<List<Record>> outstandingBatch : outstandingBatches) {
+                outstandingBatch.cancel(true);
+            }
+        }
+    }
+
+    private Future<List<Record>> submitBatch(final ForkJoinPool pool, final List<Record> batch, final FlowFile flowFile, final ProcessContext context, final long firstCount) {
+        return pool.submit(() -> {
+            final List<Record> processed = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                processed.add(process(batch.get(i), flowFile, context, firstCount + i));
+            }
+
+            return processed;
+        });
+    }
+
+    private void writeBatch(final Future<List<Record>> batch, final RecordSetWriter writer) throws IOException {
+        final List<Record> processed;
+        try {
+            processed = batch.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessException("Interrupted while waiting for Records to be processed", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new ProcessException(cause);
+        }
+
+        for (final Record record : processed) {
+            writer.write(record);
+        }
+    }
+
     protected abstract Record process(Record record, FlowFile flowFile, ProcessContext context, long count);
 }
@@ -131,19 +131,26 @@ public abstract class AbstractRouteRecord<T> extends AbstractProcessor {
 
                         final RecordSchema writeSchema = writerFactory.getSchema(originalAttributes, firstRecord.getSchema());
 
-                        final Set<Relationship> firstRecordRelationships = route(firstRecord, writeSchema, original, context, flowFileContext);
-                        for (final Relationship relationship : firstRecordRelationships) {
-                            writeRecord(firstRecord, relationship, writers, session, original, originalAttributes, writerFactory);
-                        }
-
-                        Record record;
-                        while ((record = reader.nextRecord()) != null) {
-                            final Set<Relationship> relationships = route(record, writeSchema, original, context, flowFileContext);
-                            numRecords.incrementAndGet();
+                        // records are routed in batches so that subclasses may prepare for routing a whole batch at once
+                        final int batchSize = getRecordBatchSize(context);
+                        final List<Record> batch = new ArrayList<>(batchSize);
+                        Record record = firstRecord;
+                        while (record != null) {
+                            if (record != firstRecord) {
+                                numRecords.incrementAndGet();
+                            }
 
-                            for (final Relationship relationship : relationships) {
-                                writeRecord(record, relationship, writers, session, original, originalAttributes, writerFactory);
+                            batch.add(record);
+                            if (batch.size() >= batchSize) {
+                                routeBatch(batch, writeSchema, writers, session, original, originalAttributes, writerFactory, context, flowFileContext);
+                                batch.clear();
                             }
+
+                            record = reader.nextRecord();
+                        }
+
+                        if (!batch.isEmpty()) {
+                            routeBatch(batch, writeSchema, writers, session, original, originalAttributes, writerFactory, context, flowFileContext);
                         }
                     } catch (final SchemaNotFoundException | MalformedRecordException e) {
                         throw new ProcessException("Could not parse incoming data", e);
@@ -235,6 +242,42 @@ public abstract class AbstractRouteRecord<T> extends AbstractProcessor {
         recordSetWriter.write(record);
     }
 
+    private void routeBatch(final List<Record> batch, final RecordSchema writeSchema, final Map<Relationship, Tuple<FlowFile, RecordSetWriter>> writers,
+                            final ProcessSession session, final FlowFile original, final Map<String, String> originalAttributes,
+                            final RecordSetWriterFactory writerFactory, final ProcessContext context, final T flowFileContext) throws IOException, SchemaNotFoundException {
+        prepareBatch(batch, original, context, flowFileContext);
+
+        for (final Record record : batch) {
+            final Set<Relationship> relationships = route(record, writeSchema, original, context, flowFileContext);
+            for (final Relationship relationship : relationships) {
+                writeRecord(record, relationship, writers, session, original, originalAttributes, writerFactory);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of Records that are read from the incoming FlowFile and passed to {@link #prepareBatch} before any of them is routed.
+     * Defaults to 1, so that each Record is routed as soon as it is read.
+     *
+     * @param context the process context
+     * @return the number of Records in each batch
+     */
+    protected int getRecordBatchSize(final ProcessContext context) {
+        return 1;
+    }
+
+    /**
+     * Called with each batch of Records before any of them is routed, allowing any information that is needed to route them to be
+     * gathered at once rather than Record by Record. Does nothing by default.
+     *
+     * @param records the Records that are about to be routed
+     * @param flowFile the FlowFile that the Records came from
+     * @param context the process context
+     * @param flowFileContext the context that was created for the FlowFile
+     */
+    protected void prepareBatch(final List<Record> records, final FlowFile flowFile, final ProcessContext context, final T flowFileContext) {
+    }
+
     protected abstract Set<Relationship> route(Record record, RecordSchema writeSchema, FlowFile flowFile, ProcessContext context, T flowFileContext);
 
     protected abstract boolean isRouteOriginal();
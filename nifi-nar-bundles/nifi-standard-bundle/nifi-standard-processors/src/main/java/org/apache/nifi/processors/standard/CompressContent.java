@@ -22,18 +22,25 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
 import lzma.sdk.lzma.Decoder;
 import lzma.streams.LzmaInputStream;
 import lzma.streams.LzmaOutputStream;
+import org.apache.commons.compress.compressors.CompressorException;
 import org.apache.commons.compress.compressors.CompressorStreamFactory;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
@@ -49,17 +56,23 @@ import org.apache.nifi.annotation.behavior.SystemResourceConsideration;
 import org.apache.nifi.annotation.behavior.WritesAttribute;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.StreamCallback;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.processors.standard.util.ParallelCompressionOutputStream;
+import org.apache.nifi.processors.standard.util.ParallelCompressionOutputStream.CompressionStreamFactory;
 import org.apache.nifi.stream.io.GZIPOutputStream;
 import org.apache.nifi.util.StopWatch;
 import org.tukaani.xz.LZMA2Options;
@@ -74,7 +87,7 @@ import org.xerial.snappy.SnappyOutputStream;
 @SideEffectFree
 @SupportsBatching
 @InputRequirement(Requirement.INPUT_REQUIRED)
-@Tags({"content", "compress", "decompress", "gzip", "bzip2", "lzma", "xz-lzma2", "snappy", "snappy framed", "lz4-framed"})
+@Tags({"content", "compress", "decompress", "gzip", "bzip2", "lzma", "xz-lzma2", "snappy", "snappy framed", "lz4-framed", "zstd"})
 @CapabilityDescription("Compresses or decompresses the contents of FlowFiles using a user-specified compression algorithm and updates the mime.type "
     + "attribute as appropriate. This processor operates in a very memory efficient way so very large objects well beyond the heap size "
     + "are generally fine to process")
@@ -94,16 +107,21 @@ public class CompressContent extends AbstractProcessor {
     public static final String COMPRESSION_FORMAT_SNAPPY = "snappy";
     public static final String COMPRESSION_FORMAT_SNAPPY_FRAMED = "snappy framed";
     public static final String COMPRESSION_FORMAT_LZ4_FRAMED ="lz4-framed";
+    public static final String COMPRESSION_FORMAT_ZSTD = "zstd";
+
+    // The formats whose decompressors treat a concatenation of compressed streams as a single stream, so that blocks may be compressed independently
+    private static final Set<String> BLOCK_COMPRESSION_FORMATS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            COMPRESSION_FORMAT_GZIP, COMPRESSION_FORMAT_BZIP2, COMPRESSION_FORMAT_XZ_LZMA2, COMPRESSION_FORMAT_ZSTD)));
 
     public static final String MODE_COMPRESS = "compress";
     public static final String MODE_DECOMPRESS = "decompress";
 
     public static final PropertyDescriptor COMPRESSION_FORMAT = new PropertyDescriptor.Builder()
     .name("Compression Format")
-    .description("The compression format to use. Valid values are: GZIP, BZIP2, XZ-LZMA2, LZMA, Snappy, Snappy Framed, and LZ4-Framed")
+    .description("The compression format to use. Valid values are: GZIP, BZIP2, XZ-LZMA2, LZMA, Snappy, Snappy Framed, LZ4-Framed, and Zstd")
     .allowableValues(COMPRESSION_FORMAT_ATTRIBUTE, COMPRESSION_FORMAT_GZIP, COMPRESSION_FORMAT_BZIP2,
             COMPRESSION_FORMAT_XZ_LZMA2, COMPRESSION_FORMAT_LZMA, COMPRESSION_FORMAT_SNAPPY, COMPRESSION_FORMAT_SNAPPY_FRAMED,
-            COMPRESSION_FORMAT_LZ4_FRAMED)
+            COMPRESSION_FORMAT_LZ4_FRAMED, COMPRESSION_FORMAT_ZSTD)
     .defaultValue(COMPRESSION_FORMAT_ATTRIBUTE)
     .required(true)
     .build();
@@ -131,6 +149,44 @@ public class CompressContent extends AbstractProcessor {
         .allowableValues("true", "false")
         .defaultValue("false")
         .build();
+    public static final PropertyDescriptor ZSTD_COMPRESSION_LEVEL = new PropertyDescriptor.Builder()
+        .name("zstd-compression-level")
+        .displayName("Zstd Compression Level")
+        .description("The compression level to use when compressing with zstd, from 1 to 22. A lower value results in faster processing but less compression. "
+            + "Levels above 19 require considerably more memory.")
+        .required(true)
+        .addValidator(StandardValidators.createLongValidator(1, 22, true))
+        .defaultValue("3")
+        .build();
+    public static final PropertyDescriptor ZSTD_DICTIONARY = new PropertyDescriptor.Builder()
+        .name("zstd-dictionary")
+        .displayName("Zstd Dictionary")
+        .description("The path to a zstd dictionary, such as one created by 'zstd --train', to use when compressing or decompressing with zstd. A dictionary can "
+            + "greatly improve the compression of small FlowFiles that resemble one another. Content that is compressed with a dictionary can only be decompressed "
+            + "with the same dictionary.")
+        .required(false)
+        .addValidator(StandardValidators.FILE_EXISTS_VALIDATOR)
+        .build();
+    public static final PropertyDescriptor COMPRESSION_THREADS = new PropertyDescriptor.Builder()
+        .name("compression-threads")
+        .displayName("Compression Threads")
+        .description("The number of threads to use when compressing a single FlowFile. If greater than 1, the content is split into blocks of the 'Compression Block Size', "
+            + "which are compressed independently on a pool of this many threads and written in order. The result is a concatenation of complete compressed streams, which "
+            + "standard tools decompress as a single stream, at the cost of a slightly lower compression ratio. This applies only to compressing with gzip, bzip2, "
+            + "xz-lzma2 or zstd; other formats, and decompression, always use a single thread.")
+        .required(true)
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("1")
+        .build();
+    public static final PropertyDescriptor COMPRESSION_BLOCK_SIZE = new PropertyDescriptor.Builder()
+        .name("compression-block-size")
+        .displayName("Compression Block Size")
+        .description("The amount of uncompressed data in each block that is compressed independently when 'Compression Threads' is greater than 1. Larger blocks compress "
+            + "slightly better, but each thread holds up to two blocks in memory.")
+        .required(true)
+        .addValidator(StandardValidators.createDataSizeBoundsValidator(1024, Integer.MAX_VALUE))
+        .defaultValue("4 MB")
+        .build();
 
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
     .name("success")
@@ -145,6 +201,9 @@ public class CompressContent extends AbstractProcessor {
     private Set<Relationship> relationships;
     private Map<String, String> compressionFormatMimeTypeMap;
 
+    private volatile ForkJoinPool compressionPool;
+    private volatile byte[] zstdDictionary;
+
     @Override
     protected void init(final ProcessorInitializationContext context) {
         final List<PropertyDescriptor> properties = new ArrayList<>();
@@ -152,6 +211,10 @@ public class CompressContent extends AbstractProcessor {
         properties.add(COMPRESSION_FORMAT);
         properties.add(COMPRESSION_LEVEL);
         properties.add(UPDATE_FILENAME);
+        properties.add(ZSTD_COMPRESSION_LEVEL);
+        properties.add(ZSTD_DICTIONARY);
+        properties.add(COMPRESSION_THREADS);
+        properties.add(COMPRESSION_BLOCK_SIZE);
         this.properties = Collections.unmodifiableList(properties);
 
         final Set<Relationship> relationships = new HashSet<>();
@@ -168,6 +231,8 @@ public class CompressContent extends AbstractProcessor {
         mimeTypeMap.put("application/x-snappy", COMPRESSION_FORMAT_SNAPPY);
         mimeTypeMap.put("application/x-snappy-framed", COMPRESSION_FORMAT_SNAPPY_FRAMED);
         mimeTypeMap.put("application/x-lz4-framed", COMPRESSION_FORMAT_LZ4_FRAMED);
+        mimeTypeMap.put("application/zstd", COMPRESSION_FORMAT_ZSTD);
+        mimeTypeMap.put("application/x-zstd", COMPRESSION_FORMAT_ZSTD);
         this.compressionFormatMimeTypeMap = Collections.unmodifiableMap(mimeTypeMap);
     }
 
@@ -181,6 +246,26 @@ public class CompressContent extends AbstractProcessor {
         return properties;
     }
 
+    @OnScheduled
+    public void onScheduled(final ProcessContext context) throws IOException {
+        final String dictionaryPath = context.getProperty(ZSTD_DICTIONARY).getValue();
+        zstdDictionary = dictionaryPath == null ? null : Files.readAllBytes(Paths.get(dictionaryPath));
+
+        final int compressionThreads = context.getProperty(COMPRESSION_THREADS).asInteger();
+        if (compressionThreads > 1) {
+            compressionPool = new ForkJoinPool(compressionThreads);
+        }
+    }
+
+    @OnStopped
+    public void onStopped() {
+        final ForkJoinPool pool = compressionPool;
+        if (pool != null) {
+            pool.shutdownNow();
+            compressionPool = null;
+        }
+    }
+
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) {
         FlowFile flowFile = session.get();
@@ -237,6 +322,9 @@ public class CompressContent extends AbstractProcessor {
             case COMPRESSION_FORMAT_LZ4_FRAMED:
                 fileExtension = ".lz4";
                 break;
+            case COMPRESSION_FORMAT_ZSTD:
+                fileExtension = ".zst";
+                break;
             default:
                 fileExtension = "";
                 break;
@@ -256,39 +344,60 @@ public class CompressContent extends AbstractProcessor {
                         if (MODE_COMPRESS.equalsIgnoreCase(compressionMode)) {
                             compressionIn = bufferedIn;
 
+                            final CompressionStreamFactory streamFactory;
                             switch (compressionFormat.toLowerCase()) {
                                 case COMPRESSION_FORMAT_GZIP:
                                     final int compressionLevel = context.getProperty(COMPRESSION_LEVEL).asInteger();
-                                    compressionOut = new GZIPOutputStream(bufferedOut, compressionLevel);
+                                    streamFactory = out -> new GZIPOutputStream(out, compressionLevel);
                                     mimeTypeRef.set("application/gzip");
                                     break;
                                 case COMPRESSION_FORMAT_LZMA:
-                                    compressionOut = new LzmaOutputStream.Builder(bufferedOut).build();
+                                    streamFactory = out -> new LzmaOutputStream.Builder(out).build();
                                     mimeTypeRef.set("application/x-lzma");
                                     break;
                                 case COMPRESSION_FORMAT_XZ_LZMA2:
                                     final int xzCompressionLevel = context.getProperty(COMPRESSION_LEVEL).asInteger();
-                                    compressionOut = new XZOutputStream(bufferedOut, new LZMA2Options(xzCompressionLevel));
+                                    streamFactory = out -> new XZOutputStream(out, new LZMA2Options(xzCompressionLevel));
                                     mimeTypeRef.set("application/x-xz");
                                     break;
                                 case COMPRESSION_FORMAT_SNAPPY:
-                                    compressionOut = new SnappyOutputStream(bufferedOut);
+                                    streamFactory = SnappyOutputStream::new;
                                     mimeTypeRef.set("application/x-snappy");
                                     break;
                                 case COMPRESSION_FORMAT_SNAPPY_FRAMED:
-                                    compressionOut = new SnappyFramedOutputStream(bufferedOut);
+                                    streamFactory = SnappyFramedOutputStream::new;
                                     mimeTypeRef.set("application/x-snappy-framed");
                                     break;
                                 case COMPRESSION_FORMAT_LZ4_FRAMED:
                                     mimeTypeRef.set("application/x-lz4-framed");
-                                    compressionOut = new CompressorStreamFactory().createCompressorOutputStream(compressionFormat.toLowerCase(), bufferedOut);
+                                    streamFactory = out -> createCompressorOutputStream(compressionFormat.toLowerCase(), out);
+                                    break;
+                                case COMPRESSION_FORMAT_ZSTD:
+                                    final int zstdCompressionLevel = context.getProperty(ZSTD_COMPRESSION_LEVEL).asInteger();
+                                    final byte[] dictionary = zstdDictionary;
+                                    streamFactory = out -> {
+                                        final ZstdOutputStream zstdOut = new ZstdOutputStream(out, zstdCompressionLevel);
+                                        if (dictionary != null) {
+                                            zstdOut.setDict(dictionary);
+                                        }
+                                        return zstdOut;
+                                    };
+                                    mimeTypeRef.set("application/zstd");
                                     break;
                                 case COMPRESSION_FORMAT_BZIP2:
                                 default:
                                     mimeTypeRef.set("application/x-bzip2");
-                                    compressionOut = new CompressorStreamFactory().createCompressorOutputStream(compressionFormat.toLowerCase(), bufferedOut);
+                                    streamFactory = out -> createCompressorOutputStream(compressionFormat.toLowerCase(), out);
                                     break;
                             }
+
+                            final ForkJoinPool pool = compressionPool;
+                            if (pool != null && BLOCK_COMPRESSION_FORMATS.contains(compressionFormat.toLowerCase())) {
+                                final int blockSize = context.getProperty(COMPRESSION_BLOCK_SIZE).asDataSize(DataUnit.B).intValue();
+                                compressionOut = new ParallelCompressionOutputStream(bufferedOut, streamFactory, pool, blockSize, pool.getParallelism() * 2);
+                            } else {
+                                compressionOut = streamFactory.create(bufferedOut);
+                            }
                         } else {
                             compressionOut = bufferedOut;
                             switch (compressionFormat.toLowerCase()) {
@@ -314,6 +423,13 @@ public class CompressContent extends AbstractProcessor {
                                 case COMPRESSION_FORMAT_LZ4_FRAMED:
                                     compressionIn = new FramedLZ4CompressorInputStream(bufferedIn, true);
                                     break;
+                                case COMPRESSION_FORMAT_ZSTD:
+                                    final ZstdInputStream zstdIn = new ZstdInputStream(bufferedIn);
+                                    if (zstdDictionary != null) {
+                                        zstdIn.setDict(zstdDictionary);
+                                    }
+                                    compressionIn = zstdIn;
+                                    break;
                                 default:
                                     compressionIn = new CompressorStreamFactory().createCompressorInputStream(compressionFormat.toLowerCase(), bufferedIn);
                             }
@@ -365,6 +481,14 @@ public class CompressContent extends AbstractProcessor {
         }
     }
 
+    private OutputStream createCompressorOutputStream(final String compressionFormat, final OutputStream out) throws IOException {
+        try {
+            return new CompressorStreamFactory().createCompressorOutputStream(compressionFormat, out);
+        } catch (final CompressorException e) {
+            throw new IOException(e);
+        }
+    }
+
     private void closeQuietly(final Closeable closeable) {
         if (closeable != null) {
             try {
@@ -21,8 +21,11 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -112,6 +115,17 @@ public class DetectDuplicate extends AbstractProcessor {
             .defaultValue("true")
             .build();
 
+    public static final PropertyDescriptor BATCH_SIZE = new PropertyDescriptor.Builder()
+            .name("detect-duplicate-batch-size")
+            .displayName("Batch Size")
+            .description("The maximum number of FlowFiles to process in a single execution. The Cache Entry Identifiers of all FlowFiles in a batch "
+                    + "are checked against, and added to, the cache with a single request, if the cache supports it. FlowFiles within a batch that "
+                    + "share a Cache Entry Identifier are treated as duplicates of the first of them, as if they had been processed one at a time.")
+            .required(true)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .defaultValue("1")
+            .build();
+
     public static final Relationship REL_DUPLICATE = new Relationship.Builder()
             .name("duplicate")
             .description("If a FlowFile has been detected to be a duplicate, it will be routed to this relationship")
@@ -146,6 +160,7 @@ public class DetectDuplicate extends AbstractProcessor {
         descriptors.add(AGE_OFF_DURATION);
         descriptors.add(DISTRIBUTED_CACHE_SERVICE);
         descriptors.add(CACHE_IDENTIFIER);
+        descriptors.add(BATCH_SIZE);
         return descriptors;
     }
 
@@ -156,65 +171,116 @@ public class DetectDuplicate extends AbstractProcessor {
 
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
-        FlowFile flowFile = session.get();
-        if (flowFile == null) {
+        final int batchSize = context.getProperty(BATCH_SIZE).asInteger();
+        final List<FlowFile> flowFiles = session.get(batchSize);
+        if (flowFiles.isEmpty()) {
             return;
         }
 
         final ComponentLog logger = getLogger();
-        final String cacheKey = context.getProperty(CACHE_ENTRY_IDENTIFIER).evaluateAttributeExpressions(flowFile).getValue();
-        if (StringUtils.isBlank(cacheKey)) {
-            logger.error("FlowFile {} has no attribute for given Cache Entry Identifier", new Object[]{flowFile});
-            flowFile = session.penalize(flowFile);
-            session.transfer(flowFile, REL_FAILURE);
+        final long now = System.currentTimeMillis();
+
+        // Determine the key and value to cache for each FlowFile, keeping only the first occurrence of each key for the request to the cache
+        final List<FlowFile> validFlowFiles = new ArrayList<>(flowFiles.size());
+        final List<String> cacheKeys = new ArrayList<>(flowFiles.size());
+        final Map<String, CacheValue> entries = new LinkedHashMap<>();
+        for (FlowFile flowFile : flowFiles) {
+            final String cacheKey = context.getProperty(CACHE_ENTRY_IDENTIFIER).evaluateAttributeExpressions(flowFile).getValue();
+            if (StringUtils.isBlank(cacheKey)) {
+                logger.error("FlowFile {} has no attribute for given Cache Entry Identifier", new Object[]{flowFile});
+                flowFile = session.penalize(flowFile);
+                session.transfer(flowFile, REL_FAILURE);
+                continue;
+            }
+
+            final String flowFileDescription = context.getProperty(FLOWFILE_DESCRIPTION).evaluateAttributeExpressions(flowFile).getValue();
+            entries.putIfAbsent(cacheKey, new CacheValue(flowFileDescription, now));
+            validFlowFiles.add(flowFile);
+            cacheKeys.add(cacheKey);
+        }
+
+        if (validFlowFiles.isEmpty()) {
             return;
         }
+
         final DistributedMapCacheClient cache = context.getProperty(DISTRIBUTED_CACHE_SERVICE).asControllerService(DistributedMapCacheClient.class);
         final Long durationMS = context.getProperty(AGE_OFF_DURATION).asTimePeriod(TimeUnit.MILLISECONDS);
-        final long now = System.currentTimeMillis();
+        final boolean shouldCacheIdentifier = context.getProperty(CACHE_IDENTIFIER).asBoolean();
 
+        int index = 0;
         try {
-            final String flowFileDescription = context.getProperty(FLOWFILE_DESCRIPTION).evaluateAttributeExpressions(flowFile).getValue();
-            final CacheValue cacheValue = new CacheValue(flowFileDescription, now);
-            final CacheValue originalCacheValue;
-
-            final boolean shouldCacheIdentifier = context.getProperty(CACHE_IDENTIFIER).asBoolean();
-            if (shouldCacheIdentifier) {
-                originalCacheValue = cache.getAndPutIfAbsent(cacheKey, cacheValue, keySerializer, valueSerializer, valueDeserializer);
-            } else {
-                originalCacheValue = cache.get(cacheKey, keySerializer, valueDeserializer);
-            }
+            final Map<String, CacheValue> originalCacheValues = getOriginalCacheValues(cache, entries, shouldCacheIdentifier);
+
+            // The values that are known to be in the cache for keys that have already been seen in this batch
+            final Map<String, CacheValue> batchCacheValues = new HashMap<>();
+
+            for (; index < validFlowFiles.size(); index++) {
+                FlowFile flowFile = validFlowFiles.get(index);
+                final String cacheKey = cacheKeys.get(index);
+                final CacheValue cacheValue = new CacheValue(context.getProperty(FLOWFILE_DESCRIPTION).evaluateAttributeExpressions(flowFile).getValue(), now);
+                final CacheValue originalCacheValue = batchCacheValues.containsKey(cacheKey) ? batchCacheValues.get(cacheKey) : originalCacheValues.get(cacheKey);
+
+                boolean duplicate = originalCacheValue != null;
+                if (duplicate && durationMS != null && (now >= originalCacheValue.getEntryTimeMS() + durationMS)) {
+                    boolean status = cache.remove(cacheKey, keySerializer);
+                    logger.debug("Removal of expired cached entry with key {} returned {}", new Object[]{cacheKey, status});
+
+                    // both should typically result in duplicate being false...but, better safe than sorry
+                    if (shouldCacheIdentifier) {
+                        duplicate = !cache.putIfAbsent(cacheKey, cacheValue, keySerializer, valueSerializer);
+                    } else {
+                        duplicate = cache.containsKey(cacheKey, keySerializer);
+                    }
+                }
 
-            boolean duplicate = originalCacheValue != null;
-            if (duplicate && durationMS != null && (now >= originalCacheValue.getEntryTimeMS() + durationMS)) {
-                boolean status = cache.remove(cacheKey, keySerializer);
-                logger.debug("Removal of expired cached entry with key {} returned {}", new Object[]{cacheKey, status});
+                if (duplicate) {
+                    batchCacheValues.put(cacheKey, originalCacheValue);
 
-                // both should typically result in duplicate being false...but, better safe than sorry
-                if (shouldCacheIdentifier) {
-                    duplicate = !cache.putIfAbsent(cacheKey, cacheValue, keySerializer, valueSerializer);
+                    session.getProvenanceReporter().route(flowFile, REL_DUPLICATE, "Duplicate of: " + ORIGINAL_DESCRIPTION_ATTRIBUTE_NAME);
+                    String originalFlowFileDescription = originalCacheValue.getDescription();
+                    flowFile = session.putAttribute(flowFile, ORIGINAL_DESCRIPTION_ATTRIBUTE_NAME, originalFlowFileDescription);
+                    session.transfer(flowFile, REL_DUPLICATE);
+                    logger.info("Found {} to be a duplicate of FlowFile with description {}", new Object[]{flowFile, originalFlowFileDescription});
+                    session.adjustCounter("Duplicates Detected", 1L, false);
                 } else {
-                    duplicate = cache.containsKey(cacheKey, keySerializer);
+                    if (shouldCacheIdentifier) {
+                        batchCacheValues.put(cacheKey, cacheValue);
+                    }
+
+                    session.getProvenanceReporter().route(flowFile, REL_NON_DUPLICATE);
+                    session.transfer(flowFile, REL_NON_DUPLICATE);
+                    logger.info("Could not find a duplicate entry in cache for {}; routing to non-duplicate", new Object[]{flowFile});
+                    session.adjustCounter("Non-Duplicate Files Processed", 1L, false);
                 }
             }
+        } catch (final IOException e) {
+            for (; index < validFlowFiles.size(); index++) {
+                FlowFile flowFile = validFlowFiles.get(index);
+                flowFile = session.penalize(flowFile);
+                session.transfer(flowFile, REL_FAILURE);
+                logger.error("Unable to communicate with cache when processing {} due to {}", new Object[]{flowFile, e});
+            }
+        }
+    }
 
-            if (duplicate) {
-                session.getProvenanceReporter().route(flowFile, REL_DUPLICATE, "Duplicate of: " + ORIGINAL_DESCRIPTION_ATTRIBUTE_NAME);
-                String originalFlowFileDescription = originalCacheValue.getDescription();
-                flowFile = session.putAttribute(flowFile, ORIGINAL_DESCRIPTION_ATTRIBUTE_NAME, originalFlowFileDescription);
-                session.transfer(flowFile, REL_DUPLICATE);
-                logger.info("Found {} to be a duplicate of FlowFile with description {}", new Object[]{flowFile, originalFlowFileDescription});
-                session.adjustCounter("Duplicates Detected", 1L, false);
+    private Map<String, CacheValue> getOriginalCacheValues(final DistributedMapCacheClient cache, final Map<String, CacheValue> entries,
+                                                           final boolean shouldCacheIdentifier) throws IOException {
+        if (entries.size() == 1) {
+            final Map.Entry<String, CacheValue> entry = entries.entrySet().iterator().next();
+            final CacheValue originalCacheValue;
+            if (shouldCacheIdentifier) {
+                originalCacheValue = cache.getAndPutIfAbsent(entry.getKey(), entry.getValue(), keySerializer, valueSerializer, valueDeserializer);
             } else {
-                session.getProvenanceReporter().route(flowFile, REL_NON_DUPLICATE);
-                session.transfer(flowFile, REL_NON_DUPLICATE);
-                logger.info("Could not find a duplicate entry in cache for {}; routing to non-duplicate", new Object[]{flowFile});
-                session.adjustCounter("Non-Duplicate Files Processed", 1L, false);
+                originalCacheValue = cache.get(entry.getKey(), keySerializer, valueDeserializer);
             }
-        } catch (final IOException e) {
-            flowFile = session.penalize(flowFile);
-            session.transfer(flowFile, REL_FAILURE);
-            logger.error("Unable to communicate with cache when processing {} due to {}", new Object[]{flowFile, e});
+
+            return Collections.singletonMap(entry.getKey(), originalCacheValue);
+        }
+
+        if (shouldCacheIdentifier) {
+            return cache.getAndPutAllIfAbsent(entries, keySerializer, valueSerializer, valueDeserializer);
+        } else {
+            return cache.subMap(entries.keySet(), keySerializer, valueDeserializer);
         }
     }
 
@@ -22,6 +22,7 @@ import com.burgstaller.okhttp.AuthenticationCacheInterceptor;
 import com.burgstaller.okhttp.CachingAuthenticatorDecorator;
 import com.burgstaller.okhttp.digest.CachingAuthenticator;
 import com.burgstaller.okhttp.digest.DigestAuthenticator;
+import com.google.common.collect.MapMaker;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.FileInputStream;
@@ -50,9 +51,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.net.ssl.HostnameVerifier;
@@ -65,9 +70,16 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
 import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
@@ -84,6 +96,8 @@ import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
+import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.ValidationContext;
 import org.apache.nifi.components.ValidationResult;
@@ -194,6 +208,77 @@ public final class InvokeHTTP extends AbstractProcessor {
             .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
             .build();
 
+    public static final PropertyDescriptor PROP_IDLE_TIMEOUT = new PropertyDescriptor.Builder()
+            .name("idle-timeout")
+            .displayName("Idle Timeout")
+            .description("Max idle time before closing connection to the remote service.")
+            .required(true)
+            .defaultValue("5 mins")
+            .addValidator(StandardValidators.createTimePeriodValidator(1, TimeUnit.MILLISECONDS, Integer.MAX_VALUE, TimeUnit.SECONDS))
+            .build();
+
+    public static final PropertyDescriptor PROP_MAX_IDLE_CONNECTIONS = new PropertyDescriptor.Builder()
+            .name("max-idle-connections")
+            .displayName("Max Idle Connections")
+            .description("Max number of idle connections to keep open.")
+            .required(true)
+            .defaultValue("5")
+            .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final AllowableValue CONNECTION_POOL_PROCESSOR = new AllowableValue("processor", "Per Processor",
+            "The processor keeps its own pool of connections.");
+    public static final AllowableValue CONNECTION_POOL_SHARED = new AllowableValue("shared", "Shared",
+            "The processor shares its pool of connections with every other InvokeHTTP processor that uses a shared pool with the same Idle Timeout "
+                    + "and Max Idle Connections, so that processors calling the same endpoints reuse each other's connections and TLS sessions rather "
+                    + "than each opening their own. A connection is only reused by processors with the same SSL Context Service and proxy configuration.");
+
+    public static final PropertyDescriptor PROP_CONNECTION_POOL = new PropertyDescriptor.Builder()
+            .name("connection-pool")
+            .displayName("Connection Pool")
+            .description("Whether the processor keeps its own pool of idle connections or shares one with other InvokeHTTP processors. When sharing a pool, "
+                    + "Max Idle Connections applies to all of the processors sharing it and should be sized accordingly.")
+            .required(true)
+            .allowableValues(CONNECTION_POOL_PROCESSOR, CONNECTION_POOL_SHARED)
+            .defaultValue(CONNECTION_POOL_PROCESSOR.getValue())
+            .build();
+
+    public static final PropertyDescriptor PROP_DISABLE_HTTP2 = new PropertyDescriptor.Builder()
+            .name("disable-http2")
+            .displayName("Disable HTTP/2")
+            .description("By default, HTTP/2 is used when the remote service supports it over TLS, allowing concurrent requests to the same host to be "
+                    + "multiplexed over a single connection. Set to true to use only HTTP/1.1.")
+            .required(true)
+            .defaultValue("False")
+            .allowableValues("True", "False")
+            .build();
+
+    public static final PropertyDescriptor PROP_MAX_IN_FLIGHT_REQUESTS = new PropertyDescriptor.Builder()
+            .name("max-in-flight-requests")
+            .displayName("Max In-Flight Requests")
+            .description("The maximum number of requests that each concurrent task sends at the same time. When greater than 1, each task takes up to this "
+                    + "many FlowFiles from the queue, sends all of their requests asynchronously and handles each response as it arrives, so that slow "
+                    + "services do not limit throughput to one request per task. Request bodies are read into memory before being sent in this mode, "
+                    + "unless they are larger than Max Buffered Request Body Size.")
+            .required(true)
+            .defaultValue("1")
+            .addValidator(StandardValidators.createLongValidator(1, 10000, true))
+            .build();
+
+    // The largest array that the JVM reliably allocates
+    private static final long MAX_BUFFERED_REQUEST_BODY_BYTES = Integer.MAX_VALUE - 8;
+
+    public static final PropertyDescriptor PROP_MAX_BUFFERED_REQUEST_BODY_SIZE = new PropertyDescriptor.Builder()
+            .name("max-buffered-request-body-size")
+            .displayName("Max Buffered Request Body Size")
+            .description("When Max In-Flight Requests is greater than 1, the largest request body that is read into memory so that its request can be "
+                    + "sent asynchronously. The request for a larger FlowFile is sent synchronously, streaming its content, while the other requests are in flight. "
+                    + "Each concurrent task may hold up to Max In-Flight Requests times this amount of heap, which must not exceed the maximum heap size.")
+            .required(true)
+            .defaultValue("1 MB")
+            .addValidator(StandardValidators.createDataSizeBoundsValidator(0, MAX_BUFFERED_REQUEST_BODY_BYTES))
+            .build();
+
     public static final PropertyDescriptor PROP_DATE_HEADER = new PropertyDescriptor.Builder()
             .name("Include Date Header")
             .description("Include an RFC-2616 Date header in the request.")
@@ -415,6 +500,12 @@ public final class InvokeHTTP extends AbstractProcessor {
             PROP_SSL_CONTEXT_SERVICE,
             PROP_CONNECT_TIMEOUT,
             PROP_READ_TIMEOUT,
+            PROP_IDLE_TIMEOUT,
+            PROP_MAX_IDLE_CONNECTIONS,
+            PROP_CONNECTION_POOL,
+            PROP_DISABLE_HTTP2,
+            PROP_MAX_IN_FLIGHT_REQUESTS,
+            PROP_MAX_BUFFERED_REQUEST_BODY_SIZE,
             PROP_DATE_HEADER,
             PROP_FOLLOW_REDIRECTS,
             PROP_ATTRIBUTES_TO_SEND,
@@ -483,6 +574,18 @@ public final class InvokeHTTP extends AbstractProcessor {
 
     private final AtomicReference<OkHttpClient> okHttpClientAtomicReference = new AtomicReference<>();
 
+    // Connection pools and SSL socket factories shared by the processors that use a shared connection pool. Connections are
+    // only reused for the same socket factory instance, so the factories are shared as well. Each is counted by the processors
+    // that are scheduled with it, and dropped once the last of them is stopped. Both maps are guarded by SHARED_CONNECTION_POOLS.
+    private static final Map<String, TrackedConnectionPool> SHARED_CONNECTION_POOLS = new HashMap<>();
+    private static final Map<String, SslSocketFactoryHolder> SHARED_SSL_SOCKET_FACTORIES = new HashMap<>();
+
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsReused = new LongAdder();
+    private volatile TrackedConnectionPool processorConnectionPool;
+    private volatile String sharedConnectionPoolKey;
+    private volatile String sharedSslSocketFactoryKey;
+
     protected void init(ProcessorInitializationContext context) {
         excludedHeaders.put("Trusted Hostname", "HTTP request header '{}' excluded. " +
                              "Update processor to use the SSLContextService instead. " +
@@ -571,6 +674,20 @@ public final class InvokeHTTP extends AbstractProcessor {
 
         ProxyConfiguration.validateProxySpec(validationContext, results, PROXY_SPECS);
 
+        final int maxInFlightRequests = validationContext.getProperty(PROP_MAX_IN_FLIGHT_REQUESTS).asInteger();
+        final double maxBufferedBodySize = validationContext.getProperty(PROP_MAX_BUFFERED_REQUEST_BODY_SIZE).asDataSize(DataUnit.B);
+        if (maxInFlightRequests > 1) {
+            final double maxBufferedBytes = maxInFlightRequests * maxBufferedBodySize;
+            final long maxHeapBytes = Runtime.getRuntime().maxMemory();
+            if (maxBufferedBytes > maxHeapBytes) {
+                results.add(new ValidationResult.Builder().subject(PROP_MAX_BUFFERED_REQUEST_BODY_SIZE.getDisplayName()).valid(false)
+                        .explanation(String.format("%s (%d) times %s (%.0f bytes) exceeds the maximum heap size of %d bytes",
+                                PROP_MAX_IN_FLIGHT_REQUESTS.getDisplayName(), maxInFlightRequests, PROP_MAX_BUFFERED_REQUEST_BODY_SIZE.getDisplayName(),
+                                maxBufferedBodySize, maxHeapBytes))
+                        .build());
+            }
+        }
+
         for (String headerKey : validationContext.getProperties().values()) {
             if (excludedHeaders.containsKey(headerKey)) {
                 // We're not using the header message format string here, just this
@@ -585,6 +702,7 @@ public final class InvokeHTTP extends AbstractProcessor {
     @OnScheduled
     public void setUpClient(final ProcessContext context) throws IOException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
         okHttpClientAtomicReference.set(null);
+        releaseSharedResources();
 
         OkHttpClient.Builder okHttpClientBuilder = new OkHttpClient().newBuilder();
 
@@ -629,12 +747,50 @@ public final class InvokeHTTP extends AbstractProcessor {
         // Set whether to follow redirects
         okHttpClientBuilder.followRedirects(context.getProperty(PROP_FOLLOW_REDIRECTS).asBoolean());
 
+        // Set the connection pool, and the protocols that may be negotiated
+        final int maxIdleConnections = context.getProperty(PROP_MAX_IDLE_CONNECTIONS).asInteger();
+        final long idleTimeoutMillis = context.getProperty(PROP_IDLE_TIMEOUT).asTimePeriod(TimeUnit.MILLISECONDS);
+        final boolean sharedConnectionPool = CONNECTION_POOL_SHARED.getValue().equals(context.getProperty(PROP_CONNECTION_POOL).getValue());
+        final TrackedConnectionPool connectionPool;
+        if (sharedConnectionPool) {
+            processorConnectionPool = null;
+            connectionPool = acquireSharedConnectionPool(maxIdleConnections, idleTimeoutMillis);
+        } else {
+            processorConnectionPool = new TrackedConnectionPool(new ConnectionPool(maxIdleConnections, idleTimeoutMillis, TimeUnit.MILLISECONDS));
+            connectionPool = processorConnectionPool;
+        }
+        okHttpClientBuilder.connectionPool(connectionPool.connectionPool);
+
+        if (context.getProperty(PROP_DISABLE_HTTP2).asBoolean()) {
+            okHttpClientBuilder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+        }
+
+        // OkHttp limits asynchronous calls to 64 overall and 5 per host by default, so allow every task its full share of in-flight requests
+        final int maxInFlightRequests = context.getProperty(PROP_MAX_IN_FLIGHT_REQUESTS).asInteger();
+        if (maxInFlightRequests > 1) {
+            final Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(maxInFlightRequests * context.getMaxConcurrentTasks());
+            dispatcher.setMaxRequestsPerHost(maxInFlightRequests * context.getMaxConcurrentTasks());
+            okHttpClientBuilder.dispatcher(dispatcher);
+        }
+
+        okHttpClientBuilder.addNetworkInterceptor(chain -> countConnection(chain, connectionPool));
+
         final SSLContextService sslService = context.getProperty(PROP_SSL_CONTEXT_SERVICE).asControllerService(SSLContextService.class);
-        final SSLContext sslContext = sslService == null ? null : sslService.createSSLContext(ClientAuth.NONE);
 
         // check if the ssl context is set and add the factory if so
-        if (sslContext != null) {
-            setSslSocketFactory(okHttpClientBuilder, sslService, sslContext, isHttpsProxy);
+        if (sslService != null) {
+            final SslSocketFactoryHolder sslSocketFactory;
+            if (sharedConnectionPool) {
+                sslSocketFactory = acquireSharedSslSocketFactory(sslService);
+            } else {
+                sslSocketFactory = createSslSocketFactory(sslService, sslService.createSSLContext(ClientAuth.NONE));
+            }
+
+            okHttpClientBuilder.sslSocketFactory(sslSocketFactory.socketFactory, sslSocketFactory.trustManager);
+            if (isHttpsProxy) {
+                okHttpClientBuilder.socketFactory(sslSocketFactory.socketFactory);
+            }
         }
 
         setAuthenticator(okHttpClientBuilder, context);
@@ -652,7 +808,7 @@ public final class InvokeHTTP extends AbstractProcessor {
         In-depth documentation on Java Secure Socket Extension (JSSE) Classes and interfaces:
             https://docs.oracle.com/javase/8/docs/technotes/guides/security/jsse/JSSERefGuide.html#JSSEClasses
      */
-    private void setSslSocketFactory(OkHttpClient.Builder okHttpClientBuilder, SSLContextService sslService, SSLContext sslContext, boolean setAsSocketFactory)
+    private SslSocketFactoryHolder createSslSocketFactory(SSLContextService sslService, SSLContext sslContext)
             throws IOException, KeyStoreException, CertificateException, NoSuchAlgorithmException, UnrecoverableKeyException, KeyManagementException {
 
         final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
@@ -711,10 +867,113 @@ public final class InvokeHTTP extends AbstractProcessor {
         // if keystore properties were not supplied, the keyManagers array will be null
         sslContext.init(keyManagers, trustManagerFactory.getTrustManagers(), null);
 
-        final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
-        okHttpClientBuilder.sslSocketFactory(sslSocketFactory, x509TrustManager);
-        if (setAsSocketFactory) {
-            okHttpClientBuilder.socketFactory(sslSocketFactory);
+        return new SslSocketFactoryHolder(sslContext.getSocketFactory(), x509TrustManager);
+    }
+
+    /**
+     * Returns the connection pool shared by all of the processors using a shared connection pool with the same settings, holding a
+     * reference to it until the processor is stopped.
+     */
+    private TrackedConnectionPool acquireSharedConnectionPool(final int maxIdleConnections, final long idleTimeoutMillis) {
+        final String key = maxIdleConnections + "/" + idleTimeoutMillis;
+        synchronized (SHARED_CONNECTION_POOLS) {
+            final TrackedConnectionPool connectionPool = SHARED_CONNECTION_POOLS.computeIfAbsent(key,
+                    k -> new TrackedConnectionPool(new ConnectionPool(maxIdleConnections, idleTimeoutMillis, TimeUnit.MILLISECONDS)));
+            connectionPool.references++;
+            sharedConnectionPoolKey = key;
+            return connectionPool;
+        }
+    }
+
+    /**
+     * Returns the SSL socket factory shared by all of the processors using the given SSL Context Service with a shared connection pool, holding
+     * a reference to it until the processor is stopped. The factory is keyed by the key store and trust store files as well, so that a change
+     * to the service's configuration is picked up.
+     */
+    private SslSocketFactoryHolder acquireSharedSslSocketFactory(final SSLContextService sslService)
+            throws IOException, KeyStoreException, CertificateException, NoSuchAlgorithmException, UnrecoverableKeyException, KeyManagementException {
+        final String key = sslService.getIdentifier()
+                + "/" + sslService.getSslAlgorithm()
+                + "/" + describeStore(sslService.getKeyStoreFile(), sslService.getKeyStoreType())
+                + "/" + describeStore(sslService.getTrustStoreFile(), sslService.getTrustStoreType());
+
+        synchronized (SHARED_CONNECTION_POOLS) {
+            SslSocketFactoryHolder sslSocketFactory = SHARED_SSL_SOCKET_FACTORIES.get(key);
+            if (sslSocketFactory == null) {
+                sslSocketFactory = createSslSocketFactory(sslService, sslService.createSSLContext(ClientAuth.NONE));
+                SHARED_SSL_SOCKET_FACTORIES.put(key, sslSocketFactory);
+            }
+            sslSocketFactory.references++;
+            sharedSslSocketFactoryKey = key;
+            return sslSocketFactory;
+        }
+    }
+
+    /**
+     * Releases the shared connection pool and SSL socket factory held by this processor, if any, dropping them once no processor holds them.
+     */
+    private void releaseSharedResources() {
+        synchronized (SHARED_CONNECTION_POOLS) {
+            final String connectionPoolKey = sharedConnectionPoolKey;
+            if (connectionPoolKey != null) {
+                final TrackedConnectionPool connectionPool = SHARED_CONNECTION_POOLS.get(connectionPoolKey);
+                if (connectionPool != null && --connectionPool.references == 0) {
+                    SHARED_CONNECTION_POOLS.remove(connectionPoolKey);
+                    connectionPool.connectionPool.evictAll();
+                }
+                sharedConnectionPoolKey = null;
+            }
+
+            final String sslSocketFactoryKey = sharedSslSocketFactoryKey;
+            if (sslSocketFactoryKey != null) {
+                final SslSocketFactoryHolder sslSocketFactory = SHARED_SSL_SOCKET_FACTORIES.get(sslSocketFactoryKey);
+                if (sslSocketFactory != null && --sslSocketFactory.references == 0) {
+                    SHARED_SSL_SOCKET_FACTORIES.remove(sslSocketFactoryKey);
+                }
+                sharedSslSocketFactoryKey = null;
+            }
+        }
+    }
+
+    private static String describeStore(final String file, final String type) {
+        if (file == null) {
+            return "";
+        }
+        return file + ":" + type + ":" + new File(file).lastModified();
+    }
+
+    private Response countConnection(final Interceptor.Chain chain, final TrackedConnectionPool connectionPool) throws IOException {
+        final Connection connection = chain.connection();
+        if (connection != null) {
+            final LongAdder count = connectionPool.knownConnections.add(connection) ? connectionsOpened : connectionsReused;
+            count.increment();
+        }
+        return chain.proceed(chain.request());
+    }
+
+    private void reportConnectionCounts(final ProcessSession session) {
+        final long opened = connectionsOpened.sumThenReset();
+        if (opened > 0) {
+            session.adjustCounter("Connections Opened", opened, false);
+        }
+        final long reused = connectionsReused.sumThenReset();
+        if (reused > 0) {
+            session.adjustCounter("Connections Reused", reused, false);
+        }
+    }
+
+    @OnStopped
+    public void onStopped() {
+        // close the idle connections of a pool that is not shared, as nothing else will use them, and release a shared one
+        final TrackedConnectionPool connectionPool = processorConnectionPool;
+        if (connectionPool != null) {
+            connectionPool.connectionPool.evictAll();
+        }
+        releaseSharedResources();
+
+        final OkHttpClient okHttpClient = okHttpClientAtomicReference.get();
+        if (okHttpClient != null) {
+            okHttpClient.dispatcher().executorService().shutdown();
         }
     }
 
@@ -743,6 +1002,16 @@ public final class InvokeHTTP extends AbstractProcessor {
     public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
         OkHttpClient okHttpClient = okHttpClientAtomicReference.get();
 
+        final int maxInFlightRequests = context.getProperty(PROP_MAX_IN_FLIGHT_REQUESTS).asInteger();
+        if (maxInFlightRequests > 1) {
+            final List<FlowFile> requestFlowFiles = session.get(maxInFlightRequests);
+            if (!requestFlowFiles.isEmpty()) {
+                logETagCacheMetrics(context, okHttpClient);
+                invokeAsync(context, session, okHttpClient, requestFlowFiles);
+                return;
+            }
+        }
+
         FlowFile requestFlowFile = session.get();
 
         // Checking to see if the property to put the body of the response in an attribute was set
@@ -760,195 +1029,321 @@ public final class InvokeHTTP extends AbstractProcessor {
             }
         }
 
-        // Setting some initial variables
-        final int maxAttributeSize = context.getProperty(PROP_PUT_ATTRIBUTE_MAX_LENGTH).asInteger();
-        final ComponentLog logger = getLogger();
+        logETagCacheMetrics(context, okHttpClient);
+
+        final PendingRequest pendingRequest = prepareRequest(context, session, requestFlowFile, false);
+        if (pendingRequest == null) {
+            return;
+        }
+
+        try {
+            invokeSync(context, session, okHttpClient, pendingRequest);
+        } finally {
+            reportConnectionCounts(session);
+        }
+    }
+
+    private void invokeSync(final ProcessContext context, final ProcessSession session, final OkHttpClient okHttpClient, final PendingRequest pendingRequest) {
+        try (Response responseHttp = okHttpClient.newCall(pendingRequest.httpRequest).execute()) {
+            handleResponse(context, session, pendingRequest, responseHttp);
+        } catch (final Exception e) {
+            handleFailure(context, session, pendingRequest.requestFlowFile, null, e);
+        }
+    }
+
+    /**
+     * Sends the requests for all of the given FlowFiles without waiting for the previous response, and handles each response on
+     * this thread as it arrives. The session is only ever used from this thread; the OkHttp dispatcher threads just hand back the
+     * responses, which is why request bodies are buffered before the calls are enqueued. A body larger than the Max Buffered Request Body Size
+     * is not buffered; its request is sent synchronously, streaming the content from this thread, once the other calls have been enqueued.
+     */
+    private void invokeAsync(final ProcessContext context, final ProcessSession session, final OkHttpClient okHttpClient, final List<FlowFile> requestFlowFiles) {
+        final BlockingQueue<CompletedCall> completedCalls = new LinkedBlockingQueue<>();
+        final AtomicBoolean abandoned = new AtomicBoolean(false);
+        final List<Call> calls = new ArrayList<>(requestFlowFiles.size());
+        final List<PendingRequest> streamedRequests = new ArrayList<>();
+        final long maxBufferedBodySize = context.getProperty(PROP_MAX_BUFFERED_REQUEST_BODY_SIZE).asDataSize(DataUnit.B).longValue();
+
+        for (final FlowFile requestFlowFile : requestFlowFiles) {
+            final boolean bufferRequestBody = requestFlowFile.getSize() <= maxBufferedBodySize;
+            final PendingRequest pendingRequest = prepareRequest(context, session, requestFlowFile, bufferRequestBody);
+            if (pendingRequest == null) {
+                continue;
+            }
+            if (!bufferRequestBody) {
+                streamedRequests.add(pendingRequest);
+                continue;
+            }
+
+            final Call call = okHttpClient.newCall(pendingRequest.httpRequest);
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(final Call call, final IOException e) {
+                    completedCalls.add(new CompletedCall(pendingRequest, null, e));
+                }
+
+                @Override
+                public void onResponse(final Call call, final Response response) {
+                    if (abandoned.get()) {
+                        response.close();
+                    } else {
+                        completedCalls.add(new CompletedCall(pendingRequest, response, null));
+                    }
+                }
+            });
+            calls.add(call);
+        }
 
-        // log ETag cache metrics
+        int outstanding = calls.size();
+        try {
+            for (final PendingRequest pendingRequest : streamedRequests) {
+                invokeSync(context, session, okHttpClient, pendingRequest);
+            }
+
+            while (outstanding > 0) {
+                final CompletedCall completedCall = completedCalls.take();
+                outstanding--;
+
+                if (completedCall.exception != null) {
+                    handleFailure(context, session, completedCall.pendingRequest.requestFlowFile, null, completedCall.exception);
+                    continue;
+                }
+
+                try (Response responseHttp = completedCall.response) {
+                    handleResponse(context, session, completedCall.pendingRequest, responseHttp);
+                } catch (final Exception e) {
+                    handleFailure(context, session, completedCall.pendingRequest.requestFlowFile, null, e);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessException("Interrupted while waiting for responses to " + outstanding + " requests", e);
+        } finally {
+            if (outstanding > 0) {
+                // the session will be rolled back, so cancel what is left and release the connections of any responses already received
+                abandoned.set(true);
+                calls.forEach(Call::cancel);
+
+                CompletedCall completedCall;
+                while ((completedCall = completedCalls.poll()) != null) {
+                    if (completedCall.response != null) {
+                        completedCall.response.close();
+                    }
+                }
+            }
+
+            reportConnectionCounts(session);
+        }
+    }
+
+    private void logETagCacheMetrics(final ProcessContext context, final OkHttpClient okHttpClient) {
+        final ComponentLog logger = getLogger();
         final boolean eTagEnabled = context.getProperty(PROP_USE_ETAG).asBoolean();
         if(eTagEnabled && logger.isDebugEnabled()) {
             final Cache cache = okHttpClient.cache();
             logger.debug("OkHttp ETag cache metrics :: Request Count: {} | Network Count: {} | Hit Count: {}",
                     new Object[] {cache.requestCount(), cache.networkCount(), cache.hitCount()});
         }
+    }
 
+    /**
+     * Builds the request for the given FlowFile, routing the FlowFile to failure (or yielding) and returning null if that is not possible.
+     */
+    private PendingRequest prepareRequest(final ProcessContext context, final ProcessSession session, final FlowFile requestFlowFile, final boolean bufferRequestBody) {
         // Every request/response cycle has a unique transaction id which will be stored as a flowfile attribute.
         final UUID txId = UUID.randomUUID();
 
-        FlowFile responseFlowFile = null;
         try {
             // read the url property from the context
             final String urlstr = trimToEmpty(context.getProperty(PROP_URL).evaluateAttributeExpressions(requestFlowFile).getValue());
             final URL url = new URL(urlstr);
 
-            Request httpRequest = configureRequest(context, session, requestFlowFile, url);
+            Request httpRequest = configureRequest(context, session, requestFlowFile, url, bufferRequestBody);
 
             // log request
-            logRequest(logger, httpRequest);
+            logRequest(getLogger(), httpRequest);
 
             // emit send provenance event if successfully sent to the server
             if (httpRequest.body() != null) {
                 session.getProvenanceReporter().send(requestFlowFile, url.toExternalForm(), true);
             }
 
-            final long startNanos = System.nanoTime();
+            return new PendingRequest(requestFlowFile, url, httpRequest, txId, System.nanoTime());
+        } catch (final Exception e) {
+            handleFailure(context, session, requestFlowFile, null, e);
+            return null;
+        }
+    }
 
-            try (Response responseHttp = okHttpClient.newCall(httpRequest).execute()) {
-                // output the raw response headers (DEBUG level only)
-                logResponse(logger, url, responseHttp);
+    private void handleResponse(final ProcessContext context, final ProcessSession session, final PendingRequest pendingRequest, final Response responseHttp) {
+        // Setting some initial variables
+        final int maxAttributeSize = context.getProperty(PROP_PUT_ATTRIBUTE_MAX_LENGTH).asInteger();
+        final boolean putToAttribute = context.getProperty(PROP_PUT_OUTPUT_IN_ATTRIBUTE).isSet();
+        final URL url = pendingRequest.url;
+        final long startNanos = pendingRequest.startNanos;
 
-                // store the status code and message
-                int statusCode = responseHttp.code();
-                String statusMessage = responseHttp.message();
+        FlowFile requestFlowFile = pendingRequest.requestFlowFile;
+        FlowFile responseFlowFile = null;
+        try {
+            // output the raw response headers (DEBUG level only)
+            logResponse(getLogger(), url, responseHttp);
 
-                if (statusCode == 0) {
-                    throw new IllegalStateException("Status code unknown, connection hasn't been attempted.");
-                }
+            // store the status code and message
+            int statusCode = responseHttp.code();
+            String statusMessage = responseHttp.message();
 
-                // Create a map of the status attributes that are always written to the request and response FlowFiles
-                Map<String, String> statusAttributes = new HashMap<>();
-                statusAttributes.put(STATUS_CODE, String.valueOf(statusCode));
-                statusAttributes.put(STATUS_MESSAGE, statusMessage);
-                statusAttributes.put(REQUEST_URL, url.toExternalForm());
-                statusAttributes.put(TRANSACTION_ID, txId.toString());
+            if (statusCode == 0) {
+                throw new IllegalStateException("Status code unknown, connection hasn't been attempted.");
+            }
 
-                if (requestFlowFile != null) {
-                    requestFlowFile = session.putAllAttributes(requestFlowFile, statusAttributes);
-                }
+            // Create a map of the status attributes that are always written to the request and response FlowFiles
+            Map<String, String> statusAttributes = new HashMap<>();
+            statusAttributes.put(STATUS_CODE, String.valueOf(statusCode));
+            statusAttributes.put(STATUS_MESSAGE, statusMessage);
+            statusAttributes.put(REQUEST_URL, url.toExternalForm());
+            statusAttributes.put(TRANSACTION_ID, pendingRequest.txId.toString());
 
-                // If the property to add the response headers to the request flowfile is true then add them
-                if (context.getProperty(PROP_ADD_HEADERS_TO_REQUEST).asBoolean() && requestFlowFile != null) {
-                    // write the response headers as attributes
-                    // this will overwrite any existing flowfile attributes
-                    requestFlowFile = session.putAllAttributes(requestFlowFile, convertAttributesFromHeaders(url, responseHttp));
-                }
+            if (requestFlowFile != null) {
+                requestFlowFile = session.putAllAttributes(requestFlowFile, statusAttributes);
+            }
 
-                boolean outputBodyToRequestAttribute = (!isSuccess(statusCode) || putToAttribute) && requestFlowFile != null;
-                boolean outputBodyToResponseContent = (isSuccess(statusCode) && !putToAttribute) || context.getProperty(PROP_OUTPUT_RESPONSE_REGARDLESS).asBoolean();
-                ResponseBody responseBody = responseHttp.body();
-                boolean bodyExists = responseBody != null;
-
-                InputStream responseBodyStream = null;
-                SoftLimitBoundedByteArrayOutputStream outputStreamToRequestAttribute = null;
-                TeeInputStream teeInputStream = null;
-                try {
-                    responseBodyStream = bodyExists ? responseBody.byteStream() : null;
-                    if (responseBodyStream != null && outputBodyToRequestAttribute && outputBodyToResponseContent) {
-                        outputStreamToRequestAttribute = new SoftLimitBoundedByteArrayOutputStream(maxAttributeSize);
-                        teeInputStream = new TeeInputStream(responseBodyStream, outputStreamToRequestAttribute);
-                    }
+            // If the property to add the response headers to the request flowfile is true then add them
+            if (context.getProperty(PROP_ADD_HEADERS_TO_REQUEST).asBoolean() && requestFlowFile != null) {
+                // write the response headers as attributes
+                // this will overwrite any existing flowfile attributes
+                requestFlowFile = session.putAllAttributes(requestFlowFile, convertAttributesFromHeaders(url, responseHttp));
+            }
 
-                    if (outputBodyToResponseContent) {
-                        /*
-                         * If successful and putting to response flowfile, store the response body as the flowfile payload
-                         * we include additional flowfile attributes including the response headers and the status codes.
-                         */
+            boolean outputBodyToRequestAttribute = (!isSuccess(statusCode) || putToAttribute) && requestFlowFile != null;
+            boolean outputBodyToResponseContent = (isSuccess(statusCode) && !putToAttribute) || context.getProperty(PROP_OUTPUT_RESPONSE_REGARDLESS).asBoolean();
+            ResponseBody responseBody = responseHttp.body();
+            boolean bodyExists = responseBody != null;
 
-                        // clone the flowfile to capture the response
-                        if (requestFlowFile != null) {
-                            responseFlowFile = session.create(requestFlowFile);
-                        } else {
-                            responseFlowFile = session.create();
-                        }
+            InputStream responseBodyStream = null;
+            SoftLimitBoundedByteArrayOutputStream outputStreamToRequestAttribute = null;
+            TeeInputStream teeInputStream = null;
+            try {
+                responseBodyStream = bodyExists ? responseBody.byteStream() : null;
+                if (responseBodyStream != null && outputBodyToRequestAttribute && outputBodyToResponseContent) {
+                    outputStreamToRequestAttribute = new SoftLimitBoundedByteArrayOutputStream(maxAttributeSize);
+                    teeInputStream = new TeeInputStream(responseBodyStream, outputStreamToRequestAttribute);
+                }
 
-                        // write attributes to response flowfile
-                        responseFlowFile = session.putAllAttributes(responseFlowFile, statusAttributes);
-
-                        // write the response headers as attributes
-                        // this will overwrite any existing flowfile attributes
-                        responseFlowFile = session.putAllAttributes(responseFlowFile, convertAttributesFromHeaders(url, responseHttp));
-
-                        // transfer the message body to the payload
-                        // can potentially be null in edge cases
-                        if (bodyExists) {
-                            // write content type attribute to response flowfile if it is available
-                            if (responseBody.contentType() != null) {
-                                 responseFlowFile = session.putAttribute(responseFlowFile, CoreAttributes.MIME_TYPE.key(), responseBody.contentType().toString());
-                            }
-                            if (teeInputStream != null) {
-                                responseFlowFile = session.importFrom(teeInputStream, responseFlowFile);
-                            } else {
-                                responseFlowFile = session.importFrom(responseBodyStream, responseFlowFile);
-                            }
-
-                            // emit provenance event
-                            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
-                            if(requestFlowFile != null) {
-                                session.getProvenanceReporter().fetch(responseFlowFile, url.toExternalForm(), millis);
-                            } else {
-                                session.getProvenanceReporter().receive(responseFlowFile, url.toExternalForm(), millis);
-                            }
-                        }
+                if (outputBodyToResponseContent) {
+                    /*
+                     * If successful and putting to response flowfile, store the response body as the flowfile payload
+                     * we include additional flowfile attributes including the response headers and the status codes.
+                     */
+
+                    // clone the flowfile to capture the response
+                    if (requestFlowFile != null) {
+                        responseFlowFile = session.create(requestFlowFile);
+                    } else {
+                        responseFlowFile = session.create();
                     }
 
-                    // if not successful and request flowfile is not null, store the response body into a flowfile attribute
-                    if (outputBodyToRequestAttribute && bodyExists) {
-                        String attributeKey = context.getProperty(PROP_PUT_OUTPUT_IN_ATTRIBUTE).evaluateAttributeExpressions(requestFlowFile).getValue();
-                        if (attributeKey == null) {
-                            attributeKey = RESPONSE_BODY;
-                        }
-                        byte[] outputBuffer;
-                        int size;
+                    // write attributes to response flowfile
+                    responseFlowFile = session.putAllAttributes(responseFlowFile, statusAttributes);
 
-                        if (outputStreamToRequestAttribute != null) {
-                            outputBuffer = outputStreamToRequestAttribute.getBuffer();
-                            size = outputStreamToRequestAttribute.size();
+                    // write the response headers as attributes
+                    // this will overwrite any existing flowfile attributes
+                    responseFlowFile = session.putAllAttributes(responseFlowFile, convertAttributesFromHeaders(url, responseHttp));
+
+                    // transfer the message body to the payload
+                    // can potentially be null in edge cases
+                    if (bodyExists) {
+                        // write content type attribute to response flowfile if it is available
+                        if (responseBody.contentType() != null) {
+                             responseFlowFile = session.putAttribute(responseFlowFile, CoreAttributes.MIME_TYPE.key(), responseBody.contentType().toString());
+                        }
+                        if (teeInputStream != null) {
+                            responseFlowFile = session.importFrom(teeInputStream, responseFlowFile);
                         } else {
-                            outputBuffer = new byte[maxAttributeSize];
-                            size = StreamUtils.fillBuffer(responseBodyStream, outputBuffer, false);
+                            responseFlowFile = session.importFrom(responseBodyStream, responseFlowFile);
                         }
-                        String bodyString = new String(outputBuffer, 0, size, getCharsetFromMediaType(responseBody.contentType()));
-                        requestFlowFile = session.putAttribute(requestFlowFile, attributeKey, bodyString);
 
+                        // emit provenance event
                         final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
-                        session.getProvenanceReporter().modifyAttributes(requestFlowFile, "The " + attributeKey + " has been added. The value of which is the body of a http call to "
-                                + url.toExternalForm() + ". It took " + millis + "millis,");
-                    }
-                } finally {
-                    if(outputStreamToRequestAttribute != null){
-                        outputStreamToRequestAttribute.close();
-                        outputStreamToRequestAttribute = null;
-                    }
-                    if(teeInputStream != null){
-                        teeInputStream.close();
-                        teeInputStream = null;
-                    } else if(responseBodyStream != null){
-                        responseBodyStream.close();
-                        responseBodyStream = null;
+                        if(requestFlowFile != null) {
+                            session.getProvenanceReporter().fetch(responseFlowFile, url.toExternalForm(), millis);
+                        } else {
+                            session.getProvenanceReporter().receive(responseFlowFile, url.toExternalForm(), millis);
+                        }
                     }
                 }
 
-                route(requestFlowFile, responseFlowFile, session, context, statusCode);
+                // if not successful and request flowfile is not null, store the response body into a flowfile attribute
+                if (outputBodyToRequestAttribute && bodyExists) {
+                    String attributeKey = context.getProperty(PROP_PUT_OUTPUT_IN_ATTRIBUTE).evaluateAttributeExpressions(requestFlowFile).getValue();
+                    if (attributeKey == null) {
+                        attributeKey = RESPONSE_BODY;
+                    }
+                    byte[] outputBuffer;
+                    int size;
+
+                    if (outputStreamToRequestAttribute != null) {
+                        outputBuffer = outputStreamToRequestAttribute.getBuffer();
+                        size = outputStreamToRequestAttribute.size();
+                    } else {
+                        outputBuffer = new byte[maxAttributeSize];
+                        size = StreamUtils.fillBuffer(responseBodyStream, outputBuffer, false);
+                    }
+                    String bodyString = new String(outputBuffer, 0, size, getCharsetFromMediaType(responseBody.contentType()));
+                    requestFlowFile = session.putAttribute(requestFlowFile, attributeKey, bodyString);
 
+                    final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    session.getProvenanceReporter().modifyAttributes(requestFlowFile, "The " + attributeKey + " has been added. The value of which is the body of a http call to "
+                            + url.toExternalForm() + ". It took " + millis + "millis,");
+                }
+            } finally {
+                if(outputStreamToRequestAttribute != null){
+                    outputStreamToRequestAttribute.close();
+                    outputStreamToRequestAttribute = null;
+                }
+                if(teeInputStream != null){
+                    teeInputStream.close();
+                    teeInputStream = null;
+                } else if(responseBodyStream != null){
+                    responseBodyStream.close();
+                    responseBodyStream = null;
+                }
             }
+
+            route(requestFlowFile, responseFlowFile, session, context, statusCode);
         } catch (final Exception e) {
-            // penalize or yield
-            if (requestFlowFile != null) {
-                logger.error("Routing to {} due to exception: {}", new Object[]{REL_FAILURE.getName(), e}, e);
-                requestFlowFile = session.penalize(requestFlowFile);
-                requestFlowFile = session.putAttribute(requestFlowFile, EXCEPTION_CLASS, e.getClass().getName());
-                requestFlowFile = session.putAttribute(requestFlowFile, EXCEPTION_MESSAGE, e.getMessage());
-                // transfer original to failure
-                session.transfer(requestFlowFile, REL_FAILURE);
-            } else {
-                logger.error("Yielding processor due to exception encountered as a source processor: {}", e);
-                context.yield();
-            }
+            handleFailure(context, session, requestFlowFile, responseFlowFile, e);
+        }
+    }
 
+    private void handleFailure(final ProcessContext context, final ProcessSession session, FlowFile requestFlowFile, final FlowFile responseFlowFile, final Exception e) {
+        final ComponentLog logger = getLogger();
 
-            // cleanup response flowfile, if applicable
-            try {
-                if (responseFlowFile != null) {
-                    session.remove(responseFlowFile);
-                }
-            } catch (final Exception e1) {
-                logger.error("Could not cleanup response flowfile due to exception: {}", new Object[]{e1}, e1);
+        // penalize or yield
+        if (requestFlowFile != null) {
+            logger.error("Routing to {} due to exception: {}", new Object[]{REL_FAILURE.getName(), e}, e);
+            requestFlowFile = session.penalize(requestFlowFile);
+            requestFlowFile = session.putAttribute(requestFlowFile, EXCEPTION_CLASS, e.getClass().getName());
+            requestFlowFile = session.putAttribute(requestFlowFile, EXCEPTION_MESSAGE, e.getMessage());
+            // transfer original to failure
+            session.transfer(requestFlowFile, REL_FAILURE);
+        } else {
+            logger.error("Yielding processor due to exception encountered as a source processor: {}", e);
+            context.yield();
+        }
+
+
+        // cleanup response flowfile, if applicable
+        try {
+            if (responseFlowFile != null) {
+                session.remove(responseFlowFile);
             }
+        } catch (final Exception e1) {
+            logger.error("Could not cleanup response flowfile due to exception: {}", new Object[]{e1}, e1);
         }
     }
 
 
-    private Request configureRequest(final ProcessContext context, final ProcessSession session, final FlowFile requestFlowFile, URL url) {
+    private Request configureRequest(final ProcessContext context, final ProcessSession session, final FlowFile requestFlowFile, URL url, final boolean bufferRequestBody) {
         Request.Builder requestBuilder = new Request.Builder();
 
         requestBuilder = requestBuilder.url(url);
@@ -969,15 +1364,15 @@ public final class InvokeHTTP extends AbstractProcessor {
                 requestBuilder = requestBuilder.get();
                 break;
             case "POST":
-                RequestBody requestBody = getRequestBodyToSend(session, context, requestFlowFile);
+                RequestBody requestBody = getRequestBodyToSend(session, context, requestFlowFile, bufferRequestBody);
                 requestBuilder = requestBuilder.post(requestBody);
                 break;
             case "PUT":
-                requestBody = getRequestBodyToSend(session, context, requestFlowFile);
+                requestBody = getRequestBodyToSend(session, context, requestFlowFile, bufferRequestBody);
                 requestBuilder = requestBuilder.put(requestBody);
                 break;
             case "PATCH":
-                requestBody = getRequestBodyToSend(session, context, requestFlowFile);
+                requestBody = getRequestBodyToSend(session, context, requestFlowFile, bufferRequestBody);
                 requestBuilder = requestBuilder.patch(requestBody);
                 break;
             case "HEAD":
@@ -995,8 +1390,30 @@ public final class InvokeHTTP extends AbstractProcessor {
         return requestBuilder.build();
     }
 
-    private RequestBody getRequestBodyToSend(final ProcessSession session, final ProcessContext context, final FlowFile requestFlowFile) {
-        if(context.getProperty(PROP_SEND_BODY).asBoolean()) {
+    private RequestBody getRequestBodyToSend(final ProcessSession session, final ProcessContext context, final FlowFile requestFlowFile, final boolean bufferRequestBody) {
+        if(context.getProperty(PROP_SEND_BODY).asBoolean() && bufferRequestBody) {
+            // asynchronous calls write the body from an OkHttp thread, which may not use the session
+            final byte[] content = new byte[(int) requestFlowFile.getSize()];
+            session.read(requestFlowFile, in -> StreamUtils.fillBuffer(in, content));
+            final String contentType = context.getProperty(PROP_CONTENT_TYPE).evaluateAttributeExpressions(requestFlowFile).getValue();
+            final MediaType mediaType = MediaType.parse(StringUtils.isBlank(contentType) ? DEFAULT_CONTENT_TYPE : contentType);
+            return new RequestBody() {
+                @Override
+                public MediaType contentType() {
+                    return mediaType;
+                }
+
+                @Override
+                public void writeTo(BufferedSink sink) throws IOException {
+                    sink.write(content);
+                }
+
+                @Override
+                public long contentLength(){
+                    return useChunked ? -1 : content.length;
+                }
+            };
+        } else if(context.getProperty(PROP_SEND_BODY).asBoolean()) {
             return new RequestBody() {
                 @Override
                 public MediaType contentType() {
@@ -1222,6 +1639,65 @@ public final class InvokeHTTP extends AbstractProcessor {
         return Files.createTempDir();
     }
 
+    private static class PendingRequest {
+        private final FlowFile requestFlowFile;
+        private final URL url;
+        private final Request httpRequest;
+        private final UUID txId;
+        private final long startNanos;
+
+        private PendingRequest(final FlowFile requestFlowFile, final URL url, final Request httpRequest, final UUID txId, final long startNanos) {
+            this.requestFlowFile = requestFlowFile;
+            this.url = url;
+            this.httpRequest = httpRequest;
+            this.txId = txId;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static class CompletedCall {
+        private final PendingRequest pendingRequest;
+        private final Response response;
+        private final IOException exception;
+
+        private CompletedCall(final PendingRequest pendingRequest, final Response response, final IOException exception) {
+            this.pendingRequest = pendingRequest;
+            this.response = response;
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * A connection pool, along with the connections that have come out of it, so that requests can be counted as opening a new connection
+     * or reusing one. The connections are held weakly, so that they are forgotten once the pool has closed them.
+     */
+    private static class TrackedConnectionPool {
+
+        private final ConnectionPool connectionPool;
+        private final Set<Connection> knownConnections = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
+
+        // the number of processors holding a shared pool, guarded by SHARED_CONNECTION_POOLS
+        private int references;
+
+        private TrackedConnectionPool(final ConnectionPool connectionPool) {
+            this.connectionPool = connectionPool;
+        }
+    }
+
+    private static class SslSocketFactoryHolder {
+
+        private final SSLSocketFactory socketFactory;
+        private final X509TrustManager trustManager;
+
+        // the number of processors holding a shared factory, guarded by SHARED_CONNECTION_POOLS
+        private int references;
+
+        private SslSocketFactoryHolder(SSLSocketFactory socketFactory, X509TrustManager trustManager) {
+            this.socketFactory = socketFactory;
+            this.trustManager = trustManager;
+        }
+    }
+
     private static class OverrideHostnameVerifier implements HostnameVerifier {
 
         private final String trustedHostname;
@@ -38,8 +38,10 @@ import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.processor.util.list.AbstractListProcessor;
 import org.apache.nifi.processor.util.list.ListedEntityTracker;
@@ -48,9 +50,12 @@ import org.apache.nifi.util.Tuple;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributeView;
@@ -60,10 +65,13 @@ import java.nio.file.attribute.PosixFileAttributeView;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -71,9 +79,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -222,7 +235,8 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         .description("Whether or not the Processor should track the performance of disk access operations. If true, all accesses to disk will be recorded, including the file being accessed, the " +
             "information being obtained, and how long it takes. This is then logged periodically at a DEBUG level. While the amount of data will be capped, " +
             "this option may still consume a significant amount of heap (controlled by the 'Maximum Number of Files to Track' property), " +
-            "but it can be very useful for troubleshooting purposes if performance is poor is degraded.")
+            "but it can be very useful for troubleshooting purposes if performance is poor is degraded. When 'Directory Traversal Threads' is greater than 1 and " +
+            "'Recurse Subdirectories' is true, only disk operations that exceed the 'Max Disk Operation Time' are reported.")
         .required(true)
         .allowableValues("true", "false")
         .defaultValue("false")
@@ -262,6 +276,35 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         .defaultValue("3 mins")
         .build();
 
+    public static final PropertyDescriptor TRAVERSAL_THREADS = new Builder()
+        .name("traversal-threads")
+        .displayName("Directory Traversal Threads")
+        .description("The number of threads to use for listing the subdirectories of the Input Directory when 'Recurse Subdirectories' is true. The time taken to list a " +
+            "directory on a remote file share is largely spent waiting on the network, so listing several directories at once can greatly reduce the time taken to list " +
+            "a large directory tree. A value of 1 lists every directory on the thread that triggers the Processor.")
+        .required(true)
+        .addValidator(POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("1")
+        .build();
+
+    public static final PropertyDescriptor SKIP_UNCHANGED_DIRECTORIES = new Builder()
+        .name("skip-unchanged-directories")
+        .displayName("Skip Unchanged Directories")
+        .description("If true, the Processor remembers the last modification time and the subdirectories of each directory that it lists, and does not read the contents of " +
+            "a directory again until its last modification time changes. A directory's last modification time changes when a file is added to, removed from, or renamed within " +
+            "it, but not when the content of a file within it is modified, so this should only be enabled if files are not modified after they are placed in the directory, " +
+            "for instance because they are written elsewhere and then moved into place. A directory is only skipped if it, and every file in it, had not been modified for at " +
+            "least one minute, and at least the 'Minimum File Age', when it was last read. This information is held in memory, so the first listing performed after NiFi is " +
+            "restarted reads every directory.")
+        .required(true)
+        .allowableValues("true", "false")
+        .defaultValue("false")
+        .build();
+
+    // The minimum amount of time that a directory and its files must have gone unmodified for the directory to be skipped by later listings. This is at least as large as the
+    // greatest listing lag, so that no file that has been held back until a later listing is ever skipped.
+    private static final long MIN_UNCHANGED_DIRECTORY_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
 
     private List<PropertyDescriptor> properties;
     private Set<Relationship> relationships;
@@ -270,9 +313,13 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     private volatile Future<?> monitoringFuture;
 
     private volatile boolean includeFileAttributes;
+    private volatile boolean trackingPerformance;
     private volatile PerformanceTracker performanceTracker;
     private volatile long performanceLoggingTimestamp = System.currentTimeMillis();
     private final AtomicReference<BiPredicate<Path, BasicFileAttributes>> fileFilterRef = new AtomicReference<>();
+    private volatile ForkJoinPool traversalPool;
+    private volatile Map<Path, DirectoryListing> directoryListings = Collections.emptyMap();
+    private volatile Map<Path, DirectoryListing> pendingDirectoryListings;
 
     public static final String FILE_CREATION_TIME_ATTRIBUTE = "file.creationTime";
     public static final String FILE_LAST_MODIFY_TIME_ATTRIBUTE = "file.lastModifiedTime";
@@ -307,6 +354,8 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         properties.add(MAX_TRACKED_FILES);
         properties.add(MAX_DISK_OPERATION_TIME);
         properties.add(MAX_LISTING_TIME);
+        properties.add(TRAVERSAL_THREADS);
+        properties.add(SKIP_UNCHANGED_DIRECTORIES);
         this.properties = Collections.unmodifiableList(properties);
 
         final Set<Relationship> relationships = new HashSet<>();
@@ -340,8 +389,16 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         final long maxDiskOperationMillis = context.getProperty(MAX_DISK_OPERATION_TIME).evaluateAttributeExpressions().asTimePeriod(TimeUnit.MILLISECONDS);
         final long maxListingMillis = context.getProperty(MAX_LISTING_TIME).evaluateAttributeExpressions().asTimePeriod(TimeUnit.MILLISECONDS);
 
+        // Every access to the rolling metrics is synchronized, so they are not kept while the directory tree is traversed by several threads
+        final int traversalThreads = context.getProperty(TRAVERSAL_THREADS).asInteger();
+        final boolean parallelTraversal = context.getProperty(RECURSE).asBoolean() && traversalThreads > 1;
         final boolean trackPerformance = context.getProperty(TRACK_PERFORMANCE).asBoolean();
-        if (trackPerformance) {
+        if (trackPerformance && parallelTraversal) {
+            getLogger().info("Performance of individual disk operations will not be tracked because the directory tree is traversed by {} threads", new Object[] {traversalThreads});
+        }
+
+        trackingPerformance = trackPerformance && !parallelTraversal;
+        if (trackingPerformance) {
             final int maxEntries = context.getProperty(MAX_TRACKED_FILES).evaluateAttributeExpressions().asInteger();
             performanceTracker = new RollingMetricPerformanceTracker(getLogger(), maxDiskOperationMillis, maxEntries);
         } else {
@@ -351,6 +408,14 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         final long millisToKeepStats = TimeUnit.MINUTES.toMillis(15);
         final MonitorActiveTasks monitorTask = new MonitorActiveTasks(performanceTracker, getLogger(), maxDiskOperationMillis, maxListingMillis, millisToKeepStats);
         monitoringFuture = monitoringThreadPool.scheduleAtFixedRate(monitorTask, 15, 15, TimeUnit.SECONDS);
+
+        if (traversalThreads > 1) {
+            traversalPool = new ForkJoinPool(traversalThreads);
+        }
+
+        if (!context.getProperty(SKIP_UNCHANGED_DIRECTORIES).asBoolean()) {
+            directoryListings = Collections.emptyMap();
+        }
     }
 
     @OnStopped
@@ -359,10 +424,38 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             monitoringFuture.cancel(true);
         }
 
-        final boolean trackPerformance = context.getProperty(TRACK_PERFORMANCE).asBoolean();
-        if (trackPerformance) {
+        if (trackingPerformance) {
             logPerformance();
         }
+
+        final ForkJoinPool pool = traversalPool;
+        if (pool != null) {
+            pool.shutdownNow();
+            traversalPool = null;
+        }
+    }
+
+    @Override
+    public void onPropertyModified(final PropertyDescriptor descriptor, final String oldValue, final String newValue) {
+        super.onPropertyModified(descriptor, oldValue, newValue);
+
+        if (isListingResetNecessary(descriptor)) {
+            directoryListings = Collections.emptyMap();
+        }
+    }
+
+    @Override
+    public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
+        pendingDirectoryListings = null;
+        super.onTrigger(context, session);
+
+        // The directories that were read are only remembered once the listing has completed successfully, so that the files of a listing that
+        // failed are not skipped by the next one
+        final Map<Path, DirectoryListing> listings = pendingDirectoryListings;
+        if (listings != null) {
+            directoryListings = listings;
+            pendingDirectoryListings = null;
+        }
     }
 
     protected PerformanceTracker getPerformanceTracker() {
@@ -496,13 +589,14 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     protected List<FileInfo> performListing(final ProcessContext context, final Long minTimestamp) throws IOException {
         final Path basePath = new File(getPath(context)).toPath();
         final Boolean recurse = context.getProperty(RECURSE).asBoolean();
-        final Map<Path, BasicFileAttributes> lastModifiedMap = new HashMap<>();
+        final Map<Path, BasicFileAttributes> lastModifiedMap = new ConcurrentHashMap<>();
 
         final BiPredicate<Path, BasicFileAttributes> fileFilter = fileFilterRef.get();
+        final boolean logPerformance = trackingPerformance;
         int maxDepth = recurse ? Integer.MAX_VALUE : 1;
 
         final BiPredicate<Path, BasicFileAttributes> matcher = new BiPredicate<Path, BasicFileAttributes>() {
-            private long lastTimestamp = System.currentTimeMillis();
+            private final ThreadLocal<Long> lastTimestamp = ThreadLocal.withInitial(System::currentTimeMillis);
 
             @Override
             public boolean test(final Path path, final BasicFileAttributes attributes) {
@@ -511,8 +605,8 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
                 }
 
                 final long now = System.currentTimeMillis();
-                final long timeToList = now - lastTimestamp;
-                lastTimestamp = now;
+                final long timeToList = now - lastTimestamp.get();
+                lastTimestamp.set(now);
 
                 final Path relativeDirectory = basePath.relativize(path).getParent();
                 final String relativePath = relativeDirectory == null ? "" : relativeDirectory.toString();
@@ -540,14 +634,27 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
                 } finally {
                     performanceTracker.completeOperation(operationKey);
 
-                    if (TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - performanceLoggingTimestamp) >= 5) {
+                    // Performance is only tracked when the listing is performed on this thread alone, so the statistics are never logged while
+                    // another thread is updating them
+                    if (logPerformance && TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - performanceLoggingTimestamp) >= 5) {
                         logPerformance();
                     }
                 }
             }
         };
 
-        final Stream<Path> inputStream = getPathStream(basePath, maxDepth, matcher);
+        final boolean skipUnchangedDirectories = context.getProperty(SKIP_UNCHANGED_DIRECTORIES).asBoolean();
+        final ForkJoinPool pool = recurse ? traversalPool : null;
+        final DirectoryTraversal traversal;
+        if (pool == null && !skipUnchangedDirectories) {
+            traversal = null;
+        } else {
+            final long minAge = context.getProperty(MIN_AGE).asTimePeriod(TimeUnit.MILLISECONDS);
+            final long maxUnchangedTimestamp = System.currentTimeMillis() - Math.max(MIN_UNCHANGED_DIRECTORY_AGE_MILLIS, minAge);
+            traversal = new DirectoryTraversal(basePath, recurse, matcher, skipUnchangedDirectories ? directoryListings : Collections.emptyMap(), maxUnchangedTimestamp);
+        }
+
+        final Stream<Path> inputStream = traversal == null ? getPathStream(basePath, maxDepth, matcher) : traversal.stream(pool);
 
         final Stream<FileInfo> listing = inputStream.map(p -> {
             File file = p.toFile();
@@ -571,10 +678,17 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             final long millis = System.currentTimeMillis() - start;
 
             getLogger().debug("Took {} milliseconds to perform listing and gather {} entries", new Object[] {millis, fileInfos.size()});
+
+            if (traversal != null && skipUnchangedDirectories) {
+                pendingDirectoryListings = traversal.getDirectoryListings();
+            }
+
             return fileInfos;
         } catch (final ProcessorStoppedException pse) {
             getLogger().info("Processor was stopped so will not complete listing of Files");
             return Collections.emptyList();
+        } catch (final UncheckedIOException uioe) {
+            throw uioe.getCause();
         } finally {
             performanceTracker.completeActiveDirectory();
         }
@@ -666,9 +780,7 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
      * to glean information such as which operations or files are taking the longest to operate on but uses very little heap.
      */
     public static class UntrackedPerformanceTracker implements PerformanceTracker {
-        private TimedOperationKey activeOperation = null;
-        private String activeDirectory;
-        private long activeDirectoryStartTime = -1L;
+        private final ActiveTasks activeTasks = new ActiveTasks();
 
         private final ComponentLog logger;
         private final long maxDiskOperationMillis;
@@ -702,18 +814,18 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         }
 
         @Override
-        public synchronized void setActiveOperation(final TimedOperationKey operationKey) {
-            this.activeOperation = operationKey;
+        public void setActiveOperation(final TimedOperationKey operationKey) {
+            activeTasks.setActiveOperation(operationKey);
         }
 
         @Override
-        public synchronized void completeActiveOperation() {
-            this.activeOperation = null;
+        public void completeActiveOperation() {
+            activeTasks.completeActiveOperation();
         }
 
         @Override
-        public synchronized TimedOperationKey getActiveOperation() {
-            return activeOperation;
+        public Collection<TimedOperationKey> getActiveOperations() {
+            return activeTasks.getActiveOperations();
         }
 
         @Override
@@ -726,25 +838,18 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
         }
 
         @Override
-        public synchronized void setActiveDirectory(final String directory) {
-            activeDirectory = directory;
-            activeDirectoryStartTime = System.currentTimeMillis();
-        }
-
-        @Override
-        public synchronized void completeActiveDirectory() {
-            activeDirectory = null;
-            activeDirectoryStartTime = -1L;
+        public void setActiveDirectory(final String directory) {
+            activeTasks.setActiveDirectory(directory);
         }
 
         @Override
-        public synchronized long getActiveDirectoryStartTime() {
-            return activeDirectoryStartTime;
+        public void completeActiveDirectory() {
+            activeTasks.completeActiveDirectory();
         }
 
         @Override
-        public synchronized String getActiveDirectory() {
-            return activeDirectory;
+        public Map<String, Long> getActiveDirectories() {
+            return activeTasks.getActiveDirectories();
         }
 
         @Override
@@ -760,14 +865,11 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     public static final class RollingMetricPerformanceTracker implements PerformanceTracker {
         private final Map<String, String> directoryCanonicalization = new HashMap<>();
         private final Map<Tuple<String, String>, TimingInfo> directoryToTimingInfo;
-        private TimedOperationKey activeOperation;
+        private final ActiveTasks activeTasks = new ActiveTasks();
         private long earliestTimestamp = System.currentTimeMillis();
         private final long maxDiskOperationMillis;
         private final ComponentLog logger;
 
-        private String activeDirectory;
-        private long activeDirectoryStartTime = -1L;
-
         public RollingMetricPerformanceTracker(final ComponentLog logger, final long maxDiskOperationMillis, final int maxEntries) {
             this.logger = logger;
             this.maxDiskOperationMillis = maxDiskOperationMillis;
@@ -810,39 +912,32 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
 
         @Override
         public void setActiveOperation(final TimedOperationKey activeOperation) {
-            this.activeOperation = activeOperation;
+            activeTasks.setActiveOperation(activeOperation);
         }
 
         @Override
         public void completeActiveOperation() {
-            this.activeOperation = null;
+            activeTasks.completeActiveOperation();
         }
 
         @Override
-        public synchronized TimedOperationKey getActiveOperation() {
-            return activeOperation;
+        public Collection<TimedOperationKey> getActiveOperations() {
+            return activeTasks.getActiveOperations();
         }
 
         @Override
-        public synchronized void setActiveDirectory(final String directory) {
-            activeDirectory = directory;
-            activeDirectoryStartTime = System.currentTimeMillis();
+        public void setActiveDirectory(final String directory) {
+            activeTasks.setActiveDirectory(directory);
         }
 
         @Override
-        public synchronized void completeActiveDirectory() {
-            activeDirectory = null;
-            activeDirectoryStartTime = -1L;
+        public void completeActiveDirectory() {
+            activeTasks.completeActiveDirectory();
         }
 
         @Override
-        public synchronized long getActiveDirectoryStartTime() {
-            return activeDirectoryStartTime;
-        }
-
-        @Override
-        public synchronized String getActiveDirectory() {
-            return activeDirectory;
+        public Map<String, Long> getActiveDirectories() {
+            return activeTasks.getActiveDirectories();
         }
 
         @Override
@@ -1061,7 +1156,10 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
 
         void completeActiveOperation();
 
-        TimedOperationKey getActiveOperation();
+        /**
+         * @return the operation that each thread is currently performing
+         */
+        Collection<TimedOperationKey> getActiveOperations();
 
         void purgeTimingInfo(long cutoff);
 
@@ -1071,13 +1169,51 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
 
         void completeActiveDirectory();
 
-        String getActiveDirectory();
-
-        long getActiveDirectoryStartTime();
+        /**
+         * @return the directories that are currently being listed, each mapped to the time at which the earliest of the threads listing it started
+         */
+        Map<String, Long> getActiveDirectories();
 
         int getTrackedFileCount();
     }
 
+    /**
+     * Keeps track of the disk operation that is active and the directory that is being listed by each thread, as the directory tree may be
+     * traversed by several threads at once.
+     */
+    private static class ActiveTasks {
+        private final Map<Thread, TimedOperationKey> activeOperations = new ConcurrentHashMap<>();
+        private final Map<Thread, Tuple<String, Long>> activeDirectories = new ConcurrentHashMap<>();
+
+        void setActiveOperation(final TimedOperationKey operationKey) {
+            activeOperations.put(Thread.currentThread(), operationKey);
+        }
+
+        void completeActiveOperation() {
+            activeOperations.remove(Thread.currentThread());
+        }
+
+        Collection<TimedOperationKey> getActiveOperations() {
+            return new ArrayList<>(activeOperations.values());
+        }
+
+        void setActiveDirectory(final String directory) {
+            activeDirectories.put(Thread.currentThread(), new Tuple<>(directory, System.currentTimeMillis()));
+        }
+
+        void completeActiveDirectory() {
+            activeDirectories.remove(Thread.currentThread());
+        }
+
+        Map<String, Long> getActiveDirectories() {
+            final Map<String, Long> directories = new HashMap<>();
+            for (final Tuple<String, Long> activeDirectory : activeDirectories.values()) {
+                directories.merge(activeDirectory.getKey(), activeDirectory.getValue(), Math::min);
+            }
+            return directories;
+        }
+    }
+
 
     interface OperationStatistics {
         long getMin();
@@ -1207,6 +1343,157 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
     private static class ProcessorStoppedException extends RuntimeException {
     }
 
+    /**
+     * The last modification time of a directory that has been read, along with the subdirectories that it contained at that time.
+     */
+    private static class DirectoryListing {
+        private final long lastModified;
+        private final List<Path> subdirectories;
+
+        DirectoryListing(final long lastModified, final List<Path> subdirectories) {
+            this.lastModified = lastModified;
+            this.subdirectories = subdirectories;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        List<Path> getSubdirectories() {
+            return subdirectories;
+        }
+    }
+
+    /**
+     * Walks a directory tree, either on the calling thread or by listing subdirectories concurrently on a ForkJoinPool, optionally skipping the
+     * directories whose last modification time has not changed since they were last read. The files of a skipped directory are not considered;
+     * its subdirectories, as they were when it was last read, are still walked.
+     */
+    private class DirectoryTraversal {
+        private final Path basePath;
+        private final boolean recurse;
+        private final BiPredicate<Path, BasicFileAttributes> matcher;
+        private final Map<Path, DirectoryListing> previousListings;
+        private final long maxUnchangedTimestamp;
+        private final Map<Path, DirectoryListing> directoryListings = new ConcurrentHashMap<>();
+        private final Set<Object> visitedDirectories = ConcurrentHashMap.newKeySet();
+        private final Queue<Path> matchingFiles = new ConcurrentLinkedQueue<>();
+
+        DirectoryTraversal(final Path basePath, final boolean recurse, final BiPredicate<Path, BasicFileAttributes> matcher, final Map<Path, DirectoryListing> previousListings,
+                           final long maxUnchangedTimestamp) {
+            this.basePath = basePath;
+            this.recurse = recurse;
+            this.matcher = matcher;
+            this.previousListings = previousListings;
+            this.maxUnchangedTimestamp = maxUnchangedTimestamp;
+        }
+
+        /**
+         * Returns a Stream of the files that match the matcher. The directory tree is not walked until the Stream is consumed, at which
+         * point a failure to read a directory results in an UncheckedIOException.
+         */
+        Stream<Path> stream(final ForkJoinPool pool) {
+            return Stream.of(basePath).flatMap(path -> {
+                if (pool == null) {
+                    final Deque<Path> directories = new ArrayDeque<>();
+                    directories.push(path);
+                    while (!directories.isEmpty()) {
+                        listDirectory(directories.pop()).forEach(directories::push);
+                    }
+                } else {
+                    pool.invoke(new DirectoryListingTask(path));
+                }
+
+                return matchingFiles.stream();
+            });
+        }
+
+        Map<Path, DirectoryListing> getDirectoryListings() {
+            return directoryListings;
+        }
+
+        /**
+         * Passes each entry of the given directory to the matcher, unless the directory is unchanged since it was last read, and returns
+         * the subdirectories that should be walked next.
+         */
+        private List<Path> listDirectory(final Path directory) {
+            if (!isScheduled()) {
+                throw new ProcessorStoppedException();
+            }
+
+            performanceTracker.setActiveDirectory(basePath.relativize(directory).toString());
+            try {
+                final BasicFileAttributes directoryAttributes = Files.readAttributes(directory, BasicFileAttributes.class);
+                final Object fileKey = directoryAttributes.fileKey();
+                if (fileKey != null && !visitedDirectories.add(fileKey)) {
+                    // A symbolic link has led back to a directory that has already been walked
+                    return Collections.emptyList();
+                }
+
+                final long lastModified = directoryAttributes.lastModifiedTime().toMillis();
+                final DirectoryListing previousListing = previousListings.get(directory);
+                if (previousListing != null && previousListing.getLastModified() == lastModified) {
+                    directoryListings.put(directory, previousListing);
+                    return previousListing.getSubdirectories();
+                }
+
+                final List<Path> subdirectories = new ArrayList<>();
+                boolean unchanging = lastModified < maxUnchangedTimestamp;
+                try (final DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                    for (final Path entry : entries) {
+                        final BasicFileAttributes attributes;
+                        try {
+                            attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                        } catch (final NoSuchFileException nsfe) {
+                            // The file was removed after the directory was read, or is a broken symbolic link
+                            unchanging = false;
+                            continue;
+                        }
+
+                        if (attributes.isDirectory()) {
+                            if (recurse) {
+                                subdirectories.add(entry);
+                            }
+                        } else if (attributes.lastModifiedTime().toMillis() >= maxUnchangedTimestamp) {
+                            unchanging = false;
+                        }
+
+                        if (matcher.test(entry, attributes)) {
+                            matchingFiles.add(entry);
+                        }
+                    }
+                }
+
+                if (unchanging) {
+                    directoryListings.put(directory, new DirectoryListing(lastModified, subdirectories));
+                }
+
+                return subdirectories;
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            } finally {
+                performanceTracker.completeActiveDirectory();
+            }
+        }
+
+        private class DirectoryListingTask extends RecursiveAction {
+            private final Path directory;
+
+            DirectoryListingTask(final Path directory) {
+                this.directory = directory;
+            }
+
+            @Override
+            protected void compute() {
+                final List<DirectoryListingTask> subtasks = listDirectory(directory).stream()
+                    .map(DirectoryListingTask::new)
+                    .collect(Collectors.toList());
+
+                invokeAll(subtasks);
+            }
+        }
+    }
+
     static class MonitorActiveTasks implements Runnable {
         private final PerformanceTracker performanceTracker;
         private final ComponentLog logger;
@@ -1225,8 +1512,8 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
 
         @Override
         public void run() {
-            monitorActiveOperation();
-            monitorActiveDirectory();
+            monitorActiveOperations();
+            monitorActiveDirectories();
 
             final long now = System.currentTimeMillis();
             final long millisSincePurge = now - lastPurgeTimestamp;
@@ -1236,12 +1523,13 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             }
         }
 
-        private void monitorActiveOperation() {
-            final TimedOperationKey activeOperation = performanceTracker.getActiveOperation();
-            if (activeOperation == null) {
-                return;
+        private void monitorActiveOperations() {
+            for (final TimedOperationKey activeOperation : performanceTracker.getActiveOperations()) {
+                monitorActiveOperation(activeOperation);
             }
+        }
 
+        private void monitorActiveOperation(final TimedOperationKey activeOperation) {
             final long activeTime = System.currentTimeMillis() - activeOperation.getStartTime();
             if (activeTime > maxDiskOperationMillis) {
                 final String directory = activeOperation.getDirectory();
@@ -1259,13 +1547,13 @@ public class ListFile extends AbstractListProcessor<FileInfo> {
             }
         }
 
-        private void monitorActiveDirectory() {
-            final String activeDirectory = performanceTracker.getActiveDirectory();
-            final long startTime = performanceTracker.getActiveDirectoryStartTime();
-            if (startTime <= 0) {
-                return;
+        private void monitorActiveDirectories() {
+            for (final Map.Entry<String, Long> entry : performanceTracker.getActiveDirectories().entrySet()) {
+                monitorActiveDirectory(entry.getKey(), entry.getValue());
             }
+        }
 
+        private void monitorActiveDirectory(final String activeDirectory, final long startTime) {
             final long activeMillis = System.currentTimeMillis() - startTime;
             if (activeMillis > maxListingMillis) {
                 final String fullPath = activeDirectory.isEmpty() ? "the base directory" : activeDirectory;
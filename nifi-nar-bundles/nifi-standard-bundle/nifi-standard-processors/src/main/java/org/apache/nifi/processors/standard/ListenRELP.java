@@ -99,7 +99,7 @@ public class ListenRELP extends AbstractListenEventBatchingProcessor<RELPEvent>
 
     @Override
     protected List<PropertyDescriptor> getAdditionalProperties() {
-        return Arrays.asList(MAX_CONNECTIONS, SSL_CONTEXT_SERVICE, CLIENT_AUTH);
+        return Arrays.asList(MAX_CONNECTIONS, SELECTOR_THREADS, SSL_CONTEXT_SERVICE, CLIENT_AUTH);
     }
 
     @Override
@@ -132,6 +132,7 @@ public class ListenRELP extends AbstractListenEventBatchingProcessor<RELPEvent>
         final ChannelHandlerFactory<RELPEvent,AsyncChannelDispatcher> handlerFactory = new RELPSocketChannelHandlerFactory<>();
 
         final int maxConnections = context.getProperty(MAX_CONNECTIONS).asInteger();
+        final int selectorThreads = context.getProperty(SELECTOR_THREADS).asInteger();
         final int bufferSize = context.getProperty(RECV_BUFFER_SIZE).asDataSize(DataUnit.B).intValue();
         final Charset charSet = Charset.forName(context.getProperty(CHARSET).getValue());
 
@@ -152,7 +153,7 @@ public class ListenRELP extends AbstractListenEventBatchingProcessor<RELPEvent>
 
         // if we decide to support SSL then get the context and pass it in here
         return new SocketChannelDispatcher<>(eventFactory, handlerFactory, bufferPool, events,
-                getLogger(), maxConnections, sslContext, clientAuth, charSet);
+                getLogger(), maxConnections, sslContext, clientAuth, charSet, selectorThreads);
     }
 
     @Override
@@ -39,6 +39,7 @@ import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.processor.util.listen.AbstractListenEventProcessor;
 import org.apache.nifi.processor.util.listen.dispatcher.AsyncChannelDispatcher;
 import org.apache.nifi.processor.util.listen.dispatcher.ChannelDispatcher;
 import org.apache.nifi.processor.util.listen.dispatcher.DatagramChannelDispatcher;
@@ -304,10 +305,7 @@ public class ListenSyslog extends AbstractSyslogProcessor {
             maxConnections = context.getProperty(MAX_CONNECTIONS).asLong().intValue();
         }
 
-        bufferPool = new LinkedBlockingQueue<>(maxConnections);
-        for (int i = 0; i < maxConnections; i++) {
-            bufferPool.offer(ByteBuffer.allocate(bufferSize));
-        }
+        bufferPool = AbstractListenEventProcessor.createBufferPool(maxConnections, bufferSize);
 
         parser = new SyslogParser(Charset.forName(charSet));
         syslogEvents = new LinkedBlockingQueue<>(maxMessageQueueSize);
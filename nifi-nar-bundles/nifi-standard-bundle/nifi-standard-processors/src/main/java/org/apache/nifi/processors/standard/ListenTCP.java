@@ -88,6 +88,7 @@ public class ListenTCP extends AbstractListenEventBatchingProcessor<StandardEven
     protected List<PropertyDescriptor> getAdditionalProperties() {
         return Arrays.asList(
                 MAX_CONNECTIONS,
+                SELECTOR_THREADS,
                 SSL_CONTEXT_SERVICE,
                 CLIENT_AUTH
         );
@@ -114,6 +115,7 @@ public class ListenTCP extends AbstractListenEventBatchingProcessor<StandardEven
             throws IOException {
 
         final int maxConnections = context.getProperty(MAX_CONNECTIONS).asInteger();
+        final int selectorThreads = context.getProperty(SELECTOR_THREADS).asInteger();
         final int bufferSize = context.getProperty(RECV_BUFFER_SIZE).asDataSize(DataUnit.B).intValue();
         final Charset charSet = Charset.forName(context.getProperty(CHARSET).getValue());
 
@@ -133,7 +135,7 @@ public class ListenTCP extends AbstractListenEventBatchingProcessor<StandardEven
 
         final EventFactory<StandardEvent> eventFactory = new StandardEventFactory();
         final ChannelHandlerFactory<StandardEvent<SocketChannel>, AsyncChannelDispatcher> handlerFactory = new SocketChannelHandlerFactory<>();
-        return new SocketChannelDispatcher(eventFactory, handlerFactory, bufferPool, events, getLogger(), maxConnections, sslContext, clientAuth, charSet);
+        return new SocketChannelDispatcher(eventFactory, handlerFactory, bufferPool, events, getLogger(), maxConnections, sslContext, clientAuth, charSet, selectorThreads);
     }
 
     @Override
@@ -39,6 +39,7 @@ import org.apache.nifi.lookup.LookupService;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.record.path.FieldValue;
 import org.apache.nifi.record.path.RecordPath;
 import org.apache.nifi.record.path.RecordPathResult;
@@ -50,7 +51,6 @@ import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.util.DataTypeUtils;
-import org.apache.nifi.util.Tuple;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -58,6 +58,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -89,7 +90,7 @@ import java.util.stream.Collectors;
                     description = "A RecordPath that points to the field whose value will be looked up in the configured Lookup Service")
 @SeeAlso(value = {ConvertRecord.class, SplitRecord.class},
         classNames = {"org.apache.nifi.lookup.SimpleKeyValueLookupService", "org.apache.nifi.lookup.maxmind.IPLookupService", "org.apache.nifi.lookup.db.DatabaseRecordLookupService"})
-public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPath>, RecordPath>> {
+public class LookupRecord extends AbstractRouteRecord<LookupRecord.LookupContext> {
 
     private volatile RecordPathCache recordPathCache = new RecordPathCache(25);
     private volatile LookupService<?> lookupService;
@@ -144,6 +145,18 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
         .required(true)
         .build();
 
+    static final PropertyDescriptor LOOKUP_BATCH_SIZE = new PropertyDescriptor.Builder()
+        .name("lookup-batch-size")
+        .displayName("Lookup Batch Size")
+        .description("The number of Records whose coordinates are gathered before they are looked up together. By default each Record is looked up "
+            + "as soon as it is read. Setting a larger value opts in to batching: each distinct set of coordinates within a batch is looked up only once, "
+            + "and Lookup Services that support it resolve the whole batch with a single request instead of one request per Record. A batch is looked up "
+            + "as a whole, so a Lookup Service that is unable to look up any one of its Records fails the lookup of the entire batch.")
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("1")
+        .required(true)
+        .build();
+
     static final Relationship REL_MATCHED = new Relationship.Builder()
         .name("matched")
         .description("All records for which the lookup returns a value will be routed to this relationship")
@@ -182,6 +195,7 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
         properties.add(RESULT_RECORD_PATH);
         properties.add(ROUTING_STRATEGY);
         properties.add(RESULT_CONTENTS);
+        properties.add(LOOKUP_BATCH_SIZE);
         return properties;
     }
 
@@ -259,11 +273,70 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
         }
     }
 
+    @Override
+    protected int getRecordBatchSize(final ProcessContext context) {
+        return context.getProperty(LOOKUP_BATCH_SIZE).asInteger();
+    }
+
+    @Override
+    protected void prepareBatch(final List<Record> records, final FlowFile flowFile, final ProcessContext context, final LookupContext lookupContext) {
+        lookupContext.batchCoordinates.clear();
+        lookupContext.batchResults.clear();
+        if (records.size() < 2) {
+            return;
+        }
+
+        for (final Record record : records) {
+            final Map<String, Object> lookupCoordinates = getLookupCoordinates(record, lookupContext.lookupRecordPaths);
+            if (lookupCoordinates != null) {
+                lookupContext.batchCoordinates.put(record, lookupCoordinates);
+            }
+        }
+
+        final Set<Map<String, Object>> distinctCoordinates = new HashSet<>(lookupContext.batchCoordinates.values());
+        try {
+            lookupContext.batchResults.putAll(lookupService.lookupAll(distinctCoordinates, flowFile.getAttributes()));
+        } catch (final Exception e) {
+            throw new ProcessException("Failed to lookup " + distinctCoordinates.size() + " sets of coordinates in Lookup Service", e);
+        }
+    }
+
+    /**
+     * @return the coordinates to look up for the given Record, or <code>null</code> if any of the RecordPaths does not select exactly one non-null value
+     */
+    private Map<String, Object> getLookupCoordinates(final Record record, final Map<String, RecordPath> recordPaths) {
+        final Map<String, Object> lookupCoordinates = new HashMap<>(recordPaths.size());
+        for (final Map.Entry<String, RecordPath> entry : recordPaths.entrySet()) {
+            final List<FieldValue> lookupFieldValues = entry.getValue().evaluate(record).getSelectedFields()
+                .filter(fieldVal -> fieldVal.getValue() != null)
+                .collect(Collectors.toList());
+
+            if (lookupFieldValues.size() != 1) {
+                return null;
+            }
+
+            lookupCoordinates.put(entry.getKey(), getCoordinateValue(lookupFieldValues.get(0)));
+        }
+
+        return lookupCoordinates;
+    }
+
+    private Object getCoordinateValue(final FieldValue fieldValue) {
+        return (fieldValue.getValue() instanceof Number || fieldValue.getValue() instanceof Boolean)
+                ? fieldValue.getValue() : DataTypeUtils.toString(fieldValue.getValue(), (String) null);
+    }
+
     @Override
     protected Set<Relationship> route(final Record record, final RecordSchema writeSchema, final FlowFile flowFile, final ProcessContext context,
-        final Tuple<Map<String, RecordPath>, RecordPath> flowFileContext) {
+        final LookupContext lookupContext) {
+
+        final Map<String, Object> batchCoordinates = lookupContext.batchCoordinates.remove(record);
+        if (batchCoordinates != null) {
+            // the Record was looked up along with the rest of its batch
+            return enrich(record, Optional.ofNullable(lookupContext.batchResults.get(batchCoordinates)), context, lookupContext);
+        }
 
-        final Map<String, RecordPath> recordPaths = flowFileContext.getKey();
+        final Map<String, RecordPath> recordPaths = lookupContext.lookupRecordPaths;
         final Map<String, Object> lookupCoordinates = new HashMap<>(recordPaths.size());
 
         for (final Map.Entry<String, RecordPath> entry : recordPaths.entrySet()) {
@@ -288,10 +361,7 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
                 return rels;
             }
 
-            final FieldValue fieldValue = lookupFieldValues.get(0);
-            final Object coordinateValue = (fieldValue.getValue() instanceof Number || fieldValue.getValue() instanceof Boolean)
-                    ? fieldValue.getValue() : DataTypeUtils.toString(fieldValue.getValue(), (String) null);
-            lookupCoordinates.put(coordinateKey, coordinateValue);
+            lookupCoordinates.put(coordinateKey, getCoordinateValue(lookupFieldValues.get(0)));
         }
 
         final Optional<?> lookupValueOption;
@@ -301,16 +371,20 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
             throw new ProcessException("Failed to lookup coordinates " + lookupCoordinates + " in Lookup Service", e);
         }
 
+        return enrich(record, lookupValueOption, context, lookupContext);
+    }
+
+    private Set<Relationship> enrich(final Record record, final Optional<?> lookupValueOption, final ProcessContext context, final LookupContext lookupContext) {
         if (!lookupValueOption.isPresent()) {
             final Set<Relationship> rels = routeToMatchedUnmatched ? UNMATCHED_COLLECTION : SUCCESS_COLLECTION;
             return rels;
         }
 
         // Ensure that the Record has the appropriate schema to account for the newly added values
-        final RecordPath resultPath = flowFileContext.getValue();
+        final RecordPath resultPath = lookupContext.resultRecordPath;
         if (resultPath != null) {
             final Object lookupValue = lookupValueOption.get();
-            final RecordPathResult resultPathResult = flowFileContext.getValue().evaluate(record);
+            final RecordPathResult resultPathResult = resultPath.evaluate(record);
 
             final String resultContentsValue = context.getProperty(RESULT_CONTENTS).getValue();
             if (RESULT_RECORD_FIELDS.getValue().equals(resultContentsValue) && lookupValue instanceof Record) {
@@ -367,7 +441,7 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
     }
 
     @Override
-    protected Tuple<Map<String, RecordPath>, RecordPath> getFlowFileContext(final FlowFile flowFile, final ProcessContext context) {
+    protected LookupContext getFlowFileContext(final FlowFile flowFile, final ProcessContext context) {
         final Map<String, RecordPath> recordPaths = new HashMap<>();
         for (final PropertyDescriptor prop : context.getProperties().keySet()) {
             if (!prop.isDynamic()) {
@@ -387,7 +461,20 @@ public class LookupRecord extends AbstractRouteRecord<Tuple<Map<String, RecordPa
             resultRecordPath = null;
         }
 
-        return new Tuple<>(recordPaths, resultRecordPath);
+        return new LookupContext(recordPaths, resultRecordPath);
+    }
+
+    static class LookupContext {
+        private final Map<String, RecordPath> lookupRecordPaths;
+        private final RecordPath resultRecordPath;
+        // the coordinates of each Record in the current batch, and the values that were found for them
+        private final Map<Record, Map<String, Object>> batchCoordinates = new IdentityHashMap<>();
+        private final Map<Map<String, Object>, Object> batchResults = new HashMap<>();
+
+        private LookupContext(final Map<String, RecordPath> lookupRecordPaths, final RecordPath resultRecordPath) {
+            this.lookupRecordPaths = lookupRecordPaths;
+            this.resultRecordPath = resultRecordPath;
+        }
     }
 
 }
@@ -38,8 +38,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipOutputStream;
@@ -68,6 +70,7 @@ import org.apache.nifi.annotation.behavior.WritesAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.ValidationContext;
@@ -308,6 +311,17 @@ public class MergeContent extends BinFiles {
             .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
             .expressionLanguageSupported(ExpressionLanguageScope.FLOWFILE_ATTRIBUTES)
             .build();
+    public static final PropertyDescriptor INCREMENTAL_MERGE = new PropertyDescriptor.Builder()
+            .name("incremental-merge")
+            .displayName("Incremental Merge")
+            .description("If using the Binary Concatenation Merge Format with the Bin-Packing Algorithm, specifies whether the content of each FlowFile is "
+                    + "appended to the merged FlowFile as soon as the FlowFile is added to a bin, rather than all at once when the bin is complete. This spreads "
+                    + "the reading of content over the life of the bin, so that completing a large bin does not cause a burst of I/O. This property is "
+                    + "ignored for other Merge Formats and for the Defragment Merge Strategy.")
+            .required(true)
+            .allowableValues("true", "false")
+            .defaultValue("false")
+            .build();
     public static final PropertyDescriptor COMPRESSION_LEVEL = new PropertyDescriptor.Builder()
             .name("Compression Level")
             .description("Specifies the compression level to use when using the Zip Merge Format; if not using the Zip Merge Format, this value is "
@@ -339,6 +353,8 @@ public class MergeContent extends BinFiles {
 
     public static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+");
 
+    private final Map<Bin, IncrementalMerge> incrementalMerges = new ConcurrentHashMap<>();
+
     @Override
     public Set<Relationship> getRelationships() {
         final Set<Relationship> relationships = new HashSet<>();
@@ -366,6 +382,7 @@ public class MergeContent extends BinFiles {
         descriptors.add(HEADER);
         descriptors.add(FOOTER);
         descriptors.add(DEMARCATOR);
+        descriptors.add(INCREMENTAL_MERGE);
         descriptors.add(COMPRESSION_LEVEL);
         descriptors.add(KEEP_PATH);
         descriptors.add(TAR_MODIFIED_TIME);
@@ -438,11 +455,61 @@ public class MergeContent extends BinFiles {
         } else {
             binManager.setFileCountAttribute(null);
         }
+
+        if (MERGE_STRATEGY_BIN_PACK.getValue().equals(context.getProperty(MERGE_STRATEGY).getValue())
+                && MERGE_FORMAT_CONCAT_VALUE.equals(context.getProperty(MERGE_FORMAT).getValue())
+                && context.getProperty(INCREMENTAL_MERGE).asBoolean()) {
+            binManager.setBinnedFlowFileListener((bin, flowFile) -> appendToMergedFlowFile(context, bin, flowFile));
+        } else {
+            binManager.setBinnedFlowFileListener(null);
+        }
+    }
+
+    @OnStopped
+    public void clearIncrementalMerges() {
+        // the merged FlowFiles are discarded along with the sessions of the bins that are purged
+        incrementalMerges.clear();
+    }
+
+    private void appendToMergedFlowFile(final ProcessContext context, final Bin bin, final FlowFile flowFile) {
+        final IncrementalMerge incrementalMerge = incrementalMerges.computeIfAbsent(bin, key -> new IncrementalMerge());
+        if (incrementalMerge.failed) {
+            return;
+        }
+
+        final ProcessSession session = bin.getSession();
+        try {
+            final byte[] delimiter;
+            if (incrementalMerge.bundle == null) {
+                // the delimiters are evaluated against the first FlowFile of the bin, which is this one
+                incrementalMerge.demarcator = getDelimiterContent(context, bin.getContents(), DEMARCATOR);
+                incrementalMerge.bundle = session.create(bin.getContents());
+                delimiter = getDelimiterContent(context, bin.getContents(), HEADER);
+            } else {
+                delimiter = incrementalMerge.demarcator;
+            }
+
+            incrementalMerge.bundle = session.append(incrementalMerge.bundle, out -> {
+                if (delimiter != null) {
+                    out.write(delimiter);
+                }
+                session.read(flowFile, false, in -> StreamUtils.copy(in, out));
+            });
+            incrementalMerge.count++;
+        } catch (final Exception e) {
+            getLogger().warn("Failed to append {} to the merged FlowFile of its bin; the bin will be merged when it is complete instead", new Object[]{flowFile}, e);
+            incrementalMerge.failed = true;
+            if (incrementalMerge.bundle != null) {
+                session.remove(incrementalMerge.bundle);
+                incrementalMerge.bundle = null;
+            }
+        }
     }
 
     @Override
     protected BinProcessingResult processBin(final Bin bin, final ProcessContext context) throws ProcessException {
         final BinProcessingResult binProcessingResult = new BinProcessingResult(true);
+        final IncrementalMerge incrementalMerge = incrementalMerges.remove(bin);
         final String mergeFormat = context.getProperty(MERGE_FORMAT).getValue();
         MergeBin merger;
         switch (mergeFormat) {
@@ -462,7 +529,7 @@ public class MergeContent extends BinFiles {
                 merger = new FlowFileStreamMerger(new FlowFilePackagerV1(), "application/flowfile-v1");
                 break;
             case MERGE_FORMAT_CONCAT_VALUE:
-                merger = new BinaryConcatenationMerge();
+                merger = new BinaryConcatenationMerge(incrementalMerge);
                 break;
             case MERGE_FORMAT_AVRO_VALUE:
                 merger = new AvroMerge();
@@ -579,9 +646,11 @@ public class MergeContent extends BinFiles {
 
     private class BinaryConcatenationMerge implements MergeBin {
 
+        private final IncrementalMerge incrementalMerge;
         private String mimeType = "application/octet-stream";
 
-        public BinaryConcatenationMerge() {
+        public BinaryConcatenationMerge(final IncrementalMerge incrementalMerge) {
+            this.incrementalMerge = incrementalMerge;
         }
 
         @Override
@@ -589,8 +658,18 @@ public class MergeContent extends BinFiles {
             final List<FlowFile> contents = bin.getContents();
 
             final ProcessSession session = bin.getSession();
+            if (incrementalMerge != null && incrementalMerge.bundle != null) {
+                // the bundle was created with the first FlowFile of the bin as its parent, so it only has the lineage of the bin
+                // if none of the other FlowFiles has an older lineage; if one does, the bundle has to be created from all of them
+                final long lineageStartDate = contents.stream().mapToLong(FlowFile::getLineageStartDate).min().orElse(Long.MAX_VALUE);
+                if (incrementalMerge.count == contents.size() && contents.get(0).getLineageStartDate() <= lineageStartDate) {
+                    return mergeIncrementally(bin, context);
+                }
+
+                session.remove(incrementalMerge.bundle);
+            }
+
             FlowFile bundle = session.create(bin.getContents());
-            final AtomicReference<String> bundleMimeTypeRef = new AtomicReference<>(null);
             try {
                 bundle = session.write(bundle, new OutputStreamCallback() {
                     @Override
@@ -600,7 +679,6 @@ public class MergeContent extends BinFiles {
                             out.write(header);
                         }
 
-                        boolean isFirst = true;
                         final Iterator<FlowFile> itr = contents.iterator();
                         while (itr.hasNext()) {
                             final FlowFile flowFile = itr.next();
@@ -617,16 +695,6 @@ public class MergeContent extends BinFiles {
                                     out.write(demarcator);
                                 }
                             }
-
-                            final String flowFileMimeType = flowFile.getAttribute(CoreAttributes.MIME_TYPE.key());
-                            if (isFirst) {
-                                bundleMimeTypeRef.set(flowFileMimeType);
-                                isFirst = false;
-                            } else {
-                                if (bundleMimeTypeRef.get() != null && !bundleMimeTypeRef.get().equals(flowFileMimeType)) {
-                                    bundleMimeTypeRef.set(null);
-                                }
-                            }
                         }
 
                         final byte[] footer = getDelimiterContent(context, contents, FOOTER);
@@ -640,52 +708,52 @@ public class MergeContent extends BinFiles {
                 throw e;
             }
 
-            session.getProvenanceReporter().join(contents, bundle);
-            bundle = session.putAttribute(bundle, CoreAttributes.FILENAME.key(), createFilename(contents));
-            if (bundleMimeTypeRef.get() != null) {
-                this.mimeType = bundleMimeTypeRef.get();
-            }
-
-            return bundle;
+            return completeBundle(session, contents, bundle);
         }
 
-        private byte[] getDelimiterContent(final ProcessContext context, final List<FlowFile> wrappers, final PropertyDescriptor descriptor) throws IOException {
-            final String delimiterStrategyValue = context.getProperty(DELIMITER_STRATEGY).getValue();
-            if (DELIMITER_STRATEGY_FILENAME.equals(delimiterStrategyValue)) {
-                return getDelimiterFileContent(context, wrappers, descriptor);
-            } else {
-                return getDelimiterTextContent(context, wrappers, descriptor);
-            }
-        }
+        private FlowFile mergeIncrementally(final Bin bin, final ProcessContext context) {
+            final List<FlowFile> contents = bin.getContents();
+            final ProcessSession session = bin.getSession();
+
+            // everything but the footer was written as the FlowFiles were binned
+            FlowFile bundle = incrementalMerge.bundle;
+
+            // the bundle inherited all of the attributes of the first FlowFile, but it only keeps those that all of the FlowFiles share,
+            // just as if it had been created from all of them
+            final FlowFile first = contents.get(0);
+            final Set<String> unsharedAttributes = first.getAttributes().entrySet().stream()
+                .filter(entry -> !CoreAttributes.UUID.key().equals(entry.getKey()))
+                .filter(entry -> contents.stream().anyMatch(flowFile -> !entry.getValue().equals(flowFile.getAttribute(entry.getKey()))))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+            bundle = session.removeAllAttributes(bundle, unsharedAttributes);
 
-        private byte[] getDelimiterFileContent(final ProcessContext context, final List<FlowFile> flowFiles, final PropertyDescriptor descriptor)
-                throws IOException {
-            byte[] property = null;
-            if (flowFiles != null && flowFiles.size() > 0) {
-                final FlowFile flowFile = flowFiles.get(0);
-                if (flowFile != null) {
-                    final String value = context.getProperty(descriptor).evaluateAttributeExpressions(flowFile).getValue();
-                    if (value != null) {
-                        property = readContent(value);
+            try {
+                bundle = session.append(bundle, out -> {
+                    final byte[] footer = getDelimiterContent(context, contents, FOOTER);
+                    if (footer != null) {
+                        out.write(footer);
                     }
-                }
+                });
+            } catch (final Exception e) {
+                session.remove(bundle);
+                throw e;
             }
-            return property;
+
+            return completeBundle(session, contents, bundle);
         }
 
-        private byte[] getDelimiterTextContent(final ProcessContext context, final List<FlowFile> flowFiles, final PropertyDescriptor descriptor)
-                throws IOException {
-            byte[] property = null;
-            if (flowFiles != null && flowFiles.size() > 0) {
-                final FlowFile flowFile = flowFiles.get(0);
-                if (flowFile != null) {
-                    final String value = context.getProperty(descriptor).evaluateAttributeExpressions(flowFile).getValue();
-                    if (value != null) {
-                        property = value.getBytes(StandardCharsets.UTF_8);
-                    }
-                }
+        private FlowFile completeBundle(final ProcessSession session, final List<FlowFile> contents, FlowFile bundle) {
+            session.getProvenanceReporter().join(contents, bundle);
+            bundle = session.putAttribute(bundle, CoreAttributes.FILENAME.key(), createFilename(contents));
+
+            // the bundle keeps the MIME Type of its FlowFiles only if they all have the same one
+            final String bundleMimeType = contents.get(0).getAttribute(CoreAttributes.MIME_TYPE.key());
+            if (bundleMimeType != null && contents.stream().allMatch(flowFile -> bundleMimeType.equals(flowFile.getAttribute(CoreAttributes.MIME_TYPE.key())))) {
+                this.mimeType = bundleMimeType;
             }
-            return property;
+
+            return bundle;
         }
 
         @Override
@@ -700,6 +768,45 @@ public class MergeContent extends BinFiles {
     }
 
 
+    private byte[] getDelimiterContent(final ProcessContext context, final List<FlowFile> wrappers, final PropertyDescriptor descriptor) throws IOException {
+        final String delimiterStrategyValue = context.getProperty(DELIMITER_STRATEGY).getValue();
+        if (DELIMITER_STRATEGY_FILENAME.equals(delimiterStrategyValue)) {
+            return getDelimiterFileContent(context, wrappers, descriptor);
+        } else {
+            return getDelimiterTextContent(context, wrappers, descriptor);
+        }
+    }
+
+    private byte[] getDelimiterFileContent(final ProcessContext context, final List<FlowFile> flowFiles, final PropertyDescriptor descriptor)
+            throws IOException {
+        byte[] property = null;
+        if (flowFiles != null && flowFiles.size() > 0) {
+            final FlowFile flowFile = flowFiles.get(0);
+            if (flowFile != null) {
+                final String value = context.getProperty(descriptor).evaluateAttributeExpressions(flowFile).getValue();
+                if (value != null) {
+                    property = readContent(value);
+                }
+            }
+        }
+        return property;
+    }
+
+    private byte[] getDelimiterTextContent(final ProcessContext context, final List<FlowFile> flowFiles, final PropertyDescriptor descriptor)
+            throws IOException {
+        byte[] property = null;
+        if (flowFiles != null && flowFiles.size() > 0) {
+            final FlowFile flowFile = flowFiles.get(0);
+            if (flowFile != null) {
+                final String value = context.getProperty(descriptor).evaluateAttributeExpressions(flowFile).getValue();
+                if (value != null) {
+                    property = value.getBytes(StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return property;
+    }
+
     private String getPath(final FlowFile flowFile) {
         Path path = Paths.get(flowFile.getAttribute(CoreAttributes.PATH.key()));
         if (path.getNameCount() == 0) {
@@ -1081,6 +1188,13 @@ public class MergeContent extends BinFiles {
         }
     }
 
+    private static class IncrementalMerge {
+        private FlowFile bundle;
+        private byte[] demarcator;
+        private int count;
+        private boolean failed;
+    }
+
     private interface MergeBin {
 
         FlowFile merge(Bin bin, ProcessContext context);
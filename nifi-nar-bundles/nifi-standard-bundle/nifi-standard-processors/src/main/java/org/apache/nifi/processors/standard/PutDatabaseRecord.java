@@ -122,6 +122,13 @@ public class PutDatabaseRecord extends AbstractSessionFactoryProcessor {
             "Fail on Unmatched Columns",
             "A flow will fail if any column in the database that does not have a field in the document.  An error will be logged");
 
+    static final AllowableValue SINGLE_ROW_INSERT = new AllowableValue("single-row", "Single Row Statements",
+            "Each record is inserted by its own INSERT statement, and the statements are sent to the database in batches by the JDBC driver.");
+    static final AllowableValue MULTI_ROW_INSERT = new AllowableValue("multi-row", "Multi-Row VALUES Statements",
+            "Records are inserted by INSERT statements whose VALUES clause contains as many rows as can be included without exceeding the 'Maximum Statement Parameters'. "
+            + "This is typically much faster than single row statements for databases whose JDBC drivers do not rewrite batches themselves, but requires the database "
+            + "to support multi-row VALUES clauses.");
+
     // Relationships
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
             .name("success")
@@ -299,6 +306,26 @@ public class PutDatabaseRecord extends AbstractSessionFactoryProcessor {
             .expressionLanguageSupported(ExpressionLanguageScope.FLOWFILE_ATTRIBUTES)
             .build();
 
+    static final PropertyDescriptor INSERT_STATEMENT_STRATEGY = new PropertyDescriptor.Builder()
+            .name("put-db-record-insert-statement-strategy")
+            .displayName("Insert Statement Strategy")
+            .description("Specifies how the INSERT statements for the records are generated. This parameter has no effect for other statements specified in 'Statement Type'.")
+            .allowableValues(SINGLE_ROW_INSERT, MULTI_ROW_INSERT)
+            .defaultValue(SINGLE_ROW_INSERT.getValue())
+            .required(true)
+            .build();
+
+    static final PropertyDescriptor MAX_STATEMENT_PARAMETERS = new PropertyDescriptor.Builder()
+            .name("put-db-record-max-statement-parameters")
+            .displayName("Maximum Statement Parameters")
+            .description("The maximum number of parameters that a single multi-row INSERT statement may contain, which determines how many records are inserted by each "
+                    + "statement. Most databases limit the number of parameters in a statement, for instance to 2100 for SQL Server and 32767 for PostgreSQL. "
+                    + "This parameter only has an effect if the 'Insert Statement Strategy' is '" + MULTI_ROW_INSERT.getDisplayName() + "'.")
+            .defaultValue("2000")
+            .required(true)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
     protected static List<PropertyDescriptor> propDescriptors;
 
     private Cache<SchemaKey, TableSchema> schemaCache;
@@ -329,6 +356,8 @@ public class PutDatabaseRecord extends AbstractSessionFactoryProcessor {
         pds.add(RollbackOnFailure.ROLLBACK_ON_FAILURE);
         pds.add(TABLE_SCHEMA_CACHE_SIZE);
         pds.add(MAX_BATCH_SIZE);
+        pds.add(INSERT_STATEMENT_STRATEGY);
+        pds.add(MAX_STATEMENT_PARAMETERS);
 
         propDescriptors = Collections.unmodifiableList(pds);
     }
@@ -426,7 +455,8 @@ public class PutDatabaseRecord extends AbstractSessionFactoryProcessor {
             }
 
             if (e instanceof BatchUpdateException
-                    || (SQL_TYPE.equalsIgnoreCase(statementType) && context.getProperty(ALLOW_MULTIPLE_STATEMENTS).asBoolean())) {
+                    || (SQL_TYPE.equalsIgnoreCase(statementType) && context.getProperty(ALLOW_MULTIPLE_STATEMENTS).asBoolean())
+                    || (INSERT_TYPE.equalsIgnoreCase(statementType) && isMultiRowInsert(context))) {
                 try {
                     // Although process session will move forward in order to route the failed FlowFile,
                     // database transaction should be rolled back to avoid partial batch update.
@@ -573,14 +603,7 @@ public class PutDatabaseRecord extends AbstractSessionFactoryProcessor {
 
         try (Statement s = con.createStatement()) {
 
-            try {
-                s.setQueryTimeout(functionContext.queryTimeout); // timeout in seconds
-            } catch (SQLException se) {
-                // If the driver doesn't support query timeout, then assume it is "infinite". Allow a timeout of zero only
-                if (functionContext.queryTimeout > 0) {
-                    throw se;
-                }
-            }
+            setQueryTimeout(s, functionContext.queryTimeout);
 
             Record currentRecord;
             while ((currentRecord = recordParser.nextRecord()) != null) {
@@ -668,17 +691,14 @@ public class PutDatabaseRecord extends AbstractSessionFactoryProcessor {
             throw new IllegalArgumentException(format("Statement Type %s is not valid, FlowFile %s", statementType, flowFile));
         }
 
+        if (INSERT_TYPE.equalsIgnoreCase(statementType) && isMultiRowInsert(context)) {
+            executeMultiRowInsert(context, session, flowFile, functionContext, result, con, recordParser, sqlHolder);
+            return;
+        }
+
         try (PreparedStatement ps = con.prepareStatement(sqlHolder.getSql())) {
 
-            final int queryTimeout = functionContext.queryTimeout;
-            try {
-                ps.setQueryTimeout(queryTimeout); // timeout in seconds
-            } catch (SQLException se) {
-                // If the driver doesn't support query timeout, then assume it is "infinite". Allow a timeout of zero only
-                if (queryTimeout > 0) {
-                    throw se;
-                }
-            }
+            setQueryTimeout(ps, functionContext.queryTimeout);
 
             Record currentRecord;
             List<Integer> fieldIndexes = sqlHolder.getFieldIndexes();
@@ -742,6 +762,112 @@ public class PutDatabaseRecord extends AbstractSessionFactoryProcessor {
         }
     }
 
+    private boolean isMultiRowInsert(final ProcessContext context) {
+        return MULTI_ROW_INSERT.getValue().equals(context.getProperty(INSERT_STATEMENT_STRATEGY).getValue());
+    }
+
+    /**
+     * Inserts the records using INSERT statements with multi-row VALUES clauses. All but the last statement insert the same number of rows, so they share a
+     * PreparedStatement and are executed in batches; the remaining rows are inserted by a statement of their own.
+     */
+    private void executeMultiRowInsert(final ProcessContext context, final ProcessSession session, final FlowFile flowFile, final FunctionContext functionContext,
+                                       final RoutingResult result, final Connection con, final RecordReader recordParser, final SqlAndIncludedColumns sqlHolder)
+            throws MalformedRecordException, IOException, SQLException {
+
+        final ComponentLog log = getLogger();
+        final List<Integer> fieldIndexes = sqlHolder.getFieldIndexes();
+        final int maxStatementParameters = context.getProperty(MAX_STATEMENT_PARAMETERS).asInteger();
+        final int rowsPerStatement = Math.max(1, maxStatementParameters / Math.max(1, fieldIndexes.size()));
+        final Integer maxBatchSize = context.getProperty(MAX_BATCH_SIZE).evaluateAttributeExpressions(flowFile).asInteger();
+
+        final List<Record> rows = new ArrayList<>(rowsPerStatement);
+        final String sql = generateMultiRowInsert(sqlHolder, rowsPerStatement);
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            setQueryTimeout(ps, functionContext.queryTimeout);
+
+            int rowsInBatch = 0;
+            int batchIndex = 0;
+
+            Record currentRecord;
+            while ((currentRecord = recordParser.nextRecord()) != null) {
+                rows.add(currentRecord);
+                if (rows.size() < rowsPerStatement) {
+                    continue;
+                }
+
+                setMultiRowParameters(ps, rows, fieldIndexes);
+                ps.addBatch();
+                rows.clear();
+
+                rowsInBatch += rowsPerStatement;
+                if (maxBatchSize != null && maxBatchSize > 0 && rowsInBatch >= maxBatchSize) {
+                    batchIndex++;
+                    log.debug("Executing multi-row insert of {} rows per statement; fieldIndexes: {}; batch index: {}; batch size: {}",
+                            new Object[]{rowsPerStatement, fieldIndexes, batchIndex, rowsInBatch});
+                    ps.executeBatch();
+                    rowsInBatch = 0;
+                }
+            }
+
+            if (rowsInBatch > 0) {
+                batchIndex++;
+                log.debug("Executing multi-row insert of {} rows per statement; fieldIndexes: {}; batch index: {}; batch size: {}",
+                        new Object[]{rowsPerStatement, fieldIndexes, batchIndex, rowsInBatch});
+                ps.executeBatch();
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            try (PreparedStatement ps = con.prepareStatement(generateMultiRowInsert(sqlHolder, rows.size()))) {
+                setQueryTimeout(ps, functionContext.queryTimeout);
+                setMultiRowParameters(ps, rows, fieldIndexes);
+
+                log.debug("Executing multi-row insert of the remaining {} rows; fieldIndexes: {}", new Object[]{rows.size(), fieldIndexes});
+                ps.executeUpdate();
+            }
+        }
+
+        result.routeTo(flowFile, REL_SUCCESS);
+        session.getProvenanceReporter().send(flowFile, functionContext.jdbcUrl);
+    }
+
+    private void setMultiRowParameters(final PreparedStatement ps, final List<Record> rows, final List<Integer> fieldIndexes) throws SQLException {
+        int parameterIndex = 1;
+        for (final Record row : rows) {
+            final Object[] values = row.getValues();
+            final List<DataType> dataTypes = row.getSchema().getDataTypes();
+            for (final int fieldIndex : fieldIndexes) {
+                final int sqlType = DataTypeUtils.getSQLTypeValue(dataTypes.get(fieldIndex));
+                ps.setObject(parameterIndex++, values[fieldIndex], sqlType);
+            }
+        }
+    }
+
+    private void setQueryTimeout(final Statement statement, final int queryTimeout) throws SQLException {
+        try {
+            statement.setQueryTimeout(queryTimeout); // timeout in seconds
+        } catch (SQLException se) {
+            // If the driver doesn't support query timeout, then assume it is "infinite". Allow a timeout of zero only
+            if (queryTimeout > 0) {
+                throw se;
+            }
+        }
+    }
+
+    /**
+     * Extends the single row INSERT statement generated by {@link #generateInsert(RecordSchema, String, TableSchema, DMLSettings)} so that its VALUES clause
+     * contains the given number of rows.
+     */
+    String generateMultiRowInsert(final SqlAndIncludedColumns singleRowInsert, final int rowCount) {
+        final String rowPlaceholders = "(" + StringUtils.repeat("?", ",", singleRowInsert.getFieldIndexes().size()) + ")";
+
+        final StringBuilder sqlBuilder = new StringBuilder(singleRowInsert.getSql());
+        for (int i = 1; i < rowCount; i++) {
+            sqlBuilder.append(", ").append(rowPlaceholders);
+        }
+        return sqlBuilder.toString();
+    }
+
     @Override
     public void onTrigger(ProcessContext context, ProcessSessionFactory sessionFactory) throws ProcessException {
 
@@ -35,6 +35,7 @@ import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.record.path.FieldValue;
 import org.apache.nifi.record.path.RecordPath;
 import org.apache.nifi.record.path.RecordPathResult;
@@ -87,6 +88,18 @@ public class UpdateRecord extends AbstractRecordProcessor {
             + "that should be evaluated against the Record, and the result of the RecordPath will be used to update the Record. Note that if this option is selected, "
             + "and the Record Path results in multiple values for a given Record, the input FlowFile will be routed to the 'failure' Relationship.");
 
+    static final PropertyDescriptor RECORD_PROCESSING_THREADS = new PropertyDescriptor.Builder()
+        .name("record-processing-threads")
+        .displayName("Record Processing Threads")
+        .description("The number of threads to use for processing the Records of a single FlowFile. Records are still read and written, in order, by the thread "
+            + "that processes the FlowFile, but are handed off in batches to a pool of this many threads to be updated. This allows a very large FlowFile "
+            + "to make use of more than one core. A value of 1 processes every Record on the thread that processes the FlowFile.")
+        .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("1")
+        .required(true)
+        .build();
+
     static final PropertyDescriptor REPLACEMENT_VALUE_STRATEGY = new PropertyDescriptor.Builder()
         .name("replacement-value-strategy")
         .displayName("Replacement Value Strategy")
@@ -101,9 +114,15 @@ public class UpdateRecord extends AbstractRecordProcessor {
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<>(super.getSupportedPropertyDescriptors());
         properties.add(REPLACEMENT_VALUE_STRATEGY);
+        properties.add(RECORD_PROCESSING_THREADS);
         return properties;
     }
 
+    @Override
+    protected int getRecordProcessingThreads(final ProcessContext context) {
+        return context.getProperty(RECORD_PROCESSING_THREADS).asInteger();
+    }
+
     @Override
     protected PropertyDescriptor getSupportedDynamicPropertyDescriptor(final String propertyDescriptorName) {
         return new PropertyDescriptor.Builder()
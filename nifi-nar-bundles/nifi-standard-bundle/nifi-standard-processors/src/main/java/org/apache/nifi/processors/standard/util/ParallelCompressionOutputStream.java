@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.processors.standard.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * An OutputStream that splits the data written to it into blocks of a fixed size and compresses each block independently on an
+ * ExecutorService, writing the compressed blocks to the underlying stream in the order in which they were written. Each block is
+ * compressed into a complete stream of its own (a gzip member, a zstd frame, and so on), so the output is the concatenation of those
+ * streams. This is only appropriate for compression formats whose decompressors treat concatenated streams as a single stream, such as
+ * gzip, bzip2, xz and zstd.
+ */
+public class ParallelCompressionOutputStream extends OutputStream {
+
+    /**
+     * Creates the stream that compresses a single block.
+     */
+    public interface CompressionStreamFactory {
+        OutputStream create(OutputStream out) throws IOException;
+    }
+
+    private final OutputStream out;
+    private final CompressionStreamFactory streamFactory;
+    private final ExecutorService executor;
+    private final int blockSize;
+    private final int maxOutstandingBlocks;
+    private final Deque<Future<byte[]>> outstandingBlocks = new ArrayDeque<>();
+
+    private byte[] block;
+    private int blockLength = 0;
+    private boolean blockWritten = false;
+    private boolean closed = false;
+
+    /**
+     * @param out the stream to write the compressed blocks to
+     * @param streamFactory creates the compression stream for each block
+     * @param executor the executor on which to compress the blocks
+     * @param blockSize the number of uncompressed bytes in each block
+     * @param maxOutstandingBlocks the maximum number of blocks that may be waiting to be compressed or written at any time,
+     *                             which bounds the memory used by this stream
+     */
+    public ParallelCompressionOutputStream(final OutputStream out, final CompressionStreamFactory streamFactory, final ExecutorService executor,
+                                           final int blockSize, final int maxOutstandingBlocks) {
+        if (blockSize < 1 || maxOutstandingBlocks < 1) {
+            throw new IllegalArgumentException("Block size and maximum number of outstanding blocks must be positive");
+        }
+
+        this.out = out;
+        this.streamFactory = streamFactory;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.maxOutstandingBlocks = maxOutstandingBlocks;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final int toCopy = Math.min(remaining, blockSize - blockLength);
+            System.arraycopy(b, offset, block, blockLength, toCopy);
+            blockLength += toCopy;
+            offset += toCopy;
+            remaining -= toCopy;
+
+            if (blockLength == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes all of the blocks that have been compressed so far to the underlying stream. Data that does not yet fill a block is not
+     * compressed until the block is full or the stream is closed, as flushing it would split the output into smaller blocks.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        while (!outstandingBlocks.isEmpty() && outstandingBlocks.peekFirst().isDone()) {
+            writeBlock(outstandingBlocks.pollFirst());
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            // Always produce at least one block so that empty input still results in a valid compressed stream
+            if (blockLength > 0 || !blockWritten) {
+                submitBlock();
+            }
+
+            while (!outstandingBlocks.isEmpty()) {
+                writeBlock(outstandingBlocks.pollFirst());
+            }
+            out.flush();
+        } finally {
+            closed = true;
+            outstandingBlocks.forEach(future -> future.cancel(true));
+            outstandingBlocks.clear();
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = block;
+        final int length = blockLength;
+        outstandingBlocks.addLast(executor.submit(() -> compress(data, length)));
+        blockWritten = true;
+
+        block = new byte[blockSize];
+        blockLength = 0;
+
+        if (outstandingBlocks.size() >= maxOutstandingBlocks) {
+            writeBlock(outstandingBlocks.pollFirst());
+        }
+    }
+
+    private byte[] compress(final byte[] data, final int length) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, length / 2));
+        try (final OutputStream compressionOut = streamFactory.create(compressed)) {
+            compressionOut.write(data, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    private void writeBlock(final Future<byte[]> future) throws IOException {
+        final byte[] compressed;
+        try {
+            compressed = future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for block to be compressed");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to compress block", cause);
+        }
+
+        out.write(compressed);
+    }
+}
@@ -874,6 +874,79 @@ class TestPutDatabaseRecord {
         verify(spyStmt.get(), times(1)).executeBatch()
     }
 
+    @Test
+    void testMultiRowInsert() throws InitializationException, ProcessException, SQLException, IOException {
+        recreateTable("PERSONS", createPersons)
+        final MockRecordParser parser = new MockRecordParser()
+        runner.addControllerService("parser", parser)
+        runner.enableControllerService(parser)
+
+        parser.addSchemaField("id", RecordFieldType.INT)
+        parser.addSchemaField("name", RecordFieldType.STRING)
+        parser.addSchemaField("code", RecordFieldType.INT)
+
+        (1..11).each {
+            parser.addRecord(it, it == 5 ? null : "rec$it".toString(), 100 + it)
+        }
+
+        runner.setProperty(PutDatabaseRecord.RECORD_READER_FACTORY, 'parser')
+        runner.setProperty(PutDatabaseRecord.STATEMENT_TYPE, PutDatabaseRecord.INSERT_TYPE)
+        runner.setProperty(PutDatabaseRecord.TABLE_NAME, 'PERSONS')
+        runner.setProperty(PutDatabaseRecord.INSERT_STATEMENT_STRATEGY, PutDatabaseRecord.MULTI_ROW_INSERT.getValue())
+        // Two rows of three columns per statement
+        runner.setProperty(PutDatabaseRecord.MAX_STATEMENT_PARAMETERS, "7")
+
+        runner.enqueue(new byte[0])
+        runner.run()
+
+        runner.assertTransferCount(PutDatabaseRecord.REL_SUCCESS, 1)
+        final Connection conn = dbcp.getConnection()
+        final Statement stmt = conn.createStatement()
+        final ResultSet rs = stmt.executeQuery('SELECT * FROM PERSONS ORDER BY id')
+        (1..11).each {
+            assertTrue(rs.next())
+            assertEquals(it, rs.getInt(1))
+            assertEquals(it == 5 ? null : "rec$it".toString(), rs.getString(2))
+            assertEquals(100 + it, rs.getInt(3))
+        }
+        assertFalse(rs.next())
+
+        stmt.close()
+        conn.close()
+    }
+
+    @Test
+    void testMultiRowInsertFailureInLastStatement() throws InitializationException, ProcessException, SQLException, IOException {
+        recreateTable("PERSONS", createPersons)
+        final MockRecordParser parser = new MockRecordParser()
+        runner.addControllerService("parser", parser)
+        runner.enableControllerService(parser)
+
+        parser.addSchemaField("id", RecordFieldType.INT)
+        parser.addSchemaField("name", RecordFieldType.STRING)
+        parser.addSchemaField("code", RecordFieldType.INT)
+
+        parser.addRecord(1, 'rec1', 101)
+        parser.addRecord(2, 'rec2', 102)
+        parser.addRecord(3, 'rec3', 1000)
+
+        runner.setProperty(PutDatabaseRecord.RECORD_READER_FACTORY, 'parser')
+        runner.setProperty(PutDatabaseRecord.STATEMENT_TYPE, PutDatabaseRecord.INSERT_TYPE)
+        runner.setProperty(PutDatabaseRecord.TABLE_NAME, 'PERSONS')
+        runner.setProperty(PutDatabaseRecord.INSERT_STATEMENT_STRATEGY, PutDatabaseRecord.MULTI_ROW_INSERT.getValue())
+        runner.setProperty(PutDatabaseRecord.MAX_STATEMENT_PARAMETERS, "6")
+
+        runner.enqueue(new byte[0])
+        runner.run()
+
+        runner.assertTransferCount(PutDatabaseRecord.REL_SUCCESS, 0)
+        runner.assertTransferCount(PutDatabaseRecord.REL_FAILURE, 1)
+        runner.assertTransferCount(PutDatabaseRecord.REL_RETRY, 0)
+
+        // The rows inserted by the first statement must have been rolled back
+        assertEquals(0, getTableSize())
+    }
+
     private Supplier<PreparedStatement> createPreparedStatementSpy() {
         PreparedStatement spyStmt
         doAnswer({ inv ->
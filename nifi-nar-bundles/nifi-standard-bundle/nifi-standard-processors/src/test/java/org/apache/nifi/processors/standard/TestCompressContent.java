@@ -16,12 +16,22 @@
  */
 package org.apache.nifi.processors.standard;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
 
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.util.MockFlowFile;
@@ -285,4 +295,122 @@ public class TestCompressContent {
         flowFile.assertContentEquals(Paths.get("src/test/resources/CompressedData/SampleFile.txt"));
         flowFile.assertAttributeEquals("filename", "SampleFile.txt");
     }
+
+    @Test
+    public void testZstdCompressAndDecompress() throws Exception {
+        final TestRunner compressRunner = TestRunners.newTestRunner(CompressContent.class);
+        compressRunner.setProperty(CompressContent.MODE, CompressContent.MODE_COMPRESS);
+        compressRunner.setProperty(CompressContent.COMPRESSION_FORMAT, CompressContent.COMPRESSION_FORMAT_ZSTD);
+        compressRunner.setProperty(CompressContent.UPDATE_FILENAME, "true");
+
+        compressRunner.enqueue(Paths.get("src/test/resources/CompressedData/SampleFile.txt"));
+        compressRunner.run();
+
+        compressRunner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 1);
+        final MockFlowFile compressed = compressRunner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).get(0);
+        compressed.assertAttributeEquals(CoreAttributes.MIME_TYPE.key(), "application/zstd");
+        compressed.assertAttributeEquals("filename", "SampleFile.txt.zst");
+
+        final TestRunner decompressRunner = TestRunners.newTestRunner(CompressContent.class);
+        decompressRunner.setProperty(CompressContent.MODE, CompressContent.MODE_DECOMPRESS);
+        decompressRunner.setProperty(CompressContent.UPDATE_FILENAME, "true");
+
+        decompressRunner.enqueue(compressed);
+        decompressRunner.run();
+
+        decompressRunner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 1);
+        final MockFlowFile decompressed = decompressRunner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).get(0);
+        decompressed.assertContentEquals(Paths.get("src/test/resources/CompressedData/SampleFile.txt"));
+        decompressed.assertAttributeEquals("filename", "SampleFile.txt");
+    }
+
+    @Test
+    public void testZstdDictionary() throws Exception {
+        final Path dictionary = Files.createTempFile("compress-content", ".dict");
+        try {
+            // Zstandard accepts any content as a raw dictionary
+            Files.write(dictionary, Arrays.copyOf(Files.readAllBytes(Paths.get("src/test/resources/CompressedData/SampleFile.txt")), 4096));
+
+            final TestRunner compressRunner = TestRunners.newTestRunner(CompressContent.class);
+            compressRunner.setProperty(CompressContent.MODE, CompressContent.MODE_COMPRESS);
+            compressRunner.setProperty(CompressContent.COMPRESSION_FORMAT, CompressContent.COMPRESSION_FORMAT_ZSTD);
+            compressRunner.setProperty(CompressContent.ZSTD_COMPRESSION_LEVEL, "19");
+            compressRunner.setProperty(CompressContent.ZSTD_DICTIONARY, dictionary.toString());
+
+            compressRunner.enqueue(Paths.get("src/test/resources/CompressedData/SampleFile.txt"));
+            compressRunner.run();
+            compressRunner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 1);
+            final MockFlowFile compressed = compressRunner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).get(0);
+
+            final TestRunner decompressRunner = TestRunners.newTestRunner(CompressContent.class);
+            decompressRunner.setProperty(CompressContent.MODE, CompressContent.MODE_DECOMPRESS);
+            decompressRunner.setProperty(CompressContent.COMPRESSION_FORMAT, CompressContent.COMPRESSION_FORMAT_ZSTD);
+            decompressRunner.setProperty(CompressContent.ZSTD_DICTIONARY, dictionary.toString());
+
+            decompressRunner.enqueue(compressed);
+            decompressRunner.run();
+            decompressRunner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 1);
+            decompressRunner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).get(0).assertContentEquals(Paths.get("src/test/resources/CompressedData/SampleFile.txt"));
+
+            // Without the dictionary, the content cannot be decompressed
+            decompressRunner.clearTransferState();
+            decompressRunner.removeProperty(CompressContent.ZSTD_DICTIONARY);
+            decompressRunner.enqueue(compressed);
+            decompressRunner.run();
+            decompressRunner.assertAllFlowFilesTransferred(CompressContent.REL_FAILURE, 1);
+        } finally {
+            Files.deleteIfExists(dictionary);
+        }
+    }
+
+    @Test
+    public void testMultipleCompressionThreads() throws Exception {
+        final byte[] original = Files.readAllBytes(Paths.get("src/test/resources/CompressedData/SampleFile.txt"));
+
+        for (final String compressionFormat : new String[] {CompressContent.COMPRESSION_FORMAT_GZIP, CompressContent.COMPRESSION_FORMAT_BZIP2,
+                CompressContent.COMPRESSION_FORMAT_XZ_LZMA2, CompressContent.COMPRESSION_FORMAT_ZSTD}) {
+            final TestRunner compressRunner = TestRunners.newTestRunner(CompressContent.class);
+            compressRunner.setProperty(CompressContent.MODE, CompressContent.MODE_COMPRESS);
+            compressRunner.setProperty(CompressContent.COMPRESSION_FORMAT, compressionFormat);
+            compressRunner.setProperty(CompressContent.COMPRESSION_THREADS, "4");
+            compressRunner.setProperty(CompressContent.COMPRESSION_BLOCK_SIZE, "4 KB");
+
+            compressRunner.enqueue(original);
+            compressRunner.enqueue(new byte[0]);
+            compressRunner.run(2);
+            compressRunner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 2);
+
+            final TestRunner decompressRunner = TestRunners.newTestRunner(CompressContent.class);
+            decompressRunner.setProperty(CompressContent.MODE, CompressContent.MODE_DECOMPRESS);
+            decompressRunner.setProperty(CompressContent.COMPRESSION_FORMAT, compressionFormat);
+
+            compressRunner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).forEach(decompressRunner::enqueue);
+            decompressRunner.run(2);
+            decompressRunner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 2);
+
+            final List<MockFlowFile> decompressed = decompressRunner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS);
+            decompressed.get(0).assertContentEquals(original);
+            decompressed.get(1).assertContentEquals(new byte[0]);
+        }
+    }
+
+    @Test
+    public void testMultipleCompressionThreadsGzipIsStandardCompatible() throws Exception {
+        final byte[] original = Files.readAllBytes(Paths.get("src/test/resources/CompressedData/SampleFile.txt"));
+
+        final TestRunner runner = TestRunners.newTestRunner(CompressContent.class);
+        runner.setProperty(CompressContent.MODE, CompressContent.MODE_COMPRESS);
+        runner.setProperty(CompressContent.COMPRESSION_FORMAT, CompressContent.COMPRESSION_FORMAT_GZIP);
+        runner.setProperty(CompressContent.COMPRESSION_THREADS, "4");
+        runner.setProperty(CompressContent.COMPRESSION_BLOCK_SIZE, "4 KB");
+
+        runner.enqueue(original);
+        runner.run();
+        runner.assertAllFlowFilesTransferred(CompressContent.REL_SUCCESS, 1);
+
+        final byte[] compressed = runner.getFlowFilesForRelationship(CompressContent.REL_SUCCESS).get(0).toByteArray();
+        try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(original, IOUtils.toByteArray(in));
+        }
+    }
 }
@@ -176,6 +176,35 @@ public class TestDetectDuplicate {
         runner.assertTransferCount(DetectDuplicate.REL_FAILURE, 0);
     }
 
+    @Test
+    public void testDuplicateWithinBatch() throws InitializationException {
+        final TestRunner runner = TestRunners.newTestRunner(DetectDuplicate.class);
+        final DistributedMapCacheClientImpl client = createClient();
+        final Map<String, String> clientProperties = new HashMap<>();
+        clientProperties.put(DistributedMapCacheClientService.HOSTNAME.getName(), "localhost");
+        runner.addControllerService("client", client, clientProperties);
+        runner.setProperty(DetectDuplicate.DISTRIBUTED_CACHE_SERVICE, "client");
+        runner.setProperty(DetectDuplicate.FLOWFILE_DESCRIPTION, "The original flow file");
+        runner.setProperty(DetectDuplicate.AGE_OFF_DURATION, "48 hours");
+        runner.setProperty(DetectDuplicate.BATCH_SIZE, "10");
+        runner.enableControllerService(client);
+
+        final Map<String, String> props = new HashMap<>();
+        props.put("hash.value", "1000");
+        runner.enqueue(new byte[]{}, props);
+        runner.enqueue(new byte[]{});
+        runner.enqueue(new byte[]{}, props);
+        runner.enqueue(new byte[]{}, props);
+
+        runner.run();
+        runner.assertTransferCount(DetectDuplicate.REL_NON_DUPLICATE, 1);
+        runner.assertTransferCount(DetectDuplicate.REL_DUPLICATE, 2);
+        runner.assertTransferCount(DetectDuplicate.REL_FAILURE, 1);
+        runner.getFlowFilesForRelationship(DetectDuplicate.REL_DUPLICATE)
+            .forEach(flowFile -> flowFile.assertAttributeEquals(DetectDuplicate.ORIGINAL_DESCRIPTION_ATTRIBUTE_NAME, "The original flow file"));
+        runner.assertQueueEmpty();
+    }
+
     static final class DistributedMapCacheClientImpl extends AbstractControllerService implements DistributedMapCacheClient {
 
         boolean exists = false;
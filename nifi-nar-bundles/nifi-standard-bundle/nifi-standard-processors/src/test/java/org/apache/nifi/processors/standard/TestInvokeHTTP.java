@@ -20,6 +20,7 @@ import org.apache.nifi.processors.standard.util.TestInvokeHttpCommon;
 import org.apache.nifi.web.util.TestServer;
 import org.apache.nifi.ssl.StandardSSLContextService;
 import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.AbstractHandler;
@@ -132,6 +133,86 @@ public class TestInvokeHTTP extends TestInvokeHttpCommon {
         bundle1.assertAttributeEquals("Content-Type", "text/plain;charset=iso-8859-1");
     }
 
+    @Test
+    public void testSharedConnectionPool() throws Exception {
+        addHandler(new GetOrHeadHandler());
+
+        runner.setProperty(InvokeHTTP.PROP_URL, url + "/status/200");
+        runner.setProperty(InvokeHTTP.PROP_CONNECTION_POOL, InvokeHTTP.CONNECTION_POOL_SHARED.getValue());
+        runner.setProperty(InvokeHTTP.PROP_MAX_IDLE_CONNECTIONS, "17");
+        createFlowFiles(runner);
+        runner.run(1, false);
+        runner.assertTransferCount(InvokeHTTP.REL_SUCCESS_REQ, 1);
+        Assert.assertEquals(Long.valueOf(1), runner.getCounterValue("Connections Opened"));
+
+        // a second processor using the same shared pool reuses the connection opened by the first
+        final TestRunner otherRunner = TestRunners.newTestRunner(InvokeHTTP.class);
+        otherRunner.setProperty(InvokeHTTP.PROP_URL, url + "/status/200");
+        otherRunner.setProperty(InvokeHTTP.PROP_CONNECTION_POOL, InvokeHTTP.CONNECTION_POOL_SHARED.getValue());
+        otherRunner.setProperty(InvokeHTTP.PROP_MAX_IDLE_CONNECTIONS, "17");
+        createFlowFiles(otherRunner);
+        otherRunner.run();
+        otherRunner.assertTransferCount(InvokeHTTP.REL_SUCCESS_REQ, 1);
+        assertNull(otherRunner.getCounterValue("Connections Opened"));
+        Assert.assertEquals(Long.valueOf(1), otherRunner.getCounterValue("Connections Reused"));
+        otherRunner.shutdown();
+
+        // once every processor using the pool has stopped, the pool is released, and a processor scheduled afterwards opens a new connection
+        createFlowFiles(runner);
+        runner.run(1, true, false);
+        createFlowFiles(otherRunner);
+        otherRunner.clearTransferState();
+        otherRunner.run();
+        otherRunner.assertTransferCount(InvokeHTTP.REL_SUCCESS_REQ, 1);
+        Assert.assertEquals(Long.valueOf(1), otherRunner.getCounterValue("Connections Opened"));
+    }
+
+    @Test
+    public void testMaxInFlightRequests() throws Exception {
+        addHandler(new GetOrHeadHandler());
+
+        runner.setProperty(InvokeHTTP.PROP_URL, url + "/status/${status}");
+        runner.setProperty(InvokeHTTP.PROP_MAX_IN_FLIGHT_REQUESTS, "4");
+
+        final String[] statuses = {"200", "404", "500", "200", "200"};
+        for (final String status : statuses) {
+            final Map<String, String> attributes = new HashMap<>();
+            attributes.put("status", status);
+            runner.enqueue("Hello".getBytes(), attributes);
+        }
+
+        // the first trigger sends four requests at once, the second the remaining one
+        runner.run(2);
+        runner.assertTransferCount(InvokeHTTP.REL_SUCCESS_REQ, 3);
+        runner.assertTransferCount(InvokeHTTP.REL_RESPONSE, 3);
+        runner.assertTransferCount(InvokeHTTP.REL_NO_RETRY, 1);
+        runner.assertTransferCount(InvokeHTTP.REL_RETRY, 1);
+        runner.assertTransferCount(InvokeHTTP.REL_FAILURE, 0);
+        runner.assertQueueEmpty();
+
+        for (final MockFlowFile response : runner.getFlowFilesForRelationship(InvokeHTTP.REL_RESPONSE)) {
+            response.assertAttributeEquals(InvokeHTTP.STATUS_CODE, "200");
+            response.assertContentEquals("/status/200");
+        }
+        runner.getFlowFilesForRelationship(InvokeHTTP.REL_NO_RETRY).get(0).assertAttributeEquals(InvokeHTTP.STATUS_CODE, "404");
+        runner.getFlowFilesForRelationship(InvokeHTTP.REL_RETRY).get(0).assertAttributeEquals(InvokeHTTP.STATUS_CODE, "500");
+    }
+
+    @Test
+    public void testMaxBufferedRequestBodySizeIsBounded() {
+        runner.setProperty(InvokeHTTP.PROP_URL, url);
+        runner.setProperty(InvokeHTTP.PROP_MAX_BUFFERED_REQUEST_BODY_SIZE, "3 GB");
+        runner.assertNotValid();
+
+        // the heap that the buffered bodies may take up must fit in the heap
+        runner.setProperty(InvokeHTTP.PROP_MAX_BUFFERED_REQUEST_BODY_SIZE, "1 GB");
+        runner.setProperty(InvokeHTTP.PROP_MAX_IN_FLIGHT_REQUESTS, "10000");
+        runner.assertNotValid();
+
+        runner.setProperty(InvokeHTTP.PROP_MAX_IN_FLIGHT_REQUESTS, "1");
+        runner.assertValid();
+    }
+
     // Currently InvokeHttp does not support Proxy via Https
     @Test
     public void testProxy() throws Exception {
@@ -48,6 +48,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -643,6 +644,106 @@ public class TestListFile {
         assertEquals(1, successFiles2.size());
     }
 
+    @Test
+    public void testRecurseWithMultipleTraversalThreads() throws Exception {
+        final long now = getTestModifiedTime();
+
+        final File subdir1 = new File(TESTDIR + "/subdir1");
+        assertTrue(subdir1.mkdirs());
+        final File subdir2 = new File(TESTDIR + "/subdir1/subdir2");
+        assertTrue(subdir2.mkdirs());
+        final File subdir3 = new File(TESTDIR + "/subdir3");
+        assertTrue(subdir3.mkdirs());
+
+        final Map<String, String> expectedPaths = new HashMap<>();
+        expectedPaths.put("file1.txt", "." + File.separator);
+        expectedPaths.put("file2.txt", "subdir1" + File.separator);
+        expectedPaths.put("file3.txt", "subdir1" + File.separator + "subdir2" + File.separator);
+        expectedPaths.put("file4.txt", "subdir3" + File.separator);
+        for (final Map.Entry<String, String> entry : expectedPaths.entrySet()) {
+            final File file = new File(testDir, entry.getValue() + entry.getKey());
+            assertTrue(file.createNewFile());
+            assertTrue(file.setLastModified(now));
+        }
+
+        runner.setProperty(ListFile.DIRECTORY, testDir.getAbsolutePath());
+        runner.setProperty(ListFile.RECURSE, "true");
+        runner.setProperty(ListFile.TRAVERSAL_THREADS, "4");
+        runner.setProperty(ListFile.TRACK_PERFORMANCE, "true");
+        runNext();
+
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 4);
+        for (final MockFlowFile mff : runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS)) {
+            final String filename = mff.getAttribute(CoreAttributes.FILENAME.key());
+            assertEquals(expectedPaths.get(filename), mff.getAttribute(CoreAttributes.PATH.key()));
+        }
+
+        // Individual files are not tracked while several threads traverse the tree, and every thread has finished its directories
+        final ListFile.PerformanceTracker tracker = processor.getPerformanceTracker();
+        assertEquals(0, tracker.getTrackedFileCount());
+        assertTrue(tracker.getActiveDirectories().isEmpty());
+    }
+
+    @Test
+    public void testActiveDirectoriesAreTrackedPerThread() throws Exception {
+        final ListFile.PerformanceTracker tracker = new ListFile.RollingMetricPerformanceTracker(runner.getLogger(), 1000L, 100);
+        tracker.setActiveDirectory("subdir1");
+
+        final Thread thread = new Thread(() -> tracker.setActiveDirectory("subdir2"));
+        thread.start();
+        thread.join();
+
+        assertEquals(new HashSet<>(Arrays.asList("subdir1", "subdir2")), tracker.getActiveDirectories().keySet());
+
+        tracker.completeActiveDirectory();
+        assertEquals(Collections.singleton("subdir2"), tracker.getActiveDirectories().keySet());
+    }
+
+    @Test
+    public void testSkipUnchangedDirectories() throws Exception {
+        final long old = getTestModifiedTime() - TimeUnit.MINUTES.toMillis(5);
+
+        final File subdir1 = new File(TESTDIR + "/subdir1");
+        assertTrue(subdir1.mkdirs());
+        final File subdir2 = new File(TESTDIR + "/subdir1/subdir2");
+        assertTrue(subdir2.mkdirs());
+
+        for (final String filename : new String[] {"file1.txt", "subdir1/file2.txt", "subdir1/subdir2/file3.txt"}) {
+            final File file = new File(testDir, filename);
+            assertTrue(file.createNewFile());
+            assertTrue(file.setLastModified(old));
+        }
+        assertTrue(subdir2.setLastModified(old));
+        assertTrue(subdir1.setLastModified(old));
+        assertTrue(testDir.setLastModified(old));
+
+        runner.setProperty(ListFile.DIRECTORY, testDir.getAbsolutePath());
+        runner.setProperty(ListFile.RECURSE, "true");
+        runner.setProperty(ListFile.SKIP_UNCHANGED_DIRECTORIES, "true");
+        runNext();
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 3);
+
+        // A file whose directory appears to be unchanged is not listed, but the subdirectories of that directory still are
+        final File file4 = new File(TESTDIR + "/subdir1/file4.txt");
+        assertTrue(file4.createNewFile());
+        assertTrue(file4.setLastModified(old + 2000L));
+        assertTrue(subdir1.setLastModified(old));
+
+        final File file5 = new File(TESTDIR + "/subdir1/subdir2/file5.txt");
+        assertTrue(file5.createNewFile());
+        assertTrue(file5.setLastModified(old + 1000L));
+
+        runNext();
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS).get(0).assertAttributeEquals(CoreAttributes.FILENAME.key(), "file5.txt");
+
+        // Once the directory's modification time changes, its files are listed again
+        assertTrue(subdir1.setLastModified(old + 3000L));
+        runNext();
+        runner.assertAllFlowFilesTransferred(ListFile.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListFile.REL_SUCCESS).get(0).assertAttributeEquals(CoreAttributes.FILENAME.key(), "file4.txt");
+    }
+
     @Test
     public void testReadable() throws Exception {
         final long now = getTestModifiedTime();
@@ -41,6 +41,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class TestListenTCP {
@@ -107,6 +108,62 @@ public class TestListenTCP {
         mockFlowFile2.assertContentEquals("This is message 4\nThis is message 5");
     }
 
+    @Test
+    public void testListenTCPWithMultipleSelectorThreads() throws IOException, InterruptedException {
+        final int connections = 8;
+        final int messagesPerConnection = 25;
+        runner.setProperty(ListenTCP.MAX_CONNECTIONS, String.valueOf(connections));
+        runner.setProperty(ListenTCP.SELECTOR_THREADS, "4");
+        runner.setProperty(ListenTCP.MAX_BATCH_SIZE, "1000");
+
+        final List<Socket> sockets = new ArrayList<>();
+        try {
+            final ProcessSessionFactory processSessionFactory = runner.getProcessSessionFactory();
+            final ProcessContext context = runner.getProcessContext();
+            proc.onScheduled(context);
+
+            final int realPort = proc.getDispatcherPort();
+            for (int i = 0; i < connections; i++) {
+                sockets.add(new Socket("localhost", realPort));
+            }
+
+            for (int i = 0; i < messagesPerConnection; i++) {
+                for (int j = 0; j < connections; j++) {
+                    sockets.get(j).getOutputStream().write(("Connection " + j + " message " + i + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            for (final Socket socket : sockets) {
+                socket.getOutputStream().flush();
+            }
+
+            final int expectedMessages = connections * messagesPerConnection;
+            final long startTime = System.currentTimeMillis();
+            while (proc.getQueueSize() < expectedMessages && System.currentTimeMillis() - startTime < 10000) {
+                Thread.sleep(100);
+            }
+            Assert.assertEquals(expectedMessages, proc.getQueueSize());
+
+            proc.onTrigger(context, processSessionFactory);
+
+            // all connections come from the same sender, so every message is in a single FlowFile, in order for each connection
+            runner.assertAllFlowFilesTransferred(ListenTCP.REL_SUCCESS, 1);
+            final String content = new String(runner.getFlowFilesForRelationship(ListenTCP.REL_SUCCESS).get(0).toByteArray(), StandardCharsets.UTF_8);
+            final List<String> received = Arrays.asList(content.split("\n"));
+            Assert.assertEquals(expectedMessages, received.size());
+            for (int j = 0; j < connections; j++) {
+                int lastIndex = -1;
+                for (int i = 0; i < messagesPerConnection; i++) {
+                    final int index = received.indexOf("Connection " + j + " message " + i);
+                    Assert.assertTrue(index > lastIndex);
+                    lastIndex = index;
+                }
+            }
+        } finally {
+            proc.onUnscheduled();
+            sockets.forEach(IOUtils::closeQuietly);
+        }
+    }
+
     @Test
     public void testTLSClientAuthRequiredAndClientCertProvided() throws InitializationException, IOException, InterruptedException,
             UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
@@ -171,6 +171,60 @@ public class TestListenUDP {
         verifyProvenance(2);
     }
 
+    @Test
+    public void testBatchingWithDifferentSendersDemarcatesEachFlowFile() throws IOException, InterruptedException {
+        final ChannelResponder responder = Mockito.mock(ChannelResponder.class);
+
+        final List<StandardEvent> mockEvents = new ArrayList<>();
+        mockEvents.add(new StandardEvent("sender1", "message 1".getBytes(StandardCharsets.UTF_8), responder));
+        mockEvents.add(new StandardEvent("sender2", "message 2".getBytes(StandardCharsets.UTF_8), responder));
+        mockEvents.add(new StandardEvent("sender1", "message 3".getBytes(StandardCharsets.UTF_8), responder));
+        mockEvents.add(new StandardEvent("sender2", "message 4".getBytes(StandardCharsets.UTF_8), responder));
+
+        MockListenUDP mockListenUDP = new MockListenUDP(mockEvents);
+        runner = TestRunners.newTestRunner(mockListenUDP);
+        runner.setProperty(ListenUDP.PORT, "1");
+        runner.setProperty(ListenUDP.MAX_BATCH_SIZE, "10");
+
+        runner.run();
+        runner.assertAllFlowFilesTransferred(ListenUDP.REL_SUCCESS, 2);
+
+        // the delimiter is only written between the messages of the same sender
+        final List<String> contents = new ArrayList<>();
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship(ListenUDP.REL_SUCCESS)) {
+            contents.add(new String(flowFile.toByteArray(), StandardCharsets.UTF_8));
+        }
+        Assert.assertTrue(contents.contains("message 1\nmessage 3"));
+        Assert.assertTrue(contents.contains("message 2\nmessage 4"));
+        Assert.assertEquals(Long.valueOf(4), runner.getCounterValue("Messages Received"));
+    }
+
+    @Test
+    public void testDroppedMessagesAreCounted() throws IOException, InterruptedException {
+        final ChannelResponder responder = Mockito.mock(ChannelResponder.class);
+        final byte[] message = "test message".getBytes(StandardCharsets.UTF_8);
+
+        final List<StandardEvent> mockEvents = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            mockEvents.add(new StandardEvent("sender1", message, responder));
+        }
+
+        MockListenUDP mockListenUDP = new MockListenUDP(mockEvents);
+        runner = TestRunners.newTestRunner(mockListenUDP);
+        runner.setProperty(ListenUDP.PORT, "1");
+        runner.setProperty(ListenUDP.MAX_MESSAGE_QUEUE_SIZE, "2");
+        runner.setProperty(ListenUDP.MAX_BATCH_SIZE, "10");
+
+        // only 2 of the 5 messages fit in the queue, the other 3 are dropped
+        runner.run();
+        runner.assertAllFlowFilesTransferred(ListenUDP.REL_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListenUDP.REL_SUCCESS).get(0).assertContentEquals("test message\ntest message");
+
+        Assert.assertEquals(Long.valueOf(2), runner.getCounterValue("Messages Received"));
+        Assert.assertEquals(Long.valueOf(3), runner.getCounterValue("Messages Dropped"));
+        Assert.assertEquals(Long.valueOf(3), runner.getCounterValue("Message Queue Full"));
+    }
+
     @Test
     public void testRunWhenNoEventsAvailable() throws IOException, InterruptedException {
         final List<StandardEvent> mockEvents = new ArrayList<>();
@@ -320,7 +374,9 @@ public class TestListenUDP {
         @Override
         public void onScheduled(ProcessContext context) throws IOException {
             super.onScheduled(context);
-            events.addAll(mockEvents);
+            for (final StandardEvent event : mockEvents) {
+                events.offer(event);
+            }
         }
 
         @Override
@@ -19,6 +19,8 @@ package org.apache.nifi.processors.standard;
 
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.lookup.CachingLookupService;
+import org.apache.nifi.lookup.LookupFailureException;
 import org.apache.nifi.lookup.RecordLookupService;
 import org.apache.nifi.lookup.StringLookupService;
 import org.apache.nifi.reporting.InitializationException;
@@ -38,6 +40,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -110,6 +113,44 @@ public class TestLookupRecord {
         out.assertContentEquals("John Doe,48,Soccer\nJane Doe,47,Basketball\nJimmy Doe,14,Football\n");
     }
 
+    @Test
+    public void testBatchLooksUpDistinctCoordinatesOnce() {
+        runner.setProperty(LookupRecord.LOOKUP_BATCH_SIZE, "100");
+        lookupService.addValue("John Doe", "Soccer");
+        lookupService.addValue("Jane Doe", "Basketball");
+
+        recordReader.addRecord("John Doe", 48, null);
+        recordReader.addRecord("Jane Doe", 47, null);
+
+        runner.enqueue("");
+        runner.run();
+
+        runner.assertTransferCount(LookupRecord.REL_MATCHED, 1);
+        runner.assertTransferCount(LookupRecord.REL_UNMATCHED, 1);
+        runner.getFlowFilesForRelationship(LookupRecord.REL_MATCHED).get(0)
+            .assertContentEquals("John Doe,48,Soccer\nJane Doe,47,Basketball\nJohn Doe,48,Soccer\nJane Doe,47,Basketball\n");
+        runner.getFlowFilesForRelationship(LookupRecord.REL_UNMATCHED).get(0).assertContentEquals("Jimmy Doe,14,\n");
+
+        // all five records were resolved by one bulk lookup of the three distinct names
+        Assert.assertEquals(1, lookupService.lookupAllCount);
+        Assert.assertEquals(3, lookupService.lookupCount);
+    }
+
+    @Test
+    public void testEachRecordLookedUpByDefault() {
+        lookupService.addValue("John Doe", "Soccer");
+
+        recordReader.addRecord("John Doe", 48, null);
+
+        runner.enqueue("");
+        runner.run();
+
+        runner.assertTransferCount(LookupRecord.REL_MATCHED, 1);
+        runner.assertTransferCount(LookupRecord.REL_UNMATCHED, 1);
+        Assert.assertEquals(0, lookupService.lookupAllCount);
+        Assert.assertEquals(4, lookupService.lookupCount);
+    }
+
     @Test
     public void testAllMatch() {
         lookupService.addValue("John Doe", "Soccer");
@@ -436,9 +477,34 @@ public class TestLookupRecord {
         out.assertContentEquals("John Doe,48,soccer,basketball\nJane Doe,47\n");
     }
 
+    @Test
+    public void testCachedLookupsAreSharedAcrossFlowFiles() throws InitializationException {
+        final CachingLookupService cachingService = new CachingLookupService();
+        runner.addControllerService("caching", cachingService);
+        runner.setProperty(cachingService, "caching-lookup-service", "lookup");
+        runner.enableControllerService(cachingService);
+        runner.setProperty(LookupRecord.LOOKUP_SERVICE, "caching");
+        runner.setProperty(LookupRecord.LOOKUP_BATCH_SIZE, "100");
+
+        lookupService.addValue("John Doe", "Soccer");
+        lookupService.addValue("Jane Doe", "Basketball");
+        lookupService.addValue("Jimmy Doe", "Football");
+
+        // every FlowFile has its own uuid, which must not keep the second one from using the values cached for the first
+        runner.enqueue("");
+        runner.enqueue("");
+        runner.run(2);
+
+        runner.assertAllFlowFilesTransferred(LookupRecord.REL_MATCHED, 2);
+        Assert.assertEquals(1, lookupService.lookupAllCount);
+        Assert.assertEquals(3, lookupService.lookupCount);
+    }
+
     private static class MapLookup extends AbstractControllerService implements StringLookupService {
         private final Map<String, String> values = new HashMap<>();
         private Map<String, Object> expectedContext;
+        private int lookupCount = 0;
+        private int lookupAllCount = 0;
 
         public void addValue(final String key, final String value) {
             values.put(key, value);
@@ -454,8 +520,15 @@ public class TestLookupRecord {
             return lookup(coordinates);
         }
 
+        @Override
+        public Map<Map<String, Object>, String> lookupAll(final Collection<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+            lookupAllCount++;
+            return StringLookupService.super.lookupAll(coordinates, context);
+        }
+
         @Override
         public Optional<String> lookup(final Map<String, Object> coordinates) {
+            lookupCount++;
             if (coordinates == null || coordinates.get("lookup") == null) {
                 return Optional.empty();
             }
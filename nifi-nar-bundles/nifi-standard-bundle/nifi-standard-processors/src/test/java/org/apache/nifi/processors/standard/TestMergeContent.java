@@ -542,6 +542,39 @@ public class TestMergeContent {
         bundle.assertAttributeEquals(CoreAttributes.MIME_TYPE.key(), "application/plain-text");
     }
 
+    @Test
+    public void testIncrementalBinaryConcatWithTextDelimiters() throws IOException {
+        final TestRunner runner = TestRunners.newTestRunner(new MergeContent());
+        runner.setProperty(MergeContent.MIN_ENTRIES, "4");
+        runner.setProperty(MergeContent.MAX_ENTRIES, "4");
+        runner.setProperty(MergeContent.MERGE_FORMAT, MergeContent.MERGE_FORMAT_CONCAT);
+        runner.setProperty(MergeContent.INCREMENTAL_MERGE, "true");
+        runner.setProperty(MergeContent.DELIMITER_STRATEGY, MergeContent.DELIMITER_STRATEGY_TEXT);
+        runner.setProperty(MergeContent.HEADER, "@");
+        runner.setProperty(MergeContent.DEMARCATOR, "#");
+        runner.setProperty(MergeContent.FOOTER, "$");
+
+        // the bin is filled across two triggers, so its content is appended in two steps
+        createFlowFiles(runner);
+        runner.run(1, false, true);
+        runner.assertTransferCount(MergeContent.REL_MERGED, 0);
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put(CoreAttributes.MIME_TYPE.key(), "application/plain-text");
+        runner.enqueue("!!".getBytes("UTF-8"), attributes);
+        runner.run();
+
+        runner.assertQueueEmpty();
+        runner.assertTransferCount(MergeContent.REL_MERGED, 1);
+        runner.assertTransferCount(MergeContent.REL_FAILURE, 0);
+        runner.assertTransferCount(MergeContent.REL_ORIGINAL, 4);
+
+        final MockFlowFile bundle = runner.getFlowFilesForRelationship(MergeContent.REL_MERGED).get(0);
+        bundle.assertContentEquals("@Hello#, #World!#!!$".getBytes("UTF-8"));
+        bundle.assertAttributeEquals(CoreAttributes.MIME_TYPE.key(), "application/plain-text");
+        bundle.assertAttributeEquals(MergeContent.MERGE_COUNT_ATTRIBUTE, "4");
+    }
+
     @Test
     public void testSimpleBinaryConcatWithTextDelimitersHeaderOnly() throws IOException, InterruptedException {
         final TestRunner runner = TestRunners.newTestRunner(new MergeContent());
@@ -868,6 +901,36 @@ public class TestMergeContent {
         assembled.assertContentEquals("A Man A Plan A Canal Panama".getBytes("UTF-8"));
     }
 
+    @Test
+    public void testDefragmentManyInterleavedGroups() throws IOException {
+        final TestRunner runner = TestRunners.newTestRunner(new MergeContent());
+        runner.setProperty(MergeContent.MERGE_STRATEGY, MergeContent.MERGE_STRATEGY_DEFRAGMENT);
+        runner.setProperty(MergeContent.MAX_BIN_COUNT, "1000");
+        runner.setProperty(MergeContent.MAX_BIN_AGE, "1 min");
+
+        final int groups = 500;
+        for (int index = 1; index <= 3; index++) {
+            for (int group = 0; group < groups; group++) {
+                final Map<String, String> attributes = new HashMap<>();
+                attributes.put(MergeContent.FRAGMENT_ID_ATTRIBUTE, String.valueOf(group));
+                attributes.put(MergeContent.FRAGMENT_COUNT_ATTRIBUTE, "3");
+                attributes.put(MergeContent.FRAGMENT_INDEX_ATTRIBUTE, String.valueOf(index));
+                runner.enqueue((group + "-" + index + " ").getBytes("UTF-8"), attributes);
+            }
+        }
+
+        runner.run();
+
+        runner.assertQueueEmpty();
+        runner.assertTransferCount(MergeContent.REL_MERGED, groups);
+        runner.assertTransferCount(MergeContent.REL_ORIGINAL, groups * 3);
+        runner.assertTransferCount(MergeContent.REL_FAILURE, 0);
+        for (final MockFlowFile assembled : runner.getFlowFilesForRelationship(MergeContent.REL_MERGED)) {
+            final String group = assembled.getAttribute(MergeContent.FRAGMENT_ID_ATTRIBUTE);
+            assembled.assertContentEquals((group + "-1 " + group + "-2 " + group + "-3 ").getBytes("UTF-8"));
+        }
+    }
+
     @Test
     public void testDefragmentDuplicateFragement() throws IOException, InterruptedException {
         final TestRunner runner = TestRunners.newTestRunner(new MergeContent());
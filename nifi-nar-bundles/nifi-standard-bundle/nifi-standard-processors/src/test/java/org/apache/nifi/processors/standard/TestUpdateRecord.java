@@ -142,6 +142,33 @@ public class TestUpdateRecord {
         out.assertContentEquals("header\n1,John Doe,35\n2,Jane Doe,36\n3,John Smith,37\n4,Jane Smith,38\n");
     }
 
+    @Test
+    public void testLiteralReplacementRowIndexWithMultipleProcessingThreads() throws InitializationException {
+        readerService = new MockRecordParser();
+        readerService.addSchemaField("id", RecordFieldType.LONG);
+        readerService.addSchemaField("name", RecordFieldType.STRING);
+        runner.addControllerService("reader", readerService);
+        runner.enableControllerService(readerService);
+
+        runner.setProperty(UpdateRecord.RECORD_PROCESSING_THREADS, "4");
+        runner.setProperty("/id", "${record.index}");
+        runner.setProperty("/name", "${name}-${record.index}");
+
+        runner.enqueue("", Collections.singletonMap("name", "row"));
+
+        final StringBuilder expected = new StringBuilder("header\n");
+        for (int i = 1; i <= 10_500; i++) {
+            readerService.addRecord(null, "unset");
+            expected.append(i).append(",row-").append(i).append("\n");
+        }
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(UpdateRecord.REL_SUCCESS, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(UpdateRecord.REL_SUCCESS).get(0);
+        out.assertAttributeEquals("record.count", "10500");
+        out.assertContentEquals(expected.toString());
+    }
+
     @Test
     public void testReplaceWithMissingRecordPath() throws InitializationException {
         readerService = new MockRecordParser();
@@ -940,6 +940,45 @@ public abstract class TestInvokeHttpCommon {
         Assert.assertEquals(expected1, actual1);
     }
 
+    @Test
+    public void testMaxInFlightRequestsSendsBody() throws Exception {
+        addHandler(new MutativeMethodHandler(MutativeMethod.POST));
+
+        runner.setProperty(InvokeHTTP.PROP_METHOD, "POST");
+        runner.setProperty(InvokeHTTP.PROP_URL, url + "/post");
+        runner.setProperty(InvokeHTTP.PROP_MAX_IN_FLIGHT_REQUESTS, "3");
+        for (int i = 0; i < 3; i++) {
+            createFlowFiles(runner);
+        }
+
+        runner.run();
+        runner.assertTransferCount(InvokeHTTP.REL_SUCCESS_REQ, 3);
+        runner.assertTransferCount(InvokeHTTP.REL_RESPONSE, 3);
+        runner.assertTransferCount(InvokeHTTP.REL_FAILURE, 0);
+    }
+
+    @Test
+    public void testMaxInFlightRequestsStreamsLargeBody() throws Exception {
+        addHandler(new MutativeMethodHandler(MutativeMethod.POST));
+
+        runner.setProperty(InvokeHTTP.PROP_METHOD, "POST");
+        runner.setProperty(InvokeHTTP.PROP_URL, url + "/post");
+        runner.setProperty(InvokeHTTP.PROP_MAX_IN_FLIGHT_REQUESTS, "3");
+        runner.setProperty(InvokeHTTP.PROP_MAX_BUFFERED_REQUEST_BODY_SIZE, "4 B");
+        for (int i = 0; i < 3; i++) {
+            createFlowFiles(runner);
+        }
+
+        runner.run();
+        runner.assertTransferCount(InvokeHTTP.REL_SUCCESS_REQ, 3);
+        runner.assertTransferCount(InvokeHTTP.REL_RESPONSE, 3);
+        runner.assertTransferCount(InvokeHTTP.REL_RETRY, 0);
+        runner.assertTransferCount(InvokeHTTP.REL_FAILURE, 0);
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship(InvokeHTTP.REL_SUCCESS_REQ)) {
+            flowFile.assertAttributeEquals(InvokeHTTP.STATUS_CODE, "200");
+        }
+    }
+
     @Test
     public void testPostWithMimeType() throws Exception {
         final String suppliedMimeType = "text/plain";
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
@@ -75,6 +76,38 @@ public interface DistributedMapCacheClient extends ControllerService {
      */
     <K, V> V getAndPutIfAbsent(K key, V value, Serializer<K> keySerializer, Serializer<V> valueSerializer, Deserializer<V> valueDeserializer) throws IOException;
 
+    /**
+     * Adds each of the specified keys and values to the cache, if the key is not
+     * already present, serializing the keys and values with the given
+     * {@link Serializer}s. This is equivalent to calling
+     * {@link #getAndPutIfAbsent(Object, Object, Serializer, Serializer, Deserializer)}
+     * for each entry, but allows implementations to do so with a single request.
+     *
+     * @param <K> type of key
+     * @param <V> type of value
+     * @param entries the keys and values to add to the cache
+     * @param keySerializer key serializer
+     * @param valueSerializer value serializer
+     * @param valueDeserializer value deserializer
+     * @return a Map containing each of the given keys. If a value already existed
+     * in the cache for a key, that value is associated with the key, after being
+     * deserialized with the given {@code valueDeserializer}. Otherwise the given
+     * value was added to the cache and the key is associated with <code>null</code>.
+     * @throws IOException if unable to communicate with the remote instance
+     */
+    default <K, V> Map<K, V> getAndPutAllIfAbsent(Map<K, V> entries, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                                Deserializer<V> valueDeserializer) throws IOException {
+        // Default behavior is to iterate over the entries, calling getAndPutIfAbsent(key, value) and putting the result into the results map
+        if (entries == null) {
+            return null;
+        }
+        Map<K, V> results = new HashMap<>(entries.size());
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            results.put(entry.getKey(), getAndPutIfAbsent(entry.getKey(), entry.getValue(), keySerializer, valueSerializer, valueDeserializer));
+        }
+        return results;
+    }
+
     /**
      * Determines if the given value is present in the cache and if so returns
      * <code>true</code>, else returns <code>false</code>
@@ -220,4 +253,76 @@ public interface DistributedMapCacheClient extends ControllerService {
     default <K> Set<K> keySet(Deserializer<K> keyDeserializer) throws IOException {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Asynchronously returns the value in the cache for the given key, if one exists;
+     * otherwise completes with <code>null</code>. Implementations that are able to have
+     * several requests outstanding at once should override this method; the default
+     * implementation calls {@link #get(Object, Serializer, Deserializer)} on the calling thread.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param key the key to lookup in the map
+     * @param keySerializer key serializer
+     * @param valueDeserializer value deserializer
+     *
+     * @return a future that completes with the value in the cache for the given key, or
+     * completes exceptionally if unable to communicate with the remote instance
+     */
+    default <K, V> CompletableFuture<V> getAsync(K key, Serializer<K> keySerializer, Deserializer<V> valueDeserializer) {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        try {
+            future.complete(get(key, keySerializer, valueDeserializer));
+        } catch (final IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Asynchronously adds the specified key and value to the cache, overwriting any value
+     * that is currently set. The default implementation calls
+     * {@link #put(Object, Object, Serializer, Serializer)} on the calling thread.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @param key The key to set
+     * @param value The value to associate with the given Key
+     * @param keySerializer the Serializer that will be used to serialize the key into bytes
+     * @param valueSerializer the Serializer that will be used to serialize the value into bytes
+     *
+     * @return a future that completes once the value has been put, or completes
+     * exceptionally if unable to communicate with the remote instance
+     */
+    default <K, V> CompletableFuture<Void> putAsync(K key, V value, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            put(key, value, keySerializer, valueSerializer);
+            future.complete(null);
+        } catch (final IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Asynchronously determines if the given key is present in the cache. The default
+     * implementation calls {@link #containsKey(Object, Serializer)} on the calling thread.
+     *
+     * @param <K> the key type
+     * @param key key
+     * @param keySerializer key serializer
+     *
+     * @return a future that completes with <code>true</code> if the given key is present in
+     * the cache, or completes exceptionally if unable to communicate with the remote instance
+     */
+    default <K> CompletableFuture<Boolean> containsKeyAsync(K key, Serializer<K> keySerializer) {
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        try {
+            future.complete(containsKey(key, keySerializer));
+        } catch (final IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 }
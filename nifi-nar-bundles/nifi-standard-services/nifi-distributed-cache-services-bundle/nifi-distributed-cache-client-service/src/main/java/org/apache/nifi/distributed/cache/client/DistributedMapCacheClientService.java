@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.distributed.cache.client;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -27,13 +28,21 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
 import org.apache.nifi.annotation.lifecycle.OnEnabled;
 import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
@@ -57,6 +66,9 @@ public class DistributedMapCacheClientService extends AbstractControllerService
 
     private static final Logger logger = LoggerFactory.getLogger(DistributedMapCacheClientService.class);
 
+    // the first protocol version in which requests carry an id, allowing them to be pipelined
+    private static final int PIPELINING_PROTOCOL_VERSION = 5;
+
     public static final PropertyDescriptor HOSTNAME = new PropertyDescriptor.Builder()
         .name("Server Hostname")
         .description("The name of the server that is running the DistributedMapCacheServer service")
@@ -85,8 +97,23 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
         .defaultValue("30 secs")
         .build();
+    public static final PropertyDescriptor PIPELINED_CONNECTIONS = new PropertyDescriptor.Builder()
+        .name("pipelined-connections")
+        .displayName("Pipelined Connections")
+        .description("The number of connections over which requests are pipelined, if the server supports it. Requests from all threads are "
+                + "sent over these connections without waiting for the responses to earlier requests, rather than each outstanding request "
+                + "needing a connection of its own. If set to 0, or if the server is too old to support pipelining, each request is sent "
+                + "over a connection that is dedicated to it until its response has been received.")
+        .required(true)
+        .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+        .defaultValue("2")
+        .build();
 
     private final BlockingQueue<CommsSession> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pipelinedSessionIndex = new AtomicInteger(0);
+    private volatile PipelinedCommsSession[] pipelinedSessions = new PipelinedCommsSession[0];
+    private volatile boolean pipeliningSupported = false;
+    private volatile ExecutorService responseExecutor;
     private volatile ConfigurationContext configContext;
     private volatile boolean closed = false;
 
@@ -97,12 +124,43 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         descriptors.add(PORT);
         descriptors.add(SSL_CONTEXT_SERVICE);
         descriptors.add(COMMUNICATIONS_TIMEOUT);
+        descriptors.add(PIPELINED_CONNECTIONS);
         return descriptors;
     }
 
     @OnEnabled
     public void cacheConfig(final ConfigurationContext context) {
         this.configContext = context;
+
+        final int pipelinedConnections = context.getProperty(PIPELINED_CONNECTIONS).asInteger();
+        this.pipelinedSessions = new PipelinedCommsSession[pipelinedConnections];
+        // assume that the server supports pipelining until a handshake shows otherwise
+        this.pipeliningSupported = pipelinedConnections > 0;
+
+        if (pipelinedConnections > 0) {
+            // the responses to asynchronous requests are deserialized by threads of this service, rather than by the threads that
+            // read the responses of the connections, so that the callers' deserializers cannot delay the responses to other requests
+            final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            final AtomicInteger threadCounter = new AtomicInteger(0);
+            this.responseExecutor = Executors.newFixedThreadPool(pipelinedConnections, runnable -> {
+                final Thread thread = new Thread(runnable);
+                thread.setName("DistributedMapCacheClientService Response Thread: " + getIdentifier() + "-" + threadCounter.incrementAndGet());
+                thread.setContextClassLoader(contextClassLoader);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @OnDisabled
+    public void onDisabled() {
+        closePipelinedSessions();
+
+        final ExecutorService executor = responseExecutor;
+        responseExecutor = null;
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
     @OnStopped
@@ -112,227 +170,199 @@ public class DistributedMapCacheClientService extends AbstractControllerService
 
     @Override
     public <K, V> boolean putIfAbsent(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) throws IOException {
-        return withCommsSession(new CommsAction<Boolean>() {
-            @Override
-            public Boolean execute(final CommsSession session) throws IOException {
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-                dos.writeUTF("putIfAbsent");
-
-                serialize(key, keySerializer, dos);
-                serialize(value, valueSerializer, dos);
-
-                dos.flush();
-
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-                return dis.readBoolean();
-            }
-        });
+        return send(1, dos -> {
+            dos.writeUTF("putIfAbsent");
+            serialize(key, keySerializer, dos);
+            serialize(value, valueSerializer, dos);
+        }, DataInputStream::readBoolean);
     }
 
     @Override
     public <K, V> void put(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) throws IOException {
-        withCommsSession(new CommsAction<Object>() {
-            @Override
-            public Object execute(final CommsSession session) throws IOException {
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-                dos.writeUTF("put");
+        send(1, putRequest(key, value, keySerializer, valueSerializer), this::readPutResponse);
+    }
 
-                serialize(key, keySerializer, dos);
-                serialize(value, valueSerializer, dos);
+    @Override
+    public <K, V> CompletableFuture<Void> putAsync(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        return sendAsync(1, putRequest(key, value, keySerializer, valueSerializer), this::readPutResponse);
+    }
 
-                dos.flush();
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-                final boolean success = dis.readBoolean();
-                if ( !success ) {
-                    throw new IOException("Expected to receive confirmation of 'put' request but received unexpected response");
-                }
+    private <K, V> RequestWriter putRequest(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+        return dos -> {
+            dos.writeUTF("put");
+            serialize(key, keySerializer, dos);
+            serialize(value, valueSerializer, dos);
+        };
+    }
 
-                return null;
-            }
-        });
+    private Void readPutResponse(final DataInputStream dis) throws IOException {
+        final boolean success = dis.readBoolean();
+        if ( !success ) {
+            throw new IOException("Expected to receive confirmation of 'put' request but received unexpected response");
+        }
+
+        return null;
     }
 
     @Override
     public <K> boolean containsKey(final K key, final Serializer<K> keySerializer) throws IOException {
-        return withCommsSession(new CommsAction<Boolean>() {
-            @Override
-            public Boolean execute(final CommsSession session) throws IOException {
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-                dos.writeUTF("containsKey");
+        return send(1, containsKeyRequest(key, keySerializer), DataInputStream::readBoolean);
+    }
 
-                serialize(key, keySerializer, dos);
-                dos.flush();
+    @Override
+    public <K> CompletableFuture<Boolean> containsKeyAsync(final K key, final Serializer<K> keySerializer) {
+        return sendAsync(1, containsKeyRequest(key, keySerializer), DataInputStream::readBoolean);
+    }
 
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-                return dis.readBoolean();
-            }
-        });
+    private <K> RequestWriter containsKeyRequest(final K key, final Serializer<K> keySerializer) {
+        return dos -> {
+            dos.writeUTF("containsKey");
+            serialize(key, keySerializer, dos);
+        };
     }
 
     @Override
     public <K, V> V getAndPutIfAbsent(final K key, final V value, final Serializer<K> keySerializer, final Serializer<V> valueSerializer, final Deserializer<V> valueDeserializer) throws IOException {
-        return withCommsSession(new CommsAction<V>() {
-            @Override
-            public V execute(final CommsSession session) throws IOException {
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-                dos.writeUTF("getAndPutIfAbsent");
-
-                serialize(key, keySerializer, dos);
-                serialize(value, valueSerializer, dos);
-                dos.flush();
+        return send(1, dos -> {
+            dos.writeUTF("getAndPutIfAbsent");
+            serialize(key, keySerializer, dos);
+            serialize(value, valueSerializer, dos);
+        }, dis -> {
+            final byte[] responseBuffer = readLengthDelimitedResponse(dis);
+            return valueDeserializer.deserialize(responseBuffer);
+        });
+    }
 
-                // read response
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-                final byte[] responseBuffer = readLengthDelimitedResponse(dis);
-                return valueDeserializer.deserialize(responseBuffer);
+    @Override
+    public <K, V> Map<K, V> getAndPutAllIfAbsent(final Map<K, V> entries, final Serializer<K> keySerializer, final Serializer<V> valueSerializer,
+                                               final Deserializer<V> valueDeserializer) throws IOException {
+        try {
+            return send(4, dos -> {
+                dos.writeUTF("getAndPutAllIfAbsent");
+                dos.writeInt(entries.size());
+                for (final Map.Entry<K, V> entry : entries.entrySet()) {
+                    serialize(entry.getKey(), keySerializer, dos);
+                    serialize(entry.getValue(), valueSerializer, dos);
+                }
+            }, dis -> {
+                final Map<K, V> response = new HashMap<>(entries.size());
+                for (K key : entries.keySet()) {
+                    final byte[] responseBuffer = readLengthDelimitedResponse(dis);
+                    response.put(key, valueDeserializer.deserialize(responseBuffer));
+                }
+                return response;
+            });
+        } catch (UnsupportedOperationException uoe) {
+            // If the server doesn't support getAndPutAllIfAbsent, just emulate it with multiple calls to getAndPutIfAbsent()
+            final Map<K, V> response = new HashMap<>(entries.size());
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                response.put(entry.getKey(), getAndPutIfAbsent(entry.getKey(), entry.getValue(), keySerializer, valueSerializer, valueDeserializer));
             }
-        });
+            return response;
+        }
     }
 
     @Override
     public <K, V> V get(final K key, final Serializer<K> keySerializer, final Deserializer<V> valueDeserializer) throws IOException {
-        return withCommsSession(new CommsAction<V>() {
-            @Override
-            public V execute(final CommsSession session) throws IOException {
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-                dos.writeUTF("get");
+        return send(1, getRequest(key, keySerializer), getResponse(valueDeserializer));
+    }
 
-                serialize(key, keySerializer, dos);
-                dos.flush();
+    @Override
+    public <K, V> CompletableFuture<V> getAsync(final K key, final Serializer<K> keySerializer, final Deserializer<V> valueDeserializer) {
+        return sendAsync(1, getRequest(key, keySerializer), getResponse(valueDeserializer));
+    }
 
-                // read response
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-                final byte[] responseBuffer = readLengthDelimitedResponse(dis);
-                return valueDeserializer.deserialize(responseBuffer);
-            }
-        });
+    private <K> RequestWriter getRequest(final K key, final Serializer<K> keySerializer) {
+        return dos -> {
+            dos.writeUTF("get");
+            serialize(key, keySerializer, dos);
+        };
+    }
+
+    private <V> ResponseReader<V> getResponse(final Deserializer<V> valueDeserializer) {
+        return dis -> {
+            final byte[] responseBuffer = readLengthDelimitedResponse(dis);
+            return valueDeserializer.deserialize(responseBuffer);
+        };
     }
 
     @Override
     public <K, V> Map<K, V> subMap(Set<K> keys, Serializer<K> keySerializer, Deserializer<V> valueDeserializer) throws IOException {
-        return withCommsSession(session -> {
-            Map<K, V> response = new HashMap<>(keys.size());
-            try {
-                validateProtocolVersion(session, 3);
-
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
+        try {
+            return send(3, dos -> {
                 dos.writeUTF("subMap");
                 serialize(keys, keySerializer, dos);
-                dos.flush();
-
-                // read response
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-
+            }, dis -> {
+                final Map<K, V> response = new HashMap<>(keys.size());
                 for (K key : keys) {
                     final byte[] responseBuffer = readLengthDelimitedResponse(dis);
                     response.put(key, valueDeserializer.deserialize(responseBuffer));
                 }
-            } catch (UnsupportedOperationException uoe) {
-                // If the server doesn't support subMap, just emulate it with multiple calls to get()
-                for (K key : keys) {
-                    response.put(key, get(key, keySerializer, valueDeserializer));
-                }
+                return response;
+            });
+        } catch (UnsupportedOperationException uoe) {
+            // If the server doesn't support subMap, just emulate it with multiple calls to get()
+            final Map<K, V> response = new HashMap<>(keys.size());
+            for (K key : keys) {
+                response.put(key, get(key, keySerializer, valueDeserializer));
             }
-
             return response;
-        });
+        }
     }
 
     @Override
     public <K> boolean remove(final K key, final Serializer<K> serializer) throws IOException {
-        return withCommsSession(new CommsAction<Boolean>() {
-            @Override
-            public Boolean execute(final CommsSession session) throws IOException {
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-                dos.writeUTF("remove");
-
-                serialize(key, serializer, dos);
-                dos.flush();
-
-                // read response
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-                return dis.readBoolean();
-            }
-        });
+        return send(1, dos -> {
+            dos.writeUTF("remove");
+            serialize(key, serializer, dos);
+        }, DataInputStream::readBoolean);
     }
 
     @Override
     public <K, V> V removeAndGet(K key, Serializer<K> keySerializer, Deserializer<V> valueDeserializer) throws IOException {
-        return withCommsSession(new CommsAction<V>() {
-            @Override
-            public V execute(final CommsSession session) throws IOException {
-                validateProtocolVersion(session, 3);
-
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-                dos.writeUTF("removeAndGet");
-
-                serialize(key, keySerializer, dos);
-                dos.flush();
-
-                // read response
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-                final byte[] responseBuffer = readLengthDelimitedResponse(dis);
-                return valueDeserializer.deserialize(responseBuffer);
-            }
+        return send(3, dos -> {
+            dos.writeUTF("removeAndGet");
+            serialize(key, keySerializer, dos);
+        }, dis -> {
+            final byte[] responseBuffer = readLengthDelimitedResponse(dis);
+            return valueDeserializer.deserialize(responseBuffer);
         });
     }
 
     @Override
     public long removeByPattern(String regex) throws IOException {
-        return withCommsSession(session -> {
-            final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
+        return send(1, dos -> {
             dos.writeUTF("removeByPattern");
             dos.writeUTF(regex);
-            dos.flush();
-
-            // read response
-            final DataInputStream dis = new DataInputStream(session.getInputStream());
-            return dis.readLong();
-        });
+        }, DataInputStream::readLong);
     }
 
     @Override
     public <K, V> Map<K, V> removeByPatternAndGet(String regex, Deserializer<K> keyDeserializer, Deserializer<V> valueDeserializer) throws IOException {
-        return withCommsSession(new CommsAction<Map<K, V>>() {
-            @Override
-            public Map<K, V> execute(CommsSession session) throws IOException {
-                validateProtocolVersion(session, 3);
-
-                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-                dos.writeUTF("removeByPatternAndGet");
-                dos.writeUTF(regex);
-                dos.flush();
-
-                // read response
-                final DataInputStream dis = new DataInputStream(session.getInputStream());
-                final int mapSize = dis.readInt();
-                HashMap<K, V> resultMap = new HashMap<>(mapSize);
-                for (int i=0; i<mapSize; i++) {
-                    final byte[] keyBuffer = readLengthDelimitedResponse(dis);
-                    K key = keyDeserializer.deserialize(keyBuffer);
-                    final byte[] valueBuffer = readLengthDelimitedResponse(dis);
-                    V value = valueDeserializer.deserialize(valueBuffer);
-                    resultMap.put(key, value);
-                }
-                return resultMap;
+        return send(3, dos -> {
+            dos.writeUTF("removeByPatternAndGet");
+            dos.writeUTF(regex);
+        }, dis -> {
+            final int mapSize = dis.readInt();
+            HashMap<K, V> resultMap = new HashMap<>(mapSize);
+            for (int i=0; i<mapSize; i++) {
+                final byte[] keyBuffer = readLengthDelimitedResponse(dis);
+                K key = keyDeserializer.deserialize(keyBuffer);
+                final byte[] valueBuffer = readLengthDelimitedResponse(dis);
+                V value = valueDeserializer.deserialize(valueBuffer);
+                resultMap.put(key, value);
             }
+            return resultMap;
         });
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <K, V> AtomicCacheEntry<K, V, Long> fetch(K key, Serializer<K> keySerializer, Deserializer<V> valueDeserializer) throws IOException {
-        return withCommsSession(session -> {
-            validateProtocolVersion(session, 2);
-
-            final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
+        return send(2, dos -> {
             dos.writeUTF("fetch");
-
             serialize(key, keySerializer, dos);
-            dos.flush();
-
-            // read response
-            final DataInputStream dis = new DataInputStream(session.getInputStream());
+        }, dis -> {
             final long revision = dis.readLong();
             final byte[] responseBuffer = readLengthDelimitedResponse(dis);
 
@@ -353,35 +383,17 @@ public class DistributedMapCacheClientService extends AbstractControllerService
 
     @Override
     public <K, V> boolean replace(AtomicCacheEntry<K, V, Long> entry, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
-        return withCommsSession(session -> {
-            validateProtocolVersion(session, 2);
-
-            final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
+        return send(2, dos -> {
             dos.writeUTF("replace");
-
             serialize(entry.getKey(), keySerializer, dos);
             dos.writeLong(entry.getRevision().orElse(0L));
             serialize(entry.getValue(), valueSerializer, dos);
-
-            dos.flush();
-
-            // read response
-            final DataInputStream dis = new DataInputStream(session.getInputStream());
-            return dis.readBoolean();
-        });
+        }, DataInputStream::readBoolean);
     }
 
     @Override
     public <K> Set<K> keySet(Deserializer<K> keyDeserializer) throws IOException {
-        return withCommsSession(session -> {
-            validateProtocolVersion(session, 3);
-
-            final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
-            dos.writeUTF("keySet");
-            dos.flush();
-
-            // read response
-            final DataInputStream dis = new DataInputStream(session.getInputStream());
+        return send(3, dos -> dos.writeUTF("keySet"), dis -> {
             final int setSize = dis.readInt();
             HashSet<K> resultSet = new HashSet<>(setSize);
             for (int i=0; i<setSize; i++) {
@@ -416,14 +428,8 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         return commsSession;
     }
 
-    private CommsSession leaseCommsSession() throws IOException {
-        CommsSession session = queue.poll();
-        if (session != null && !session.isClosed()) {
-            return session;
-        }
-
-        session = createCommsSession(configContext);
-        final VersionNegotiator versionNegotiator = new StandardVersionNegotiator(3, 2, 1);
+    private CommsSession openCommsSession(final VersionNegotiator versionNegotiator) throws IOException {
+        final CommsSession session = createCommsSession(configContext);
         try {
             ProtocolHandshake.initiateHandshake(session.getInputStream(), session.getOutputStream(), versionNegotiator);
             session.setProtocolVersion(versionNegotiator.getVersion());
@@ -439,9 +445,49 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         return session;
     }
 
+    private CommsSession leaseCommsSession() throws IOException {
+        CommsSession session = queue.poll();
+        if (session != null && !session.isClosed()) {
+            return session;
+        }
+
+        return openCommsSession(new StandardVersionNegotiator(4, 3, 2, 1));
+    }
+
+    /**
+     * @return a session over which requests can be pipelined, or <code>null</code> if the server does not support pipelining
+     */
+    private PipelinedCommsSession leasePipelinedSession() throws IOException {
+        final PipelinedCommsSession[] sessions = pipelinedSessions;
+        final int index = Math.floorMod(pipelinedSessionIndex.getAndIncrement(), sessions.length);
+
+        final PipelinedCommsSession session = sessions[index];
+        if (session != null && !session.isClosed()) {
+            return session;
+        }
+
+        synchronized (sessions) {
+            if (sessions[index] == null || sessions[index].isClosed()) {
+                final CommsSession commsSession = openCommsSession(new StandardVersionNegotiator(PIPELINING_PROTOCOL_VERSION, 4, 3, 2, 1));
+                if (commsSession.getProtocolVersion() < PIPELINING_PROTOCOL_VERSION) {
+                    // the server is too old to pipeline requests, but the connection can still be used one request at a time
+                    logger.debug("{} does not support pipelining requests; each request will be sent over a dedicated connection", commsSession.getHostname());
+                    pipeliningSupported = false;
+                    queue.offer(commsSession);
+                    return null;
+                }
+
+                sessions[index] = new PipelinedCommsSession(commsSession);
+            }
+
+            return sessions[index];
+        }
+    }
+
     @Override
     public void close() throws IOException {
         this.closed = true;
+        closePipelinedSessions();
 
         CommsSession commsSession;
         while ((commsSession = queue.poll()) != null) {
@@ -457,6 +503,18 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         }
     }
 
+    private void closePipelinedSessions() {
+        final PipelinedCommsSession[] sessions = pipelinedSessions;
+        synchronized (sessions) {
+            for (int i = 0; i < sessions.length; i++) {
+                if (sessions[i] != null) {
+                    IOUtils.closeQuietly(sessions[i]);
+                    sessions[i] = null;
+                }
+            }
+        }
+    }
+
     @Override
     protected void finalize() throws Throwable {
         if (!closed) {
@@ -483,6 +541,108 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         }
     }
 
+    /**
+     * Sends a request and waits for its response, pipelining the request if the server supports it
+     *
+     * @param protocolVersion the protocol version that the server must support in order to serve the request
+     * @param requestWriter writes the action and arguments of the request
+     * @param responseReader reads the response to the request
+     * @return the response
+     * @throws IOException if unable to communicate with the server
+     */
+    private <T> T send(final int protocolVersion, final RequestWriter requestWriter, final ResponseReader<T> responseReader) throws IOException {
+        final CompletableFuture<byte[]> pipelined = sendPipelined(requestWriter);
+        if (pipelined == null) {
+            return withCommsSession(session -> {
+                validateProtocolVersion(session, protocolVersion);
+
+                final DataOutputStream dos = new DataOutputStream(session.getOutputStream());
+                requestWriter.write(dos);
+                dos.flush();
+
+                final DataInputStream dis = new DataInputStream(session.getInputStream());
+                return responseReader.read(dis);
+            });
+        }
+
+        final long timeoutMillis = configContext.getProperty(COMMUNICATIONS_TIMEOUT).asTimePeriod(TimeUnit.MILLISECONDS);
+        try {
+            // the session fails any request that goes unanswered for the timeout, so this only guards against the session stalling
+            final byte[] response = pipelined.get(2 * timeoutMillis, TimeUnit.MILLISECONDS);
+            return readResponse(response, responseReader);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (final TimeoutException e) {
+            throw new IOException("Timed out waiting for a response from the DistributedMapCacheServer", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a response from the DistributedMapCacheServer", e);
+        }
+    }
+
+    /**
+     * Sends a request without waiting for its response if the server supports pipelining. Otherwise the request is
+     * sent, and its response received, before this method returns.
+     */
+    private <T> CompletableFuture<T> sendAsync(final int protocolVersion, final RequestWriter requestWriter, final ResponseReader<T> responseReader) {
+        try {
+            final ExecutorService executor = responseExecutor;
+            final CompletableFuture<byte[]> pipelined = executor == null ? null : sendPipelined(requestWriter);
+            if (pipelined != null) {
+                return pipelined.thenApplyAsync(response -> {
+                    try {
+                        return readResponse(response, responseReader);
+                    } catch (final IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+            }
+
+            return CompletableFuture.completedFuture(send(protocolVersion, requestWriter, responseReader));
+        } catch (final IOException | RuntimeException e) {
+            final CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * @return a future for the raw response to the request, or <code>null</code> if the request cannot be pipelined. The future is completed
+     * by the thread that reads the responses of the connection, so nothing that may take long should be chained onto it on that thread.
+     */
+    private CompletableFuture<byte[]> sendPipelined(final RequestWriter requestWriter) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Client is closed");
+        }
+        if (!pipeliningSupported) {
+            return null;
+        }
+
+        // serialize the request up front so that a serialization failure cannot corrupt the shared connection
+        final ByteArrayOutputStream request = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(request);
+        requestWriter.write(dos);
+        dos.flush();
+
+        final PipelinedCommsSession session = leasePipelinedSession();
+        if (session == null) {
+            return null;
+        }
+
+        return session.send(request.toByteArray());
+    }
+
+    private <T> T readResponse(final byte[] response, final ResponseReader<T> responseReader) throws IOException {
+        return responseReader.read(new DataInputStream(new ByteArrayInputStream(response)));
+    }
+
     private <T> T withCommsSession(final CommsAction<T> action) throws IOException {
         if (closed) {
             throw new IllegalStateException("Client is closed");
@@ -508,4 +668,14 @@ public class DistributedMapCacheClientService extends AbstractControllerService
         T execute(CommsSession commsSession) throws IOException;
     }
 
+    private static interface RequestWriter {
+
+        void write(DataOutputStream dos) throws IOException;
+    }
+
+    private static interface ResponseReader<T> {
+
+        T read(DataInputStream dis) throws IOException;
+    }
+
 }
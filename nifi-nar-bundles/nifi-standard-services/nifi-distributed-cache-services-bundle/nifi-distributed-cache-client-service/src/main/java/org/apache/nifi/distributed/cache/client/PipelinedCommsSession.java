@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.client;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends requests over a single {@link CommsSession} without waiting for the responses to earlier requests, so that
+ * many threads can share one connection. Each request is preceded by an id, which the server sends back ahead of the
+ * length-delimited response (protocol version 5), and a dedicated thread reads the responses and completes the future
+ * of the request that each one belongs to.
+ */
+class PipelinedCommsSession implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelinedCommsSession.class);
+
+    private final CommsSession session;
+    private final DataInputStream dis;
+    private final DataOutputStream dos;
+    private final long timeoutNanos;
+
+    private final Object writeLock = new Object();
+    private final Map<Long, PendingResponse> pendingResponses = new ConcurrentHashMap<>();
+    private long nextRequestId = 0L;
+    private volatile boolean closed = false;
+
+    PipelinedCommsSession(final CommsSession session) throws IOException {
+        this.session = session;
+        this.dis = new DataInputStream(session.getInputStream());
+        this.dos = new DataOutputStream(session.getOutputStream());
+        this.timeoutNanos = session.getTimeout(TimeUnit.NANOSECONDS);
+
+        final Thread responseThread = new Thread(this::readResponses);
+        responseThread.setName("Distributed Map Cache Client Responses: " + session.getHostname() + ":" + session.getPort());
+        responseThread.setDaemon(true);
+        responseThread.start();
+    }
+
+    /**
+     * Sends the given request, which must already be serialized so that a failure to serialize it cannot leave a
+     * partial request on the connection.
+     *
+     * @param request the action and arguments of the request
+     * @return a future that completes with the response to the request
+     */
+    CompletableFuture<byte[]> send(final byte[] request) {
+        final PendingResponse pendingResponse = new PendingResponse();
+        synchronized (writeLock) {
+            if (closed) {
+                pendingResponse.future.completeExceptionally(new IOException("Connection to " + this + " has been closed"));
+                return pendingResponse.future;
+            }
+
+            final long requestId = nextRequestId++;
+            pendingResponses.put(requestId, pendingResponse);
+            try {
+                dos.writeLong(requestId);
+                dos.write(request);
+                dos.flush();
+            } catch (final IOException e) {
+                fail(e);
+            }
+        }
+
+        return pendingResponse.future;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    private void readResponses() {
+        try {
+            while (!closed) {
+                final int firstByte;
+                try {
+                    firstByte = dis.read();
+                } catch (final SocketTimeoutException e) {
+                    // the connection may simply be idle; only give up on it if a request has gone unanswered for too long
+                    if (isAnyResponseOverdue()) {
+                        throw e;
+                    }
+                    continue;
+                }
+                if (firstByte < 0) {
+                    throw new EOFException("Connection to " + this + " was closed by the server");
+                }
+
+                // Once a response has begun, a timeout would leave the stream in the middle of it, so any timeout while reading
+                // the rest of the response fails every pending request rather than being treated as an idle connection
+                final byte[] requestIdBytes = new byte[8];
+                requestIdBytes[0] = (byte) firstByte;
+                dis.readFully(requestIdBytes, 1, 7);
+                final long requestId = ByteBuffer.wrap(requestIdBytes).getLong();
+
+                final byte[] response = new byte[dis.readInt()];
+                dis.readFully(response);
+
+                final PendingResponse pendingResponse = pendingResponses.remove(requestId);
+                if (pendingResponse == null) {
+                    throw new IOException("Received a response from " + this + " for unknown request " + requestId);
+                }
+                pendingResponse.future.complete(response);
+            }
+        } catch (final IOException | RuntimeException e) {
+            if (!closed) {
+                logger.debug("Failed to read responses from {}", this, e);
+            }
+            fail(e instanceof IOException ? (IOException) e : new IOException(e));
+        }
+    }
+
+    private boolean isAnyResponseOverdue() {
+        final long now = System.nanoTime();
+        for (final PendingResponse pendingResponse : pendingResponses.values()) {
+            if (now - pendingResponse.sentNanos > timeoutNanos) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void fail(final IOException cause) {
+        closed = true;
+        IOUtils.closeQuietly(session);
+
+        final Iterator<PendingResponse> itr = pendingResponses.values().iterator();
+        while (itr.hasNext()) {
+            final PendingResponse pendingResponse = itr.next();
+            itr.remove();
+            pendingResponse.future.completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            try {
+                dos.writeLong(nextRequestId++);
+                dos.writeUTF("close");
+                dos.flush();
+            } catch (final IOException e) {
+                logger.debug("Failed to notify {} that the connection is closing", this, e);
+            }
+        }
+
+        fail(new IOException("Connection to " + this + " has been closed"));
+    }
+
+    @Override
+    public String toString() {
+        return session.getHostname() + ":" + session.getPort();
+    }
+
+    private static class PendingResponse {
+        private final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        private final long sentNanos = System.nanoTime();
+    }
+}
@@ -38,6 +38,9 @@ public class ProtocolHandshake {
      * If the server doesn't support requested protocol version, HandshakeException will be thrown.</p>
      *
      * <p>DistributedMapCache version histories:<ul>
+     *     <li>5: Added request ids so that requests can be pipelined. Each request is preceded by a long id, and each
+     *            response is sent as the id of its request followed by the length-delimited response.</li>
+     *     <li>4: Added getAndPutAllIfAbsent method.</li>
      *     <li>3: Added subMap, keySet, removeAndGet, removeByPatternAndGet methods.</li>
      *     <li>2: Added atomic update operations (fetch and replace) using optimistic lock with revision number.</li>
      *     <li>1: Initial version.</li>
@@ -16,17 +16,37 @@
  */
 package org.apache.nifi.distributed.cache.server;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.net.ssl.SSLContext;
 
@@ -43,22 +63,54 @@ import org.apache.nifi.remote.io.socket.ssl.SSLSocketChannelOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Base class for the cache servers. Connections are accepted on a dedicated thread, but rather than dedicating a
+ * thread to each connection, idle connections are parked on a {@link Selector}. Whenever a connection becomes
+ * readable it is handed to a bounded pool of request threads, which reads whatever has arrived without waiting for
+ * more, serves every request that has been received completely (so that clients may pipeline requests) and keeps
+ * the remainder of a partially received request until the connection becomes readable again. A slow client therefore
+ * never holds a request thread while the rest of its request is in transit.
+ */
 public abstract class AbstractCacheServer implements CacheServer {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractCacheServer.class);
 
+    public static final int DEFAULT_MAX_REQUEST_THREADS = 16;
+
+    // connections that have not issued a request for this long are closed, as they were when each connection
+    // was served by a thread blocking on a read with a 30 second timeout
+    private static final long IDLE_CONNECTION_MILLIS = 30000L;
+    private static final long SELECT_TIMEOUT_MILLIS = 1000L;
+    private static final int INITIAL_REQUEST_BUFFER_SIZE = 8192;
+
     private final String identifier;
     private final int port;
     private final SSLContext sslContext;
+    private final int maxRequestThreads;
     protected volatile boolean stopped = false;
-    private final Set<Thread> processInputThreads = new CopyOnWriteArraySet<>();
+
+    private final Set<ClientConnection> connections = ConcurrentHashMap.newKeySet();
+    private final Queue<ClientConnection> connectionsToPark = new ConcurrentLinkedQueue<>();
+    private final Map<String, OperationMetrics> operationMetrics = new ConcurrentHashMap<>();
+    private final LongAdder acceptedConnections = new LongAdder();
 
     private volatile ServerSocketChannel serverSocketChannel;
+    private volatile Selector selector;
+    private volatile ExecutorService requestExecutor;
 
     public AbstractCacheServer(final String identifier, final SSLContext sslContext, final int port) {
+        this(identifier, sslContext, port, DEFAULT_MAX_REQUEST_THREADS);
+    }
+
+    public AbstractCacheServer(final String identifier, final SSLContext sslContext, final int port, final int maxRequestThreads) {
+        if (maxRequestThreads < 1) {
+            throw new IllegalArgumentException("Maximum Request Threads must be at least 1 but was " + maxRequestThreads);
+        }
+
         this.identifier = identifier;
         this.port = port;
         this.sslContext = sslContext;
+        this.maxRequestThreads = maxRequestThreads;
     }
 
     @Override
@@ -71,15 +123,24 @@ public abstract class AbstractCacheServer implements CacheServer {
         serverSocketChannel = ServerSocketChannel.open();
         serverSocketChannel.configureBlocking(true);
         serverSocketChannel.bind(new InetSocketAddress(port));
+        selector = Selector.open();
 
-        final Runnable runnable = new Runnable() {
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        requestExecutor = Executors.newFixedThreadPool(maxRequestThreads, runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setName("Distributed Cache Server Communications Thread: " + identifier + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
 
+        final Runnable acceptRunnable = new Runnable() {
             @Override
             public void run() {
                 while (true) {
                     final SocketChannel socketChannel;
                     try {
                         socketChannel = serverSocketChannel.accept();
+                        acceptedConnections.increment();
                         logger.debug("Connected to {}", new Object[]{socketChannel});
                     } catch (final IOException e) {
                         if (!stopped) {
@@ -91,76 +152,209 @@ public abstract class AbstractCacheServer implements CacheServer {
                         return;
                     }
 
-                    final Runnable processInputRunnable = new Runnable() {
-                        @Override
-                        public void run() {
-                            final InputStream rawInputStream;
-                            final OutputStream rawOutputStream;
-                            final String peer = socketChannel.socket().getInetAddress().getHostName();
-
-                            try {
-                                if (sslContext == null) {
-                                    rawInputStream = new SocketChannelInputStream(socketChannel);
-                                    rawOutputStream = new SocketChannelOutputStream(socketChannel);
-                                } else {
-                                    final SSLSocketChannel sslSocketChannel = new SSLSocketChannel(sslContext, socketChannel, false);
-                                    sslSocketChannel.connect();
-                                    rawInputStream = new SSLSocketChannelInputStream(sslSocketChannel);
-                                    rawOutputStream = new SSLSocketChannelOutputStream(sslSocketChannel);
-                                }
-                            } catch (IOException e) {
-                                logger.error("Cannot create input and/or output streams for {}", new Object[]{identifier}, e);
-                                if (logger.isDebugEnabled()) {
-                                    logger.error("", e);
-                                }
-                                try {
-                                    socketChannel.close();
-                                } catch (IOException swallow) {
-                                }
-
-                                return;
-                            }
-                            try (final InputStream in = new BufferedInputStream(rawInputStream);
-                                 final OutputStream out = new BufferedOutputStream(rawOutputStream)) {
-
-                                final VersionNegotiator versionNegotiator = getVersionNegotiator();
-
-                                ProtocolHandshake.receiveHandshake(in, out, versionNegotiator);
-
-                                boolean continueComms = true;
-                                while (continueComms) {
-                                    continueComms = listen(in, out, versionNegotiator.getVersion());
-                                }
-                                // client has issued 'close'
-                                logger.debug("Client issued close on {}", new Object[]{socketChannel});
-                            } catch (final SocketTimeoutException e) {
-                                logger.debug("30 sec timeout reached", e);
-                            } catch (final IOException | HandshakeException e) {
-                                if (!stopped) {
-                                    logger.error("{} unable to communicate with remote peer {} due to {}", new Object[]{this, peer, e.toString()});
-                                    if (logger.isDebugEnabled()) {
-                                        logger.error("", e);
-                                    }
-                                }
-                            } finally {
-                                processInputThreads.remove(Thread.currentThread());
-                            }
-                        }
-                    };
-
-                    final Thread processInputThread = new Thread(processInputRunnable);
-                    processInputThread.setName("Distributed Cache Server Communications Thread: " + identifier);
-                    processInputThread.setDaemon(true);
-                    processInputThread.start();
-                    processInputThreads.add(processInputThread);
+                    try {
+                        requestExecutor.submit(() -> openConnection(socketChannel));
+                    } catch (final RejectedExecutionException e) {
+                        closeQuietly(socketChannel);
+                    }
                 }
             }
         };
 
-        final Thread thread = new Thread(runnable);
-        thread.setDaemon(true);
-        thread.setName("Distributed Cache Server: " + identifier);
-        thread.start();
+        final Thread acceptThread = new Thread(acceptRunnable);
+        acceptThread.setDaemon(true);
+        acceptThread.setName("Distributed Cache Server: " + identifier);
+        acceptThread.start();
+
+        final Thread selectorThread = new Thread(this::selectConnections);
+        selectorThread.setDaemon(true);
+        selectorThread.setName("Distributed Cache Server Selector: " + identifier);
+        selectorThread.start();
+    }
+
+    private void openConnection(final SocketChannel socketChannel) {
+        final InputStream rawInputStream;
+        final OutputStream rawOutputStream;
+        final SSLSocketChannel sslSocketChannel;
+        final String peer = socketChannel.socket().getInetAddress().getHostName();
+
+        try {
+            if (sslContext == null) {
+                sslSocketChannel = null;
+                rawInputStream = new SocketChannelInputStream(socketChannel);
+                rawOutputStream = new SocketChannelOutputStream(socketChannel);
+            } else {
+                sslSocketChannel = new SSLSocketChannel(sslContext, socketChannel, false);
+                sslSocketChannel.connect();
+                rawInputStream = new SSLSocketChannelInputStream(sslSocketChannel);
+                rawOutputStream = new SSLSocketChannelOutputStream(sslSocketChannel);
+            }
+        } catch (IOException e) {
+            logger.error("Cannot create input and/or output streams for {}", new Object[]{identifier}, e);
+            if (logger.isDebugEnabled()) {
+                logger.error("", e);
+            }
+            closeQuietly(socketChannel);
+            return;
+        }
+
+        // the handshake is read without buffering, so that any request that follows it is left for readAvailable
+        final ClientConnection connection = new ClientConnection(socketChannel, sslSocketChannel, peer, rawInputStream, new BufferedOutputStream(rawOutputStream));
+        connections.add(connection);
+
+        try {
+            final VersionNegotiator versionNegotiator = getVersionNegotiator();
+            ProtocolHandshake.receiveHandshake(connection.in, connection.out, versionNegotiator);
+            connection.version = versionNegotiator.getVersion();
+        } catch (final IOException | HandshakeException e) {
+            if (!stopped) {
+                logger.error("{} unable to communicate with remote peer {} due to {}", new Object[]{this, peer, e.toString()});
+                if (logger.isDebugEnabled()) {
+                    logger.error("", e);
+                }
+            }
+            close(connection);
+            return;
+        }
+
+        processRequests(connection, false);
+    }
+
+    /**
+     * Serves every request that has been received completely on the given connection and then hands the connection
+     * back to the selector so that no thread is held while the client is idle or the rest of a request is in transit.
+     *
+     * @param connection the connection to serve
+     * @param readable whether the selector has reported the connection as readable
+     */
+    private void processRequests(final ClientConnection connection, final boolean readable) {
+        try {
+            if (!connection.readAvailable(readable)) {
+                logger.debug("Remote peer {} closed the connection", connection.peer);
+                close(connection);
+                return;
+            }
+
+            final ByteBuffer requests = connection.requestBuffer;
+            requests.flip();
+            try {
+                int requestLength;
+                while (!stopped && (requestLength = getRequestLength(requests, connection.version)) >= 0) {
+                    final InputStream request = new ByteArrayInputStream(requests.array(), requests.position(), requestLength);
+                    requests.position(requests.position() + requestLength);
+                    if (!listen(request, connection.out, connection.version)) {
+                        // client has issued 'close'
+                        logger.debug("Client issued close on {}", new Object[]{connection.socketChannel});
+                        close(connection);
+                        return;
+                    }
+                }
+            } finally {
+                connection.compactRequestBuffer();
+            }
+        } catch (final EOFException e) {
+            logger.debug("Remote peer {} closed the connection", connection.peer, e);
+            close(connection);
+            return;
+        } catch (final SocketTimeoutException e) {
+            logger.debug("30 sec timeout reached", e);
+            close(connection);
+            return;
+        } catch (final IOException e) {
+            if (!stopped) {
+                logger.error("{} unable to communicate with remote peer {} due to {}", new Object[]{this, connection.peer, e.toString()});
+                if (logger.isDebugEnabled()) {
+                    logger.error("", e);
+                }
+            }
+            close(connection);
+            return;
+        }
+
+        if (stopped) {
+            close(connection);
+            return;
+        }
+
+        connection.lastActivity = System.currentTimeMillis();
+        connectionsToPark.add(connection);
+        selector.wakeup();
+    }
+
+    private void selectConnections() {
+        while (!stopped) {
+            try {
+                ClientConnection connection;
+                while ((connection = connectionsToPark.poll()) != null) {
+                    park(connection);
+                }
+
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                if (stopped) {
+                    return;
+                }
+
+                final Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    final SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+
+                    final ClientConnection readyConnection = (ClientConnection) key.attachment();
+                    try {
+                        // stop watching the connection until the request thread has finished with it
+                        key.interestOps(0);
+                        requestExecutor.submit(() -> processRequests(readyConnection, true));
+                    } catch (final CancelledKeyException | RejectedExecutionException e) {
+                        close(readyConnection);
+                    }
+                }
+
+                closeIdleConnections();
+            } catch (final IOException | RuntimeException e) {
+                if (!stopped) {
+                    logger.error("{} failed to select connections that are ready to be read", this, e);
+                }
+            }
+        }
+    }
+
+    private void park(final ClientConnection connection) {
+        try {
+            final SelectionKey key = connection.socketChannel.keyFor(selector);
+            if (key == null) {
+                connection.socketChannel.register(selector, SelectionKey.OP_READ, connection);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (final ClosedChannelException | CancelledKeyException e) {
+            close(connection);
+        }
+    }
+
+    private void closeIdleConnections() {
+        final long idleSince = System.currentTimeMillis() - IDLE_CONNECTION_MILLIS;
+        for (final SelectionKey key : selector.keys()) {
+            final ClientConnection connection = (ClientConnection) key.attachment();
+            // only parked connections are considered, as they are not in use by a request thread
+            if (key.isValid() && key.interestOps() == SelectionKey.OP_READ && connection.lastActivity < idleSince) {
+                logger.debug("Closing connection to {} as it has been idle for more than {} millis", connection.peer, IDLE_CONNECTION_MILLIS);
+                close(connection);
+            }
+        }
+    }
+
+    private void close(final ClientConnection connection) {
+        connections.remove(connection);
+        closeQuietly(connection.in);
+        closeQuietly(connection.out);
+        closeQuietly(connection.socketChannel);
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (final IOException swallow) {
+        }
     }
 
     /**
@@ -179,19 +373,53 @@ public abstract class AbstractCacheServer implements CacheServer {
         if (serverSocketChannel != null && serverSocketChannel.isOpen()) {
             serverSocketChannel.close();
         }
-        // need to close out the created SocketChannels...this is done by interrupting
-        // the created threads that loop on listen().
-        for (Thread processInputThread : processInputThreads) {
-            processInputThread.interrupt();
-            int i = 0;
-            while (!processInputThread.isInterrupted() && i++ < 5) {
-                try {
-                    Thread.sleep(50); // allow thread to gracefully terminate
-                } catch (InterruptedException e) {
-                }
+        if (selector != null) {
+            selector.close();
+        }
+        // closing the connections causes any request thread that is blocked on a read to fail fast
+        for (final ClientConnection connection : connections) {
+            close(connection);
+        }
+        connections.clear();
+        connectionsToPark.clear();
+
+        if (requestExecutor != null) {
+            requestExecutor.shutdownNow();
+            try {
+                requestExecutor.awaitTermination(250, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
-        processInputThreads.clear();
+
+        if (logger.isInfoEnabled()) {
+            operationMetrics.forEach((operation, metrics) -> logger.info("{} served {} '{}' requests with a mean latency of {} micros and a maximum of {} micros",
+                    new Object[]{this, metrics.getCount(), operation, metrics.getMeanNanos() / 1000, metrics.getMaxNanos() / 1000}));
+        }
+    }
+
+    /**
+     * Records that a request has been served so that per-operation latencies can be reported
+     *
+     * @param operation the name of the operation that was requested
+     * @param nanos the number of nanoseconds that it took to serve the request
+     */
+    protected void recordOperation(final String operation, final long nanos) {
+        operationMetrics.computeIfAbsent(operation, key -> new OperationMetrics()).record(nanos);
+    }
+
+    /**
+     * @return the latency metrics of each operation that has been served, keyed by operation name
+     */
+    public Map<String, OperationMetrics> getOperationMetrics() {
+        return Collections.unmodifiableMap(operationMetrics);
+    }
+
+    /**
+     * @return the number of connections that have been accepted since the server was started
+     */
+    public long getAcceptedConnectionCount() {
+        return acceptedConnections.sum();
     }
 
     @Override
@@ -209,4 +437,173 @@ public abstract class AbstractCacheServer implements CacheServer {
      * @throws IOException ex
      */
     protected abstract boolean listen(InputStream in, OutputStream out, int version) throws IOException;
+
+    /**
+     * Determines whether the first request in the given buffer has been received completely, so that it is only
+     * handed to {@link #listen(InputStream, OutputStream, int)} once it can be read without waiting on the client.
+     * The position of the buffer must not be changed.
+     *
+     * @param requests the data that has been received and not yet served, starting at the position of the buffer
+     * @param version the protocol version that was negotiated with the client
+     * @return the number of bytes of the first request, or -1 if it has not been received completely
+     */
+    protected abstract int getRequestLength(ByteBuffer requests, int version);
+
+    /**
+     * Skips over the given number of bytes of a request
+     *
+     * @return <code>false</code> if fewer bytes than that remain in the buffer
+     */
+    protected static boolean skip(final ByteBuffer request, final int length) {
+        if (length < 0 || request.remaining() < length) {
+            return false;
+        }
+        request.position(request.position() + length);
+        return true;
+    }
+
+    /**
+     * Skips over a value of a request that is written as its length followed by its bytes
+     *
+     * @return <code>false</code> if the value has not been received completely
+     */
+    protected static boolean skipValue(final ByteBuffer request) {
+        return request.remaining() >= 4 && skip(request, request.getInt());
+    }
+
+    /**
+     * Reads a String of a request that was written by {@link java.io.DataOutputStream#writeUTF(String)}
+     *
+     * @return the String, or <code>null</code> if it has not been received completely
+     */
+    protected static String readUTF(final ByteBuffer request) {
+        if (request.remaining() < 2) {
+            return null;
+        }
+        final int length = request.getShort() & 0xFFFF;
+        if (request.remaining() < length) {
+            return null;
+        }
+        // the actions are plain ASCII, which modified UTF-8 encodes the same way as UTF-8
+        final String value = new String(request.array(), request.arrayOffset() + request.position(), length, StandardCharsets.UTF_8);
+        request.position(request.position() + length);
+        return value;
+    }
+
+    private static class ClientConnection {
+        private final SocketChannel socketChannel;
+        private final SSLSocketChannel sslSocketChannel;
+        private final String peer;
+        private final InputStream in;
+        private final OutputStream out;
+        private volatile int version;
+        // written by the request threads and read by the selector thread
+        private volatile long lastActivity = System.currentTimeMillis();
+        // only used by the request thread that is serving the connection, which the selector hands the connection to
+        private ByteBuffer requestBuffer = ByteBuffer.allocate(INITIAL_REQUEST_BUFFER_SIZE);
+
+        private ClientConnection(final SocketChannel socketChannel, final SSLSocketChannel sslSocketChannel, final String peer,
+                                 final InputStream in, final OutputStream out) {
+            this.socketChannel = socketChannel;
+            this.sslSocketChannel = sslSocketChannel;
+            this.peer = peer;
+            this.in = in;
+            this.out = out;
+        }
+
+        /**
+         * Reads whatever has arrived on the connection into the request buffer without waiting for more
+         *
+         * @param readable whether the selector has reported the connection as readable
+         * @return <code>false</code> if the peer has closed the connection
+         */
+        private boolean readAvailable(final boolean readable) throws IOException {
+            if (sslSocketChannel == null) {
+                // the channel has been made non-blocking by its input stream
+                while (true) {
+                    ensureRequestBufferCapacity();
+                    final int read = socketChannel.read(requestBuffer);
+                    if (read < 0) {
+                        return false;
+                    }
+                    if (read == 0) {
+                        return true;
+                    }
+                }
+            }
+
+            // a TLS record can only be decrypted once all of it has arrived, so this may wait for the rest of a record, but never for the rest of a request
+            boolean readAny = false;
+            while (sslSocketChannel.available() > 0) {
+                if (!readDecrypted()) {
+                    return false;
+                }
+                readAny = true;
+            }
+
+            // the end of the stream is not reported as available data, so a readable connection that has nothing to read has been closed
+            return readAny || !readable || readDecrypted();
+        }
+
+        private boolean readDecrypted() throws IOException {
+            ensureRequestBufferCapacity();
+            final int read = sslSocketChannel.read(requestBuffer.array(), requestBuffer.arrayOffset() + requestBuffer.position(), requestBuffer.remaining());
+            if (read < 0) {
+                return false;
+            }
+            requestBuffer.position(requestBuffer.position() + read);
+            return true;
+        }
+
+        private void ensureRequestBufferCapacity() {
+            if (!requestBuffer.hasRemaining()) {
+                final ByteBuffer larger = ByteBuffer.allocate(requestBuffer.capacity() * 2);
+                requestBuffer.flip();
+                larger.put(requestBuffer);
+                requestBuffer = larger;
+            }
+        }
+
+        // must be called once the served requests have been consumed from the flipped request buffer
+        private void compactRequestBuffer() {
+            if (!requestBuffer.hasRemaining() && requestBuffer.capacity() > INITIAL_REQUEST_BUFFER_SIZE) {
+                // release the memory of a large request once it has been served
+                requestBuffer = ByteBuffer.allocate(INITIAL_REQUEST_BUFFER_SIZE);
+            } else {
+                requestBuffer.compact();
+            }
+        }
+    }
+
+    /**
+     * Number of requests served for an operation, along with their total and maximum latency
+     */
+    public static class OperationMetrics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong(0L);
+
+        private void record(final long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getMeanNanos() {
+            final long requests = getCount();
+            return requests == 0 ? 0L : getTotalNanos() / requests;
+        }
+    }
 }
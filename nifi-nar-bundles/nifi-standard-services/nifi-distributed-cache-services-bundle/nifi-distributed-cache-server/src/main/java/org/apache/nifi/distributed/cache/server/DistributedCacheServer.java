@@ -68,6 +68,15 @@ public abstract class DistributedCacheServer extends AbstractControllerService {
         .required(false)
         .addValidator(StandardValidators.createDirectoryExistsValidator(true, true))
         .build();
+    public static final PropertyDescriptor MAX_REQUEST_THREADS = new PropertyDescriptor.Builder()
+        .name("max-request-threads")
+        .displayName("Maximum Request Threads")
+        .description("The maximum number of threads that will be used to serve client requests. Connections are not bound to a thread, "
+            + "so idle client connections do not consume any of these threads.")
+        .required(true)
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue(String.valueOf(AbstractCacheServer.DEFAULT_MAX_REQUEST_THREADS))
+        .build();
 
     private volatile CacheServer cacheServer;
 
@@ -79,6 +88,7 @@ public abstract class DistributedCacheServer extends AbstractControllerService {
         properties.add(EVICTION_POLICY);
         properties.add(PERSISTENCE_PATH);
         properties.add(SSL_CONTEXT_SERVICE);
+        properties.add(MAX_REQUEST_THREADS);
         return properties;
     }
 
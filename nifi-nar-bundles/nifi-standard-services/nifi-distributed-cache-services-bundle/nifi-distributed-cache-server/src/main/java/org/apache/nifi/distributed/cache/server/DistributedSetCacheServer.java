@@ -38,6 +38,7 @@ public class DistributedSetCacheServer extends DistributedCacheServer {
         final SSLContextService sslContextService = context.getProperty(SSL_CONTEXT_SERVICE).asControllerService(SSLContextService.class);
         final int maxSize = context.getProperty(MAX_CACHE_ENTRIES).asInteger();
         final String evictionPolicyName = context.getProperty(EVICTION_POLICY).getValue();
+        final int maxRequestThreads = context.getProperty(MAX_REQUEST_THREADS).asInteger();
 
         final SSLContext sslContext;
         if (sslContextService == null) {
@@ -64,7 +65,7 @@ public class DistributedSetCacheServer extends DistributedCacheServer {
         try {
             final File persistenceDir = persistencePath == null ? null : new File(persistencePath);
 
-            return new SetCacheServer(getIdentifier(), sslContext, port, maxSize, evictionPolicy, persistenceDir);
+            return new SetCacheServer(getIdentifier(), sslContext, port, maxSize, evictionPolicy, persistenceDir, maxRequestThreads);
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
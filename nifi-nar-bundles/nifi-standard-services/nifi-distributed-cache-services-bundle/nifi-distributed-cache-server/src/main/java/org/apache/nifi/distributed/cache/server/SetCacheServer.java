@@ -37,7 +37,12 @@ public class SetCacheServer extends AbstractCacheServer {
 
     public SetCacheServer(final String identifier, final SSLContext sslContext, final int port, final int maxSize,
             final EvictionPolicy evictionPolicy, final File persistencePath) throws IOException {
-        super(identifier, sslContext, port);
+        this(identifier, sslContext, port, maxSize, evictionPolicy, persistencePath, DEFAULT_MAX_REQUEST_THREADS);
+    }
+
+    public SetCacheServer(final String identifier, final SSLContext sslContext, final int port, final int maxSize,
+            final EvictionPolicy evictionPolicy, final File persistencePath, final int maxRequestThreads) throws IOException {
+        super(identifier, sslContext, port, maxRequestThreads);
 
         final SetCache simpleCache = new SimpleSetCache(identifier, maxSize, evictionPolicy);
 
@@ -64,6 +69,7 @@ public class SetCacheServer extends AbstractCacheServer {
         final byte[] value = new byte[valueLength];
         dis.readFully(value);
         final ByteBuffer valueBuffer = ByteBuffer.wrap(value);
+        final long start = System.nanoTime();
 
         final SetCacheResult response;
         switch (action) {
@@ -83,9 +89,25 @@ public class SetCacheServer extends AbstractCacheServer {
         dos.writeBoolean(response.getResult());
         dos.flush();
 
+        recordOperation(action, System.nanoTime() - start);
         return true;
     }
 
+    @Override
+    protected int getRequestLength(final ByteBuffer requests, final int version) {
+        final ByteBuffer request = requests.duplicate();
+        final String action = readUTF(request);
+        if (action == null) {
+            return -1;
+        }
+
+        // every action other than "close" is followed by a value
+        if (!action.equals("close") && !skipValue(request)) {
+            return -1;
+        }
+        return request.position() - requests.position();
+    }
+
     @Override
     public void stop() throws IOException {
         try {
@@ -18,16 +18,24 @@ package org.apache.nifi.distributed.cache.server.map;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import javax.net.ssl.SSLContext;
 
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.components.AllowableValue;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.distributed.cache.server.CacheServer;
 import org.apache.nifi.distributed.cache.server.DistributedCacheServer;
 import org.apache.nifi.distributed.cache.server.EvictionPolicy;
+import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.ssl.SSLContextService;
 import org.apache.nifi.ssl.SSLContextService.ClientAuth;
 
@@ -37,6 +45,86 @@ import org.apache.nifi.ssl.SSLContextService.ClientAuth;
 @SeeAlso(classNames = {"org.apache.nifi.distributed.cache.client.DistributedMapCacheClientService", "org.apache.nifi.ssl.StandardSSLContextService"})
 public class DistributedMapCacheServer extends DistributedCacheServer {
 
+    public static final AllowableValue PERSISTENCE_WRITE_AHEAD_LOG = new AllowableValue("write-ahead-log", "Write-Ahead Log",
+        "The whole cache is held in memory and every change is journaled to a write-ahead log in the Persistence Directory, which is replayed "
+            + "when the cache is restarted.");
+    public static final AllowableValue PERSISTENCE_ROCKSDB = new AllowableValue("rocksdb", "RocksDB",
+        "The cache is stored in a RocksDB database in the Persistence Directory and only the most recently used entries are held in memory, "
+            + "so the cache may be larger than the available heap and does not need to be replayed when it is restarted.");
+
+    public static final PropertyDescriptor SHARD_COUNT = new PropertyDescriptor.Builder()
+        .name("cache-shard-count")
+        .displayName("Cache Shard Count")
+        .description("The number of shards that the cache is split into. Each shard has its own lock and an equal share of the Maximum Cache Entries, "
+            + "so concurrent requests for keys in different shards do not contend with one another. Because each shard evicts independently, "
+            + "the Eviction Strategy is applied per shard rather than across the whole cache when more than one shard is used. "
+            + "Must be 1 when the " + PERSISTENCE_ROCKSDB.getDisplayName() + " Persistence Backend is used, as that backend locks its keys "
+            + "individually and always evicts across the whole cache.")
+        .required(true)
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("1")
+        .build();
+    public static final PropertyDescriptor PERSISTENCE_BACKEND = new PropertyDescriptor.Builder()
+        .name("persistence-backend")
+        .displayName("Persistence Backend")
+        .description("Determines how the cache is persisted when a Persistence Directory is specified. Caches persisted by one backend are not "
+            + "visible to the other.")
+        .required(true)
+        .allowableValues(PERSISTENCE_WRITE_AHEAD_LOG, PERSISTENCE_ROCKSDB)
+        .defaultValue(PERSISTENCE_WRITE_AHEAD_LOG.getValue())
+        .build();
+    public static final PropertyDescriptor MAX_IN_MEMORY_ENTRIES = new PropertyDescriptor.Builder()
+        .name("max-in-memory-entries")
+        .displayName("Maximum In-Memory Entries")
+        .description("The maximum number of recently used entries that are held in memory when the " + PERSISTENCE_ROCKSDB.getDisplayName()
+            + " Persistence Backend is used. Other entries are read from disk when they are requested.")
+        .required(true)
+        .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+        .defaultValue("10000")
+        .build();
+
+    @Override
+    protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        final List<PropertyDescriptor> properties = new ArrayList<>(super.getSupportedPropertyDescriptors());
+        properties.add(SHARD_COUNT);
+        properties.add(PERSISTENCE_BACKEND);
+        properties.add(MAX_IN_MEMORY_ENTRIES);
+        return properties;
+    }
+
+    @Override
+    protected Collection<ValidationResult> customValidate(final ValidationContext validationContext) {
+        final List<ValidationResult> results = new ArrayList<>();
+
+        final Integer shardCount = validationContext.getProperty(SHARD_COUNT).asInteger();
+        final Integer maxSize = validationContext.getProperty(MAX_CACHE_ENTRIES).asInteger();
+        if (shardCount != null && maxSize != null && shardCount > maxSize) {
+            results.add(new ValidationResult.Builder()
+                .subject(SHARD_COUNT.getDisplayName())
+                .valid(false)
+                .explanation("the Cache Shard Count cannot be greater than the Maximum Cache Entries")
+                .build());
+        }
+
+        final boolean rocksDb = PERSISTENCE_ROCKSDB.getValue().equals(validationContext.getProperty(PERSISTENCE_BACKEND).getValue());
+        if (rocksDb && !validationContext.getProperty(PERSISTENCE_PATH).isSet()) {
+            results.add(new ValidationResult.Builder()
+                .subject(PERSISTENCE_BACKEND.getDisplayName())
+                .valid(false)
+                .explanation("the " + PERSISTENCE_ROCKSDB.getDisplayName() + " Persistence Backend requires a Persistence Directory")
+                .build());
+        }
+        if (rocksDb && shardCount != null && shardCount > 1) {
+            results.add(new ValidationResult.Builder()
+                .subject(SHARD_COUNT.getDisplayName())
+                .valid(false)
+                .explanation("the Cache Shard Count must be 1 when the " + PERSISTENCE_ROCKSDB.getDisplayName() + " Persistence Backend is used")
+                .build());
+        }
+
+        return results;
+    }
+
     @Override
     protected CacheServer createCacheServer(final ConfigurationContext context) {
         final int port = context.getProperty(PORT).asInteger();
@@ -44,6 +132,10 @@ public class DistributedMapCacheServer extends DistributedCacheServer {
         final SSLContextService sslContextService = context.getProperty(SSL_CONTEXT_SERVICE).asControllerService(SSLContextService.class);
         final int maxSize = context.getProperty(MAX_CACHE_ENTRIES).asInteger();
         final String evictionPolicyName = context.getProperty(EVICTION_POLICY).getValue();
+        final int maxRequestThreads = context.getProperty(MAX_REQUEST_THREADS).asInteger();
+        final int shardCount = context.getProperty(SHARD_COUNT).asInteger();
+        final String persistenceBackend = context.getProperty(PERSISTENCE_BACKEND).getValue();
+        final int maxInMemoryEntries = context.getProperty(MAX_IN_MEMORY_ENTRIES).asInteger();
 
         final SSLContext sslContext;
         if (sslContextService == null) {
@@ -69,15 +161,21 @@ public class DistributedMapCacheServer extends DistributedCacheServer {
 
         try {
             final File persistenceDir = persistencePath == null ? null : new File(persistencePath);
-
-            return createMapCacheServer(port, maxSize, sslContext, evictionPolicy, persistenceDir);
+            return createMapCacheServer(port, maxSize, sslContext, evictionPolicy, persistenceDir, maxRequestThreads, shardCount, persistenceBackend, maxInMemoryEntries);
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    protected MapCacheServer createMapCacheServer(int port, int maxSize, SSLContext sslContext, EvictionPolicy evictionPolicy, File persistenceDir) throws IOException {
-        return new MapCacheServer(getIdentifier(), sslContext, port, maxSize, evictionPolicy, persistenceDir);
+    protected MapCacheServer createMapCacheServer(int port, int maxSize, SSLContext sslContext, EvictionPolicy evictionPolicy, File persistenceDir,
+            int maxRequestThreads, int shardCount, String persistenceBackend, int maxInMemoryEntries) throws IOException {
+        if (persistenceDir != null && PERSISTENCE_ROCKSDB.getValue().equals(persistenceBackend)) {
+            // kept apart from the files of the write-ahead log in case the backend is changed
+            final MapCache cache = new RocksDBMapCache(getIdentifier(), maxSize, evictionPolicy, new File(persistenceDir, "rocksdb"), maxInMemoryEntries);
+            return new MapCacheServer(getIdentifier(), sslContext, port, maxRequestThreads, cache);
+        }
+
+        return new MapCacheServer(getIdentifier(), sslContext, port, maxSize, evictionPolicy, persistenceDir, maxRequestThreads, shardCount);
     }
 
 }
@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.distributed.cache.server.map;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -39,17 +40,32 @@ public class MapCacheServer extends AbstractCacheServer {
 
     public MapCacheServer(final String identifier, final SSLContext sslContext, final int port, final int maxSize,
             final EvictionPolicy evictionPolicy, final File persistencePath) throws IOException {
-        super(identifier, sslContext, port);
+        this(identifier, sslContext, port, maxSize, evictionPolicy, persistencePath, DEFAULT_MAX_REQUEST_THREADS, 1);
+    }
+
+    public MapCacheServer(final String identifier, final SSLContext sslContext, final int port, final int maxSize,
+            final EvictionPolicy evictionPolicy, final File persistencePath, final int maxRequestThreads, final int shardCount) throws IOException {
+        this(identifier, sslContext, port, maxRequestThreads, createCache(identifier, maxSize, evictionPolicy, persistencePath, shardCount));
+    }
+
+    public MapCacheServer(final String identifier, final SSLContext sslContext, final int port, final int maxRequestThreads, final MapCache cache) {
+        super(identifier, sslContext, port, maxRequestThreads);
+        this.cache = cache;
+    }
 
-        final MapCache simpleCache = new SimpleMapCache(identifier, maxSize, evictionPolicy);
+    private static MapCache createCache(final String identifier, final int maxSize, final EvictionPolicy evictionPolicy, final File persistencePath,
+            final int shardCount) throws IOException {
+        final MapCache simpleCache = shardCount > 1
+                ? new ShardedMapCache(identifier, maxSize, evictionPolicy, shardCount)
+                : new SimpleMapCache(identifier, maxSize, evictionPolicy);
 
         if (persistencePath == null) {
-            this.cache = simpleCache;
-        } else {
-            final PersistentMapCache persistentCache = new PersistentMapCache(identifier, persistencePath, simpleCache);
-            persistentCache.restore();
-            this.cache = persistentCache;
+            return simpleCache;
         }
+
+        final PersistentMapCache persistentCache = new PersistentMapCache(identifier, persistencePath, simpleCache);
+        persistentCache.restore();
+        return persistentCache;
     }
 
     /**
@@ -57,14 +73,19 @@ public class MapCacheServer extends AbstractCacheServer {
      * for details of each version enhancements.
      */
     protected StandardVersionNegotiator getVersionNegotiator() {
-        return new StandardVersionNegotiator(3, 2, 1);
+        return new StandardVersionNegotiator(5, 4, 3, 2, 1);
     }
 
     @Override
     protected boolean listen(final InputStream in, final OutputStream out, final int version) throws IOException {
         final DataInputStream dis = new DataInputStream(in);
-        final DataOutputStream dos = new DataOutputStream(out);
+        final long requestId = version >= 5 ? dis.readLong() : -1L;
         final String action = dis.readUTF();
+
+        // as of version 5 the response is buffered so that it can be sent along with its request id and length
+        final ByteArrayOutputStream responseBuffer = version >= 5 ? new ByteArrayOutputStream() : null;
+        final DataOutputStream dos = new DataOutputStream(responseBuffer == null ? out : responseBuffer);
+        final long start = System.nanoTime();
         try {
             switch (action) {
             case "close": {
@@ -107,6 +128,26 @@ public class MapCacheServer extends AbstractCacheServer {
 
                 break;
             }
+            case "getAndPutAllIfAbsent": {
+                final int numEntries = dis.readInt();
+                for (int i = 0; i < numEntries; i++) {
+                    final byte[] key = readValue(dis);
+                    final byte[] value = readValue(dis);
+
+                    final MapPutResult putResult = cache.putIfAbsent(ByteBuffer.wrap(key), ByteBuffer.wrap(value));
+                    if (putResult.isSuccessful()) {
+                        // Put was successful. There was no old value to get.
+                        dos.writeInt(0);
+                    } else {
+                        // we didn't put. Write back the previous value
+                        final byte[] byteArray = putResult.getExisting().getValue().array();
+                        dos.writeInt(byteArray.length);
+                        dos.write(byteArray);
+                    }
+                }
+
+                break;
+            }
             case "get": {
                 final byte[] key = readValue(dis);
                 final ByteBuffer existingValue = cache.get(ByteBuffer.wrap(key));
@@ -231,6 +272,77 @@ public class MapCacheServer extends AbstractCacheServer {
             dos.flush();
         }
 
+        if (responseBuffer != null) {
+            final DataOutputStream responseOut = new DataOutputStream(out);
+            responseOut.writeLong(requestId);
+            responseOut.writeInt(responseBuffer.size());
+            responseBuffer.writeTo(responseOut);
+            responseOut.flush();
+        }
+
+        recordOperation(action, System.nanoTime() - start);
+        return true;
+    }
+
+    @Override
+    protected int getRequestLength(final ByteBuffer requests, final int version) {
+        final ByteBuffer request = requests.duplicate();
+        if (version >= 5 && !skip(request, 8)) {
+            return -1;
+        }
+
+        final String action = readUTF(request);
+        if (action == null) {
+            return -1;
+        }
+
+        final boolean complete;
+        switch (action) {
+            case "putIfAbsent":
+            case "put":
+            case "getAndPutIfAbsent":
+                complete = skipValue(request) && skipValue(request);
+                break;
+            case "containsKey":
+            case "get":
+            case "remove":
+            case "removeAndGet":
+            case "fetch":
+                complete = skipValue(request);
+                break;
+            case "getAndPutAllIfAbsent":
+                complete = skipValues(request, 2);
+                break;
+            case "subMap":
+                complete = skipValues(request, 1);
+                break;
+            case "removeByPattern":
+            case "removeByPatternAndGet":
+                complete = readUTF(request) != null;
+                break;
+            case "replace":
+                complete = skipValue(request) && skip(request, 8) && skipValue(request);
+                break;
+            default:
+                // "close" and "keySet" have no arguments, and any other action is rejected by listen
+                complete = true;
+                break;
+        }
+
+        return complete ? request.position() - requests.position() : -1;
+    }
+
+    private static boolean skipValues(final ByteBuffer request, final int valuesPerEntry) {
+        if (request.remaining() < 4) {
+            return false;
+        }
+
+        final int numEntries = request.getInt();
+        for (int i = 0; i < numEntries * valuesPerEntry; i++) {
+            if (!skipValue(request)) {
+                return false;
+            }
+        }
         return true;
     }
 
@@ -0,0 +1,650 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.server.map;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.apache.nifi.distributed.cache.server.EvictionPolicy;
+import org.apache.nifi.rocksdb.RocksDBMetronome;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A MapCache that keeps its entries in RocksDB rather than on the heap, so that the cache may be far larger than the
+ * available memory and does not need to replay a journal when it is restarted. Only a bounded number of recently used
+ * entries are also held in memory.
+ * <p>
+ * Alongside the entries, an eviction index is kept whose keys sort in the order defined by the {@link EvictionPolicy}.
+ * An entry and its index key are always written together in a single batch. Hits only update the entry in memory, and are
+ * written back when the entry leaves memory or the cache is shut down, so reading an entry never writes to RocksDB. As hits
+ * can only move an entry further back in the eviction order, eviction moves the entries whose hits have not been written
+ * back yet as it reaches them, and evicts the first entry that is already in its place. Hits that were not written back
+ * are lost if the cache is not shut down cleanly.
+ * </p>
+ * <p>
+ * Each operation only locks the stripe of its key. Eviction is serialized by a lock of its own and never waits for the lock
+ * of a stripe, as it runs while the lock of the key being added is held; an entry whose stripe is locked is passed over.
+ * </p>
+ */
+public class RocksDBMapCache implements MapCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RocksDBMapCache.class);
+
+    private static final String ENTRIES_FAMILY = "entries";
+    private static final String EVICTION_INDEX_FAMILY = "eviction.index";
+
+    private static final byte[] CLEAN_SHUTDOWN_KEY = "clean.shutdown".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ENTRY_COUNT_KEY = "entry.count".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NEXT_ID_KEY = "next.id".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TRUE = {1};
+    private static final byte[] FALSE = {0};
+
+    // revision, id, entry date and last hit date, followed by the hit count
+    private static final int HEADER_LENGTH = 4 * 8 + 4;
+    private static final int INDEX_KEY_LENGTH = 3 * 8;
+    private static final int STRIPE_COUNT = 16;
+
+    private final String serviceIdentifier;
+    private final int maxSize;
+    private final EvictionPolicy evictionPolicy;
+    private final RocksDBMetronome db;
+    private final ColumnFamilyHandle entries;
+    private final ColumnFamilyHandle evictionIndex;
+    private final Stripe[] stripes;
+
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong nextId = new AtomicLong();
+
+    // Every index key before the eviction cursor has been deleted, so eviction starts from the cursor instead of skipping over their
+    // tombstones again. Index keys that are written before the cursor are collected as pending, and eviction starts from the lowest of them.
+    private final Lock evictionLock = new ReentrantLock();
+    private byte[] evictionCursor;
+    private final AtomicReference<byte[]> lowestPendingIndexKey = new AtomicReference<>();
+
+    public RocksDBMapCache(final String serviceIdentifier, final int maxSize, final EvictionPolicy evictionPolicy, final File persistencePath,
+            final int maxInMemoryEntries) throws IOException {
+        this.serviceIdentifier = serviceIdentifier;
+        this.maxSize = maxSize;
+        this.evictionPolicy = evictionPolicy;
+
+        final int maxInMemoryEntriesPerStripe = Math.max(1, (maxInMemoryEntries + STRIPE_COUNT - 1) / STRIPE_COUNT);
+        this.stripes = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe(maxInMemoryEntriesPerStripe);
+        }
+
+        this.db = new RocksDBMetronome.Builder()
+                .setStoragePath(persistencePath.toPath())
+                .addColumnFamily(ENTRIES_FAMILY)
+                .addColumnFamily(EVICTION_INDEX_FAMILY)
+                .setWriteBufferSize(16L * 1024 * 1024)
+                .build();
+        db.initialize();
+        this.entries = db.getColumnFamilyHandle(ENTRIES_FAMILY);
+        this.evictionIndex = db.getColumnFamilyHandle(EVICTION_INDEX_FAMILY);
+
+        try {
+            restore();
+        } catch (final IOException | RuntimeException e) {
+            db.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RocksDBMapCache[service id=" + serviceIdentifier + "]";
+    }
+
+    private void restore() throws IOException {
+        try {
+            final byte[] cleanShutdown = db.getConfiguration(CLEAN_SHUTDOWN_KEY);
+            if (cleanShutdown != null && Arrays.equals(cleanShutdown, TRUE)) {
+                size.set(RocksDBMetronome.readLong(db.getConfiguration(ENTRY_COUNT_KEY)));
+                nextId.set(RocksDBMetronome.readLong(db.getConfiguration(NEXT_ID_KEY)));
+            } else {
+                // the counters were not saved, so they have to be recovered from the entries themselves
+                long count = 0;
+                long maxId = -1;
+                try (final RocksIterator itr = db.getIterator(entries)) {
+                    for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                        count++;
+                        maxId = Math.max(maxId, decode(itr.value()).id);
+                    }
+                }
+                size.set(count);
+                nextId.set(maxId + 1);
+            }
+
+            // the counters are only trusted again once they have been saved by a clean shutdown
+            db.putConfiguration(CLEAN_SHUTDOWN_KEY, FALSE);
+
+            // the maximum size may have been reduced since the cache was last used
+            evictionLock.lock();
+            try {
+                while (size.get() > maxSize) {
+                    if (evict() == null) {
+                        break;
+                    }
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to restore " + this, e);
+        }
+
+        logger.debug("Restored {} entries for {}", size.get(), this);
+    }
+
+    @Override
+    public MapPutResult putIfAbsent(final ByteBuffer key, final ByteBuffer value) throws IOException {
+        final Stripe stripe = getStripe(key);
+        stripe.lock.lock();
+        try {
+            final Entry existing = read(stripe, key);
+            if (existing == null) {
+                return put(stripe, key, value, null);
+            }
+
+            hit(existing);
+            final MapCacheRecord record = toRecord(key, existing);
+            return new MapPutResult(false, record, record, null);
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to put entry into " + this, e);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public MapPutResult put(final ByteBuffer key, final ByteBuffer value) throws IOException {
+        final Stripe stripe = getStripe(key);
+        stripe.lock.lock();
+        try {
+            return put(stripe, key, value, read(stripe, key));
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to put entry into " + this, e);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // must only be called while the lock of the key's stripe is held
+    private MapPutResult put(final Stripe stripe, final ByteBuffer key, final ByteBuffer value, final Entry existing) throws RocksDBException, IOException {
+        // only a new key needs room to be made for it
+        MapCacheRecord evicted = null;
+        if (existing == null) {
+            evictionLock.lock();
+            try {
+                if (size.get() >= maxSize) {
+                    evicted = evict();
+                }
+                size.incrementAndGet();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+
+        final long now = System.currentTimeMillis();
+        final long revision = existing == null ? 0 : existing.revision + 1;
+        final Entry entry = new Entry(value.array(), revision, nextId.getAndIncrement(), now, now, 0);
+        entry.indexKey = getIndexKey(entry);
+
+        try (final WriteBatch batch = new WriteBatch()) {
+            if (existing != null) {
+                batch.delete(evictionIndex, existing.indexKey);
+            }
+            batch.put(evictionIndex, entry.indexKey, key.array());
+            batch.put(entries, key.array(), encode(entry));
+            db.write(batch, false);
+        } catch (final RocksDBException e) {
+            if (existing == null) {
+                size.decrementAndGet();
+            }
+            throw e;
+        }
+        addPendingIndexKey(entry.indexKey);
+        cache(stripe, key, entry);
+
+        return new MapPutResult(true, toRecord(key, entry), existing == null ? null : toRecord(key, existing), evicted);
+    }
+
+    @Override
+    public boolean containsKey(final ByteBuffer key) throws IOException {
+        return get(key) != null;
+    }
+
+    @Override
+    public ByteBuffer get(final ByteBuffer key) throws IOException {
+        final Stripe stripe = getStripe(key);
+        stripe.lock.lock();
+        try {
+            final Entry entry = read(stripe, key);
+            if (entry == null) {
+                return null;
+            }
+
+            hit(entry);
+            return ByteBuffer.wrap(entry.value);
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to get entry from " + this, e);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<ByteBuffer, ByteBuffer> subMap(final List<ByteBuffer> keys) throws IOException {
+        if (keys == null) {
+            return null;
+        }
+
+        final Map<ByteBuffer, ByteBuffer> results = new HashMap<>(keys.size());
+        for (final ByteBuffer key : keys) {
+            results.put(key, get(key));
+        }
+        return results;
+    }
+
+    @Override
+    public ByteBuffer remove(final ByteBuffer key) throws IOException {
+        final Stripe stripe = getStripe(key);
+        stripe.lock.lock();
+        try {
+            final Entry entry = read(stripe, key);
+            if (entry == null) {
+                return null;
+            }
+
+            delete(stripe, key, entry);
+            return ByteBuffer.wrap(entry.value);
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to remove entry from " + this, e);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<ByteBuffer, ByteBuffer> removeByPattern(final String regex) throws IOException {
+        final Pattern pattern = Pattern.compile(regex);
+
+        final List<ByteBuffer> matchingKeys = new ArrayList<>();
+        try (final RocksIterator itr = db.getIterator(entries)) {
+            for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                // Key must be backed by something that array() returns a byte[] that can be converted into a String via the default charset
+                final byte[] key = itr.key();
+                if (pattern.matcher(new String(key)).matches()) {
+                    matchingKeys.add(ByteBuffer.wrap(key));
+                }
+            }
+        }
+
+        // an entry that was removed since the keys were collected is simply not part of the result
+        final Map<ByteBuffer, ByteBuffer> removed = new HashMap<>();
+        for (final ByteBuffer key : matchingKeys) {
+            final ByteBuffer value = remove(key);
+            if (value != null) {
+                removed.put(key, value);
+            }
+        }
+
+        return removed;
+    }
+
+    @Override
+    public MapCacheRecord fetch(final ByteBuffer key) throws IOException {
+        final Stripe stripe = getStripe(key);
+        stripe.lock.lock();
+        try {
+            final Entry entry = read(stripe, key);
+            if (entry == null) {
+                return null;
+            }
+
+            hit(entry);
+            return toRecord(key, entry);
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to fetch entry from " + this, e);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public MapPutResult replace(final MapCacheRecord record) throws IOException {
+        final ByteBuffer key = record.getKey();
+        final Stripe stripe = getStripe(key);
+        stripe.lock.lock();
+        try {
+            final Entry existing = read(stripe, key);
+            if (existing != null && record.getRevision() != existing.revision) {
+                // The key has been updated by other operation.
+                hit(existing);
+                return new MapPutResult(false, record, toRecord(key, existing), null);
+            }
+
+            return put(stripe, key, record.getValue(), existing);
+        } catch (final RocksDBException e) {
+            throw new IOException("Failed to replace entry in " + this, e);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public Set<ByteBuffer> keySet() throws IOException {
+        final Set<ByteBuffer> keys = new HashSet<>();
+        try (final RocksIterator itr = db.getIterator(entries)) {
+            for (itr.seekToFirst(); itr.isValid(); itr.next()) {
+                keys.add(ByteBuffer.wrap(itr.key()));
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        // the stripes are locked before the eviction lock, in the same order as a put
+        for (final Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+        evictionLock.lock();
+        try {
+            for (final Stripe stripe : stripes) {
+                for (final Map.Entry<ByteBuffer, Entry> cached : stripe.hotSet.entrySet()) {
+                    writeBack(cached.getKey(), cached.getValue());
+                }
+            }
+
+            db.putConfiguration(ENTRY_COUNT_KEY, RocksDBMetronome.getBytes(size.get()));
+            db.putConfiguration(NEXT_ID_KEY, RocksDBMetronome.getBytes(nextId.get()));
+            db.putConfiguration(CLEAN_SHUTDOWN_KEY, TRUE);
+        } catch (final RocksDBException e) {
+            logger.warn("Failed to save the state of {}; its entries will be counted the next time it is started", this, e);
+        } finally {
+            try {
+                for (final Stripe stripe : stripes) {
+                    stripe.hotSet.clear();
+                }
+                db.close();
+            } finally {
+                evictionLock.unlock();
+                for (final Stripe stripe : stripes) {
+                    stripe.lock.unlock();
+                }
+            }
+        }
+    }
+
+    // must only be called while the eviction lock is held
+    private MapCacheRecord evict() throws RocksDBException, IOException {
+        final byte[] pendingIndexKey = lowestPendingIndexKey.getAndSet(null);
+        byte[] start = evictionCursor == null || pendingIndexKey == null ? evictionCursor : lowest(evictionCursor, pendingIndexKey);
+        byte[] passedOver = null;
+
+        while (true) {
+            byte[] movedFrom = null;
+
+            try (final RocksIterator itr = db.getIterator(evictionIndex)) {
+                if (start == null) {
+                    itr.seekToFirst();
+                } else {
+                    itr.seek(start);
+                }
+
+                for (; itr.isValid(); itr.next()) {
+                    final byte[] indexKey = itr.key();
+                    final ByteBuffer key = ByteBuffer.wrap(itr.value());
+                    final Stripe stripe = getStripe(key);
+                    if (!stripe.lock.tryLock()) {
+                        passedOver = passedOver == null ? indexKey : lowest(passedOver, indexKey);
+                        continue;
+                    }
+
+                    try {
+                        final Entry entry = find(stripe, key);
+                        if (entry == null || !Arrays.equals(indexKey, entry.indexKey)) {
+                            // the entry has been changed since the iterator was created
+                            continue;
+                        }
+
+                        if (entry.dirty && !Arrays.equals(indexKey, getIndexKey(entry))) {
+                            // the hits of the entry have moved it back, so everything from its previous position has to be looked at again
+                            writeBack(key, entry);
+                            movedFrom = indexKey;
+                            break;
+                        }
+
+                        delete(stripe, key, entry);
+                        evictionCursor = passedOver == null ? indexKey : lowest(passedOver, indexKey);
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Evicting value {} from cache", new String(key.array(), StandardCharsets.UTF_8));
+                        }
+                        return toRecord(key, entry);
+                    } finally {
+                        stripe.lock.unlock();
+                    }
+                }
+            }
+
+            if (movedFrom == null) {
+                evictionCursor = passedOver == null ? start : passedOver;
+                return null;
+            }
+            start = movedFrom;
+        }
+    }
+
+    // must only be called while the lock of the key's stripe is held
+    private Entry read(final Stripe stripe, final ByteBuffer key) throws RocksDBException {
+        final Entry cached = stripe.hotSet.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final byte[] stored = db.get(entries, key.array());
+        if (stored == null) {
+            return null;
+        }
+
+        final Entry entry = decode(stored);
+        cache(stripe, key, entry);
+        return entry;
+    }
+
+    // must only be called while the lock of the key's stripe is held; unlike read, does not keep the entry in memory
+    private Entry find(final Stripe stripe, final ByteBuffer key) throws RocksDBException {
+        final Entry cached = stripe.hotSet.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final byte[] stored = db.get(entries, key.array());
+        return stored == null ? null : decode(stored);
+    }
+
+    // must only be called while the lock of the key's stripe is held
+    private void cache(final Stripe stripe, final ByteBuffer key, final Entry entry) throws RocksDBException {
+        stripe.hotSet.put(key, entry);
+        if (stripe.hotSet.size() > stripe.maxEntries) {
+            final Iterator<Map.Entry<ByteBuffer, Entry>> itr = stripe.hotSet.entrySet().iterator();
+            final Map.Entry<ByteBuffer, Entry> eldest = itr.next();
+            writeBack(eldest.getKey(), eldest.getValue());
+            itr.remove();
+        }
+    }
+
+    private void hit(final Entry entry) {
+        entry.hitCount++;
+        entry.lastHitDate = System.currentTimeMillis();
+
+        // the order of entries in a FIFO cache does not depend on their hits, so there is no need to store them
+        if (evictionPolicy != EvictionPolicy.FIFO) {
+            entry.dirty = true;
+        }
+    }
+
+    // must only be called while the lock of the key's stripe is held
+    private void writeBack(final ByteBuffer key, final Entry entry) throws RocksDBException {
+        if (!entry.dirty) {
+            return;
+        }
+
+        final byte[] indexKey = getIndexKey(entry);
+        try (final WriteBatch batch = new WriteBatch()) {
+            batch.delete(evictionIndex, entry.indexKey);
+            batch.put(evictionIndex, indexKey, key.array());
+            batch.put(entries, key.array(), encode(entry));
+            db.write(batch, false);
+        }
+        entry.indexKey = indexKey;
+        entry.dirty = false;
+        addPendingIndexKey(indexKey);
+    }
+
+    // must only be called while the lock of the key's stripe is held
+    private void delete(final Stripe stripe, final ByteBuffer key, final Entry entry) throws RocksDBException {
+        try (final WriteBatch batch = new WriteBatch()) {
+            batch.delete(entries, key.array());
+            batch.delete(evictionIndex, entry.indexKey);
+            db.write(batch, false);
+        }
+        stripe.hotSet.remove(key);
+        size.decrementAndGet();
+    }
+
+    private void addPendingIndexKey(final byte[] indexKey) {
+        lowestPendingIndexKey.accumulateAndGet(indexKey, (pending, added) -> pending == null ? added : lowest(pending, added));
+    }
+
+    private Stripe getStripe(final ByteBuffer key) {
+        return stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPE_COUNT];
+    }
+
+    private byte[] getIndexKey(final Entry entry) {
+        final ByteBuffer indexKey = ByteBuffer.allocate(INDEX_KEY_LENGTH);
+        switch (evictionPolicy) {
+            case LFU:
+                indexKey.putLong(entry.hitCount).putLong(entry.entryDate);
+                break;
+            case LRU:
+                indexKey.putLong(entry.lastHitDate).putLong(0L);
+                break;
+            case FIFO:
+            default:
+                indexKey.putLong(entry.entryDate).putLong(0L);
+                break;
+        }
+        indexKey.putLong(entry.id);
+        return indexKey.array();
+    }
+
+    // index keys are compared the way RocksDB orders them, byte by byte as unsigned values
+    private static byte[] lowest(final byte[] first, final byte[] second) {
+        for (int i = 0; i < INDEX_KEY_LENGTH; i++) {
+            final int comparison = Integer.compare(first[i] & 0xFF, second[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison < 0 ? first : second;
+            }
+        }
+        return first;
+    }
+
+    private static byte[] encode(final Entry entry) {
+        return ByteBuffer.allocate(HEADER_LENGTH + entry.value.length)
+                .putLong(entry.revision)
+                .putLong(entry.id)
+                .putLong(entry.entryDate)
+                .putLong(entry.lastHitDate)
+                .putInt(entry.hitCount)
+                .put(entry.value)
+                .array();
+    }
+
+    private Entry decode(final byte[] stored) {
+        final ByteBuffer buffer = ByteBuffer.wrap(stored);
+        final long revision = buffer.getLong();
+        final long id = buffer.getLong();
+        final long entryDate = buffer.getLong();
+        final long lastHitDate = buffer.getLong();
+        final int hitCount = buffer.getInt();
+        final byte[] value = Arrays.copyOfRange(stored, HEADER_LENGTH, stored.length);
+
+        final Entry entry = new Entry(value, revision, id, entryDate, lastHitDate, hitCount);
+        entry.indexKey = getIndexKey(entry);
+        return entry;
+    }
+
+    private static MapCacheRecord toRecord(final ByteBuffer key, final Entry entry) {
+        return new MapCacheRecord(key, ByteBuffer.wrap(entry.value), entry.revision);
+    }
+
+    private static class Stripe {
+        private final Lock lock = new ReentrantLock();
+        private final int maxEntries;
+        // accessed in order, so that the least recently used entry is the first to leave memory
+        private final Map<ByteBuffer, Entry> hotSet = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Stripe(final int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    private static class Entry {
+        private final byte[] value;
+        private final long revision;
+        private final long id;
+        private final long entryDate;
+        private long lastHitDate;
+        private int hitCount;
+        // the index key the entry is stored under, which differs from the one its hits give it until they are written back
+        private byte[] indexKey;
+        private boolean dirty;
+
+        private Entry(final byte[] value, final long revision, final long id, final long entryDate, final long lastHitDate, final int hitCount) {
+            this.value = value;
+            this.revision = revision;
+            this.id = id;
+            this.entryDate = entryDate;
+            this.lastHitDate = lastHitDate;
+            this.hitCount = hitCount;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.server.map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.nifi.distributed.cache.server.EvictionPolicy;
+
+/**
+ * A MapCache that spreads its keys across a number of {@link SimpleMapCache} shards, each with its own lock, so that
+ * requests for keys in different shards do not contend with one another. Each shard holds an equal share of the
+ * maximum number of entries and evicts independently of the others, so the eviction policy is applied per shard
+ * rather than across the whole cache.
+ */
+public class ShardedMapCache implements MapCache {
+
+    private final String serviceIdentifier;
+    private final SimpleMapCache[] shards;
+
+    public ShardedMapCache(final String serviceIdentifier, final int maxSize, final EvictionPolicy evictionPolicy, final int shardCount) {
+        if (shardCount < 1 || shardCount > maxSize) {
+            throw new IllegalArgumentException("Shard count must be between 1 and the maximum cache size of " + maxSize + " but was " + shardCount);
+        }
+
+        this.serviceIdentifier = serviceIdentifier;
+        this.shards = new SimpleMapCache[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            // spread the remainder over the first shards so that the shards add up to the maximum size
+            final int shardSize = maxSize / shardCount + (i < maxSize % shardCount ? 1 : 0);
+            shards[i] = new SimpleMapCache(serviceIdentifier, shardSize, evictionPolicy);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedMapCache[service id=" + serviceIdentifier + ", shards=" + shards.length + "]";
+    }
+
+    private SimpleMapCache getShard(final ByteBuffer key) {
+        final int hash = key.hashCode();
+        return shards[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % shards.length];
+    }
+
+    @Override
+    public MapPutResult putIfAbsent(final ByteBuffer key, final ByteBuffer value) throws IOException {
+        return getShard(key).putIfAbsent(key, value);
+    }
+
+    @Override
+    public MapPutResult put(final ByteBuffer key, final ByteBuffer value) throws IOException {
+        return getShard(key).put(key, value);
+    }
+
+    @Override
+    public boolean containsKey(final ByteBuffer key) throws IOException {
+        return getShard(key).containsKey(key);
+    }
+
+    @Override
+    public ByteBuffer get(final ByteBuffer key) throws IOException {
+        return getShard(key).get(key);
+    }
+
+    @Override
+    public Map<ByteBuffer, ByteBuffer> subMap(final List<ByteBuffer> keys) throws IOException {
+        if (keys == null) {
+            return null;
+        }
+        final Map<ByteBuffer, ByteBuffer> results = new HashMap<>(keys.size());
+        for (final ByteBuffer key : keys) {
+            results.put(key, getShard(key).get(key));
+        }
+        return results;
+    }
+
+    @Override
+    public ByteBuffer remove(final ByteBuffer key) throws IOException {
+        return getShard(key).remove(key);
+    }
+
+    @Override
+    public Map<ByteBuffer, ByteBuffer> removeByPattern(final String regex) throws IOException {
+        final Map<ByteBuffer, ByteBuffer> removed = new HashMap<>();
+        for (final SimpleMapCache shard : shards) {
+            removed.putAll(shard.removeByPattern(regex));
+        }
+        return removed;
+    }
+
+    @Override
+    public MapCacheRecord fetch(final ByteBuffer key) throws IOException {
+        return getShard(key).fetch(key);
+    }
+
+    @Override
+    public MapPutResult replace(final MapCacheRecord record) throws IOException {
+        return getShard(record.getKey()).replace(record);
+    }
+
+    @Override
+    public Set<ByteBuffer> keySet() throws IOException {
+        final Set<ByteBuffer> keys = new HashSet<>();
+        for (final SimpleMapCache shard : shards) {
+            keys.addAll(shard.keySet());
+        }
+        return keys;
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        for (final SimpleMapCache shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -278,7 +279,8 @@ public class SimpleMapCache implements MapCache {
     public Set<ByteBuffer> keySet() throws IOException {
         readLock.lock();
         try {
-            return cache.keySet();
+            // copy the keys so that callers can iterate them while the cache continues to be modified
+            return new HashSet<>(cache.keySet());
         } finally {
             readLock.unlock();
         }
@@ -22,15 +22,24 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.ConnectException;
+import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.SerializationException;
 import org.apache.commons.lang3.SystemUtils;
@@ -41,6 +50,7 @@ import org.apache.nifi.distributed.cache.client.DistributedMapCacheClientService
 import org.apache.nifi.distributed.cache.client.DistributedSetCacheClientService;
 import org.apache.nifi.distributed.cache.client.Serializer;
 import org.apache.nifi.distributed.cache.client.exception.DeserializationException;
+import org.apache.nifi.distributed.cache.protocol.ProtocolHandshake;
 import org.apache.nifi.distributed.cache.server.map.DistributedMapCacheServer;
 import org.apache.nifi.distributed.cache.server.map.MapCacheServer;
 import org.apache.nifi.processor.Processor;
@@ -468,6 +478,18 @@ public class TestServerAndClient {
         final Set<String> keys = client.keySet(deserializer);
         assertEquals(0, keys.size());
 
+        client.put("batch.1", "existing", keySerializer, valueSerializer);
+        final Map<String, String> batch = new LinkedHashMap<>();
+        batch.put("batch.1", "new1");
+        batch.put("batch.2", "new2");
+        final Map<String, String> batchOriginals = client.getAndPutAllIfAbsent(batch, keySerializer, valueSerializer, deserializer);
+        assertEquals(2, batchOriginals.size());
+        assertEquals("existing", batchOriginals.get("batch.1"));
+        assertNull(batchOriginals.get("batch.2"));
+        assertEquals("existing", client.get("batch.1", keySerializer, deserializer));
+        assertEquals("new2", client.get("batch.2", keySerializer, deserializer));
+        assertEquals(2L, client.removeByPattern("batch\\..*"));
+
         // Test removeByPattern, the first two should be removed and the last should remain
         client.put("test.1", "1", keySerializer, keySerializer);
         client.put("test.2", "2", keySerializer, keySerializer);
@@ -670,8 +692,9 @@ public class TestServerAndClient {
         // Create a server that only supports protocol version 1.
         final DistributedMapCacheServer server = new MapServer() {
             @Override
-            protected MapCacheServer createMapCacheServer(int port, int maxSize, SSLContext sslContext, EvictionPolicy evictionPolicy, File persistenceDir) throws IOException {
-                return new MapCacheServer(getIdentifier(), sslContext, port, maxSize, evictionPolicy, persistenceDir) {
+            protected MapCacheServer createMapCacheServer(int port, int maxSize, SSLContext sslContext, EvictionPolicy evictionPolicy, File persistenceDir,
+                    int maxRequestThreads, int shardCount, String persistenceBackend, int maxInMemoryEntries) throws IOException {
+                return new MapCacheServer(getIdentifier(), sslContext, port, maxSize, evictionPolicy, persistenceDir, maxRequestThreads, shardCount) {
                     @Override
                     protected StandardVersionNegotiator getVersionNegotiator() {
                         return new StandardVersionNegotiator(1);
@@ -705,6 +728,15 @@ public class TestServerAndClient {
 
         assertTrue(client.containsKey(key, stringSerializer));
 
+        // Version 4 batch operations should fall back to individual requests
+        final Map<String, String> batch = new LinkedHashMap<>();
+        batch.put(key, "value2");
+        batch.put(key + ".new", "value3");
+        final Map<String, String> batchOriginals = client.getAndPutAllIfAbsent(batch, stringSerializer, stringSerializer, stringDeserializer);
+        assertEquals("value1", batchOriginals.get(key));
+        assertNull(batchOriginals.get(key + ".new"));
+        assertEquals("value3", client.get(key + ".new", stringSerializer, stringDeserializer));
+
         try {
             client.fetch(key, stringSerializer, stringDeserializer);
             fail("Version 2 operations should NOT work.");
@@ -739,6 +771,198 @@ public class TestServerAndClient {
         server.shutdownServer();
     }
 
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final MapCacheServer server = new MapCacheServer("pipelined", null, 0, 100, EvictionPolicy.LRU, null, 2, 4);
+        server.start();
+
+        try (final Socket socket = new Socket("localhost", server.getPort())) {
+            final DataInputStream dis = new DataInputStream(socket.getInputStream());
+            final DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
+            ProtocolHandshake.initiateHandshake(dis, dos, new StandardVersionNegotiator(1));
+
+            // write all of the requests before reading any of the responses
+            for (int i = 0; i < 10; i++) {
+                dos.writeUTF("put");
+                writeValue(dos, "key-" + i);
+                writeValue(dos, "value-" + i);
+            }
+            for (int i = 0; i < 10; i++) {
+                dos.writeUTF("get");
+                writeValue(dos, "key-" + i);
+            }
+            dos.flush();
+
+            for (int i = 0; i < 10; i++) {
+                assertTrue(dis.readBoolean());
+            }
+            for (int i = 0; i < 10; i++) {
+                final byte[] value = new byte[dis.readInt()];
+                dis.readFully(value);
+                assertEquals("value-" + i, new String(value, StandardCharsets.UTF_8));
+            }
+
+            dos.writeUTF("close");
+            dos.flush();
+        } finally {
+            server.stop();
+        }
+
+        assertEquals(10, server.getOperationMetrics().get("put").getCount());
+        assertEquals(10, server.getOperationMetrics().get("get").getCount());
+    }
+
+    @Test
+    public void testPartialRequestDoesNotHoldRequestThread() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        // a single request thread, which the slow client would hold if the server waited for the rest of its request
+        final MapCacheServer server = new MapCacheServer("partial", null, 0, 100, EvictionPolicy.LRU, null, 1, 1);
+        server.start();
+
+        try (final Socket slowSocket = new Socket("localhost", server.getPort());
+             final Socket socket = new Socket("localhost", server.getPort())) {
+            final DataInputStream slowIn = new DataInputStream(slowSocket.getInputStream());
+            final DataOutputStream slowOut = new DataOutputStream(slowSocket.getOutputStream());
+            ProtocolHandshake.initiateHandshake(slowIn, slowOut, new StandardVersionNegotiator(1));
+
+            slowOut.writeUTF("put");
+            writeValue(slowOut, "slow-key");
+            slowOut.flush();
+
+            final DataInputStream dis = new DataInputStream(socket.getInputStream());
+            final DataOutputStream dos = new DataOutputStream(socket.getOutputStream());
+            ProtocolHandshake.initiateHandshake(dis, dos, new StandardVersionNegotiator(1));
+            socket.setSoTimeout(5000);
+
+            dos.writeUTF("put");
+            writeValue(dos, "key");
+            writeValue(dos, "value");
+            dos.flush();
+            assertTrue(dis.readBoolean());
+
+            // the rest of the slow request is served once it arrives
+            writeValue(slowOut, "slow-value");
+            slowOut.flush();
+            slowSocket.setSoTimeout(5000);
+            assertTrue(slowIn.readBoolean());
+
+            dos.writeUTF("get");
+            writeValue(dos, "slow-key");
+            dos.flush();
+            final byte[] value = new byte[dis.readInt()];
+            dis.readFully(value);
+            assertEquals("slow-value", new String(value, StandardCharsets.UTF_8));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testAsyncRequestsShareConnections() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final MapCacheServer server = new MapCacheServer("async", null, 0, 1000, EvictionPolicy.LRU, null, 4, 4);
+        server.start();
+
+        final DistributedMapCacheClientService client = createMapClient(server.getPort());
+        final Serializer<String> serializer = new StringSerializer();
+        final Deserializer<String> deserializer = new StringDeserializer();
+
+        try {
+            final List<CompletableFuture<Void>> puts = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                puts.add(client.putAsync("key-" + i, "value-" + i, serializer, serializer));
+            }
+            CompletableFuture.allOf(puts.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+            final List<CompletableFuture<String>> gets = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                gets.add(client.getAsync("key-" + i, serializer, deserializer));
+            }
+            for (int i = 0; i < 200; i++) {
+                assertEquals("value-" + i, gets.get(i).get(30, TimeUnit.SECONDS));
+            }
+
+            assertTrue(client.containsKeyAsync("key-0", serializer).get(30, TimeUnit.SECONDS));
+            assertFalse(client.containsKeyAsync("missing", serializer).get(30, TimeUnit.SECONDS));
+
+            // all of the asynchronous requests were sent over the default 2 pipelined connections
+            assertEquals(2, server.getAcceptedConnectionCount());
+            assertEquals("value-1", client.get("key-1", serializer, deserializer));
+
+            // responses are deserialized by the calling thread for blocking requests and by the service's own threads otherwise
+            final Set<String> deserializingThreads = ConcurrentHashMap.newKeySet();
+            final Deserializer<String> recordingDeserializer = input -> {
+                deserializingThreads.add(Thread.currentThread().getName());
+                return deserializer.deserialize(input);
+            };
+            assertEquals("value-2", client.get("key-2", serializer, recordingDeserializer));
+            assertEquals(Collections.singleton(Thread.currentThread().getName()), deserializingThreads);
+
+            deserializingThreads.clear();
+            assertEquals("value-3", client.getAsync("key-3", serializer, recordingDeserializer).get(30, TimeUnit.SECONDS));
+            assertEquals(1, deserializingThreads.size());
+            assertTrue(deserializingThreads.iterator().next().startsWith("DistributedMapCacheClientService Response Thread"));
+        } finally {
+            client.close();
+            client.onDisabled();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testPipeliningDisabled() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final MapCacheServer server = new MapCacheServer("not-pipelined", null, 0, 1000, EvictionPolicy.LRU, null);
+        server.start();
+
+        final DistributedMapCacheClientService client = new DistributedMapCacheClientService();
+        final MockControllerServiceInitializationContext clientInitContext = new MockControllerServiceInitializationContext(client, "client");
+        client.initialize(clientInitContext);
+
+        final Map<PropertyDescriptor, String> clientProperties = new HashMap<>();
+        clientProperties.put(DistributedMapCacheClientService.HOSTNAME, "localhost");
+        clientProperties.put(DistributedMapCacheClientService.PORT, String.valueOf(server.getPort()));
+        clientProperties.put(DistributedMapCacheClientService.PIPELINED_CONNECTIONS, "0");
+        client.cacheConfig(new MockConfigurationContext(clientProperties, clientInitContext.getControllerServiceLookup()));
+
+        final Serializer<String> serializer = new StringSerializer();
+        final Deserializer<String> deserializer = new StringDeserializer();
+        try {
+            client.putAsync("key", "value", serializer, serializer).get(30, TimeUnit.SECONDS);
+            assertEquals("value", client.getAsync("key", serializer, deserializer).get(30, TimeUnit.SECONDS));
+            assertEquals("value", client.fetch("key", serializer, deserializer).getValue());
+        } finally {
+            client.close();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testRocksDBBackendRequiresSingleShard() throws Exception {
+        LOGGER.info("Testing " + Thread.currentThread().getStackTrace()[1].getMethodName());
+
+        final TestRunner runner = TestRunners.newTestRunner(Mockito.mock(Processor.class));
+        final DistributedMapCacheServer server = new MapServer();
+        runner.addControllerService("server", server);
+        runner.setProperty(server, DistributedMapCacheServer.PERSISTENCE_PATH, "target/rocksdb-cache-data");
+        runner.setProperty(server, DistributedMapCacheServer.PERSISTENCE_BACKEND, DistributedMapCacheServer.PERSISTENCE_ROCKSDB.getValue());
+        runner.setProperty(server, DistributedMapCacheServer.SHARD_COUNT, "4");
+        runner.assertNotValid(server);
+
+        runner.setProperty(server, DistributedMapCacheServer.SHARD_COUNT, "1");
+        runner.assertValid(server);
+    }
+
+    private static void writeValue(final DataOutputStream dos, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
 
     private void waitABit() {
         try {
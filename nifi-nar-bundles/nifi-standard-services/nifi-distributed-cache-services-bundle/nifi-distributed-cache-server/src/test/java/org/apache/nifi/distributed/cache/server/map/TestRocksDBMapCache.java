@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.server.map;
+
+import org.apache.nifi.distributed.cache.server.EvictionPolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRocksDBMapCache {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testOperations() throws Exception {
+        final RocksDBMapCache cache = new RocksDBMapCache("service-id", 100, EvictionPolicy.LFU, tempFolder.newFolder(), 2);
+        try {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(cache.putIfAbsent(buffer("key-" + i), buffer("value-" + i)).isSuccessful());
+            }
+
+            assertFalse(cache.putIfAbsent(buffer("key-0"), buffer("other")).isSuccessful());
+            assertEquals(buffer("value-3"), cache.get(buffer("key-3")));
+            assertTrue(cache.containsKey(buffer("key-5")));
+            assertFalse(cache.containsKey(buffer("missing")));
+            assertEquals(10, cache.keySet().size());
+
+            final Map<ByteBuffer, ByteBuffer> subMap = cache.subMap(Arrays.asList(buffer("key-1"), buffer("missing")));
+            assertEquals(buffer("value-1"), subMap.get(buffer("key-1")));
+            assertNull(subMap.get(buffer("missing")));
+
+            final MapCacheRecord record = cache.fetch(buffer("key-7"));
+            assertEquals(0, record.getRevision());
+            assertTrue(cache.replace(new MapCacheRecord(buffer("key-7"), buffer("replaced"), record.getRevision())).isSuccessful());
+            assertFalse(cache.replace(new MapCacheRecord(buffer("key-7"), buffer("stale"), record.getRevision())).isSuccessful());
+            assertEquals(buffer("replaced"), cache.get(buffer("key-7")));
+            assertEquals(1, cache.fetch(buffer("key-7")).getRevision());
+
+            assertEquals(buffer("value-8"), cache.remove(buffer("key-8")));
+            assertNull(cache.get(buffer("key-8")));
+
+            // key-1 only, as key-8 has already been removed
+            assertEquals(1, cache.removeByPattern("key-[18]").size());
+            assertEquals(8, cache.keySet().size());
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testFifoEviction() throws Exception {
+        final RocksDBMapCache cache = new RocksDBMapCache("service-id", 2, EvictionPolicy.FIFO, tempFolder.newFolder(), 1);
+        try {
+            cache.put(buffer("key-1"), buffer("value-1"));
+            cache.put(buffer("key-2"), buffer("value-2"));
+            cache.get(buffer("key-1"));
+
+            final MapPutResult result = cache.put(buffer("key-3"), buffer("value-3"));
+            assertEquals(buffer("key-1"), result.getEvicted().getKey());
+            assertNull(cache.get(buffer("key-1")));
+            assertEquals(2, cache.keySet().size());
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testLruEviction() throws Exception {
+        final RocksDBMapCache cache = new RocksDBMapCache("service-id", 2, EvictionPolicy.LRU, tempFolder.newFolder(), 1);
+        try {
+            cache.put(buffer("key-1"), buffer("value-1"));
+            Thread.sleep(2L);
+            cache.put(buffer("key-2"), buffer("value-2"));
+            Thread.sleep(2L);
+            cache.get(buffer("key-1"));
+
+            final MapPutResult result = cache.put(buffer("key-3"), buffer("value-3"));
+            assertEquals(buffer("key-2"), result.getEvicted().getKey());
+            assertEquals(buffer("value-1"), cache.get(buffer("key-1")));
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testLfuEviction() throws Exception {
+        final RocksDBMapCache cache = new RocksDBMapCache("service-id", 2, EvictionPolicy.LFU, tempFolder.newFolder(), 1);
+        try {
+            cache.put(buffer("key-1"), buffer("value-1"));
+            cache.put(buffer("key-2"), buffer("value-2"));
+            cache.get(buffer("key-1"));
+            cache.get(buffer("key-1"));
+            cache.get(buffer("key-2"));
+
+            final MapPutResult result = cache.put(buffer("key-3"), buffer("value-3"));
+            assertEquals(buffer("key-2"), result.getEvicted().getKey());
+            assertEquals(buffer("value-1"), cache.get(buffer("key-1")));
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testRestart() throws Exception {
+        final File persistencePath = tempFolder.newFolder();
+
+        RocksDBMapCache cache = new RocksDBMapCache("service-id", 5, EvictionPolicy.FIFO, persistencePath, 2);
+        for (int i = 0; i < 5; i++) {
+            cache.put(buffer("key-" + i), buffer("value-" + i));
+        }
+        cache.put(buffer("key-0"), buffer("updated"));
+        cache.shutdown();
+
+        cache = new RocksDBMapCache("service-id", 5, EvictionPolicy.FIFO, persistencePath, 2);
+        try {
+            assertEquals(5, cache.keySet().size());
+            assertEquals(buffer("updated"), cache.get(buffer("key-0")));
+            assertEquals(1, cache.fetch(buffer("key-0")).getRevision());
+
+            // key-0 was updated last, so key-1 is now the oldest entry
+            final MapPutResult result = cache.put(buffer("key-5"), buffer("value-5"));
+            assertEquals(buffer("key-1"), result.getEvicted().getKey());
+            assertEquals(5, cache.keySet().size());
+        } finally {
+            cache.shutdown();
+        }
+
+        // restarting with a smaller maximum size evicts the oldest entries
+        cache = new RocksDBMapCache("service-id", 3, EvictionPolicy.FIFO, persistencePath, 2);
+        try {
+            assertEquals(3, cache.keySet().size());
+            assertNull(cache.get(buffer("key-2")));
+            assertEquals(buffer("value-5"), cache.get(buffer("key-5")));
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testHitsWrittenBackOnShutdown() throws Exception {
+        final File persistencePath = tempFolder.newFolder();
+
+        RocksDBMapCache cache = new RocksDBMapCache("service-id", 2, EvictionPolicy.LRU, persistencePath, 16);
+        cache.put(buffer("key-1"), buffer("value-1"));
+        Thread.sleep(2L);
+        cache.put(buffer("key-2"), buffer("value-2"));
+        Thread.sleep(2L);
+        // only held in memory until the cache is shut down
+        cache.get(buffer("key-1"));
+        cache.shutdown();
+
+        cache = new RocksDBMapCache("service-id", 2, EvictionPolicy.LRU, persistencePath, 16);
+        try {
+            final MapPutResult result = cache.put(buffer("key-3"), buffer("value-3"));
+            assertEquals(buffer("key-2"), result.getEvicted().getKey());
+            assertEquals(buffer("value-1"), cache.get(buffer("key-1")));
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testConcurrentOperations() throws Exception {
+        final int maxSize = 50;
+        final RocksDBMapCache cache = new RocksDBMapCache("service-id", maxSize, EvictionPolicy.LFU, tempFolder.newFolder(), 8);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        final ByteBuffer key = buffer("key-" + thread + "-" + (i % 40));
+                        cache.put(key, buffer("value-" + i));
+                        cache.get(key);
+                        cache.get(buffer("key-" + ((thread + 1) % 8) + "-" + (i % 40)));
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+
+            assertEquals(maxSize, cache.keySet().size());
+        } finally {
+            executor.shutdownNow();
+            cache.shutdown();
+        }
+    }
+
+    private static ByteBuffer buffer(final String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
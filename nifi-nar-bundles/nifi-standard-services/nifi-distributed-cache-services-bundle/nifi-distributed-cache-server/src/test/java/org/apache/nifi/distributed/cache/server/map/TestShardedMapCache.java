@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.distributed.cache.server.map;
+
+import org.apache.nifi.distributed.cache.server.EvictionPolicy;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestShardedMapCache {
+
+    @Test
+    public void testOperationsAcrossShards() throws Exception {
+        final ShardedMapCache cache = new ShardedMapCache("service-id", 100, EvictionPolicy.FIFO, 4);
+
+        final List<ByteBuffer> keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final ByteBuffer key = buffer("key-" + i);
+            keys.add(key);
+            assertTrue(cache.putIfAbsent(key, buffer("value-" + i)).isSuccessful());
+        }
+
+        assertFalse(cache.putIfAbsent(keys.get(0), buffer("other")).isSuccessful());
+        assertEquals(buffer("value-3"), cache.get(keys.get(3)));
+        assertTrue(cache.containsKey(keys.get(5)));
+
+        final Set<ByteBuffer> keySet = cache.keySet();
+        assertEquals(20, keySet.size());
+        assertTrue(keySet.containsAll(keys));
+
+        final Map<ByteBuffer, ByteBuffer> subMap = cache.subMap(keys.subList(0, 5));
+        assertEquals(5, subMap.size());
+        assertEquals(buffer("value-4"), subMap.get(keys.get(4)));
+
+        final MapCacheRecord record = cache.fetch(keys.get(7));
+        assertTrue(cache.replace(new MapCacheRecord(keys.get(7), buffer("replaced"), record.getRevision())).isSuccessful());
+        assertFalse(cache.replace(new MapCacheRecord(keys.get(7), buffer("stale"), record.getRevision())).isSuccessful());
+        assertEquals(buffer("replaced"), cache.get(keys.get(7)));
+
+        assertEquals(buffer("value-8"), cache.remove(keys.get(8)));
+        assertNull(cache.get(keys.get(8)));
+
+        // key-1 and key-10 through key-19
+        final Map<ByteBuffer, ByteBuffer> removed = cache.removeByPattern("key-1.*");
+        assertEquals(11, removed.size());
+        assertEquals(8, cache.keySet().size());
+    }
+
+    @Test
+    public void testEvictionIsBoundedByMaxSize() throws Exception {
+        final ShardedMapCache cache = new ShardedMapCache("service-id", 10, EvictionPolicy.LRU, 3);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(buffer("key-" + i), buffer("value-" + i));
+        }
+
+        assertTrue(cache.keySet().size() <= 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMoreShardsThanEntries() {
+        new ShardedMapCache("service-id", 2, EvictionPolicy.LRU, 3);
+    }
+
+    private static ByteBuffer buffer(final String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
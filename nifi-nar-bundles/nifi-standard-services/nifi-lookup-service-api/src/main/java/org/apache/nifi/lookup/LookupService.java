@@ -17,6 +17,8 @@
 
 package org.apache.nifi.lookup;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -48,6 +50,26 @@ public interface LookupService<T> extends ControllerService {
         return lookup(coordinates);
     }
 
+    /**
+     * Looks up the values that correspond to each of the given maps of coordinates, using the same context for all of them. Services that are
+     * able to resolve many keys in a single request to the underlying system should override this method; by default, each map of coordinates
+     * is looked up in turn by calling {@link #lookup(Map, Map)}.
+     *
+     * @param coordinates the maps of key/value pairs that indicate the information that should be looked up
+     * @param context a Map of additional information
+     * @return a Map from each of the given coordinates to the value that corresponds to it. Coordinates for which there is no value are
+     *         not included in the Map.
+     * @throws LookupFailureException if unable to lookup values for the given coordinates
+     */
+    default Map<Map<String, Object>, T> lookupAll(Collection<Map<String, Object>> coordinates, Map<String, String> context) throws LookupFailureException {
+        final Map<Map<String, Object>, T> results = new HashMap<>();
+        for (final Map<String, Object> lookupCoordinates : coordinates) {
+            final Optional<T> value = lookup(lookupCoordinates, context);
+            value.ifPresent(found -> results.put(lookupCoordinates, found));
+        }
+        return results;
+    }
+
     /**
      * @return the Class that represents the type of value that will be returned by {@link #lookup(Map)}
      */
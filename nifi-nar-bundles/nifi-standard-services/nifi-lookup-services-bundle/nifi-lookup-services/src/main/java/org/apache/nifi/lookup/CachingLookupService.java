@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.lookup;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
+import org.apache.nifi.annotation.lifecycle.OnEnabled;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.controller.ControllerServiceInitializationContext;
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.util.Tuple;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+@Tags({"lookup", "enrich", "cache", "caching"})
+@CapabilityDescription("Caches the results of another Lookup Service in memory, so that repeated lookups of the same coordinates do not have to go back to "
+        + "the underlying service. The cache is bounded by the estimated size of the cached values rather than by their number, entries can be expired "
+        + "and refreshed in the background, and lookups that found nothing can optionally be cached as well. Cache statistics are logged when the service "
+        + "is disabled, and at debug level while it is running.")
+public class CachingLookupService extends AbstractControllerService implements LookupService<Object> {
+
+    static final PropertyDescriptor LOOKUP_SERVICE = new PropertyDescriptor.Builder()
+            .name("caching-lookup-service")
+            .displayName("Lookup Service")
+            .description("The Lookup Service whose results are cached.")
+            .identifiesControllerService(LookupService.class)
+            .required(true)
+            .build();
+
+    static final PropertyDescriptor MAX_CACHE_SIZE = new PropertyDescriptor.Builder()
+            .name("caching-lookup-max-size")
+            .displayName("Maximum Cache Size")
+            .description("The maximum amount of memory the cached coordinates and values may take up, based on an estimate of their size. "
+                    + "The least valuable entries are evicted once this size is reached.")
+            .addValidator(StandardValidators.DATA_SIZE_VALIDATOR)
+            .defaultValue("100 MB")
+            .required(true)
+            .build();
+
+    static final PropertyDescriptor CACHE_EXPIRATION = new PropertyDescriptor.Builder()
+            .name("caching-lookup-expiration")
+            .displayName("Cache Expiration")
+            .description("How long after it was loaded a cache entry is removed, so that the next lookup goes to the underlying Lookup Service again. "
+                    + "If not set, entries are only removed when the cache is full.")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .required(false)
+            .build();
+
+    static final PropertyDescriptor REFRESH_INTERVAL = new PropertyDescriptor.Builder()
+            .name("caching-lookup-refresh-interval")
+            .displayName("Refresh Interval")
+            .description("How long after it was loaded a cache entry is reloaded in the background the next time it is looked up. The stale value is "
+                    + "returned until the reload completes, so lookups of frequently used coordinates never wait for the underlying Lookup Service. "
+                    + "Must be shorter than the Cache Expiration, if that is set.")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .required(false)
+            .build();
+
+    static final PropertyDescriptor CACHE_MISSING_VALUES = new PropertyDescriptor.Builder()
+            .name("caching-lookup-cache-missing-values")
+            .displayName("Cache Missing Values")
+            .description("Whether to also cache that no value was found for some coordinates. This avoids looking up unknown coordinates over and over "
+                    + "again, but a value added later to the underlying source will not be seen until the entry is expired.")
+            .allowableValues("true", "false")
+            .addValidator(StandardValidators.BOOLEAN_VALIDATOR)
+            .defaultValue("false")
+            .required(true)
+            .build();
+
+    static final PropertyDescriptor CONTEXT_ATTRIBUTES = new PropertyDescriptor.Builder()
+            .name("caching-lookup-context-attributes")
+            .displayName("Context Attributes")
+            .description("A comma-separated list of the lookup context entries (typically FlowFile attributes) that the underlying Lookup Service "
+                    + "depends on, such as the attributes referenced by its Expression Language. Only these entries are passed on to the underlying "
+                    + "Lookup Service, and they are part of the cache key along with the coordinates. If not set, the context is ignored, so that "
+                    + "lookups of the same coordinates from different FlowFiles share a cache entry.")
+            .addValidator(StandardValidators.NON_BLANK_VALIDATOR)
+            .required(false)
+            .build();
+
+    private List<PropertyDescriptor> properties;
+
+    private volatile LookupService<?> lookupService;
+    private volatile boolean cacheMissingValues;
+    private volatile Set<String> contextAttributes;
+    private volatile LoadingCache<Tuple<Map<String, Object>, Map<String, String>>, Optional<Object>> cache;
+
+    @Override
+    protected void init(final ControllerServiceInitializationContext context) {
+        final List<PropertyDescriptor> properties = new ArrayList<>();
+        properties.add(LOOKUP_SERVICE);
+        properties.add(MAX_CACHE_SIZE);
+        properties.add(CACHE_EXPIRATION);
+        properties.add(REFRESH_INTERVAL);
+        properties.add(CACHE_MISSING_VALUES);
+        properties.add(CONTEXT_ATTRIBUTES);
+        this.properties = Collections.unmodifiableList(properties);
+    }
+
+    @Override
+    protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return properties;
+    }
+
+    @Override
+    protected Collection<ValidationResult> customValidate(final ValidationContext validationContext) {
+        final List<ValidationResult> results = new ArrayList<>();
+        if (validationContext.getProperty(CACHE_EXPIRATION).isSet() && validationContext.getProperty(REFRESH_INTERVAL).isSet()
+                && validationContext.getProperty(REFRESH_INTERVAL).asTimePeriod(TimeUnit.MILLISECONDS)
+                    >= validationContext.getProperty(CACHE_EXPIRATION).asTimePeriod(TimeUnit.MILLISECONDS)) {
+            results.add(new ValidationResult.Builder()
+                    .subject(REFRESH_INTERVAL.getDisplayName())
+                    .valid(false)
+                    .explanation("the Refresh Interval must be shorter than the Cache Expiration, otherwise entries expire before they are refreshed")
+                    .build());
+        }
+        return results;
+    }
+
+    @OnEnabled
+    public void onEnabled(final ConfigurationContext context) {
+        this.lookupService = context.getProperty(LOOKUP_SERVICE).asControllerService(LookupService.class);
+        this.cacheMissingValues = context.getProperty(CACHE_MISSING_VALUES).asBoolean();
+
+        final Set<String> contextAttributes = new HashSet<>();
+        if (context.getProperty(CONTEXT_ATTRIBUTES).isSet()) {
+            for (final String attribute : context.getProperty(CONTEXT_ATTRIBUTES).getValue().split(",")) {
+                if (!attribute.trim().isEmpty()) {
+                    contextAttributes.add(attribute.trim());
+                }
+            }
+        }
+        this.contextAttributes = contextAttributes;
+
+        final Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumWeight(context.getProperty(MAX_CACHE_SIZE).asDataSize(DataUnit.B).longValue())
+                .recordStats();
+        if (context.getProperty(CACHE_EXPIRATION).isSet()) {
+            builder.expireAfterWrite(context.getProperty(CACHE_EXPIRATION).asTimePeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+        if (context.getProperty(REFRESH_INTERVAL).isSet()) {
+            builder.refreshAfterWrite(context.getProperty(REFRESH_INTERVAL).asTimePeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+
+        this.cache = builder
+                .<Tuple<Map<String, Object>, Map<String, String>>, Optional<Object>>weigher((key, value) ->
+                        estimateSize(key.getKey()) + estimateSize(key.getValue()) + estimateSize(value.orElse(null)))
+                .build(new LookupLoader());
+    }
+
+    @OnDisabled
+    public void onDisabled() {
+        if (cache != null) {
+            getLogger().info("Lookup cache statistics: {}", new Object[]{formatStats(cache.stats())});
+            cache.invalidateAll();
+            cache = null;
+        }
+    }
+
+    @Override
+    public Optional<Object> lookup(final Map<String, Object> coordinates) throws LookupFailureException {
+        return lookup(coordinates, null);
+    }
+
+    @Override
+    public Optional<Object> lookup(final Map<String, Object> coordinates, final Map<String, String> context) throws LookupFailureException {
+        if (coordinates == null) {
+            return Optional.empty();
+        }
+
+        final Optional<Object> value;
+        try {
+            value = cache.get(new Tuple<>(new HashMap<>(coordinates), getKeyContext(context)));
+        } catch (final CompletionException e) {
+            throw toLookupFailure(e);
+        }
+        logStats();
+
+        return value == null ? Optional.empty() : value;
+    }
+
+    @Override
+    public Map<Map<String, Object>, Object> lookupAll(final Collection<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+        final Map<String, String> lookupContext = getKeyContext(context);
+        final Map<Tuple<Map<String, Object>, Map<String, String>>, Map<String, Object>> keys = new HashMap<>();
+        for (final Map<String, Object> lookupCoordinates : coordinates) {
+            if (lookupCoordinates != null) {
+                keys.put(new Tuple<>(new HashMap<>(lookupCoordinates), lookupContext), lookupCoordinates);
+            }
+        }
+
+        final Map<Tuple<Map<String, Object>, Map<String, String>>, Optional<Object>> values;
+        try {
+            values = cache.getAll(keys.keySet());
+        } catch (final CompletionException e) {
+            throw toLookupFailure(e);
+        }
+        logStats();
+
+        final Map<Map<String, Object>, Object> results = new HashMap<>();
+        values.forEach((key, value) -> value.ifPresent(v -> results.put(keys.get(key), v)));
+        return results;
+    }
+
+    @Override
+    public Class<?> getValueType() {
+        final LookupService<?> service = lookupService;
+        return service == null ? Object.class : service.getValueType();
+    }
+
+    @Override
+    public Set<String> getRequiredKeys() {
+        final LookupService<?> service = lookupService;
+        return service == null ? Collections.emptySet() : service.getRequiredKeys();
+    }
+
+    /**
+     * Reduces the lookup context to the entries that the underlying Lookup Service depends on. The context usually holds all the
+     * attributes of a FlowFile, including ones like its uuid that differ for every FlowFile, so using all of it as part of the
+     * cache key would keep any two FlowFiles from sharing a cache entry.
+     */
+    private Map<String, String> getKeyContext(final Map<String, String> context) {
+        if (context == null || contextAttributes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, String> keyContext = new HashMap<>();
+        for (final String attribute : contextAttributes) {
+            final String value = context.get(attribute);
+            if (value != null) {
+                keyContext.put(attribute, value);
+            }
+        }
+        return keyContext;
+    }
+
+    private LookupFailureException toLookupFailure(final CompletionException e) {
+        if (e.getCause() instanceof LookupFailureException) {
+            return (LookupFailureException) e.getCause();
+        }
+        return new LookupFailureException(e.getCause() == null ? e : e.getCause());
+    }
+
+    private void logStats() {
+        if (getLogger().isDebugEnabled()) {
+            getLogger().debug("Lookup cache statistics: {}", new Object[]{formatStats(cache.stats())});
+        }
+    }
+
+    private static String formatStats(final CacheStats stats) {
+        return String.format("hits=%d, misses=%d, hitRate=%.3f, loadFailures=%d, averageLoadMillis=%.3f, evictions=%d",
+                stats.hitCount(), stats.missCount(), stats.hitRate(), stats.loadFailureCount(),
+                stats.averageLoadPenalty() / 1_000_000.0, stats.evictionCount());
+    }
+
+    /**
+     * Roughly estimates the number of bytes taken up by a lookup value or coordinate, in order to bound the cache by memory rather than
+     * by number of entries. Only the types that lookups typically deal with are inspected, anything else gets a fixed estimate.
+     */
+    static int estimateSize(final Object value) {
+        if (value == null) {
+            return 8;
+        } else if (value instanceof String) {
+            return 40 + 2 * ((String) value).length();
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 16;
+        } else if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        } else if (value instanceof Record) {
+            return 64 + estimateSize(((Record) value).getValues());
+        } else if (value instanceof Object[]) {
+            int size = 16;
+            for (final Object element : (Object[]) value) {
+                size += 8 + estimateSize(element);
+            }
+            return size;
+        } else if (value instanceof Collection) {
+            int size = 32;
+            for (final Object element : (Collection<?>) value) {
+                size += 16 + estimateSize(element);
+            }
+            return size;
+        } else if (value instanceof Map) {
+            int size = 48;
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        return 64;
+    }
+
+    private class LookupLoader implements CacheLoader<Tuple<Map<String, Object>, Map<String, String>>, Optional<Object>> {
+
+        @Override
+        public Optional<Object> load(final Tuple<Map<String, Object>, Map<String, String>> key) throws Exception {
+            final Optional<?> value = lookupService.lookup(key.getKey(), key.getValue());
+            if (value.isPresent()) {
+                return Optional.of(value.get());
+            }
+            // returning null means nothing is cached
+            return cacheMissingValues ? Optional.empty() : null;
+        }
+
+        @Override
+        public Map<Tuple<Map<String, Object>, Map<String, String>>, Optional<Object>> loadAll(
+                final Iterable<? extends Tuple<Map<String, Object>, Map<String, String>>> keys) throws Exception {
+
+            // all keys of a single getAll share the same context
+            final Map<Map<String, String>, List<Map<String, Object>>> coordinatesByContext = new HashMap<>();
+            for (final Tuple<Map<String, Object>, Map<String, String>> key : keys) {
+                coordinatesByContext.computeIfAbsent(key.getValue(), k -> new ArrayList<>()).add(key.getKey());
+            }
+
+            final Map<Tuple<Map<String, Object>, Map<String, String>>, Optional<Object>> values = new HashMap<>();
+            for (final Map.Entry<Map<String, String>, List<Map<String, Object>>> entry : coordinatesByContext.entrySet()) {
+                final Map<String, String> context = entry.getKey();
+                final Map<Map<String, Object>, ?> found = lookupService.lookupAll(entry.getValue(), context);
+
+                for (final Map<String, Object> coordinates : entry.getValue()) {
+                    final Object value = found.get(coordinates);
+                    if (value != null || cacheMissingValues) {
+                        values.put(new Tuple<>(coordinates, context), Optional.ofNullable(value));
+                    }
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.lookup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.commons.lang3.StringUtils;
+
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.SeeAlso;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
+import org.apache.nifi.annotation.lifecycle.OnEnabled;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.controller.ControllerServiceInitializationContext;
+import org.apache.nifi.expression.ExpressionLanguageScope;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.reporting.InitializationException;
+import org.apache.nifi.util.file.monitor.LastModifiedMonitor;
+import org.apache.nifi.util.file.monitor.SynchronousFileWatcher;
+
+@Tags({"lookup", "cache", "enrich", "join", "csv", "reloadable", "key", "value", "index", "large"})
+@CapabilityDescription("A reloadable CSV file-based lookup service for files that are too large to be held in memory. The CSV file is converted into "
+        + "an index file on disk, which is memory-mapped to look up values, so the service needs next to no heap regardless of the size of the CSV file. "
+        + "The index is only rebuilt when the CSV file or the configuration of the service changes, and lookups keep using the previous index while "
+        + "a new one is being built.")
+@SeeAlso(SimpleCsvFileLookupService.class)
+public class IndexedCsvFileLookupService extends AbstractControllerService implements StringLookupService {
+
+    private static final String KEY = "key";
+
+    private static final Set<String> REQUIRED_KEYS = Collections.unmodifiableSet(Stream.of(KEY).collect(Collectors.toSet()));
+
+    public static final PropertyDescriptor CSV_FILE = SimpleCsvFileLookupService.CSV_FILE;
+
+    static final PropertyDescriptor CSV_FORMAT = SimpleCsvFileLookupService.CSV_FORMAT;
+
+    public static final PropertyDescriptor CHARSET = SimpleCsvFileLookupService.CHARSET;
+
+    public static final PropertyDescriptor LOOKUP_KEY_COLUMN = SimpleCsvFileLookupService.LOOKUP_KEY_COLUMN;
+
+    public static final PropertyDescriptor LOOKUP_VALUE_COLUMN = SimpleCsvFileLookupService.LOOKUP_VALUE_COLUMN;
+
+    public static final PropertyDescriptor IGNORE_DUPLICATES = SimpleCsvFileLookupService.IGNORE_DUPLICATES;
+
+    public static final PropertyDescriptor INDEX_DIRECTORY =
+        new PropertyDescriptor.Builder()
+            .name("index-directory")
+            .displayName("Index Directory")
+            .description("The directory in which the index file is kept. The index file takes up about as much disk space as the "
+                + "key and value columns of the CSV file, and is reused when the service is enabled again as long as the CSV file is unchanged.")
+            .required(true)
+            .addValidator(StandardValidators.createDirectoryExistsValidator(true, true))
+            .expressionLanguageSupported(ExpressionLanguageScope.VARIABLE_REGISTRY)
+            .build();
+
+    private List<PropertyDescriptor> properties;
+
+    private volatile KeyValueFileIndex index;
+
+    private volatile String csvFile;
+
+    private volatile CSVFormat csvFormat;
+
+    private volatile String charset;
+
+    private volatile String lookupKeyColumn;
+
+    private volatile String lookupValueColumn;
+
+    private volatile boolean ignoreDuplicates;
+
+    private volatile Path indexFile;
+
+    private volatile String fingerprint;
+
+    private volatile SynchronousFileWatcher watcher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private void loadIndex() throws IllegalStateException, IOException {
+        if (lock.tryLock()) {
+            try {
+                final ComponentLog logger = getLogger();
+                final File source = new File(csvFile);
+                final long sourceLength = source.length();
+                final long sourceLastModified = source.lastModified();
+
+                KeyValueFileIndex loaded = KeyValueFileIndex.open(indexFile, sourceLength, sourceLastModified, fingerprint, KeyValueFileIndex.DEFAULT_SEGMENT_SIZE);
+                if (loaded == null) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Building lookup index " + indexFile + " from file: " + csvFile);
+                    }
+                    loaded = buildIndex(sourceLength, sourceLastModified);
+                } else if (logger.isDebugEnabled()) {
+                    logger.debug("Reusing lookup index " + indexFile + " for file: " + csvFile);
+                }
+
+                if (loaded.size() == 0) {
+                    logger.warn("Lookup table is empty after reading file: " + csvFile);
+                }
+
+                final KeyValueFileIndex previous = this.index;
+                this.index = loaded;
+                if (previous != null) {
+                    previous.close();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private KeyValueFileIndex buildIndex(final long sourceLength, final long sourceLastModified) throws IOException {
+        final KeyValueFileIndex.Writer writer = KeyValueFileIndex.create(indexFile, KeyValueFileIndex.DEFAULT_SEGMENT_SIZE);
+        try (final InputStream is = new FileInputStream(csvFile)) {
+            try (final InputStreamReader reader = new InputStreamReader(is, charset)) {
+                final Iterable<CSVRecord> records = csvFormat.withFirstRecordAsHeader().parse(reader);
+                for (final CSVRecord record : records) {
+                    final String key = record.get(lookupKeyColumn);
+                    final String value = record.get(lookupValueColumn);
+                    if (StringUtils.isBlank(key)) {
+                        throw new IllegalStateException("Empty lookup key encountered in: " + csvFile);
+                    }
+                    writer.add(key, value);
+                }
+            }
+
+            return writer.finish(sourceLength, sourceLastModified, fingerprint, key -> {
+                if (!ignoreDuplicates) {
+                    throw new IllegalStateException("Duplicate lookup key encountered: " + key + " in " + csvFile);
+                }
+                getLogger().warn("Duplicate lookup key encountered: {} in {}", new Object[]{key, csvFile});
+            });
+        } catch (final IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    @Override
+    protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return properties;
+    }
+
+    @Override
+    protected void init(final ControllerServiceInitializationContext context) throws InitializationException {
+        final List<PropertyDescriptor> properties = new ArrayList<>();
+        properties.add(CSV_FILE);
+        properties.add(CSV_FORMAT);
+        properties.add(CHARSET);
+        properties.add(LOOKUP_KEY_COLUMN);
+        properties.add(LOOKUP_VALUE_COLUMN);
+        properties.add(IGNORE_DUPLICATES);
+        properties.add(INDEX_DIRECTORY);
+        this.properties = Collections.unmodifiableList(properties);
+    }
+
+    @OnEnabled
+    public void onEnabled(final ConfigurationContext context) throws InitializationException, IOException {
+        this.csvFile = context.getProperty(CSV_FILE).evaluateAttributeExpressions().getValue();
+        final String csvFormatName = context.getProperty(CSV_FORMAT).getValue();
+        this.csvFormat = CSVFormat.Predefined.valueOf(csvFormatName).getFormat();
+        this.charset = context.getProperty(CHARSET).evaluateAttributeExpressions().getValue();
+        this.lookupKeyColumn = context.getProperty(LOOKUP_KEY_COLUMN).evaluateAttributeExpressions().getValue();
+        this.lookupValueColumn = context.getProperty(LOOKUP_VALUE_COLUMN).evaluateAttributeExpressions().getValue();
+        this.ignoreDuplicates = context.getProperty(IGNORE_DUPLICATES).asBoolean();
+
+        // everything that affects the content of the index, so that a stale index is never reused
+        this.fingerprint = String.join("\u0000", new File(csvFile).getAbsolutePath(), csvFormatName, charset,
+                lookupKeyColumn, lookupValueColumn, String.valueOf(ignoreDuplicates));
+        final String indexDirectory = context.getProperty(INDEX_DIRECTORY).evaluateAttributeExpressions().getValue();
+        this.indexFile = Paths.get(indexDirectory, new File(csvFile).getName() + "." + DigestUtils.sha256Hex(fingerprint).substring(0, 16) + ".index");
+
+        this.watcher = new SynchronousFileWatcher(Paths.get(csvFile), new LastModifiedMonitor(), 30000L);
+        try {
+            loadIndex();
+        } catch (final IllegalStateException e) {
+            throw new InitializationException(e.getMessage(), e);
+        }
+    }
+
+    @OnDisabled
+    public void onDisabled() throws IOException {
+        final KeyValueFileIndex previous = this.index;
+        this.index = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    @Override
+    public Optional<String> lookup(final Map<String, Object> coordinates) throws LookupFailureException {
+        if (coordinates == null) {
+            return Optional.empty();
+        }
+
+        final String key = coordinates.get(KEY).toString();
+        if (StringUtils.isBlank(key)) {
+            return Optional.empty();
+        }
+
+        try {
+            if (watcher != null && watcher.checkAndReset()) {
+                loadIndex();
+            }
+        } catch (final IllegalStateException | IOException e) {
+            throw new LookupFailureException(e.getMessage(), e);
+        }
+
+        return Optional.ofNullable(index.get(key));
+    }
+
+    @Override
+    public Set<String> getRequiredKeys() {
+        return REQUIRED_KEYS;
+    }
+
+}
@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.lookup;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An on-disk hash index from String keys to String values that is memory-mapped for lookups, so that it takes up next to no heap
+ * regardless of how many entries it holds.
+ * <p>
+ * The index is a single file made up of a header, the entries one after the other, and an open addressing hash table whose slots
+ * hold a part of the key's hash and the position of its entry. The file records the length and last modified time of the source it
+ * was built from, along with a fingerprint of the configuration used, so that an index can be reused as long as its source is unchanged.
+ * </p>
+ */
+final class KeyValueFileIndex implements Closeable {
+
+    private static final int MAGIC = 0x4E494B56;
+    private static final int VERSION = 1;
+
+    // magic, version, source length, source last modified, fingerprint, entry count, slot count, slots offset
+    private static final int HEADER_SIZE = 4 + 4 + 8 * 6;
+    // hash tag and entry position + 1, where 0 marks an empty slot
+    private static final int SLOT_SIZE = 4 + 8;
+
+    static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final MappedSegments segments;
+    private final long entryCount;
+    private final long slotCount;
+    private final long slotsOffset;
+
+    private KeyValueFileIndex(final FileChannel channel, final MappedSegments segments) {
+        this.channel = channel;
+        this.segments = segments;
+        this.entryCount = segments.getLong(32);
+        this.slotCount = segments.getLong(40);
+        this.slotsOffset = segments.getLong(48);
+    }
+
+    /**
+     * Opens an existing index, if it was built from a source of the given length and last modified time using the given configuration.
+     *
+     * @return the index, or null if there is no such index or it is out of date
+     */
+    static KeyValueFileIndex open(final Path indexFile, final long sourceLength, final long sourceLastModified, final String fingerprint,
+                                  final int segmentSize) throws IOException {
+        if (!Files.isRegularFile(indexFile) || Files.size(indexFile) < HEADER_SIZE) {
+            return null;
+        }
+
+        final FileChannel channel = FileChannel.open(indexFile);
+        try {
+            final MappedSegments segments = new MappedSegments(channel, FileChannel.MapMode.READ_ONLY, channel.size(), segmentSize);
+            if (segments.getInt(0) != MAGIC || segments.getInt(4) != VERSION || segments.getLong(8) != sourceLength
+                    || segments.getLong(16) != sourceLastModified || segments.getLong(24) != hash(fingerprint.getBytes(StandardCharsets.UTF_8))) {
+                channel.close();
+                return null;
+            }
+            return new KeyValueFileIndex(channel, segments);
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts building a new index. The index only replaces the given file once it is complete, so an index that
+     * is currently in use is never seen half-written.
+     */
+    static Writer create(final Path indexFile, final int segmentSize) throws IOException {
+        return new Writer(indexFile, segmentSize);
+    }
+
+    long size() {
+        return entryCount;
+    }
+
+    String get(final String key) {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final long hash = hash(keyBytes);
+        final int tag = (int) (hash >>> 32);
+        final long mask = slotCount - 1;
+
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            final long slotPosition = slotsOffset + slot * SLOT_SIZE;
+            final long entryPosition = segments.getLong(slotPosition + 4) - 1;
+            if (entryPosition < 0) {
+                return null;
+            }
+            if (segments.getInt(slotPosition) == tag && Arrays.equals(keyBytes, readBytes(segments, entryPosition))) {
+                final long valuePosition = entryPosition + 4 + keyBytes.length;
+                return new String(readBytes(segments, valuePosition), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    /**
+     * Closes the file. The mapping itself is only released once it is garbage collected, so lookups that are still
+     * in progress on this index are not affected.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] readBytes(final MappedSegments segments, final long position) {
+        final byte[] bytes = new byte[segments.getInt(position)];
+        segments.get(position + 4, bytes);
+        return bytes;
+    }
+
+    // FNV-1a, followed by a final mix so that the low bits used for the slot are well distributed
+    private static long hash(final byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Writes the entries of a new index to a temporary file, then builds the hash table and moves the file into place.
+     */
+    static final class Writer implements Closeable {
+        private final Path indexFile;
+        private final Path tempFile;
+        private final int segmentSize;
+        private final RandomAccessFile file;
+        private final DataOutputStream out;
+        private long entryCount;
+        private long dataLength;
+
+        private Writer(final Path indexFile, final int segmentSize) throws IOException {
+            this.indexFile = indexFile;
+            this.tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            this.segmentSize = segmentSize;
+            this.file = new RandomAccessFile(tempFile.toFile(), "rw");
+            file.setLength(0L);
+            file.getChannel().position(HEADER_SIZE);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file.getChannel()), 65536));
+        }
+
+        void add(final String key, final String value) throws IOException {
+            final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            final byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            out.writeInt(valueBytes.length);
+            out.write(valueBytes);
+            entryCount++;
+            dataLength += 8 + keyBytes.length + valueBytes.length;
+        }
+
+        /**
+         * Builds the hash table and replaces the index file. If a key was added more than once, the last value wins, and
+         * the key is passed to the duplicate handler, which may throw to abort the build.
+         */
+        KeyValueFileIndex finish(final long sourceLength, final long sourceLastModified, final String fingerprint,
+                                 final Consumer<String> duplicateHandler) throws IOException {
+            out.flush();
+            final long dataEnd = HEADER_SIZE + dataLength;
+            final long slotsOffset = (dataEnd + 7) & ~7L;
+            // keep the load factor at or below 0.75 so that probe sequences stay short
+            final long slotCount = Math.max(2L, Long.highestOneBit(Math.max(1L, entryCount * 4 / 3)) << 1);
+            file.setLength(slotsOffset + slotCount * SLOT_SIZE);
+
+            final MappedSegments segments = new MappedSegments(file.getChannel(), FileChannel.MapMode.READ_WRITE, file.length(), segmentSize);
+            final long mask = slotCount - 1;
+            for (long entryPosition = HEADER_SIZE; entryPosition < dataEnd; ) {
+                final byte[] keyBytes = readBytes(segments, entryPosition);
+                final long hash = hash(keyBytes);
+                final int tag = (int) (hash >>> 32);
+
+                for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+                    final long slotPosition = slotsOffset + slot * SLOT_SIZE;
+                    final long existingPosition = segments.getLong(slotPosition + 4) - 1;
+                    if (existingPosition < 0) {
+                        segments.putInt(slotPosition, tag);
+                        segments.putLong(slotPosition + 4, entryPosition + 1);
+                        break;
+                    }
+                    if (segments.getInt(slotPosition) == tag && Arrays.equals(keyBytes, readBytes(segments, existingPosition))) {
+                        duplicateHandler.accept(new String(keyBytes, StandardCharsets.UTF_8));
+                        segments.putLong(slotPosition + 4, entryPosition + 1);
+                        break;
+                    }
+                }
+
+                final long valuePosition = entryPosition + 4 + keyBytes.length;
+                entryPosition = valuePosition + 4 + segments.getInt(valuePosition);
+            }
+
+            segments.putInt(0, MAGIC);
+            segments.putInt(4, VERSION);
+            segments.putLong(8, sourceLength);
+            segments.putLong(16, sourceLastModified);
+            segments.putLong(24, hash(fingerprint.getBytes(StandardCharsets.UTF_8)));
+            segments.putLong(32, entryCount);
+            segments.putLong(40, slotCount);
+            segments.putLong(48, slotsOffset);
+            segments.force();
+            close();
+
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return open(indexFile, sourceLength, sourceLastModified, fingerprint, segmentSize);
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+
+        /**
+         * Closes and deletes the temporary file of an index that was not finished.
+         */
+        void abort() {
+            try {
+                close();
+                Files.deleteIfExists(tempFile);
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * A file mapped as consecutive segments, as a single mapping cannot exceed 2 GB.
+     */
+    private static final class MappedSegments {
+        private final MappedByteBuffer[] buffers;
+        private final int segmentSize;
+
+        private MappedSegments(final FileChannel channel, final FileChannel.MapMode mode, final long length, final int segmentSize) throws IOException {
+            this.segmentSize = segmentSize;
+            this.buffers = new MappedByteBuffer[(int) ((length + segmentSize - 1) / segmentSize)];
+            for (int i = 0; i < buffers.length; i++) {
+                final long position = (long) i * segmentSize;
+                buffers[i] = channel.map(mode, position, Math.min(segmentSize, length - position));
+            }
+        }
+
+        int getInt(final long position) {
+            final int offset = (int) (position % segmentSize);
+            if (offset + 4 <= segmentSize) {
+                return buffers[(int) (position / segmentSize)].getInt(offset);
+            }
+            final byte[] bytes = new byte[4];
+            get(position, bytes);
+            return (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | bytes[3] & 0xff;
+        }
+
+        long getLong(final long position) {
+            final int offset = (int) (position % segmentSize);
+            if (offset + 8 <= segmentSize) {
+                return buffers[(int) (position / segmentSize)].getLong(offset);
+            }
+            return (long) getInt(position) << 32 | getInt(position + 4) & 0xffffffffL;
+        }
+
+        void get(final long position, final byte[] destination) {
+            int copied = 0;
+            while (copied < destination.length) {
+                final long current = position + copied;
+                final int offset = (int) (current % segmentSize);
+                final int length = Math.min(destination.length - copied, segmentSize - offset);
+                // duplicate so that concurrent readers do not share a buffer position
+                final ByteBuffer buffer = buffers[(int) (current / segmentSize)].duplicate();
+                buffer.position(offset);
+                buffer.get(destination, copied, length);
+                copied += length;
+            }
+        }
+
+        void putInt(final long position, final int value) {
+            for (int i = 0; i < 4; i++) {
+                putByte(position + i, (byte) (value >>> (24 - 8 * i)));
+            }
+        }
+
+        void putLong(final long position, final long value) {
+            putInt(position, (int) (value >>> 32));
+            putInt(position + 4, (int) value);
+        }
+
+        private void putByte(final long position, final byte value) {
+            buffers[(int) (position / segmentSize)].put((int) (position % segmentSize), value);
+        }
+
+        void force() {
+            for (final MappedByteBuffer buffer : buffers) {
+                buffer.force();
+            }
+        }
+    }
+}
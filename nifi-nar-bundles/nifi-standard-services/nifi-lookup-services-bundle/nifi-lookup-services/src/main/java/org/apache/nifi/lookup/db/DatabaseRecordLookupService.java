@@ -31,18 +31,25 @@ import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.lookup.LookupFailureException;
 import org.apache.nifi.lookup.RecordLookupService;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.ResultSetRecordSet;
 import org.apache.nifi.util.Tuple;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +64,9 @@ import java.util.stream.Stream;
         + "will be returned for each lookup, duplicate database entries are ignored.")
 public class DatabaseRecordLookupService extends AbstractDatabaseLookupService implements RecordLookupService {
 
+    // keeps the IN lists of bulk lookups within the limits of all common databases
+    private static final int MAX_KEYS_PER_QUERY = 1000;
+
     private volatile Cache<Tuple<String, Object>, Record> cache;
 
     static final PropertyDescriptor LOOKUP_VALUE_COLUMNS = new PropertyDescriptor.Builder()
@@ -134,17 +144,7 @@ public class DatabaseRecordLookupService extends AbstractDatabaseLookupService i
         }
 
         final String tableName = getProperty(TABLE_NAME).evaluateAttributeExpressions(context).getValue();
-        final String lookupValueColumnsList = getProperty(LOOKUP_VALUE_COLUMNS).evaluateAttributeExpressions(context).getValue();
-
-        Set<String> lookupValueColumnsSet = new LinkedHashSet<>();
-        if (lookupValueColumnsList != null) {
-            Stream.of(lookupValueColumnsList)
-                    .flatMap(path -> Arrays.stream(path.split(",")))
-                    .filter(DatabaseRecordLookupService::isNotBlank)
-                    .map(String::trim)
-                    .forEach(lookupValueColumnsSet::add);
-        }
-
+        final Set<String> lookupValueColumnsSet = getLookupValueColumns(context);
         final String lookupValueColumns = lookupValueColumnsSet.isEmpty() ? "*" : String.join(",", lookupValueColumnsSet);
 
         Tuple<String, Object> cacheLookupKey = new Tuple<>(tableName, key);
@@ -179,6 +179,154 @@ public class DatabaseRecordLookupService extends AbstractDatabaseLookupService i
         return Optional.ofNullable(foundRecord);
     }
 
+    @Override
+    public Map<Map<String, Object>, Record> lookupAll(final Collection<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+        final Map<Map<String, Object>, Record> results = new HashMap<>();
+        final String tableName = getProperty(TABLE_NAME).evaluateAttributeExpressions(context).getValue();
+
+        // serve what we can from the cache, and group the remaining coordinates by the String form of their key,
+        // as that is how they are matched to the rows that are returned
+        final Map<String, Object> uncachedKeys = new LinkedHashMap<>();
+        final Map<String, List<Map<String, Object>>> uncachedCoordinates = new HashMap<>();
+        // the database may return a numeric key as a different type than it was looked up with, e.g. a BigDecimal for an Integer,
+        // so numeric keys are also matched by their value
+        final Map<BigDecimal, List<String>> uncachedNumericKeys = new HashMap<>();
+        for (final Map<String, Object> lookupCoordinates : coordinates) {
+            final Object key = lookupCoordinates == null ? null : lookupCoordinates.get(KEY);
+            if (key == null || StringUtils.isBlank(key.toString())) {
+                continue;
+            }
+
+            final Record cachedRecord = cache.getIfPresent(new Tuple<>(tableName, key));
+            if (cachedRecord != null) {
+                results.put(lookupCoordinates, cachedRecord);
+            } else {
+                if (uncachedKeys.putIfAbsent(key.toString(), key) == null) {
+                    final BigDecimal numericKey = toBigDecimal(key);
+                    if (numericKey != null) {
+                        uncachedNumericKeys.computeIfAbsent(numericKey, k -> new ArrayList<>()).add(key.toString());
+                    }
+                }
+                uncachedCoordinates.computeIfAbsent(key.toString(), k -> new ArrayList<>()).add(lookupCoordinates);
+            }
+        }
+
+        if (uncachedKeys.isEmpty()) {
+            return results;
+        }
+
+        // the key column is needed to tell which row belongs to which key, so select it even if it is not one of the value columns
+        final Set<String> lookupValueColumnsSet = getLookupValueColumns(context);
+        final boolean selectKeyColumn = !lookupValueColumnsSet.isEmpty() && lookupValueColumnsSet.stream().noneMatch(lookupKeyColumn::equalsIgnoreCase);
+        final String lookupValueColumns = lookupValueColumnsSet.isEmpty() ? "*"
+                : String.join(",", lookupValueColumnsSet) + (selectKeyColumn ? "," + lookupKeyColumn : "");
+
+        final Map<String, Record> foundRecords = new HashMap<>();
+        boolean keyColumnMissing = false;
+        final List<Object> keys = new ArrayList<>(uncachedKeys.values());
+        for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_QUERY) {
+            final List<Object> queryKeys = keys.subList(start, Math.min(start + MAX_KEYS_PER_QUERY, keys.size()));
+            final String selectQuery = "SELECT " + lookupValueColumns + " FROM " + tableName + " WHERE " + lookupKeyColumn
+                    + " IN (" + String.join(",", Collections.nCopies(queryKeys.size(), "?")) + ")";
+
+            try (final Connection con = dbcpService.getConnection(context);
+                 final PreparedStatement st = con.prepareStatement(selectQuery)) {
+
+                for (int i = 0; i < queryKeys.size(); i++) {
+                    st.setObject(i + 1, queryKeys.get(i));
+                }
+
+                try (final ResultSet resultSet = st.executeQuery()) {
+                    final ResultSetRecordSet resultSetRecordSet = new ResultSetRecordSet(resultSet, null);
+                    final Optional<RecordField> keyField = resultSetRecordSet.getSchema().getFields().stream()
+                            .filter(field -> field.getFieldName().equalsIgnoreCase(lookupKeyColumn))
+                            .findFirst();
+                    if (!keyField.isPresent()) {
+                        keyColumnMissing = true;
+                        continue;
+                    }
+
+                    Record foundRecord;
+                    while ((foundRecord = resultSetRecordSet.next()) != null) {
+                        final Object rowKey = foundRecord.getValue(keyField.get());
+                        final Record valueRecord = selectKeyColumn ? removeField(foundRecord, keyField.get()) : foundRecord;
+                        if (uncachedKeys.containsKey(String.valueOf(rowKey))) {
+                            foundRecords.putIfAbsent(String.valueOf(rowKey), valueRecord);
+                        }
+                        if (rowKey instanceof Number) {
+                            final BigDecimal numericRowKey = toBigDecimal(rowKey);
+                            final List<String> matchingKeys = numericRowKey == null ? null : uncachedNumericKeys.get(numericRowKey);
+                            if (matchingKeys != null) {
+                                matchingKeys.forEach(matchingKey -> foundRecords.putIfAbsent(matchingKey, valueRecord));
+                            }
+                        }
+                    }
+                }
+            } catch (SQLException se) {
+                throw new LookupFailureException("Error executing SQL statement: " + selectQuery + " for " + queryKeys.size() + " values"
+                        + " : " + (se.getCause() == null ? se.getMessage() : se.getCause().getMessage()), se);
+            } catch (IOException ioe) {
+                throw new LookupFailureException("Error retrieving result set for SQL statement: " + selectQuery + " for " + queryKeys.size() + " values"
+                        + " : " + (ioe.getCause() == null ? ioe.getMessage() : ioe.getCause().getMessage()), ioe);
+            }
+        }
+
+        for (final Map.Entry<String, Object> entry : uncachedKeys.entrySet()) {
+            final List<Map<String, Object>> keyCoordinates = uncachedCoordinates.get(entry.getKey());
+            Record foundRecord = foundRecords.get(entry.getKey());
+            if (foundRecord != null) {
+                cache.put(new Tuple<>(tableName, entry.getValue()), foundRecord);
+            } else if (keyColumnMissing) {
+                // the rows of some query could not be matched to their keys, so this key may have a row after all
+                foundRecord = lookup(keyCoordinates.get(0), context).orElse(null);
+            }
+
+            if (foundRecord != null) {
+                for (final Map<String, Object> lookupCoordinates : keyCoordinates) {
+                    results.put(lookupCoordinates, foundRecord);
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private static BigDecimal toBigDecimal(final Object key) {
+        if (!(key instanceof Number) && !(key instanceof String)) {
+            return null;
+        }
+
+        try {
+            final BigDecimal value = new BigDecimal(key.toString().trim());
+            // BigDecimals are only equal if their scale is, so 1.0 must become 1
+            return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+        } catch (final NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    private Set<String> getLookupValueColumns(final Map<String, String> context) {
+        final String lookupValueColumnsList = getProperty(LOOKUP_VALUE_COLUMNS).evaluateAttributeExpressions(context).getValue();
+
+        Set<String> lookupValueColumnsSet = new LinkedHashSet<>();
+        if (lookupValueColumnsList != null) {
+            Stream.of(lookupValueColumnsList)
+                    .flatMap(path -> Arrays.stream(path.split(",")))
+                    .filter(DatabaseRecordLookupService::isNotBlank)
+                    .map(String::trim)
+                    .forEach(lookupValueColumnsSet::add);
+        }
+        return lookupValueColumnsSet;
+    }
+
+    private static Record removeField(final Record record, final RecordField field) {
+        final List<RecordField> fields = new ArrayList<>(record.getSchema().getFields());
+        fields.remove(field);
+        final Map<String, Object> values = new HashMap<>(record.toMap());
+        values.remove(field.getFieldName());
+        return new MapRecord(new SimpleRecordSchema(fields), values);
+    }
+
     private static boolean isNotBlank(final String value) {
         return value != null && !value.trim().isEmpty();
     }
@@ -154,6 +154,104 @@ class TestDatabaseRecordLookupService {
         assertEquals(EMPTY_RECORD, property3)
     }
 
+    @Test
+    void testDatabaseLookupServiceLookupAll() throws InitializationException, IOException, LookupFailureException {
+        // remove previous test database, if any
+        final File dbLocation = new File(DB_LOCATION)
+        dbLocation.delete()
+
+        // load test data to database
+        final Connection con = ((DBCPService) runner.getControllerService("dbcp")).connection
+        final Statement stmt = con.createStatement()
+
+        try {
+            stmt.execute("drop table TEST")
+        } catch (final SQLException sqle) {
+        }
+
+        stmt.execute("create table TEST (id integer not null, val1 integer, val2 varchar(10), constraint my_pk primary key (id))")
+        stmt.execute("insert into TEST (id, val1, val2) VALUES (0, NULL, 'Hello')")
+        stmt.execute("insert into TEST (id, val1, val2) VALUES (1, 1, 'World')")
+
+        final DatabaseRecordLookupService service = new DatabaseRecordLookupService()
+
+        runner.addControllerService("db-lookup-service", service)
+        runner.setProperty(service, DatabaseRecordLookupService.DBCP_SERVICE, "dbcp")
+        runner.setProperty(service, DatabaseRecordLookupService.TABLE_NAME, "TEST")
+        runner.setProperty(service, DatabaseRecordLookupService.LOOKUP_KEY_COLUMN, "id")
+        runner.setProperty(service, DatabaseRecordLookupService.LOOKUP_VALUE_COLUMNS, "val2")
+        runner.setProperty(service, DatabaseRecordLookupService.CACHE_SIZE, "10")
+        runner.enableControllerService(service)
+        runner.assertValid(service)
+
+        def lookupService = (DatabaseRecordLookupService) runner.processContext.controllerServiceLookup.getControllerService("db-lookup-service")
+
+        final Map<String, Object> coordinates0 = Collections.singletonMap("key", "0")
+        final Map<String, Object> coordinates1 = Collections.singletonMap("key", "1")
+        final Map<String, Object> coordinates2 = Collections.singletonMap("key", "2")
+        final Map<Map<String, Object>, Record> results = lookupService.lookupAll([coordinates0, coordinates1, coordinates2], Collections.emptyMap())
+
+        assertEquals(2, results.size())
+        assertEquals("Hello", results.get(coordinates0).getAsString("VAL2"))
+        assertEquals("World", results.get(coordinates1).getAsString("VAL2"))
+        // the key column is only selected to match rows to keys, so it is not part of the result
+        assertEquals(["VAL2"], results.get(coordinates1).schema.fieldNames)
+
+        // Results are cached, so a later single lookup sees the same record
+        stmt.execute("delete from TEST")
+        assertEquals("World", lookupService.lookup(coordinates1).get().getAsString("VAL2"))
+    }
+
+    @Test
+    void testDatabaseLookupServiceLookupAllMatchesNumericKeysByValue() throws InitializationException, IOException, LookupFailureException {
+        // remove previous test database, if any
+        final File dbLocation = new File(DB_LOCATION)
+        dbLocation.delete()
+
+        // load test data to database
+        final Connection con = ((DBCPService) runner.getControllerService("dbcp")).connection
+        final Statement stmt = con.createStatement()
+
+        try {
+            stmt.execute("drop table TEST")
+        } catch (final SQLException sqle) {
+        }
+
+        stmt.execute("create table TEST (id decimal(10, 2) not null, val2 varchar(10), constraint my_pk primary key (id))")
+        stmt.execute("insert into TEST (id, val2) VALUES (1, 'Hello')")
+        stmt.execute("insert into TEST (id, val2) VALUES (2.5, 'World')")
+
+        int singleLookups = 0
+        final DatabaseRecordLookupService service = new DatabaseRecordLookupService() {
+            @Override
+            Optional<Record> lookup(Map<String, Object> coordinates, Map<String, String> context) throws LookupFailureException {
+                singleLookups++
+                return super.lookup(coordinates, context)
+            }
+        }
+
+        runner.addControllerService("db-lookup-service", service)
+        runner.setProperty(service, DatabaseRecordLookupService.DBCP_SERVICE, "dbcp")
+        runner.setProperty(service, DatabaseRecordLookupService.TABLE_NAME, "TEST")
+        runner.setProperty(service, DatabaseRecordLookupService.LOOKUP_KEY_COLUMN, "id")
+        runner.setProperty(service, DatabaseRecordLookupService.LOOKUP_VALUE_COLUMNS, "val2")
+        runner.enableControllerService(service)
+        runner.assertValid(service)
+
+        // the database returns the keys as BigDecimals with a scale of 2
+        final Map<String, Object> coordinates1 = Collections.singletonMap("key", 1)
+        final Map<String, Object> coordinates2 = Collections.singletonMap("key", "2.50")
+        final Map<String, Object> coordinates3 = Collections.singletonMap("key", 3L)
+        final Map<String, Object> coordinates4 = Collections.singletonMap("key", "4")
+        final Map<Map<String, Object>, Record> results = service.lookupAll([coordinates1, coordinates2, coordinates3, coordinates4], Collections.emptyMap())
+
+        assertEquals(2, results.size())
+        assertEquals("Hello", results.get(coordinates1).getAsString("VAL2"))
+        assertEquals("World", results.get(coordinates2).getAsString("VAL2"))
+        // keys without a row are misses, rather than being looked up again one at a time
+        assertEquals(0, singleLookups)
+    }
+
     @Test
     void exerciseCacheLogic() {
         // remove previous test database, if any
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.lookup;
+
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.reporting.InitializationException;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestCachingLookupService {
+
+    private TestRunner runner;
+    private CountingLookupService countingService;
+    private CachingLookupService cachingService;
+
+    @Before
+    public void setup() throws InitializationException {
+        countingService = new CountingLookupService();
+        cachingService = new CachingLookupService();
+
+        runner = TestRunners.newTestRunner(TestProcessor.class);
+        runner.addControllerService("counting", countingService);
+        runner.enableControllerService(countingService);
+        runner.addControllerService("caching", cachingService);
+        runner.setProperty(cachingService, CachingLookupService.LOOKUP_SERVICE, "counting");
+    }
+
+    @Test
+    public void testValuesAreCached() throws LookupFailureException {
+        runner.enableControllerService(cachingService);
+
+        assertEquals(Optional.of("value-a"), cachingService.lookup(Collections.singletonMap("key", "a")));
+        assertEquals(Optional.of("value-a"), cachingService.lookup(Collections.singletonMap("key", "a")));
+        assertEquals(Optional.of("value-b"), cachingService.lookup(Collections.singletonMap("key", "b")));
+        assertEquals(2, countingService.lookupCount);
+
+        assertEquals(Collections.singleton("key"), cachingService.getRequiredKeys());
+        assertEquals(String.class, cachingService.getValueType());
+    }
+
+    @Test
+    public void testMissingValuesAreNotCachedByDefault() throws LookupFailureException {
+        runner.enableControllerService(cachingService);
+
+        assertFalse(cachingService.lookup(Collections.singletonMap("key", "missing")).isPresent());
+        assertFalse(cachingService.lookup(Collections.singletonMap("key", "missing")).isPresent());
+        assertEquals(2, countingService.lookupCount);
+    }
+
+    @Test
+    public void testMissingValuesAreCached() throws LookupFailureException {
+        runner.setProperty(cachingService, CachingLookupService.CACHE_MISSING_VALUES, "true");
+        runner.enableControllerService(cachingService);
+
+        assertFalse(cachingService.lookup(Collections.singletonMap("key", "missing")).isPresent());
+        assertFalse(cachingService.lookup(Collections.singletonMap("key", "missing")).isPresent());
+        assertEquals(1, countingService.lookupCount);
+    }
+
+    @Test
+    public void testLookupAllLoadsOnlyUncachedCoordinates() throws LookupFailureException {
+        runner.enableControllerService(cachingService);
+
+        final Map<String, Object> a = Collections.singletonMap("key", "a");
+        final Map<String, Object> b = Collections.singletonMap("key", "b");
+        final Map<String, Object> missing = Collections.singletonMap("key", "missing");
+        cachingService.lookup(a);
+
+        final Map<Map<String, Object>, Object> results = cachingService.lookupAll(Arrays.asList(a, b, missing), new HashMap<>());
+        assertEquals(2, results.size());
+        assertEquals("value-a", results.get(a));
+        assertEquals("value-b", results.get(b));
+        assertEquals(1, countingService.lookupAllCount);
+        assertEquals(new HashSet<>(Arrays.asList(b, missing)), new HashSet<>(countingService.lastLookupAll));
+    }
+
+    @Test
+    public void testOnlyContextAttributesArePartOfTheKey() throws LookupFailureException {
+        runner.setProperty(cachingService, CachingLookupService.CONTEXT_ATTRIBUTES, "region");
+        runner.enableControllerService(cachingService);
+
+        final Map<String, Object> coordinates = Collections.singletonMap("key", "a");
+        cachingService.lookup(coordinates, context("uuid-1", "east"));
+        cachingService.lookup(coordinates, context("uuid-2", "east"));
+        assertEquals(1, countingService.lookupCount);
+        assertEquals(Collections.singletonMap("region", "east"), countingService.lastContext);
+
+        cachingService.lookup(coordinates, context("uuid-3", "west"));
+        assertEquals(2, countingService.lookupCount);
+    }
+
+    private static Map<String, String> context(final String uuid, final String region) {
+        final Map<String, String> context = new HashMap<>();
+        context.put("uuid", uuid);
+        context.put("region", region);
+        return context;
+    }
+
+    @Test
+    public void testRefreshIntervalMustBeShorterThanExpiration() {
+        runner.setProperty(cachingService, CachingLookupService.CACHE_EXPIRATION, "1 min");
+        runner.setProperty(cachingService, CachingLookupService.REFRESH_INTERVAL, "1 min");
+        runner.assertNotValid(cachingService);
+
+        runner.setProperty(cachingService, CachingLookupService.REFRESH_INTERVAL, "30 secs");
+        runner.assertValid(cachingService);
+    }
+
+    @Test
+    public void testEstimateSize() {
+        assertEquals(40 + 2 * 5, CachingLookupService.estimateSize("value"));
+        assertEquals(48 + 32 + 46 + 50, CachingLookupService.estimateSize(Collections.singletonMap("key", "value")));
+    }
+
+    private static class CountingLookupService extends AbstractControllerService implements StringLookupService {
+        private int lookupCount;
+        private int lookupAllCount;
+        private Collection<Map<String, Object>> lastLookupAll;
+        private Map<String, String> lastContext;
+
+        @Override
+        public Optional<String> lookup(final Map<String, Object> coordinates, final Map<String, String> context) {
+            lastContext = context;
+            return lookup(coordinates);
+        }
+
+        @Override
+        public Optional<String> lookup(final Map<String, Object> coordinates) {
+            lookupCount++;
+            final String key = (String) coordinates.get("key");
+            return "missing".equals(key) ? Optional.empty() : Optional.of("value-" + key);
+        }
+
+        @Override
+        public Map<Map<String, Object>, String> lookupAll(final Collection<Map<String, Object>> coordinates, final Map<String, String> context) throws LookupFailureException {
+            lookupAllCount++;
+            lastLookupAll = coordinates;
+            return StringLookupService.super.lookupAll(coordinates, context);
+        }
+
+        @Override
+        public Set<String> getRequiredKeys() {
+            return Collections.singleton("key");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.lookup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.apache.nifi.reporting.InitializationException;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class TestIndexedCsvFileLookupService {
+
+    final static Optional<String> EMPTY_STRING = Optional.empty();
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testIndexedCsvFileLookupService() throws InitializationException, IOException, LookupFailureException {
+        final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
+        final IndexedCsvFileLookupService service = new IndexedCsvFileLookupService();
+
+        runner.addControllerService("csv-file-lookup-service", service);
+        runner.setProperty(service, IndexedCsvFileLookupService.CSV_FILE, "src/test/resources/test.csv");
+        runner.setProperty(service, IndexedCsvFileLookupService.CSV_FORMAT, "RFC4180");
+        runner.setProperty(service, IndexedCsvFileLookupService.LOOKUP_KEY_COLUMN, "key");
+        runner.setProperty(service, IndexedCsvFileLookupService.LOOKUP_VALUE_COLUMN, "value");
+        runner.setProperty(service, IndexedCsvFileLookupService.INDEX_DIRECTORY, tempFolder.getRoot().getAbsolutePath());
+        runner.enableControllerService(service);
+        runner.assertValid(service);
+
+        assertThat(service, instanceOf(LookupService.class));
+
+        final Optional<String> property1 = service.lookup(Collections.singletonMap("key", "property.1"));
+        assertEquals(Optional.of("this is property 1"), property1);
+
+        final Optional<String> property2 = service.lookup(Collections.singletonMap("key", "property.2"));
+        assertEquals(Optional.of("this is property 2"), property2);
+
+        final Optional<String> property3 = service.lookup(Collections.singletonMap("key", "property.3"));
+        assertEquals(EMPTY_STRING, property3);
+
+        final File[] indexFiles = tempFolder.getRoot().listFiles();
+        assertEquals(1, indexFiles.length);
+        assertTrue(indexFiles[0].getName().startsWith("test.csv."));
+    }
+
+    @Test
+    public void testIndexedCsvFileLookupServiceWithCharset() throws InitializationException, IOException, LookupFailureException {
+        final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
+        final IndexedCsvFileLookupService service = new IndexedCsvFileLookupService();
+
+        runner.addControllerService("csv-file-lookup-service", service);
+        runner.setProperty(service, IndexedCsvFileLookupService.CSV_FILE, "src/test/resources/test_Windows-31J.csv");
+        runner.setProperty(service, IndexedCsvFileLookupService.CSV_FORMAT, "RFC4180");
+        runner.setProperty(service, IndexedCsvFileLookupService.CHARSET, "Windows-31J");
+        runner.setProperty(service, IndexedCsvFileLookupService.LOOKUP_KEY_COLUMN, "key");
+        runner.setProperty(service, IndexedCsvFileLookupService.LOOKUP_VALUE_COLUMN, "value");
+        runner.setProperty(service, IndexedCsvFileLookupService.INDEX_DIRECTORY, tempFolder.getRoot().getAbsolutePath());
+        runner.enableControllerService(service);
+        runner.assertValid(service);
+
+        final Optional<String> property1 = service.lookup(Collections.singletonMap("key", "property.1"));
+        assertThat(property1.isPresent(), is(true));
+        assertThat(property1.get(), is("this is property \uff11"));
+    }
+
+    @Test
+    public void testDuplicateKeys() throws IOException {
+        final File csvFile = tempFolder.newFile("duplicates.csv");
+        Files.write(csvFile.toPath(), Arrays.asList("key,value", "a,1", "b,2", "a,3"), StandardCharsets.UTF_8);
+        final File indexDirectory = tempFolder.newFolder("index");
+
+        final TestRunner runner = TestRunners.newTestRunner(TestProcessor.class);
+        final IndexedCsvFileLookupService service = new IndexedCsvFileLookupService();
+        try {
+            runner.addControllerService("csv-file-lookup-service", service);
+            runner.setProperty(service, IndexedCsvFileLookupService.CSV_FILE, csvFile.getAbsolutePath());
+            runner.setProperty(service, IndexedCsvFileLookupService.LOOKUP_KEY_COLUMN, "key");
+            runner.setProperty(service, IndexedCsvFileLookupService.LOOKUP_VALUE_COLUMN, "value");
+            runner.setProperty(service, IndexedCsvFileLookupService.IGNORE_DUPLICATES, "false");
+            runner.setProperty(service, IndexedCsvFileLookupService.INDEX_DIRECTORY, indexDirectory.getAbsolutePath());
+            runner.enableControllerService(service);
+        } catch (final AssertionError | InitializationException expected) {
+            // the index must not be left behind half-built
+            assertEquals(0, indexDirectory.listFiles().length);
+            return;
+        }
+        throw new AssertionError("Duplicate keys should fail to enable the service");
+    }
+}
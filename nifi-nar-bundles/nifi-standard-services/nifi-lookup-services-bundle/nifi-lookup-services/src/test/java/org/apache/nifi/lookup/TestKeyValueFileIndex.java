@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.lookup;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TestKeyValueFileIndex {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testLookupAcrossSegments() throws IOException {
+        final Path indexFile = tempFolder.getRoot().toPath().resolve("test.index");
+
+        // small segments so that entries and slots span segment boundaries
+        final KeyValueFileIndex.Writer writer = KeyValueFileIndex.create(indexFile, 100);
+        for (int i = 0; i < 10000; i++) {
+            writer.add("key-" + i, "value-" + i);
+        }
+
+        try (final KeyValueFileIndex index = writer.finish(1L, 2L, "test", key -> { })) {
+            assertEquals(10000, index.size());
+            for (int i = 0; i < 10000; i++) {
+                assertEquals("value-" + i, index.get("key-" + i));
+            }
+            assertNull(index.get("key-10000"));
+            assertNull(index.get(""));
+        }
+    }
+
+    @Test
+    public void testDuplicateKeysKeepLastValue() throws IOException {
+        final Path indexFile = tempFolder.getRoot().toPath().resolve("test.index");
+
+        final KeyValueFileIndex.Writer writer = KeyValueFileIndex.create(indexFile, KeyValueFileIndex.DEFAULT_SEGMENT_SIZE);
+        writer.add("a", "1");
+        writer.add("b", "2");
+        writer.add("a", "\u00e9t\u00e9");
+
+        final List<String> duplicates = new ArrayList<>();
+        try (final KeyValueFileIndex index = writer.finish(1L, 2L, "test", duplicates::add)) {
+            assertEquals("\u00e9t\u00e9", index.get("a"));
+            assertEquals("2", index.get("b"));
+        }
+        assertEquals(1, duplicates.size());
+        assertEquals("a", duplicates.get(0));
+    }
+
+    @Test
+    public void testOpenOnlyMatchingIndex() throws IOException {
+        final Path indexFile = tempFolder.getRoot().toPath().resolve("test.index");
+        assertNull(KeyValueFileIndex.open(indexFile, 1L, 2L, "test", KeyValueFileIndex.DEFAULT_SEGMENT_SIZE));
+
+        final KeyValueFileIndex.Writer writer = KeyValueFileIndex.create(indexFile, KeyValueFileIndex.DEFAULT_SEGMENT_SIZE);
+        writer.add("a", "1");
+        writer.finish(1L, 2L, "test", key -> { }).close();
+
+        try (final KeyValueFileIndex index = KeyValueFileIndex.open(indexFile, 1L, 2L, "test", KeyValueFileIndex.DEFAULT_SEGMENT_SIZE)) {
+            assertNotNull(index);
+            assertEquals("1", index.get("a"));
+        }
+        assertNull(KeyValueFileIndex.open(indexFile, 3L, 2L, "test", KeyValueFileIndex.DEFAULT_SEGMENT_SIZE));
+        assertNull(KeyValueFileIndex.open(indexFile, 1L, 3L, "test", KeyValueFileIndex.DEFAULT_SEGMENT_SIZE));
+        assertNull(KeyValueFileIndex.open(indexFile, 1L, 2L, "other", KeyValueFileIndex.DEFAULT_SEGMENT_SIZE));
+    }
+}
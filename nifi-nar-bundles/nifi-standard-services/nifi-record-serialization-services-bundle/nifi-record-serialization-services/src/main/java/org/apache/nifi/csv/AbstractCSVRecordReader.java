@@ -53,7 +53,8 @@ abstract public class AbstractCSVRecordReader implements RecordReader {
             LAZY_DATE_FORMAT = null;
         } else {
             this.dateFormat = dateFormat;
-            LAZY_DATE_FORMAT = () -> DataTypeUtils.getDateFormat(dateFormat);
+            final DateFormat df = DataTypeUtils.getDateFormat(dateFormat);
+            LAZY_DATE_FORMAT = () -> df;
         }
 
         if (timeFormat == null || timeFormat.isEmpty()) {
@@ -61,7 +62,8 @@ abstract public class AbstractCSVRecordReader implements RecordReader {
             LAZY_TIME_FORMAT = null;
         } else {
             this.timeFormat = timeFormat;
-            LAZY_TIME_FORMAT = () -> DataTypeUtils.getDateFormat(timeFormat);
+            final DateFormat tf = DataTypeUtils.getDateFormat(timeFormat);
+            LAZY_TIME_FORMAT = () -> tf;
         }
 
         if (timestampFormat == null || timestampFormat.isEmpty()) {
@@ -69,7 +71,8 @@ abstract public class AbstractCSVRecordReader implements RecordReader {
             LAZY_TIMESTAMP_FORMAT = null;
         } else {
             this.timestampFormat = timestampFormat;
-            LAZY_TIMESTAMP_FORMAT = () -> DataTypeUtils.getDateFormat(timestampFormat);
+            final DateFormat tsf = DataTypeUtils.getDateFormat(timestampFormat);
+            LAZY_TIMESTAMP_FORMAT = () -> tsf;
         }
     }
 
@@ -67,6 +67,11 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
     public static final AllowableValue JACKSON_CSV = new AllowableValue("jackson-csv", "Jackson CSV",
             "The CSV parser implementation from the Jackson Dataformats library.");
 
+    public static final AllowableValue FAST_CSV = new AllowableValue("fast-csv", "Fast CSV",
+            "A parser that scans the raw bytes of the content in large blocks and only decodes the fields that are needed. It offers the best "
+                    + "throughput for large inputs but requires an ASCII-compatible Character Set (such as UTF-8) and single-byte ASCII Value Separator, "
+                    + "Quote, Escape and Comment characters.");
+
 
     public static final PropertyDescriptor CSV_PARSER = new PropertyDescriptor.Builder()
             .name("csv-reader-csv-parser")
@@ -74,7 +79,7 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
             .description("Specifies which parser to use to read CSV records. NOTE: Different parsers may support different subsets of functionality "
                     + "and may also exhibit different levels of performance.")
             .expressionLanguageSupported(ExpressionLanguageScope.NONE)
-            .allowableValues(APACHE_COMMONS_CSV, JACKSON_CSV)
+            .allowableValues(APACHE_COMMONS_CSV, JACKSON_CSV, FAST_CSV)
             .defaultValue(APACHE_COMMONS_CSV.getValue())
             .required(true)
             .build();
@@ -156,6 +161,8 @@ public class CSVReader extends SchemaRegistryService implements RecordReaderFact
             return new CSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
         } else if(JACKSON_CSV.getValue().equals(csvParser)) {
             return new JacksonCSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
+        } else if(FAST_CSV.getValue().equals(csvParser)) {
+            return new FastCSVRecordReader(in, logger, schema, csvFormat, firstLineIsHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, charSet);
         } else {
             throw new IOException("Parser not supported");
         }
@@ -0,0 +1,566 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.io.input.BOMInputStream;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A CSV Record Reader that scans the raw bytes of the input in large blocks rather than decoding the stream into characters first.
+ * Each row is split into field boundaries by a single pass over the buffer, and a field is only decoded into a String when its value
+ * is actually needed. Integral fields are converted directly from the bytes, without creating an intermediate String.
+ *
+ * This reader supports any charset in which the delimiter, quote, escape and comment characters and the line separators are encoded
+ * as single ASCII bytes that never occur within multi-byte sequences, such as UTF-8, US-ASCII and the ISO-8859 family.
+ */
+public class FastCSVRecordReader extends AbstractCSVRecordReader {
+    static final int DEFAULT_BUFFER_SIZE = 128 * 1024;
+
+    // Marker used for characters that are not configured. It can never be equal to a (signed) byte value.
+    private static final int NONE = 0x100;
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private static final byte FLAG_QUOTED = 1;
+    private static final byte FLAG_ESCAPED = 2;
+
+    private static final int NO_ROW = 0;
+    private static final int ROW_COMPLETE = 1;
+    private static final int ROW_INCOMPLETE = 2;
+
+    private final InputStream in;
+    private final Charset charset;
+    private final byte delimiter;
+    private final int quote;
+    private final int escape;
+    private final int commentMarker;
+    private final boolean ignoreEmptyLines;
+    private final boolean trim;
+    private final byte[] nullStringBytes;
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfStream = false;
+
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private byte[] fieldFlags = new byte[16];
+    private byte[] unescapeBuffer = new byte[256];
+
+    private final List<RecordField> recordFields;
+    private final boolean[] inSchema;
+
+    public FastCSVRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat csvFormat, final boolean hasHeader, final boolean ignoreHeader,
+                               final String dateFormat, final String timeFormat, final String timestampFormat, final String encoding) throws IOException {
+        this(in, logger, schema, csvFormat, hasHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat, encoding, DEFAULT_BUFFER_SIZE);
+    }
+
+    FastCSVRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat csvFormat, final boolean hasHeader, final boolean ignoreHeader,
+                        final String dateFormat, final String timeFormat, final String timestampFormat, final String encoding, final int bufferSize) throws IOException {
+        super(logger, schema, hasHeader, ignoreHeader, dateFormat, timeFormat, timestampFormat);
+
+        this.charset = Charset.forName(encoding);
+        if (!isAsciiCompatible(charset)) {
+            throw new IOException("The Fast CSV parser does not support the " + encoding + " character set. Use a different CSV Parser for this data.");
+        }
+
+        this.in = new BOMInputStream(in);
+        this.delimiter = toAsciiByte(csvFormat.getDelimiter(), "Value Separator");
+        this.quote = csvFormat.getQuoteCharacter() == null ? NONE : toAsciiByte(csvFormat.getQuoteCharacter(), "Quote Character");
+        this.escape = csvFormat.getEscapeCharacter() == null ? NONE : toAsciiByte(csvFormat.getEscapeCharacter(), "Escape Character");
+        this.commentMarker = csvFormat.getCommentMarker() == null ? NONE : toAsciiByte(csvFormat.getCommentMarker(), "Comment Marker");
+        this.ignoreEmptyLines = csvFormat.getIgnoreEmptyLines();
+        this.trim = csvFormat.getTrim();
+        this.nullStringBytes = csvFormat.getNullString() == null ? null : csvFormat.getNullString().getBytes(charset);
+        this.buffer = new byte[Math.max(bufferSize, 16)];
+
+        if (hasHeader && !ignoreHeader) {
+            if (readRow()) {
+                this.recordFields = createRecordFields();
+            } else {
+                this.recordFields = schema.getFields();
+            }
+        } else {
+            if (hasHeader) {
+                // Skip over the header line, using the schema's field names instead
+                readRow();
+            }
+
+            this.recordFields = schema.getFields();
+        }
+
+        this.inSchema = new boolean[recordFields.size()];
+        for (int i = 0; i < inSchema.length; i++) {
+            inSchema[i] = schema.getField(recordFields.get(i).getFieldName()).isPresent();
+        }
+    }
+
+    private static boolean isAsciiCompatible(final Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.name().startsWith("ISO-8859-")
+            || charset.name().startsWith("windows-125");
+    }
+
+    private static byte toAsciiByte(final char c, final String propertyName) throws IOException {
+        if (c > 0x7F) {
+            throw new IOException("The Fast CSV parser only supports ASCII characters for the " + propertyName + " but was configured with '" + c + "'");
+        }
+
+        return (byte) c;
+    }
+
+    private List<RecordField> createRecordFields() {
+        final List<RecordField> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            final String rawFieldName = decode(i);
+            final Optional<RecordField> option = schema.getField(rawFieldName);
+            if (option.isPresent()) {
+                fields.add(option.get());
+            } else {
+                fields.add(new RecordField(rawFieldName, RecordFieldType.STRING.getDataType()));
+            }
+        }
+
+        return fields;
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        if (!readRow()) {
+            return null;
+        }
+
+        final List<RecordField> recordFields = this.recordFields;
+        final int numFieldNames = recordFields.size();
+        final Map<String, Object> values = new LinkedHashMap<>(numFieldNames * 2);
+
+        for (int i = 0; i < fieldCount; i++) {
+            if (i >= numFieldNames) {
+                if (!dropUnknownFields) {
+                    values.put("unknown_field_index_" + i, decode(i));
+                }
+
+                continue;
+            }
+
+            final RecordField recordField = recordFields.get(i);
+            final String rawFieldName = recordField.getFieldName();
+            final DataType dataType = recordField.getDataType();
+
+            // Fields that are not part of the schema would be dropped by the Record anyway, so avoid decoding them at all.
+            if (dropUnknownFields && !inSchema[i]) {
+                continue;
+            }
+
+            final Object integralValue = convertIntegral(i, dataType);
+            if (integralValue != null) {
+                values.put(rawFieldName, integralValue);
+                continue;
+            }
+
+            final String rawValue = decode(i);
+            final Object value;
+            if (coerceTypes) {
+                value = convert(rawValue, dataType, rawFieldName);
+            } else {
+                // The CSV Reader is going to return all fields as Strings, because CSV doesn't have any way to
+                // dictate a field type. As a result, we will use the schema that we have to attempt to convert
+                // the value into the desired type if it's a simple type.
+                value = convertSimpleIfPossible(rawValue, dataType, rawFieldName);
+            }
+
+            values.put(rawFieldName, value);
+        }
+
+        return new MapRecord(schema, values, coerceTypes, dropUnknownFields);
+    }
+
+    /**
+     * Attempts to convert the given field into an Integer or a Long directly from the buffered bytes.
+     *
+     * @return the converted value, or <code>null</code> if the field is not integral, is the Null String, or cannot be converted without decoding it first
+     */
+    private Object convertIntegral(final int fieldIndex, final DataType dataType) {
+        if (dataType == null || fieldFlags[fieldIndex] != 0) {
+            return null;
+        }
+
+        final RecordFieldType fieldType = dataType.getFieldType();
+        if (fieldType != RecordFieldType.INT && fieldType != RecordFieldType.LONG) {
+            return null;
+        }
+
+        int start = fieldStarts[fieldIndex];
+        final int end = fieldEnds[fieldIndex];
+        if (start >= end || end - start > 19) {
+            return null;
+        }
+
+        // the Null String may itself be numeric, so it has to be recognized before the field is parsed as a number
+        final byte[] buf = buffer;
+        if (isNullString(buf, start, end)) {
+            return null;
+        }
+
+        boolean negative = false;
+        if (buf[start] == '-' || buf[start] == '+') {
+            negative = buf[start] == '-';
+            start++;
+            if (start == end) {
+                return null;
+            }
+        }
+
+        // At most 18 digits (plus an optional sign) are accepted, so the value can never overflow a long.
+        if (end - start > 18) {
+            return null;
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        if (negative) {
+            value = -value;
+        }
+
+        if (fieldType == RecordFieldType.LONG) {
+            return value;
+        }
+
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Decodes the value of the field with the given index in the current row into a String, removing any quoting and escaping.
+     */
+    private String decode(final int fieldIndex) {
+        int start = fieldStarts[fieldIndex];
+        int end = fieldEnds[fieldIndex];
+        final byte flags = fieldFlags[fieldIndex];
+
+        final byte[] source;
+        if ((flags & FLAG_ESCAPED) == 0) {
+            source = buffer;
+        } else {
+            source = unescapeBuffer;
+            end = unescape(start, end, (flags & FLAG_QUOTED) != 0);
+            start = 0;
+        }
+
+        if (trim) {
+            while (start < end && (source[start] & 0xFF) <= ' ') {
+                start++;
+            }
+            while (end > start && (source[end - 1] & 0xFF) <= ' ') {
+                end--;
+            }
+        }
+
+        if ((flags & FLAG_QUOTED) == 0 && isNullString(source, start, end)) {
+            return null;
+        }
+
+        return new String(source, start, end - start, charset);
+    }
+
+    /**
+     * Determines whether the given range of bytes is the configured Null String.
+     */
+    private boolean isNullString(final byte[] source, final int start, final int end) {
+        if (nullStringBytes == null || end - start != nullStringBytes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < nullStringBytes.length; i++) {
+            if (source[start + i] != nullStringBytes[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Copies the given range of the buffer into the unescape buffer, resolving escape sequences and doubled quotes.
+     *
+     * @return the number of bytes written to the unescape buffer
+     */
+    private int unescape(final int start, final int end, final boolean quoted) {
+        if (unescapeBuffer.length < end - start) {
+            unescapeBuffer = new byte[Math.max(end - start, unescapeBuffer.length * 2)];
+        }
+
+        final byte[] buf = buffer;
+        final byte[] target = unescapeBuffer;
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            final byte b = buf[i];
+            if (b == escape && i + 1 < end) {
+                target[length++] = translateEscaped(buf[++i]);
+            } else if (quoted && b == quote && i + 1 < end && buf[i + 1] == quote) {
+                target[length++] = b;
+                i++;
+            } else {
+                target[length++] = b;
+            }
+        }
+
+        return length;
+    }
+
+    private static byte translateEscaped(final byte b) {
+        switch (b) {
+            case 'r':
+                return CR;
+            case 'n':
+                return LF;
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            default:
+                return b;
+        }
+    }
+
+    /**
+     * Locates the boundaries of all fields in the next row, refilling the buffer as necessary so that the entire row is
+     * available in the buffer.
+     *
+     * @return <code>true</code> if a row was read, <code>false</code> if the end of the stream has been reached
+     */
+    private boolean readRow() throws IOException {
+        while (true) {
+            final int result = scanRow();
+            if (result == ROW_COMPLETE) {
+                return true;
+            }
+            if (result == NO_ROW) {
+                return false;
+            }
+
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        } else if (limit == buffer.length) {
+            // A single row does not fit into the buffer
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        final int bytesRead = in.read(buffer, limit, buffer.length - limit);
+        if (bytesRead < 0) {
+            endOfStream = true;
+        } else {
+            limit += bytesRead;
+        }
+    }
+
+    private int scanRow() throws IOException {
+        final byte[] buf = buffer;
+        final int lim = limit;
+        final boolean eof = endOfStream;
+        final byte delim = delimiter;
+        int pos = position;
+
+        // Skip over any empty lines and comments
+        while (true) {
+            if (pos >= lim) {
+                position = pos;
+                return eof ? NO_ROW : ROW_INCOMPLETE;
+            }
+
+            final byte first = buf[pos];
+            if (ignoreEmptyLines && (first == LF || first == CR)) {
+                pos++;
+            } else if (first == commentMarker) {
+                final int commentStart = pos;
+                while (pos < lim && buf[pos] != LF && buf[pos] != CR) {
+                    pos++;
+                }
+                if (pos >= lim && !eof) {
+                    position = commentStart;
+                    return ROW_INCOMPLETE;
+                }
+            } else {
+                break;
+            }
+        }
+
+        position = pos;
+        fieldCount = 0;
+
+        while (true) {
+            byte flags = 0;
+            final int fieldStart;
+            final int fieldEnd;
+
+            if (trim) {
+                // Leading whitespace is insignificant when trimming, which also allows a quoted value to follow it
+                while (pos < lim && buf[pos] != delim && (buf[pos] == ' ' || buf[pos] == '\t')) {
+                    pos++;
+                }
+            }
+
+            if (pos < lim && buf[pos] == quote) {
+                flags = FLAG_QUOTED;
+                fieldStart = ++pos;
+
+                while (true) {
+                    if (pos >= lim) {
+                        if (eof) {
+                            throw new IOException("Reached end of stream before the closing quote of the field that begins at byte " + (fieldStart - 1) + " of the row");
+                        }
+                        return ROW_INCOMPLETE;
+                    }
+
+                    final byte b = buf[pos];
+                    if (b == quote) {
+                        if (pos + 1 >= lim && !eof) {
+                            return ROW_INCOMPLETE;
+                        }
+                        if (pos + 1 < lim && buf[pos + 1] == quote) {
+                            // A doubled quote within a quoted field represents a literal quote
+                            flags |= FLAG_ESCAPED;
+                            pos += 2;
+                            continue;
+                        }
+                        break;
+                    } else if (b == escape) {
+                        flags |= FLAG_ESCAPED;
+                        pos += 2;
+                    } else {
+                        pos++;
+                    }
+                }
+
+                fieldEnd = pos++;
+
+                // Anything between the closing quote and the next delimiter (typically whitespace) is ignored
+                while (pos < lim && buf[pos] != delim && buf[pos] != LF && buf[pos] != CR) {
+                    pos++;
+                }
+            } else {
+                fieldStart = pos;
+                while (pos < lim) {
+                    final byte b = buf[pos];
+                    if (b == delim || b == LF || b == CR) {
+                        break;
+                    }
+                    if (b == escape) {
+                        flags = FLAG_ESCAPED;
+                        pos++;
+                    }
+                    pos++;
+                }
+
+                if (pos > lim) {
+                    pos = lim;
+                }
+                fieldEnd = pos;
+            }
+
+            if (pos >= lim && !eof) {
+                return ROW_INCOMPLETE;
+            }
+
+            addField(fieldStart, fieldEnd, flags);
+
+            if (pos >= lim) {
+                position = lim;
+                return ROW_COMPLETE;
+            }
+
+            final byte b = buf[pos];
+            if (b == delim) {
+                pos++;
+                continue;
+            }
+
+            if (b == CR) {
+                if (pos + 1 >= lim && !eof) {
+                    return ROW_INCOMPLETE;
+                }
+                if (pos + 1 < lim && buf[pos + 1] == LF) {
+                    pos++;
+                }
+            }
+
+            position = pos + 1;
+            return ROW_COMPLETE;
+        }
+    }
+
+    private void addField(final int start, final int end, final byte flags) {
+        if (fieldCount == fieldStarts.length) {
+            final int newLength = fieldCount * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, newLength);
+            fieldEnds = Arrays.copyOf(fieldEnds, newLength);
+            fieldFlags = Arrays.copyOf(fieldFlags, newLength);
+        }
+
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldFlags[fieldCount] = flags;
+        fieldCount++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.ChoiceDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.type.RecordDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A Record Reader that produces the same Records as the {@link JsonTreeRowRecordReader} but converts the JSON tokens directly into
+ * Record values instead of first building a JsonNode tree for each JSON object. When unknown fields are to be dropped, the values of
+ * any fields that are not part of the schema are skipped by the parser without ever being materialized, regardless of how deeply
+ * nested they are.
+ */
+public class JsonStreamingRowRecordReader implements RecordReader {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final RecordSchema EMPTY_SCHEMA = new SimpleRecordSchema(Collections.emptyList());
+
+    private final ComponentLog logger;
+    private final RecordSchema schema;
+    private final JsonParser jsonParser;
+    private final Supplier<DateFormat> LAZY_DATE_FORMAT;
+    private final Supplier<DateFormat> LAZY_TIME_FORMAT;
+    private final Supplier<DateFormat> LAZY_TIMESTAMP_FORMAT;
+
+    public JsonStreamingRowRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema,
+                                        final String dateFormat, final String timeFormat, final String timestampFormat) throws IOException, MalformedRecordException {
+        this.logger = logger;
+        this.schema = schema;
+
+        final DateFormat df = dateFormat == null ? null : DataTypeUtils.getDateFormat(dateFormat);
+        final DateFormat tf = timeFormat == null ? null : DataTypeUtils.getDateFormat(timeFormat);
+        final DateFormat tsf = timestampFormat == null ? null : DataTypeUtils.getDateFormat(timestampFormat);
+
+        LAZY_DATE_FORMAT = () -> df;
+        LAZY_TIME_FORMAT = () -> tf;
+        LAZY_TIMESTAMP_FORMAT = () -> tsf;
+
+        try {
+            jsonParser = jsonFactory.createJsonParser(in);
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        }
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        try {
+            if (!advanceToNextObject()) {
+                return null;
+            }
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        }
+
+        try {
+            return readRecord(schema, null, coerceTypes, dropUnknownFields);
+        } catch (final MalformedRecordException mre) {
+            throw mre;
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        } catch (final Exception e) {
+            logger.debug("Failed to convert JSON Element into a Record object using schema {} due to {}", new Object[] {schema, e.toString(), e});
+            throw new MalformedRecordException("Successfully parsed a JSON object from input but failed to convert into a Record object with the given schema", e);
+        }
+    }
+
+    private boolean advanceToNextObject() throws IOException, MalformedRecordException {
+        while (true) {
+            final JsonToken token = jsonParser.nextToken();
+            if (token == null) {
+                return false;
+            }
+
+            switch (token) {
+                case START_OBJECT:
+                    return true;
+                case END_OBJECT:
+                case START_ARRAY:
+                case END_ARRAY:
+                    continue;
+                default:
+                    throw new MalformedRecordException("Expected to get a JSON Object but got a token of type " + token.name());
+            }
+        }
+    }
+
+    /**
+     * Reads the JSON object that the parser is currently positioned at (START_OBJECT) into a Record, leaving the parser
+     * positioned at the corresponding END_OBJECT token.
+     */
+    private Record readRecord(final RecordSchema schema, final String fieldNamePrefix, final boolean coerceTypes, final boolean dropUnknown)
+            throws IOException, MalformedRecordException {
+        final Map<String, Object> values = new HashMap<>(schema.getFieldCount() * 2);
+
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+
+            final RecordField recordField = schema.getField(fieldName).orElse(null);
+            if (recordField == null && dropUnknown) {
+                jsonParser.skipChildren();
+                continue;
+            }
+
+            final Object value;
+            if (coerceTypes && recordField != null) {
+                final String fullFieldName = fieldNamePrefix == null ? fieldName : fieldNamePrefix + fieldName;
+                value = convertField(recordField.getDataType(), fullFieldName, dropUnknown);
+            } else {
+                value = getRawValue(recordField == null ? null : recordField.getDataType(), fieldName);
+            }
+
+            // When dropping unknown fields, values are keyed by the schema's field name so that aliases are resolved, as with the tree reader
+            values.put(dropUnknown ? recordField.getFieldName() : fieldName, value);
+        }
+
+        return new MapRecord(schema, values, false, dropUnknown);
+    }
+
+    private Object convertField(final DataType desiredType, final String fieldName, final boolean dropUnknown) throws IOException, MalformedRecordException {
+        final JsonToken token = jsonParser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        switch (desiredType.getFieldType()) {
+            case BOOLEAN:
+            case BYTE:
+            case CHAR:
+            case DOUBLE:
+            case FLOAT:
+            case INT:
+            case LONG:
+            case SHORT:
+            case STRING:
+            case DATE:
+            case TIME:
+            case TIMESTAMP: {
+                final Object rawValue = getRawValue(null, fieldName);
+                return DataTypeUtils.convertType(rawValue, desiredType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
+            }
+            case MAP: {
+                final Map<String, Object> map = new HashMap<>();
+                if (token != JsonToken.START_OBJECT) {
+                    jsonParser.skipChildren();
+                    return map;
+                }
+
+                final DataType valueType = ((MapDataType) desiredType).getValueType();
+                while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String childName = jsonParser.getCurrentName();
+                    jsonParser.nextToken();
+                    map.put(childName, convertField(valueType, fieldName, dropUnknown));
+                }
+
+                return map;
+            }
+            case ARRAY: {
+                if (token != JsonToken.START_ARRAY) {
+                    return DataTypeUtils.convertType(getRawValue(null, fieldName), desiredType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
+                }
+
+                final DataType elementType = ((ArrayDataType) desiredType).getElementType();
+                final List<Object> elements = new ArrayList<>();
+                while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                    elements.add(convertField(elementType, fieldName, dropUnknown));
+                }
+
+                return elements.toArray();
+            }
+            case RECORD: {
+                if (token != JsonToken.START_OBJECT || !(desiredType instanceof RecordDataType)) {
+                    jsonParser.skipChildren();
+                    return null;
+                }
+
+                final RecordSchema childSchema = ((RecordDataType) desiredType).getChildSchema();
+                if (childSchema == null) {
+                    return readRecordWithStringFields(fieldName + ".");
+                }
+
+                return readRecord(childSchema, fieldName + ".", true, dropUnknown);
+            }
+            case CHOICE: {
+                return DataTypeUtils.convertType(getRawValue(desiredType, fieldName), desiredType, fieldName);
+            }
+        }
+
+        jsonParser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Reads a JSON object for a RECORD field whose schema is not known, treating every field of the object as a String.
+     */
+    private Record readRecordWithStringFields(final String fieldNamePrefix) throws IOException {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        final List<RecordField> fields = new ArrayList<>();
+        final DataType stringType = RecordFieldType.STRING.getDataType();
+
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String childName = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+
+            final Object rawValue = getRawValue(null, childName);
+            fields.add(new RecordField(childName, stringType));
+            values.put(childName, DataTypeUtils.convertType(rawValue, stringType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldNamePrefix + childName));
+        }
+
+        return new MapRecord(new SimpleRecordSchema(fields), values);
+    }
+
+    /**
+     * Reads the value that the parser is currently positioned at without coercing it into the given type, other than converting
+     * textual values into Dates, Times and Timestamps where the type calls for it.
+     */
+    private Object getRawValue(final DataType dataType, final String fieldName) throws IOException {
+        final JsonToken token = jsonParser.getCurrentToken();
+        if (token == null) {
+            return null;
+        }
+
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return jsonParser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_EMBEDDED_OBJECT:
+                return jsonParser.getEmbeddedObject();
+            case VALUE_STRING: {
+                final String textValue = jsonParser.getText();
+                if (dataType == null) {
+                    return textValue;
+                }
+
+                switch (dataType.getFieldType()) {
+                    case DATE:
+                    case TIME:
+                    case TIMESTAMP:
+                        try {
+                            return DataTypeUtils.convertType(textValue, dataType, LAZY_DATE_FORMAT, LAZY_TIME_FORMAT, LAZY_TIMESTAMP_FORMAT, fieldName);
+                        } catch (final Exception e) {
+                            return textValue;
+                        }
+                }
+
+                return textValue;
+            }
+            case START_ARRAY: {
+                final DataType elementDataType;
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.ARRAY) {
+                    elementDataType = ((ArrayDataType) dataType).getElementType();
+                } else {
+                    elementDataType = dataType;
+                }
+
+                final List<Object> elements = new ArrayList<>();
+                while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+                    elements.add(getRawValue(elementDataType, fieldName));
+                }
+
+                return elements.toArray();
+            }
+            case START_OBJECT:
+                return getRawObject(dataType);
+            default:
+                return null;
+        }
+    }
+
+    private Record getRawObject(final DataType dataType) throws IOException {
+        if (dataType != null && RecordFieldType.RECORD == dataType.getFieldType()) {
+            final RecordSchema childSchema = ((RecordDataType) dataType).getChildSchema();
+            final RecordSchema recordSchema = childSchema == null ? EMPTY_SCHEMA : childSchema;
+            return new MapRecord(recordSchema, readRawValues(recordSchema));
+        }
+
+        if (dataType != null && RecordFieldType.CHOICE == dataType.getFieldType()) {
+            // The object must be fully read before the most suitable Record type can be chosen
+            final Map<String, Object> childValues = readRawValues(EMPTY_SCHEMA);
+
+            for (final DataType possibleDataType : ((ChoiceDataType) dataType).getPossibleSubTypes()) {
+                if (possibleDataType.getFieldType() != RecordFieldType.RECORD) {
+                    continue;
+                }
+
+                final RecordSchema possibleSchema = ((RecordDataType) possibleDataType).getChildSchema();
+                final Record possibleRecord = new MapRecord(possibleSchema, childValues);
+                if (DataTypeUtils.isCompatibleDataType(possibleRecord, possibleDataType)) {
+                    return possibleRecord;
+                }
+            }
+
+            return new MapRecord(EMPTY_SCHEMA, childValues);
+        }
+
+        return new MapRecord(EMPTY_SCHEMA, readRawValues(EMPTY_SCHEMA));
+    }
+
+    private Map<String, Object> readRawValues(final RecordSchema childSchema) throws IOException {
+        final Map<String, Object> childValues = new HashMap<>();
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String childFieldName = jsonParser.getCurrentName();
+            jsonParser.nextToken();
+
+            final DataType childDataType = childSchema.getDataType(childFieldName).orElse(null);
+            childValues.put(childFieldName, getRawValue(childDataType, childFieldName));
+        }
+
+        return childValues;
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonParser.close();
+    }
+}
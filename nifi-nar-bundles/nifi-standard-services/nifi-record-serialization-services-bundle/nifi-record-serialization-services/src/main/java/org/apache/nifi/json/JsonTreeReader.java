@@ -25,6 +25,7 @@ import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.context.PropertyContext;
 import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.expression.ExpressionLanguageScope;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.schema.access.SchemaAccessStrategy;
 import org.apache.nifi.schema.access.SchemaNotFoundException;
@@ -62,6 +63,25 @@ import static org.apache.nifi.schema.inference.SchemaInferenceUtil.SCHEMA_CACHE;
 @SeeAlso(JsonPathReader.class)
 public class JsonTreeReader extends SchemaRegistryService implements RecordReaderFactory {
 
+    static final AllowableValue TREE_PARSING = new AllowableValue("tree", "Tree",
+        "Each JSON object is parsed into a tree of JSON nodes, which is then converted into a Record. The JSON of an unmodified Record can be written out "
+            + "again without being re-serialized.");
+    static final AllowableValue STREAMING_PARSING = new AllowableValue("streaming", "Streaming",
+        "The JSON tokens are converted directly into Records without building an intermediate tree, and the values of fields that are not in the schema "
+            + "are skipped without being read into memory. This uses considerably less CPU and heap for large or deeply nested JSON documents, but Record "
+            + "Writers must always re-serialize the Records.");
+
+    public static final PropertyDescriptor PARSING_MODE = new PropertyDescriptor.Builder()
+        .name("json-tree-reader-parsing-mode")
+        .displayName("Parsing Mode")
+        .description("Specifies how the JSON content is converted into Records.")
+        .expressionLanguageSupported(ExpressionLanguageScope.NONE)
+        .allowableValues(TREE_PARSING, STREAMING_PARSING)
+        .defaultValue(TREE_PARSING.getValue())
+        .required(true)
+        .build();
+
+    private volatile boolean streamingParsing;
     private volatile String dateFormat;
     private volatile String timeFormat;
     private volatile String timestampFormat;
@@ -70,6 +90,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<>(super.getSupportedPropertyDescriptors());
         properties.add(SCHEMA_CACHE);
+        properties.add(PARSING_MODE);
         properties.add(DateTimeUtils.DATE_FORMAT);
         properties.add(DateTimeUtils.TIME_FORMAT);
         properties.add(DateTimeUtils.TIMESTAMP_FORMAT);
@@ -78,6 +99,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
 
     @OnEnabled
     public void storeFormats(final ConfigurationContext context) {
+        this.streamingParsing = STREAMING_PARSING.getValue().equals(context.getProperty(PARSING_MODE).getValue());
         this.dateFormat = context.getProperty(DateTimeUtils.DATE_FORMAT).getValue();
         this.timeFormat = context.getProperty(DateTimeUtils.TIME_FORMAT).getValue();
         this.timestampFormat = context.getProperty(DateTimeUtils.TIMESTAMP_FORMAT).getValue();
@@ -108,6 +130,10 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
     public RecordReader createRecordReader(final Map<String, String> variables, final InputStream in, final long inputLength, final ComponentLog logger)
             throws IOException, MalformedRecordException, SchemaNotFoundException {
         final RecordSchema schema = getSchema(variables, in, null);
+        if (streamingParsing) {
+            return new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
+        }
+
         return new JsonTreeRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
     }
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Reads a large amount of data with the Fast CSV based Record Reader, checking that it produces the same records as the Apache Commons CSV based one.
+ */
+public class ITFastCSVRecordReader {
+    // Generates about 130MB of data
+    private static final int NUM_LINES = 2500000;
+
+    private static byte[] data;
+
+    private final CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader().withTrim().withQuote('"');
+
+    @BeforeClass
+    public static void createData() {
+        final StringBuilder sb = new StringBuilder("id,name,balance,address,city,state,zipCode,country\n");
+        for (int i = 0; i < NUM_LINES; i++) {
+            sb.append(i).append(",John Doe,4750.89,123 My Street,My City,MS,11111,USA\n");
+        }
+        data = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private RecordSchema getSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.LONG.getDataType()));
+        for (final String fieldName : new String[]{"name", "address", "city", "state", "zipCode", "country"}) {
+            fields.add(new RecordField(fieldName, RecordFieldType.STRING.getDataType()));
+        }
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        return new SimpleRecordSchema(fields);
+    }
+
+    private RecordReader createFastReader(final InputStream in, final RecordSchema schema) throws IOException {
+        return new FastCSVRecordReader(in, Mockito.mock(ComponentLog.class), schema, format, true, false,
+            RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), "UTF-8");
+    }
+
+    @Test
+    public void testParserPerformance() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+
+        try (final InputStream in = new ByteArrayInputStream(data);
+             final RecordReader reader = createFastReader(in, schema)) {
+
+            Record record;
+            int numRecords = 0;
+            while ((record = reader.nextRecord()) != null) {
+                assertNotNull(record);
+                numRecords++;
+            }
+            assertEquals(NUM_LINES, numRecords);
+        }
+    }
+
+    @Test
+    public void testRecordsMatchApacheCommonsReader() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+
+        try (final InputStream fastIn = new ByteArrayInputStream(data);
+             final RecordReader fastReader = createFastReader(fastIn, schema);
+             final InputStream commonsIn = new ByteArrayInputStream(data);
+             final RecordReader commonsReader = new CSVRecordReader(commonsIn, Mockito.mock(ComponentLog.class), schema, format, true, false,
+                 RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), "UTF-8")) {
+
+            Record expected;
+            int numRecords = 0;
+            while ((expected = commonsReader.nextRecord()) != null) {
+                final Record actual = fastReader.nextRecord();
+                assertNotNull(actual);
+                assertArrayEquals(expected.getValues(), actual.getValues());
+                numRecords++;
+            }
+            assertNull(fastReader.nextRecord());
+            assertEquals(NUM_LINES, numRecords);
+        }
+    }
+}
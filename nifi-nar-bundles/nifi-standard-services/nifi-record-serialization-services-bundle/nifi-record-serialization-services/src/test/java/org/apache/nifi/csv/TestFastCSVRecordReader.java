@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TestFastCSVRecordReader {
+    private final DataType doubleDataType = RecordFieldType.DOUBLE.getDataType();
+    private final CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader().withTrim().withQuote('"');
+
+    private List<RecordField> getDefaultFields() {
+        final List<RecordField> fields = new ArrayList<>();
+        for (final String fieldName : new String[] {"id", "name", "balance", "address", "city", "state", "zipCode", "country"}) {
+            fields.add(new RecordField(fieldName, RecordFieldType.STRING.getDataType()));
+        }
+        return fields;
+    }
+
+    private FastCSVRecordReader createReader(final InputStream in, final RecordSchema schema, final CSVFormat format) throws IOException {
+        return createReader(in, schema, format, FastCSVRecordReader.DEFAULT_BUFFER_SIZE);
+    }
+
+    private FastCSVRecordReader createReader(final InputStream in, final RecordSchema schema, final CSVFormat format, final int bufferSize) throws IOException {
+        return new FastCSVRecordReader(in, Mockito.mock(ComponentLog.class), schema, format, true, false,
+            RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), "UTF-8", bufferSize);
+    }
+
+    @Test
+    public void testUTF8() throws IOException, MalformedRecordException {
+        final String text = "name\n黃凱揚";
+
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        try (final InputStream bais = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+             final FastCSVRecordReader reader = createReader(bais, schema, format)) {
+
+            final Record record = reader.nextRecord();
+            assertEquals("黃凱揚", record.getValue("name"));
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testMultipleRecords() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = getDefaultFields();
+        fields.replaceAll(f -> f.getFieldName().equals("balance") ? new RecordField("balance", doubleDataType) : f);
+
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        try (final InputStream fis = new FileInputStream(new File("src/test/resources/csv/multi-bank-account.csv"));
+             final FastCSVRecordReader reader = createReader(fis, schema, format)) {
+
+            final Object[] firstRecord = reader.nextRecord().getValues();
+            final Object[] firstExpectedValues = new Object[] {"1", "John Doe", 4750.89D, "123 My Street", "My City", "MS", "11111", "USA"};
+            Assert.assertArrayEquals(firstExpectedValues, firstRecord);
+
+            final Object[] secondRecord = reader.nextRecord().getValues();
+            final Object[] secondExpectedValues = new Object[] {"2", "Jane Doe", 4820.09D, "321 Your Street", "Your City", "NY", "33333", "USA"};
+            Assert.assertArrayEquals(secondExpectedValues, secondRecord);
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testExtraWhiteSpace() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = getDefaultFields();
+        fields.replaceAll(f -> f.getFieldName().equals("balance") ? new RecordField("balance", doubleDataType) : f);
+
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        try (final InputStream fis = new FileInputStream(new File("src/test/resources/csv/extra-white-space.csv"));
+             final FastCSVRecordReader reader = createReader(fis, schema, format)) {
+
+            final Object[] firstRecord = reader.nextRecord().getValues();
+            final Object[] firstExpectedValues = new Object[] {"1", "John Doe", 4750.89D, "123 My Street", "My City", "MS", "11111", "USA"};
+            Assert.assertArrayEquals(firstExpectedValues, firstRecord);
+
+            final Object[] secondRecord = reader.nextRecord().getValues();
+            final Object[] secondExpectedValues = new Object[] {"2", "Jane Doe", 4820.09D, "321 Your Street", "Your City", "NY", "33333", "USA"};
+            Assert.assertArrayEquals(secondExpectedValues, secondRecord);
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testQuotedValuesSpanningBufferBoundaries() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("comment", RecordFieldType.STRING.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String csvData = "id,comment\r\n"
+            + "1,\"a value, with a delimiter\"\r\n"
+            + "2,\"a value with \"\"quotes\"\" and a\nnew line\"\r\n"
+            + "3,plain\r\n";
+
+        // Use a tiny buffer so that rows and quoted values straddle the buffer boundaries
+        try (final InputStream bais = new ByteArrayInputStream(csvData.getBytes(StandardCharsets.UTF_8));
+             final FastCSVRecordReader reader = createReader(bais, schema, format, 16)) {
+
+            Record record = reader.nextRecord();
+            assertEquals(1, record.getValue("id"));
+            assertEquals("a value, with a delimiter", record.getValue("comment"));
+
+            record = reader.nextRecord();
+            assertEquals(2, record.getValue("id"));
+            assertEquals("a value with \"quotes\" and a\nnew line", record.getValue("comment"));
+
+            record = reader.nextRecord();
+            assertEquals(3, record.getValue("id"));
+            assertEquals("plain", record.getValue("comment"));
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testIntegralConversion() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("int", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("long", RecordFieldType.LONG.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String csvData = "int,long\n-42,+9000000000\n2147483648,12345678901234567890\n,\n";
+
+        try (final InputStream bais = new ByteArrayInputStream(csvData.getBytes(StandardCharsets.UTF_8));
+             final FastCSVRecordReader reader = createReader(bais, schema, format)) {
+
+            Record record = reader.nextRecord(false, false);
+            assertEquals(-42, record.getValue("int"));
+            assertEquals(9000000000L, record.getValue("long"));
+
+            // Values that do not fit are left for the standard conversion
+            record = reader.nextRecord(false, false);
+            assertEquals("2147483648", record.getValue("int"));
+            assertEquals("12345678901234567890", record.getValue("long"));
+
+            record = reader.nextRecord(false, false);
+            assertNull(record.getValue("int"));
+            assertNull(record.getValue("long"));
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testNumericNullStringOnIntegralFields() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("int", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("long", RecordFieldType.LONG.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader().withNullString("-1");
+        final String csvData = "int,long\n-1,-1\n-10,7\n";
+
+        try (final InputStream bais = new ByteArrayInputStream(csvData.getBytes(StandardCharsets.UTF_8));
+             final FastCSVRecordReader reader = createReader(bais, schema, format)) {
+
+            Record record = reader.nextRecord();
+            assertNull(record.getValue("int"));
+            assertNull(record.getValue("long"));
+
+            record = reader.nextRecord();
+            assertEquals(-10, record.getValue("int"));
+            assertEquals(7L, record.getValue("long"));
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testCommentsEscapesAndNullString() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("a", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("b", RecordFieldType.STRING.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader().withCommentMarker('#').withEscape('\\').withNullString("NULL");
+        final String csvData = "# leading comment\na,b\nx\\,y,NULL\n# another comment\n\nlast,\"NULL\"";
+
+        try (final InputStream bais = new ByteArrayInputStream(csvData.getBytes(StandardCharsets.UTF_8));
+             final FastCSVRecordReader reader = createReader(bais, schema, format)) {
+
+            Record record = reader.nextRecord();
+            assertEquals("x,y", record.getValue("a"));
+            assertNull(record.getValue("b"));
+
+            record = reader.nextRecord();
+            assertEquals("last", record.getValue("a"));
+            assertEquals("NULL", record.getValue("b"));
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test
+    public void testExtraFieldNotInHeader() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = getDefaultFields();
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String headerLine = "id, name, balance, address, city, state, zipCode, country";
+        final String inputRecord = "1, John, 40.80, 123 My Street, My City, MS, 11111, USA, North America";
+        final String csvData = headerLine + "\n" + inputRecord;
+        final byte[] inputData = csvData.getBytes(StandardCharsets.UTF_8);
+
+        try (final InputStream bais = new ByteArrayInputStream(inputData);
+             final FastCSVRecordReader reader = createReader(bais, schema, format)) {
+
+            final Record record = reader.nextRecord(false, false);
+            assertNotNull(record);
+
+            assertEquals("1", record.getValue("id"));
+            assertEquals("USA", record.getValue("country"));
+            assertEquals("North America", record.getValue("unknown_field_index_8"));
+
+            assertNull(reader.nextRecord(false, false));
+        }
+
+        try (final InputStream bais = new ByteArrayInputStream(inputData);
+             final FastCSVRecordReader reader = createReader(bais, schema, format)) {
+
+            final Record record = reader.nextRecord(true, true);
+            assertNotNull(record);
+
+            assertEquals("USA", record.getValue("country"));
+            assertNull(record.getValue("unknown_field_index_8"));
+        }
+    }
+
+    @Test
+    public void testFieldInSchemaButNotHeader() throws IOException, MalformedRecordException {
+        final List<RecordField> fields = getDefaultFields();
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final String headerLine = "id, name, balance, address, city, state, zipCode";
+        final String inputRecord = "1, John, 40.80, 123 My Street, My City, MS, 11111, USA";
+        final String csvData = headerLine + "\n" + inputRecord;
+        final byte[] inputData = csvData.getBytes(StandardCharsets.UTF_8);
+
+        // Ignore the header, which should cause the schema to be the definitive list of what fields exist.
+        try (final InputStream bais = new ByteArrayInputStream(inputData);
+             final FastCSVRecordReader reader = new FastCSVRecordReader(bais, Mockito.mock(ComponentLog.class), schema, format, true, true,
+                 RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), "UTF-8")) {
+
+            final Record record = reader.nextRecord();
+            assertNotNull(record);
+
+            assertEquals("1", record.getValue("id"));
+            assertEquals("11111", record.getValue("zipCode"));
+            assertEquals("USA", record.getValue("country"));
+
+            assertNull(reader.nextRecord());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedCharset() throws IOException {
+        final RecordSchema schema = new SimpleRecordSchema(getDefaultFields());
+        new FastCSVRecordReader(new ByteArrayInputStream(new byte[0]), Mockito.mock(ComponentLog.class), schema, format, true, false,
+            RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), "UTF-16");
+    }
+}